@@ -6,6 +6,7 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
 import org.springframework.context.annotation.Bean;
 import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.data.mongodb.core.MongoTemplate;
 
 import bachelor.projectmanagement.config.DatabaseCleaner;
@@ -14,6 +15,7 @@ import bachelor.projectmanagement.config.DatabaseCleaner;
 import org.bson.Document;
 
 @SpringBootApplication(exclude = {DataSourceAutoConfiguration.class})
+@EnableScheduling
 public class Application {
 
     public static void main(String[] args) {
@@ -0,0 +1,18 @@
+package bachelor.projectmanagement.config;
+
+import bachelor.projectmanagement.graphql.PersistedQueryProvider;
+import org.springframework.boot.autoconfigure.graphql.GraphQlSourceBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class GraphQlConfig {
+
+    /**
+     * Parse and validate documents through the persisted query cache
+     */
+    @Bean
+    GraphQlSourceBuilderCustomizer persistedQueries(PersistedQueryProvider persistedQueryProvider) {
+        return builder -> builder.configureGraphQl(graphQl -> graphQl.preparsedDocumentProvider(persistedQueryProvider));
+    }
+}
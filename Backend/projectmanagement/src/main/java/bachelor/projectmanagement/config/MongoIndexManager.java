@@ -0,0 +1,196 @@
+package bachelor.projectmanagement.config;
+
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexField;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Declares the indexes the repository queries rely on and reconciles them on startup.
+ *
+ * Missing indexes are created, and an index with the declared keys that is not unique but
+ * should be is converted in place with collMod. An index that has a declared index's name but
+ * other keys is replaced: the declared index is built under a temporary name first and the old
+ * one is dropped only once that succeeded. Indexes that are present but not declared here are
+ * logged and left alone. If a declared index cannot be built, for example a unique index over
+ * duplicate values, startup fails with the existing indexes untouched instead of silently
+ * falling back to collection scans.
+ *
+ * Spring Data's @Indexed annotations are not applied because auto index creation is off,
+ * so this class is the single source of truth for indexes.
+ */
+@Component
+@Order(1)
+public class MongoIndexManager implements CommandLineRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(MongoIndexManager.class);
+
+    private final MongoTemplate mongoTemplate;
+    private final boolean taskCollection;
+
+    public MongoIndexManager(MongoTemplate mongoTemplate,
+                             @Value("${app.tasks.storage:embedded}") String taskStorage) {
+        this.mongoTemplate = mongoTemplate;
+        this.taskCollection = "collection".equalsIgnoreCase(taskStorage);
+    }
+
+    record DeclaredIndex(String collection, String name, List<String> keys, boolean unique) {
+
+        Index toIndex(String indexName) {
+            Index index = new Index().named(indexName);
+            keys.forEach(key -> index.on(key, Sort.Direction.ASC));
+            return unique ? index.unique() : index;
+        }
+
+        // An existing index covers this declaration if it has the same keys and is at least as strict
+        boolean isSatisfiedBy(IndexInfo info) {
+            return hasSameKeys(info) && (!unique || info.isUnique());
+        }
+
+        boolean hasSameKeys(IndexInfo info) {
+            List<IndexField> fields = info.getIndexFields();
+            if (fields.size() != keys.size()) {
+                return false;
+            }
+            for (int i = 0; i < keys.size(); i++) {
+                IndexField field = fields.get(i);
+                if (!field.getKey().equals(keys.get(i)) || field.getDirection() != Sort.Direction.ASC) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    List<DeclaredIndex> declaredIndexes() {
+        List<DeclaredIndex> indexes = new ArrayList<>();
+        // UserRepository.findByUsername runs on every login and authenticated request
+        indexes.add(new DeclaredIndex("users", "username_unique", List.of("username"), true));
+        // ProjectRepository.findByOwnersContaining lists a user's projects
+        indexes.add(new DeclaredIndex("projects", "owners_userId", List.of("owners.userId"), false));
+        // CourseLevelConfigRepository.findAllByCourseLevel; unique so that insertIfAbsent cannot create
+        // duplicates, older duplicates are removed by the DeduplicateCourseConfigs migration beforehand
+        indexes.add(new DeclaredIndex("course_configs", "courseLevel", List.of("courseLevel"), true));
+        if (taskCollection) {
+            indexes.add(new DeclaredIndex("tasks", "project_epic_feature", List.of("projectId", "epicId", "featureId"), false));
+            indexes.add(new DeclaredIndex("tasks", "featureId", List.of("featureId"), false));
+            indexes.add(new DeclaredIndex("tasks", "users", List.of("users"), false));
+            indexes.add(new DeclaredIndex("tasks", "dueDate", List.of("dueDate"), false));
+        } else {
+            indexes.add(new DeclaredIndex("projects", "task_users", List.of("epics.features.tasks.users"), false));
+            indexes.add(new DeclaredIndex("projects", "task_dueDate", List.of("epics.features.tasks.dueDate"), false));
+        }
+        return indexes;
+    }
+
+    @Override
+    public void run(String... args) {
+        reconcile();
+    }
+
+    /**
+     * Create or rebuild every declared index that is missing or too weak
+     * @throws IllegalStateException if a declared index cannot be built
+     */
+    public void reconcile() {
+        Map<String, List<DeclaredIndex>> byCollection = new LinkedHashMap<>();
+        for (DeclaredIndex declared : declaredIndexes()) {
+            byCollection.computeIfAbsent(declared.collection(), c -> new ArrayList<>()).add(declared);
+        }
+
+        int created = 0;
+        for (Map.Entry<String, List<DeclaredIndex>> entry : byCollection.entrySet()) {
+            String collection = entry.getKey();
+            IndexOperations indexOps = mongoTemplate.indexOps(collection);
+            List<IndexInfo> existing = indexOps.getIndexInfo();
+
+            for (DeclaredIndex declared : entry.getValue()) {
+                Optional<IndexInfo> sameKeys = existing.stream().filter(declared::hasSameKeys).findFirst();
+                if (sameKeys.isPresent() && declared.isSatisfiedBy(sameKeys.get())) {
+                    if (!sameKeys.get().getName().equals(declared.name())) {
+                        logger.info("Index {} on {} already exists as {}", declared.name(), collection, sameKeys.get().getName());
+                    }
+                    continue;
+                }
+                if (sameKeys.isPresent()) {
+                    makeUnique(collection, sameKeys.get().getName(), declared);
+                    continue;
+                }
+                Optional<IndexInfo> sameName = existing.stream()
+                        .filter(info -> info.getName().equals(declared.name()))
+                        .findFirst();
+                if (sameName.isPresent()) {
+                    logger.warn("Index {} on {} has different keys than declared, rebuilding it", declared.name(), collection);
+                    // The name is taken until the old index is dropped, so the replacement keeps the temporary one
+                    build(indexOps, collection, declared, declared.name() + "_rebuilt");
+                    indexOps.dropIndex(sameName.get().getName());
+                } else {
+                    build(indexOps, collection, declared, declared.name());
+                }
+                created++;
+            }
+
+            for (IndexInfo info : existing) {
+                boolean declared = info.getName().equals("_id_")
+                        || entry.getValue().stream().anyMatch(d -> d.hasSameKeys(info) || d.name().equals(info.getName()));
+                if (!declared) {
+                    logger.warn("Index {} on {} is not declared in MongoIndexManager", info.getName(), collection);
+                }
+            }
+        }
+        if (created > 0) {
+            logger.info("Created {} MongoDB index(es)", created);
+        }
+    }
+
+    private void build(IndexOperations indexOps, String collection, DeclaredIndex declared, String indexName) {
+        try {
+            indexOps.createIndex(declared.toIndex(indexName));
+            logger.info("Created index {} on {}", indexName, collection);
+        } catch (RuntimeException e) {
+            throw new IllegalStateException("Could not build required index " + declared.name() + " on "
+                    + collection + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Convert an existing index to unique in place (MongoDB 6.0+). prepareUnique first stops new
+     * duplicates, then the conversion fails if the collection still has some, leaving the index as it was.
+     */
+    private void makeUnique(String collection, String indexName, DeclaredIndex declared) {
+        logger.warn("Index {} on {} is not unique, converting it", indexName, collection);
+        try {
+            collMod(collection, indexName, "prepareUnique", true);
+            collMod(collection, indexName, "unique", true);
+        } catch (RuntimeException e) {
+            try {
+                collMod(collection, indexName, "prepareUnique", false);
+            } catch (RuntimeException undo) {
+                logger.warn("Could not reset prepareUnique on index {} of {}: {}", indexName, collection, undo.getMessage());
+            }
+            throw new IllegalStateException("Could not make index " + indexName + " on " + collection
+                    + " unique as required by " + declared.name() + ": " + e.getMessage(), e);
+        }
+        logger.info("Index {} on {} is now unique", indexName, collection);
+    }
+
+    private void collMod(String collection, String indexName, String option, boolean value) {
+        mongoTemplate.executeCommand(new Document("collMod", collection)
+                .append("index", new Document("name", indexName).append(option, value)));
+    }
+}
@@ -0,0 +1,38 @@
+package bachelor.projectmanagement.config;
+
+import bachelor.projectmanagement.model.Project;
+import com.mongodb.client.result.UpdateResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+@Configuration
+public class ProjectVersionInitializer {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProjectVersionInitializer.class);
+
+    /**
+     * Projects saved before optimistic locking have no version field. Spring Data treats a
+     * null version as a new document, so saving such a project would try to insert it again.
+     */
+    @Bean
+    @Order(2)
+    CommandLineRunner initializeProjectVersions(MongoTemplate mongoTemplate) {
+        return args -> {
+            UpdateResult result = mongoTemplate.updateMulti(
+                    Query.query(Criteria.where("version").exists(false)),
+                    new Update().set("version", 0L),
+                    Project.class);
+            if (result.getModifiedCount() > 0) {
+                logger.info("Initialized version on {} project(s)", result.getModifiedCount());
+            }
+        };
+    }
+}
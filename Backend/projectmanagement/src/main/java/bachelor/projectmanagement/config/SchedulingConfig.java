@@ -0,0 +1,48 @@
+package bachelor.projectmanagement.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.task.SimpleAsyncTaskSchedulerBuilder;
+import org.springframework.boot.task.ThreadPoolTaskSchedulerBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+/**
+ * Schedulers for @Scheduled jobs and for SSE.
+ *
+ * SSE timing (coalescing window flushes, heartbeat ticks, dropping idle event logs) runs on its
+ * own scheduler, so a slow Mongo reload in ProjectMembershipIndex or CourseLevelConfigService
+ * on the default single-threaded scheduler does not hold up updates to every project.
+ */
+@Configuration
+public class SchedulingConfig {
+
+    /**
+     * The scheduler @Scheduled jobs use by default, built the way Spring Boot would. Boot only
+     * creates it when there is no other TaskScheduler bean, so with sseScheduler it is declared here.
+     */
+    @Bean
+    TaskScheduler taskScheduler(ThreadPoolTaskSchedulerBuilder threadPoolBuilder,
+                                SimpleAsyncTaskSchedulerBuilder simpleAsyncBuilder,
+                                @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        if (virtualThreads) {
+            return simpleAsyncBuilder.build();
+        }
+        return threadPoolBuilder.build();
+    }
+
+    /**
+     * Scheduler for SSEService and SseHeartbeatWheel. Its tasks only queue events and never wait
+     * for a client, but with app.sse.event-bus=mongo a flush inserts into Mongo, so it has more
+     * than one thread.
+     */
+    @Bean
+    TaskScheduler sseScheduler(@Value("${app.sse.scheduler-pool-size:2}") int poolSize) {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(poolSize);
+        scheduler.setThreadNamePrefix("sse-scheduler-");
+        scheduler.setDaemon(true);
+        return scheduler;
+    }
+}
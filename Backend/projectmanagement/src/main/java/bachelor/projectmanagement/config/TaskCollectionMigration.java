@@ -0,0 +1,93 @@
+package bachelor.projectmanagement.config;
+
+import bachelor.projectmanagement.model.Epic;
+import bachelor.projectmanagement.model.Feature;
+import bachelor.projectmanagement.model.Project;
+import bachelor.projectmanagement.model.Task;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+@Configuration
+@ConditionalOnProperty(name = "app.tasks.storage", havingValue = "collection")
+public class TaskCollectionMigration {
+
+    private static final Logger logger = LoggerFactory.getLogger(TaskCollectionMigration.class);
+
+    /**
+     * Moves tasks still embedded in projects into the "tasks" collection.
+     * Tasks are upserted by id before they are removed from the project, so an interrupted
+     * run is simply repeated on the next startup. The project is only rewritten if its
+     * version is unchanged, a project edited concurrently is picked up on the next run.
+     * The task indexes are created beforehand by MongoIndexManager.
+     */
+    @Bean
+    @Order(3)
+    CommandLineRunner migrateEmbeddedTasks(MongoTemplate mongoTemplate) {
+        return args -> {
+            Query withEmbeddedTasks = Query.query(Criteria.where("epics.features.tasks.0").exists(true));
+            int migratedProjects = 0;
+            int migratedTasks = 0;
+            try (Stream<Project> projects = mongoTemplate.stream(withEmbeddedTasks, Project.class)) {
+                for (Project project : (Iterable<Project>) projects::iterator) {
+                    List<Task> tasks = detachTasks(project);
+                    BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Task.class);
+                    for (Task task : tasks) {
+                        bulk.replaceOne(Query.query(Criteria.where("_id").is(task.getTaskId())), task,
+                                FindAndReplaceOptions.options().upsert());
+                    }
+                    bulk.execute();
+
+                    long matched = mongoTemplate.updateFirst(
+                            Query.query(Criteria.where("_id").is(project.getProjectId())
+                                    .and("version").is(project.getVersion())),
+                            new Update().set("epics", project.getEpics()).inc("version", 1),
+                            Project.class).getMatchedCount();
+                    if (matched > 0) {
+                        migratedProjects++;
+                        migratedTasks += tasks.size();
+                    } else {
+                        logger.info("Project {} changed during task migration, retrying on next startup", project.getProjectId());
+                    }
+                }
+            }
+            if (migratedProjects > 0) {
+                logger.info("Moved {} task(s) from {} project(s) to the tasks collection", migratedTasks, migratedProjects);
+            }
+        };
+    }
+
+    // Collects the embedded tasks with their parent ids and empties the task lists in place
+    private static List<Task> detachTasks(Project project) {
+        List<Task> tasks = new ArrayList<>();
+        for (Epic epic : project.getEpics()) {
+            if (epic.getFeatures() == null) {
+                continue;
+            }
+            for (Feature feature : epic.getFeatures()) {
+                for (Task task : feature.getTasks()) {
+                    task.setProjectId(project.getProjectId());
+                    task.setEpicId(epic.getEpicId());
+                    task.setFeatureId(feature.getFeatureId());
+                    tasks.add(task);
+                }
+                feature.setTasks(new ArrayList<>());
+            }
+        }
+        return tasks;
+    }
+}
@@ -0,0 +1,117 @@
+package bachelor.projectmanagement.config;
+
+import com.mongodb.DBRef;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.Updates;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Configuration
+public class UserRefMigration {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserRefMigration.class);
+
+    /**
+     * Older databases link documents with DBRefs. This rewrites them in place:
+     * project and epic owners become embedded {userId, username} summaries, User.projects
+     * becomes projectIds and CourseLevelConfig.templateProject becomes templateProjectId.
+     * Works on raw documents since the DBRefs can no longer be read into the model, and
+     * only touches documents that still contain a DBRef, so it is safe to run on every startup.
+     */
+    @Bean
+    @Order(1)
+    CommandLineRunner migrateDbRefs(MongoTemplate mongoTemplate) {
+        return args -> {
+            int projects = migrateProjects(mongoTemplate);
+            int users = migrateUsers(mongoTemplate.getCollection("users"));
+            int configs = migrateCourseConfigs(mongoTemplate.getCollection("course_configs"));
+            if (projects + users + configs > 0) {
+                logger.info("Replaced DBRefs in {} project(s), {} user(s) and {} course config(s)", projects, users, configs);
+            }
+        };
+    }
+
+    private static int migrateProjects(MongoTemplate mongoTemplate) {
+        MongoCollection<Document> projects = mongoTemplate.getCollection("projects");
+        Bson withDbRefs = Filters.or(Filters.exists("owners.$ref"), Filters.exists("epics.owner.$ref"));
+        if (projects.countDocuments(withDbRefs) == 0) {
+            return 0;
+        }
+
+        Map<Object, String> usernames = new HashMap<>();
+        for (Document user : mongoTemplate.getCollection("users").find().projection(Projections.include("username"))) {
+            usernames.put(user.get("_id"), user.getString("username"));
+        }
+
+        int migrated = 0;
+        for (Document project : projects.find(withDbRefs)) {
+            List<Object> owners = new ArrayList<>();
+            for (Object owner : project.getList("owners", Object.class, List.of())) {
+                owners.add(toUserRef(owner, usernames));
+            }
+            List<Document> epics = project.getList("epics", Document.class, List.of());
+            for (Document epic : epics) {
+                if (epic.get("owner") instanceof DBRef) {
+                    epic.put("owner", toUserRef(epic.get("owner"), usernames));
+                }
+            }
+            projects.updateOne(Filters.eq("_id", project.get("_id")), Updates.combine(
+                    Updates.set("owners", owners),
+                    Updates.set("epics", epics),
+                    Updates.inc("version", 1)));
+            migrated++;
+        }
+        return migrated;
+    }
+
+    private static int migrateUsers(MongoCollection<Document> users) {
+        int migrated = 0;
+        for (Document user : users.find(Filters.exists("projects"))) {
+            List<String> projectIds = new ArrayList<>();
+            for (Object project : user.getList("projects", Object.class, List.of())) {
+                if (project instanceof DBRef ref) {
+                    projectIds.add(ref.getId().toString());
+                }
+            }
+            users.updateOne(Filters.eq("_id", user.get("_id")), Updates.combine(
+                    Updates.addEachToSet("projectIds", projectIds),
+                    Updates.unset("projects")));
+            migrated++;
+        }
+        return migrated;
+    }
+
+    private static int migrateCourseConfigs(MongoCollection<Document> configs) {
+        int migrated = 0;
+        for (Document config : configs.find(Filters.exists("templateProject"))) {
+            Bson update = config.get("templateProject") instanceof DBRef ref
+                    ? Updates.combine(Updates.set("templateProjectId", ref.getId().toString()), Updates.unset("templateProject"))
+                    : Updates.unset("templateProject");
+            configs.updateOne(Filters.eq("_id", config.get("_id")), update);
+            migrated++;
+        }
+        return migrated;
+    }
+
+    // Already migrated entries are kept as they are
+    private static Object toUserRef(Object owner, Map<Object, String> usernames) {
+        if (owner instanceof DBRef ref) {
+            return new Document("userId", ref.getId().toString()).append("username", usernames.get(ref.getId()));
+        }
+        return owner;
+    }
+}
@@ -0,0 +1,74 @@
+package bachelor.projectmanagement.config;
+
+import io.micrometer.context.ContextRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.context.request.RequestAttributesThreadLocalAccessor;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Support for the "virtual" profile, which sets spring.threads.virtual.enabled. Spring Boot then
+ * runs Tomcat requests, the application task executor and the scheduler on virtual threads, and
+ * Spring GraphQL invokes blocking controller methods on that executor, so sibling fields of a
+ * query are fetched concurrently.
+ */
+@Configuration
+public class VirtualThreadConfig {
+
+    /**
+     * Executor for independent blocking loads within one request, see ProjectService.hasProjectAccess.
+     * With virtual threads every load gets its own thread. Without them the loads run one after
+     * the other on the calling thread, so they do not queue behind other requests for pool threads.
+     */
+    @Bean
+    Executor fetchExecutor(@Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        if (virtualThreads) {
+            return Executors.newVirtualThreadPerTaskExecutor();
+        }
+        return Runnable::run;
+    }
+
+    /**
+     * Dispatcher for SSE sends, see SSEService. Each subscriber has at most one send task at a
+     * time, and a send to a slow client blocks its thread until the client reads or the
+     * connection fails. With virtual threads every send gets its own thread. Without them at
+     * most max-dispatcher-threads platform threads are started, so clients with dead connections
+     * cannot pile up threads; further sends wait in the executor's queue until a thread is free.
+     */
+    @Bean(destroyMethod = "shutdownNow")
+    ExecutorService sseExecutor(@Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads,
+                                @Value("${app.sse.max-dispatcher-threads:64}") int maxThreads) {
+        if (virtualThreads) {
+            return Executors.newVirtualThreadPerTaskExecutor();
+        }
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(maxThreads, maxThreads, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), Thread.ofPlatform().name("sse-", 0).daemon().factory());
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * Carry the request attributes to data fetchers running on executor threads, so that
+     * ProjectUnitOfWork, RequestUserCache and the rate limit bucket still see their request
+     */
+    @Configuration
+    @ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+    static class RequestAttributesPropagation {
+
+        RequestAttributesPropagation() {
+            ContextRegistry registry = ContextRegistry.getInstance();
+            if (registry.getThreadLocalAccessors().stream()
+                    .noneMatch(accessor -> RequestAttributesThreadLocalAccessor.KEY.equals(accessor.key()))) {
+                registry.registerThreadLocalAccessor(new RequestAttributesThreadLocalAccessor());
+            }
+        }
+    }
+}
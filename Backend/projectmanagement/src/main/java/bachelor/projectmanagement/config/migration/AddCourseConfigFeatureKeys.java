@@ -0,0 +1,45 @@
+package bachelor.projectmanagement.config.migration;
+
+import bachelor.projectmanagement.model.CourseLevelConfig;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Configs created before the create/delete permissions existed lack their feature keys.
+ * They are added as enabled, which was the behaviour before the permissions were introduced.
+ */
+@Component
+public class AddCourseConfigFeatureKeys implements SchemaMigration {
+
+    static final List<String> FEATURES = List.of(
+            CourseLevelConfig.EPIC_CREATE_DELETE,
+            CourseLevelConfig.FEATURE_CREATE_DELETE,
+            CourseLevelConfig.TASK_CREATE_DELETE);
+
+    @Override
+    public int version() {
+        return 2;
+    }
+
+    @Override
+    public String description() {
+        return "Add missing create/delete feature keys to course level configs";
+    }
+
+    @Override
+    public long apply(MongoTemplate mongoTemplate, int batchSize) {
+        // A handful of documents, one update per key is enough
+        long changed = 0;
+        for (String feature : FEATURES) {
+            String key = "features." + feature;
+            changed += mongoTemplate.updateMulti(Query.query(Criteria.where(key).exists(false)),
+                    new Update().set(key, true), CourseLevelConfig.class).getModifiedCount();
+        }
+        return changed;
+    }
+}
@@ -0,0 +1,62 @@
+package bachelor.projectmanagement.config.migration;
+
+import bachelor.projectmanagement.model.CourseLevelConfig;
+import org.bson.Document;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Older databases may hold several configs for one course level. Keeps the oldest one per
+ * level and deletes the rest, so the course level index can be unique.
+ */
+@Component
+public class DeduplicateCourseConfigs implements SchemaMigration {
+
+    @Override
+    public int version() {
+        return 1;
+    }
+
+    @Override
+    public String description() {
+        return "Remove duplicate course level configs";
+    }
+
+    @Override
+    public long apply(MongoTemplate mongoTemplate, int batchSize) {
+        Query query = new Query().with(Sort.by("courseLevel", "createdAt")).cursorBatchSize(batchSize);
+        query.fields().include("courseLevel");
+        long deleted = 0;
+        Integer previousLevel = null;
+        List<Object> duplicates = new ArrayList<>();
+        try (Stream<Document> configs = mongoTemplate.stream(query, Document.class, mongoTemplate.getCollectionName(CourseLevelConfig.class))) {
+            for (Document config : (Iterable<Document>) configs::iterator) {
+                Integer level = config.getInteger("courseLevel");
+                if (level != null && level.equals(previousLevel)) {
+                    duplicates.add(config.get("_id"));
+                    if (duplicates.size() >= batchSize) {
+                        deleted += delete(mongoTemplate, duplicates);
+                    }
+                }
+                previousLevel = level;
+            }
+        }
+        return deleted + delete(mongoTemplate, duplicates);
+    }
+
+    private static long delete(MongoTemplate mongoTemplate, List<Object> ids) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        long deleted = mongoTemplate.remove(Query.query(Criteria.where("_id").in(ids)), CourseLevelConfig.class).getDeletedCount();
+        ids.clear();
+        return deleted;
+    }
+}
@@ -0,0 +1,33 @@
+package bachelor.projectmanagement.config.migration;
+
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+/**
+ * A one-off change to stored documents, applied once per database by {@link SchemaMigrationRunner}.
+ *
+ * Migrations must be safe to run again: a migration that was interrupted, or that runs on two
+ * instances at once, is simply repeated. Large migrations walk the collection with a cursor and
+ * write in batches of the given size instead of loading everything at once.
+ */
+public interface SchemaMigration {
+
+    /**
+     * Unique and increasing, migrations are applied in this order. Never change it once released.
+     */
+    int version();
+
+    String description();
+
+    /**
+     * Background migrations run after startup on their own thread, the application serves
+     * requests meanwhile and must be able to read both the old and the new form
+     */
+    default boolean background() {
+        return false;
+    }
+
+    /**
+     * @return The number of documents changed
+     */
+    long apply(MongoTemplate mongoTemplate, int batchSize);
+}
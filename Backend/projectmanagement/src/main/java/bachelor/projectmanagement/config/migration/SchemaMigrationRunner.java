@@ -0,0 +1,118 @@
+package bachelor.projectmanagement.config.migration;
+
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executor;
+
+/**
+ * Applies pending {@link SchemaMigration}s and records each applied version in the
+ * "schema_migrations" collection, so every migration runs once per database instead of on
+ * every startup or, worse, on every read.
+ *
+ * Runs first on startup, before the indexes are reconciled, since some indexes can only be
+ * built on migrated data. Foreground migrations block startup and a failure stops it; background
+ * migrations run afterwards on their own thread and a failure is retried on the next startup.
+ */
+@Component
+@Order(0)
+public class SchemaMigrationRunner implements CommandLineRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(SchemaMigrationRunner.class);
+
+    static final String COLLECTION = "schema_migrations";
+
+    private final MongoTemplate mongoTemplate;
+    private final List<SchemaMigration> migrations;
+    private final int batchSize;
+    private final Executor backgroundExecutor;
+
+    @Autowired
+    public SchemaMigrationRunner(MongoTemplate mongoTemplate, List<SchemaMigration> migrations,
+                                 @Value("${app.migrations.batch-size:500}") int batchSize) {
+        this(mongoTemplate, migrations, batchSize, task -> Thread.ofPlatform().name("schema-migrations").daemon().start(task));
+    }
+
+    SchemaMigrationRunner(MongoTemplate mongoTemplate, List<SchemaMigration> migrations, int batchSize,
+                          Executor backgroundExecutor) {
+        this.mongoTemplate = mongoTemplate;
+        this.migrations = migrations.stream().sorted(Comparator.comparingInt(SchemaMigration::version)).toList();
+        this.batchSize = batchSize;
+        this.backgroundExecutor = backgroundExecutor;
+        Set<Integer> versions = new HashSet<>();
+        for (SchemaMigration migration : this.migrations) {
+            if (!versions.add(migration.version())) {
+                throw new IllegalStateException("Duplicate schema migration version " + migration.version());
+            }
+        }
+    }
+
+    @Override
+    public void run(String... args) {
+        Set<Integer> applied = appliedVersions();
+        List<SchemaMigration> pending = migrations.stream()
+                .filter(migration -> !applied.contains(migration.version()))
+                .toList();
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        List<SchemaMigration> background = pending.stream().filter(SchemaMigration::background).toList();
+        for (SchemaMigration migration : pending) {
+            if (!migration.background()) {
+                apply(migration);
+            }
+        }
+        if (!background.isEmpty()) {
+            backgroundExecutor.execute(() -> {
+                for (SchemaMigration migration : background) {
+                    try {
+                        apply(migration);
+                    } catch (RuntimeException e) {
+                        // Later migrations may depend on this one
+                        logger.error("Schema migration {} failed, retrying on next startup: {}", migration.version(), e.getMessage(), e);
+                        return;
+                    }
+                }
+            });
+        }
+    }
+
+    Set<Integer> appliedVersions() {
+        Set<Integer> versions = new HashSet<>();
+        for (Document record : mongoTemplate.findAll(Document.class, COLLECTION)) {
+            versions.add(record.getInteger("_id"));
+        }
+        return versions;
+    }
+
+    private void apply(SchemaMigration migration) {
+        long started = System.currentTimeMillis();
+        long changed = migration.apply(mongoTemplate, batchSize);
+        long duration = System.currentTimeMillis() - started;
+        try {
+            mongoTemplate.insert(new Document("_id", migration.version())
+                    .append("description", migration.description())
+                    .append("appliedAt", new Date())
+                    .append("durationMs", duration)
+                    .append("changed", changed), COLLECTION);
+        } catch (DuplicateKeyException e) {
+            // Another instance applied it at the same time
+        }
+        logger.info("Applied schema migration {} ({}), changed {} document(s) in {} ms",
+                migration.version(), migration.description(), changed, duration);
+    }
+}
@@ -0,0 +1,94 @@
+package bachelor.projectmanagement.config.migration;
+
+import bachelor.projectmanagement.model.Project;
+import bachelor.projectmanagement.repository.EmbeddedTaskParentIdsCallback;
+import org.bson.Document;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Tasks embedded in a project used to store copies of their project, epic and feature id,
+ * which are implied by their position. ProjectService sets them when it reads a task and the
+ * repository no longer writes them (see EmbeddedTaskParentIdsCallback), this removes the stored copies.
+ *
+ * Runs in the background: projects are read with a cursor and written back in bulk batches.
+ * Each project is only rewritten if its version is unchanged; projects changed meanwhile are
+ * picked up by another pass.
+ */
+@Component
+public class StripEmbeddedTaskParentIds implements SchemaMigration {
+
+    private static final int MAX_PASSES = 3;
+
+    @Override
+    public int version() {
+        return 3;
+    }
+
+    @Override
+    public String description() {
+        return "Remove parent ids stored in embedded tasks";
+    }
+
+    @Override
+    public boolean background() {
+        return true;
+    }
+
+    @Override
+    public long apply(MongoTemplate mongoTemplate, int batchSize) {
+        long changed = 0;
+        for (int pass = 0; pass < MAX_PASSES; pass++) {
+            Pass result = strip(mongoTemplate, batchSize);
+            changed += result.changed();
+            if (result.changed() == result.found()) {
+                break;
+            }
+        }
+        return changed;
+    }
+
+    private record Pass(long found, long changed) {}
+
+    private static Pass strip(MongoTemplate mongoTemplate, int batchSize) {
+        Query withParentIds = new Query(new Criteria().orOperator(EmbeddedTaskParentIdsCallback.PARENT_IDS.stream()
+                .map(field -> Criteria.where("epics.features.tasks." + field).exists(true))
+                .toArray(Criteria[]::new)))
+                .cursorBatchSize(batchSize);
+        withParentIds.fields().include("epics", "version");
+
+        String collection = mongoTemplate.getCollectionName(Project.class);
+        long found = 0;
+        long changed = 0;
+        BulkOperations bulk = null;
+        int queued = 0;
+        try (Stream<Document> projects = mongoTemplate.stream(withParentIds, Document.class, collection)) {
+            for (Document project : (Iterable<Document>) projects::iterator) {
+                List<Document> epics = project.getList("epics", Document.class, List.of());
+                EmbeddedTaskParentIdsCallback.removeParentIds(epics);
+                if (bulk == null) {
+                    bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, collection);
+                }
+                bulk.updateOne(Query.query(Criteria.where("_id").is(project.get("_id")).and("version").is(project.get("version"))),
+                        new Update().set("epics", epics).inc("version", 1));
+                found++;
+                if (++queued >= batchSize) {
+                    changed += bulk.execute().getModifiedCount();
+                    bulk = null;
+                    queued = 0;
+                }
+            }
+        }
+        if (bulk != null) {
+            changed += bulk.execute().getModifiedCount();
+        }
+        return new Pass(found, changed);
+    }
+}
@@ -30,10 +30,14 @@ public class SSEController {
      * Establish SSE connection for project updates
      * @param projectId The project ID to subscribe to updates for
      * @param token JWT token for authentication (passed as query param since EventSource doesn't support headers)
-     * @return SseEmitter for streaming events
+     * @param lastEventIdHeader Id of the last event received, sent by the browser when EventSource reconnects by itself
+     * @param lastEventId The same as a query param, for clients that open a new EventSource to reconnect
+     * @return SseEmitter for streaming events, starting with the events missed since lastEventId
      */
     @GetMapping(value = "/project/{projectId}", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
-    public SseEmitter subscribeToProjectUpdates(@PathVariable String projectId, @RequestParam(required = false) String token) {
+    public SseEmitter subscribeToProjectUpdates(@PathVariable String projectId, @RequestParam(required = false) String token,
+                                                @RequestHeader(value = "Last-Event-ID", required = false) String lastEventIdHeader,
+                                                @RequestParam(required = false) String lastEventId) {
         // Validate JWT token if provided
         if (token != null && !token.isEmpty()) {
             try {
@@ -46,6 +50,6 @@ public class SSEController {
             }
         }
         
-        return sseService.createEmitter(projectId);
+        return sseService.createEmitter(projectId, lastEventIdHeader != null ? lastEventIdHeader : lastEventId);
     }
 }
\ No newline at end of file
@@ -5,6 +5,7 @@ import bachelor.projectmanagement.model.Project;
 import bachelor.projectmanagement.service.CourseLevelConfigService;
 import bachelor.projectmanagement.service.ProjectService;
 import org.springframework.graphql.data.method.annotation.Argument;
+import org.springframework.graphql.data.method.annotation.BatchMapping;
 import org.springframework.graphql.data.method.annotation.MutationMapping;
 import org.springframework.graphql.data.method.annotation.QueryMapping;
 import org.springframework.graphql.data.method.annotation.SchemaMapping;
@@ -14,6 +15,9 @@ import org.springframework.stereotype.Controller;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Controller
 public class CourseLevelConfigResolver {
@@ -77,7 +81,7 @@ public class CourseLevelConfigResolver {
                 throw new RuntimeException("Project not found with id: " + projectId);
             }
             
-            config.setTemplateProject(template);
+            config.setTemplateProjectId(template.getProjectId());
             CourseLevelConfig updatedConfig = configService.saveConfig(config);
             System.out.println("DEBUG: GraphQL setTemplateProject returning: " + updatedConfig);
             return updatedConfig;
@@ -92,41 +96,12 @@ public class CourseLevelConfigResolver {
     @MutationMapping
     public Project createProjectFromTemplate(@Argument int courseLevel, @Argument String title, @Argument String description) {
         try {
-            System.out.println("DEBUG: GraphQL createProjectFromTemplate called with courseLevel=" + courseLevel + ", title=" + title);
-            Project newProject;
-            
-            // First try to get template for the specific course level
-            CourseLevelConfig config = configService.getConfigOrDefault(courseLevel);
-            Project template = config.getTemplateProject();
-            
-            // If no template for specific course level, try course level 0 (default template)
-            if (template == null && courseLevel != 0) {
-                System.out.println("DEBUG: No template for course level " + courseLevel + ", checking default template (course level 0)");
-                CourseLevelConfig defaultConfig = configService.getConfigOrDefault(0);
-                template = defaultConfig.getTemplateProject();
-            }
-            
             // Get current authenticated user
             Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
             String currentUsername = authentication.getName();
-            
-            if (template == null) {
-                // No template exists, create a normal empty project
-                System.out.println("DEBUG: No template found, creating empty project");
-                
-                Project projectToCreate = new Project();
-                projectToCreate.setTitle(title);
-                projectToCreate.setDescription(description);
-                projectToCreate.setCourseLevel(courseLevel);
-                return projectService.createProject(projectToCreate, currentUsername);
-                
-            } 
-            // Template exists, copy its structure
-            System.out.println("DEBUG: Template found, copying structure from: " + template.getTitle());
-                
-                newProject = projectService.copyProjectStructure(template, title, description, courseLevel, currentUsername);
-            
-            return newProject;
+
+            // Uses the course level template, the default template (course level 0) or an empty project
+            return projectService.createProjectFromTemplate(courseLevel, title, description, currentUsername);
         } catch (Exception e) {
             System.err.println("ERROR: GraphQL createProjectFromTemplate failed");
             System.err.println("ERROR: " + e.getMessage());
@@ -136,6 +111,19 @@ public class CourseLevelConfigResolver {
     }
 
     // Field resolvers for CourseLevelConfig
+    @BatchMapping
+    public List<Project> templateProject(List<CourseLevelConfig> configs) {
+        Map<String, Project> templates = projectService.getProjectsByIds(configs.stream()
+                        .map(CourseLevelConfig::getTemplateProjectId)
+                        .filter(Objects::nonNull)
+                        .collect(Collectors.toSet()))
+                .stream()
+                .collect(Collectors.toMap(Project::getProjectId, Function.identity()));
+        return configs.stream()
+                .map(config -> config.getTemplateProjectId() != null ? templates.get(config.getTemplateProjectId()) : null)
+                .collect(Collectors.toList());
+    }
+
     @SchemaMapping
     public List<FeatureConfig> features(CourseLevelConfig config) {
         List<FeatureConfig> featureConfigs = new ArrayList<>();
@@ -1,22 +1,38 @@
 package bachelor.projectmanagement.graphql;
 
+import org.springframework.data.domain.Window;
+import org.springframework.graphql.data.method.annotation.BatchMapping;
 import org.springframework.graphql.data.method.annotation.SchemaMapping;
+import org.springframework.graphql.data.query.ScrollSubrange;
 import org.springframework.stereotype.Controller;
+import bachelor.projectmanagement.model.Epic;
 import bachelor.projectmanagement.model.Feature;
 import bachelor.projectmanagement.model.Task;
 import bachelor.projectmanagement.model.Project;
 import bachelor.projectmanagement.model.User;
+import bachelor.projectmanagement.model.UserRef;
 import bachelor.projectmanagement.repository.UserRepository;
+import bachelor.projectmanagement.service.ProjectService;
+import bachelor.projectmanagement.service.RequestUserCache;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Controller
 public class FieldResolver {
 
     private final UserRepository userRepository;
+    private final ProjectService projectService;
+    private final RequestUserCache userCache;
 
-    public FieldResolver(UserRepository userRepository) {
+    public FieldResolver(UserRepository userRepository, ProjectService projectService, RequestUserCache userCache) {
         this.userRepository = userRepository;
+        this.projectService = projectService;
+        this.userCache = userCache;
     }
 
     @SchemaMapping
@@ -24,6 +40,18 @@ public class FieldResolver {
         return feature.getFeatureId();
     }
 
+    @BatchMapping
+    public List<List<Task>> tasks(List<Feature> features) {
+        // Only resolved when the query selects tasks, with one lookup for all features in the response
+        return projectService.getTasksForFeatures(features);
+    }
+
+    @SchemaMapping
+    public Window<Task> tasksConnection(Feature feature, ScrollSubrange subrange) {
+        // One range query per feature, meant for paging through a single feature; boards use tasks
+        return projectService.getTasksPage(feature, Pagination.position(subrange), Pagination.pageSize(subrange));
+    }
+
     @SchemaMapping
     public String id(Task task) {
         return task.getTaskId();
@@ -34,23 +62,80 @@ public class FieldResolver {
         return task.getStatus() != null ? task.getStatus().name() : "TODO";
     }
 
-    @SchemaMapping
-    public List<User> owners(Project project) {
-        return project.getOwners();
+    @BatchMapping
+    public List<List<User>> owners(List<Project> projects) {
+        Map<String, User> users = loadUsers(projects.stream()
+                .flatMap(project -> project.getOwners().stream())
+                .map(UserRef::getUserId)
+                .collect(Collectors.toCollection(LinkedHashSet::new)));
+        return projects.stream()
+                .map(project -> project.getOwners().stream()
+                        .map(ref -> users.get(ref.getUserId()))
+                        .filter(Objects::nonNull)
+                        .collect(Collectors.toList()))
+                .collect(Collectors.toList());
     }
 
-    @SchemaMapping
-    public User owner(Project project) {
-        // Return the first owner for backward compatibility
-        return project.getOwner();
+    @BatchMapping
+    public List<User> owner(List<Project> projects) {
+        // The first owner, for backward compatibility
+        Map<String, User> users = loadUsers(projects.stream()
+                .map(Project::getOwner)
+                .filter(Objects::nonNull)
+                .map(UserRef::getUserId)
+                .collect(Collectors.toCollection(LinkedHashSet::new)));
+        return projects.stream()
+                .map(project -> project.getOwner() != null ? users.get(project.getOwner().getUserId()) : null)
+                .collect(Collectors.toList());
     }
 
-    @SchemaMapping
-    public List<User> users(Task task) {
-        // Convert user IDs to User objects
-        return task.getUsers().stream()
-            .map(userId -> userRepository.findById(userId).orElse(null))
-            .filter(user -> user != null)
-            .collect(Collectors.toList());
-    }
-}
\ No newline at end of file
+    @BatchMapping
+    public List<List<Project>> projects(List<User> users) {
+        Map<String, Project> projects = projectService.getProjectsByIds(users.stream()
+                        .flatMap(user -> user.getProjectIds().stream())
+                        .collect(Collectors.toCollection(LinkedHashSet::new)))
+                .stream()
+                .collect(Collectors.toMap(Project::getProjectId, Function.identity()));
+        return users.stream()
+                .map(user -> user.getProjectIds().stream()
+                        .map(projects::get)
+                        .filter(Objects::nonNull)
+                        .collect(Collectors.toList()))
+                .collect(Collectors.toList());
+    }
+
+    @BatchMapping(typeName = "Epic", field = "owner")
+    public List<User> epicOwner(List<Epic> epics) {
+        Map<String, User> users = loadUsers(epics.stream()
+                .map(Epic::getOwner)
+                .filter(Objects::nonNull)
+                .map(UserRef::getUserId)
+                .collect(Collectors.toCollection(LinkedHashSet::new)));
+        return epics.stream()
+                .map(epic -> epic.getOwner() != null ? users.get(epic.getOwner().getUserId()) : null)
+                .collect(Collectors.toList());
+    }
+
+    @BatchMapping
+    public List<List<User>> users(List<Task> tasks) {
+        // Task.users holds user ids
+        Map<String, User> users = loadUsers(tasks.stream()
+                .filter(task -> task.getUsers() != null)
+                .flatMap(task -> task.getUsers().stream())
+                .collect(Collectors.toCollection(LinkedHashSet::new)));
+        return tasks.stream()
+                .map(task -> task.getUsers() == null ? List.<User>of() : task.getUsers().stream()
+                        .map(users::get)
+                        .filter(Objects::nonNull)
+                        .collect(Collectors.toList()))
+                .collect(Collectors.toList());
+    }
+
+    // One query for all users referenced in the batch that were not loaded earlier in the request
+    private Map<String, User> loadUsers(Set<String> userIds) {
+        if (userIds.isEmpty()) {
+            return Map.of();
+        }
+        return userCache.loadAll(userIds, userRepository::findAllById);
+    }
+}
@@ -0,0 +1,38 @@
+package bachelor.projectmanagement.graphql;
+
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.graphql.data.query.ScrollSubrange;
+
+/**
+ * Turns the first/after arguments of a connection field into a keyset position and page size.
+ *
+ * Cursors are the opaque, encoded keys of the last item of the previous page, so each page is
+ * read with a range query on an indexed sort key instead of skipping over the earlier pages.
+ */
+final class Pagination {
+
+    static final int DEFAULT_PAGE_SIZE = 20;
+    static final int MAX_PAGE_SIZE = 100;
+
+    private Pagination() {}
+
+    /**
+     * @throws IllegalArgumentException If the cursor is not a keyset cursor issued by this server
+     */
+    static KeysetScrollPosition position(ScrollSubrange subrange) {
+        ScrollPosition position = subrange.position().orElse(ScrollPosition.keyset());
+        if (!(position instanceof KeysetScrollPosition keyset) || !subrange.forward()) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        return keyset;
+    }
+
+    static int pageSize(ScrollSubrange subrange) {
+        int count = subrange.count().orElse(DEFAULT_PAGE_SIZE);
+        if (count < 1 || count > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("first must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        return count;
+    }
+}
@@ -0,0 +1,173 @@
+package bachelor.projectmanagement.graphql;
+
+import graphql.ExecutionInput;
+import graphql.GraphQLError;
+import graphql.GraphqlErrorBuilder;
+import graphql.execution.preparsed.PreparsedDocumentEntry;
+import graphql.execution.preparsed.PreparsedDocumentProvider;
+import graphql.execution.preparsed.persisted.PersistedQuerySupport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.graphql.execution.ErrorType;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * Parsed and validated GraphQL documents, kept in a bounded LRU cache keyed by the SHA-256 hash
+ * of the query text, so the operations the frontend repeats are parsed and validated once.
+ *
+ * Supports automatic persisted queries: a request with extensions.persistedQuery.sha256Hash
+ * and an empty query (or graphql-java's "PersistedQueryMarker") is answered from the cache, or
+ * with a PersistedQueryNotFound error, after which the client resends the full query together
+ * with its hash. The HTTP transport requires the query field, so it cannot be left out.
+ *
+ * Operations under classpath:graphql/operations/*.graphql are registered by the hash of the
+ * file content and can always be sent by hash alone. With app.graphql.persisted-queries.allowlist-only
+ * any other operation is rejected.
+ */
+@Component
+public class PersistedQueryProvider implements PreparsedDocumentProvider {
+
+    private static final Logger logger = LoggerFactory.getLogger(PersistedQueryProvider.class);
+
+    static final String OPERATIONS_LOCATION = "classpath*:graphql/operations/*.graphql";
+
+    private final Map<String, String> registeredOperations;
+    private final boolean allowlistOnly;
+
+    // Access ordered, the least recently used document is dropped first; guarded by itself
+    private final Map<String, PreparsedDocumentEntry> documents;
+
+    @Autowired
+    public PersistedQueryProvider(@Value("${app.graphql.document-cache-size:200}") int cacheSize,
+                                  @Value("${app.graphql.persisted-queries.allowlist-only:false}") boolean allowlistOnly) {
+        this(loadOperations(OPERATIONS_LOCATION), cacheSize, allowlistOnly);
+    }
+
+    PersistedQueryProvider(Map<String, String> registeredOperations, int cacheSize, boolean allowlistOnly) {
+        this.registeredOperations = Map.copyOf(registeredOperations);
+        this.allowlistOnly = allowlistOnly;
+        this.documents = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, PreparsedDocumentEntry> eldest) {
+                return size() > cacheSize;
+            }
+        };
+        if (allowlistOnly && registeredOperations.isEmpty()) {
+            logger.warn("GraphQL allowlist mode is on but no operations are registered, every operation will be rejected");
+        }
+    }
+
+    @Override
+    public CompletableFuture<PreparsedDocumentEntry> getDocumentAsync(ExecutionInput executionInput,
+                                                                      Function<ExecutionInput, PreparsedDocumentEntry> parseAndValidate) {
+        return CompletableFuture.completedFuture(getDocument(executionInput, parseAndValidate));
+    }
+
+    PreparsedDocumentEntry getDocument(ExecutionInput executionInput, Function<ExecutionInput, PreparsedDocumentEntry> parseAndValidate) {
+        String query = executionInput.getQuery();
+        String persistedHash = persistedQueryHash(executionInput);
+
+        if (query == null || query.isBlank() || PersistedQuerySupport.PERSISTED_QUERY_MARKER.equals(query)) {
+            if (persistedHash == null) {
+                return parseAndValidate.apply(executionInput);
+            }
+            PreparsedDocumentEntry cached = cached(persistedHash);
+            if (cached != null) {
+                return cached;
+            }
+            String registered = registeredOperations.get(persistedHash);
+            if (registered == null) {
+                return new PreparsedDocumentEntry(error("PersistedQueryNotFound", "PERSISTED_QUERY_NOT_FOUND"));
+            }
+            return parseAndCache(persistedHash, executionInput.transform(input -> input.query(registered)), parseAndValidate);
+        }
+
+        String hash = sha256(query);
+        if (persistedHash != null && !persistedHash.equalsIgnoreCase(hash)) {
+            return new PreparsedDocumentEntry(error("PersistedQueryIdInvalid", "PERSISTED_QUERY_ID_INVALID"));
+        }
+        if (allowlistOnly && !registeredOperations.containsKey(hash)) {
+            return new PreparsedDocumentEntry(error("Operation is not registered", "OPERATION_NOT_REGISTERED"));
+        }
+        PreparsedDocumentEntry cached = cached(hash);
+        return cached != null ? cached : parseAndCache(hash, executionInput, parseAndValidate);
+    }
+
+    public int getCacheSize() {
+        synchronized (documents) {
+            return documents.size();
+        }
+    }
+
+    private PreparsedDocumentEntry cached(String hash) {
+        synchronized (documents) {
+            return documents.get(hash.toLowerCase());
+        }
+    }
+
+    // Only valid documents are kept, so invalid queries cannot push the real ones out
+    private PreparsedDocumentEntry parseAndCache(String hash, ExecutionInput executionInput,
+                                                 Function<ExecutionInput, PreparsedDocumentEntry> parseAndValidate) {
+        PreparsedDocumentEntry entry = parseAndValidate.apply(executionInput);
+        if (!entry.hasErrors()) {
+            synchronized (documents) {
+                documents.put(hash.toLowerCase(), entry);
+            }
+        }
+        return entry;
+    }
+
+    private static String persistedQueryHash(ExecutionInput executionInput) {
+        if (executionInput.getExtensions() != null
+                && executionInput.getExtensions().get("persistedQuery") instanceof Map<?, ?> persistedQuery
+                && persistedQuery.get("sha256Hash") instanceof String hash) {
+            return hash;
+        }
+        return null;
+    }
+
+    private static GraphQLError error(String message, String code) {
+        return GraphqlErrorBuilder.newError()
+                .errorType(ErrorType.BAD_REQUEST)
+                .message(message)
+                .extensions(Map.of("code", code))
+                .build();
+    }
+
+    static String sha256(String text) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(text.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Map<String, String> loadOperations(String location) {
+        Map<String, String> operations = new HashMap<>();
+        try {
+            for (Resource resource : new PathMatchingResourcePatternResolver().getResources(location)) {
+                String text = resource.getContentAsString(StandardCharsets.UTF_8);
+                operations.put(sha256(text), text);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not load registered GraphQL operations", e);
+        }
+        return operations;
+    }
+}
@@ -0,0 +1,82 @@
+package bachelor.projectmanagement.graphql;
+
+import graphql.schema.DataFetchingFieldSelectionSet;
+import graphql.schema.SelectedField;
+
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Turns the GraphQL selection on a Project into the Mongo fields that need to be loaded.
+ *
+ * Projects loaded this way are partial and must only be returned to GraphQL, never saved.
+ */
+final class ProjectProjection {
+
+    // GraphQL field path below Project -> document path; object fields map to the nested "_id"
+    private static final Map<String, String> FIELDS = Map.ofEntries(
+            Map.entry("title", "title"),
+            Map.entry("description", "description"),
+            Map.entry("courseLevel", "courseLevel"),
+            Map.entry("createdOn", "createdOn"),
+            Map.entry("owner", "owners"),
+            Map.entry("owners", "owners"),
+            Map.entry("epics", "epics._id"),
+            Map.entry("epics/id", "epics._id"),
+            Map.entry("epics/title", "epics.title"),
+            Map.entry("epics/description", "epics.description"),
+            Map.entry("epics/owner", "epics.owner"),
+            Map.entry("epics/features", "epics.features._id"),
+            Map.entry("epics/features/id", "epics.features._id"),
+            Map.entry("epics/features/title", "epics.features.title"),
+            Map.entry("epics/features/description", "epics.features.description"),
+            Map.entry("epics/features/tasks", "epics.features.tasks._id"),
+            Map.entry("epics/features/tasks/id", "epics.features.tasks._id"),
+            Map.entry("epics/features/tasks/title", "epics.features.tasks.title"),
+            Map.entry("epics/features/tasks/description", "epics.features.tasks.description"),
+            Map.entry("epics/features/tasks/status", "epics.features.tasks.status"),
+            Map.entry("epics/features/tasks/users", "epics.features.tasks.users"),
+            Map.entry("epics/features/tasks/dueDate", "epics.features.tasks.dueDate"),
+            // Task pages of embedded tasks are cut from the whole list
+            Map.entry("epics/features/tasksConnection", "epics.features.tasks"));
+
+    private static final String CONNECTION_NODE = "edges/node/";
+
+    private ProjectProjection() {}
+
+    /**
+     * @param selectionSet The selection on a Project (or list of projects) field
+     * @return The document fields to include, or null to load the whole document
+     */
+    static Set<String> fieldsFor(DataFetchingFieldSelectionSet selectionSet) {
+        return fieldsFor(selectionSet, "");
+    }
+
+    /**
+     * @param selectionSet The selection on a ProjectConnection field
+     * @return The document fields to include for the selected nodes
+     */
+    static Set<String> fieldsForConnection(DataFetchingFieldSelectionSet selectionSet) {
+        return fieldsFor(selectionSet, CONNECTION_NODE);
+    }
+
+    private static Set<String> fieldsFor(DataFetchingFieldSelectionSet selectionSet, String prefix) {
+        if (selectionSet == null) {
+            return null;
+        }
+        Set<String> fields = new LinkedHashSet<>();
+        for (SelectedField field : selectionSet.getFields()) {
+            String name = field.getQualifiedName();
+            String path = name.startsWith(prefix) ? FIELDS.get(name.substring(prefix.length())) : null;
+            if (path != null) {
+                fields.add(path);
+            }
+        }
+        // Only "id" (always returned by Mongo) or __typename was selected
+        if (fields.isEmpty()) {
+            fields.add("_id");
+        }
+        return fields;
+    }
+}
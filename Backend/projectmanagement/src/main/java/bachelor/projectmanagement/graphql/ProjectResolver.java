@@ -6,17 +6,24 @@ import bachelor.projectmanagement.repository.UserRepository;
 import bachelor.projectmanagement.service.ProjectService;
 import bachelor.projectmanagement.service.SSEService;
 import bachelor.projectmanagement.service.CourseLevelConfigService;
+import graphql.schema.DataFetchingFieldSelectionSet;
+import org.springframework.data.domain.Window;
 import org.springframework.graphql.data.method.annotation.Argument;
 import org.springframework.graphql.data.method.annotation.MutationMapping;
 import org.springframework.graphql.data.method.annotation.QueryMapping;
+import org.springframework.graphql.data.query.ScrollSubrange;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Controller;
 
 import java.time.LocalDate;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Controller
@@ -46,16 +53,31 @@ public class ProjectResolver {
     }
 
     @QueryMapping
-    public List<Project> projectsByUsername(@Argument String username) {
-        return projectService.getProjectsByUsername(username);
+    public List<Project> projectsByUsername(@Argument String username, DataFetchingFieldSelectionSet selectionSet) {
+        // Only load the fields the query selects, list views usually skip the epic tree
+        return projectService.getProjectsByUsername(username, ProjectProjection.fieldsFor(selectionSet));
     }
 
     @QueryMapping
-    public Project projectById(@Argument String id) {
+    public Window<Project> projectsByUsernameConnection(@Argument String username, ScrollSubrange subrange,
+                                                        DataFetchingFieldSelectionSet selectionSet) {
+        return projectService.getProjectsByUsernamePage(username, Pagination.position(subrange),
+                Pagination.pageSize(subrange), ProjectProjection.fieldsForConnection(selectionSet));
+    }
+
+    @QueryMapping
+    @PreAuthorize("hasAnyRole('ADMIN', 'SUPERADMIN')")
+    public Window<Project> projectsConnection(ScrollSubrange subrange, DataFetchingFieldSelectionSet selectionSet) {
+        return projectService.getProjectsPage(Pagination.position(subrange), Pagination.pageSize(subrange),
+                ProjectProjection.fieldsForConnection(selectionSet));
+    }
+
+    @QueryMapping
+    public Project projectById(@Argument String id, DataFetchingFieldSelectionSet selectionSet) {
         String currentUsername = getCurrentUsername();
         // Verify the user has access to this project
         projectService.verifyProjectAccess(id, currentUsername);
-        return projectService.getProjectById(id);
+        return projectService.getProjectById(id, ProjectProjection.fieldsFor(selectionSet));
     }
 
     // ===== PROJECT MUTATIONS =====
@@ -64,40 +86,39 @@ public class ProjectResolver {
     public Project updateProject(@Argument String id, @Argument ProjectInput input) {
         String currentUsername = getCurrentUsername();
         projectService.verifyProjectAccess(id, currentUsername);
-        
-        Project project = projectService.getProjectById(id);
-        if (project == null) {
-            throw new RuntimeException("Project not found: " + id);
-        }
 
         // Only update fields that are provided
-        boolean changed = false;
         Map<String, Object> updates = new HashMap<>();
-        updates.put("id", project.getProjectId());
-
+        updates.put("id", id);
         if (input.getTitle() != null) {
-            project.setTitle(input.getTitle());
             updates.put("title", input.getTitle());
-            changed = true;
         }
         if (input.getDescription() != null) {
-            project.setDescription(input.getDescription());
             updates.put("description", input.getDescription());
-            changed = true;
         }
         if (input.getCourseLevel() != null) {
-            project.setCourseLevel(input.getCourseLevel());
             updates.put("courseLevel", input.getCourseLevel());
-            changed = true;
         }
 
-        if (changed) {
-            Project updatedProject = projectService.save(project);
-            sseService.sendProjectUpdate(id, updates);
-            return updatedProject;
+        if (updates.size() == 1) {
+            return projectService.getProjectById(id);
         }
 
-        return project;
+        // Applied inside the retry loop, so a concurrent edit is re-read and the input re-applied
+        Project updatedProject = projectService.modifyProject(id, project -> {
+            if (input.getTitle() != null) {
+                project.setTitle(input.getTitle());
+            }
+            if (input.getDescription() != null) {
+                project.setDescription(input.getDescription());
+            }
+            if (input.getCourseLevel() != null) {
+                project.setCourseLevel(input.getCourseLevel());
+            }
+            return true;
+        });
+        sseService.sendProjectUpdate(id, updates);
+        return updatedProject;
     }
 
     // ===== EPIC MUTATIONS =====
@@ -187,10 +208,109 @@ public class ProjectResolver {
             throw new RuntimeException("Task not found: " + taskId);
         }
 
-        boolean changed = false;
+        if (input.getUserIds() != null) {
+            verifyTaskUserAssignment(projectId);
+        }
+
         Map<String, Object> updates = new HashMap<>();
         updates.put("id", task.getTaskId());
+        boolean changed = applyTaskInput(task, input, updates, username -> userRepository.findPrincipalByUsername(username)
+                .orElseThrow(() -> new RuntimeException("User not found: " + username)));
+
+        if (changed) {
+            Task updatedTask = projectService.saveTask(projectId, epicId, featureId, task);
+            sseService.sendTaskUpdate(projectId, updates);
+            return updatedTask;
+        }
+
+        return task;
+    }
+
+    /**
+     * Update several tasks of a project at once. Access is checked once, all changes
+     * are written with a single update and clients get one tasksBatchUpdate event.
+     */
+    @MutationMapping
+    public List<Task> batchUpdateTasks(@Argument String projectId, @Argument List<TaskBatchUpdateInput> updates) {
+        String currentUsername = getCurrentUsername();
+        projectService.verifyProjectAccess(projectId, currentUsername);
+        if (updates.isEmpty()) {
+            return List.of();
+        }
 
+        Map<String, Task> tasks = projectService.getTasksById(projectId,
+                updates.stream().map(TaskBatchUpdateInput::getTaskId).collect(Collectors.toSet()));
+        for (TaskBatchUpdateInput input : updates) {
+            Task task = tasks.get(input.getTaskId());
+            if (task == null || !input.getEpicId().equals(task.getEpicId()) || !input.getFeatureId().equals(task.getFeatureId())) {
+                throw new RuntimeException("Task not found: " + input.getTaskId());
+            }
+        }
+
+        // Resolve every assigned username with one query
+        Map<String, UserPrincipal> users = new HashMap<>();
+        if (updates.stream().anyMatch(input -> input.getUserIds() != null)) {
+            verifyTaskUserAssignment(projectId);
+            Set<String> usernames = updates.stream()
+                    .filter(input -> input.getUserIds() != null)
+                    .flatMap(input -> input.getUserIds().stream())
+                    .collect(Collectors.toSet());
+            userRepository.findPrincipalsByUsernameIn(usernames)
+                    .forEach(user -> users.put(user.getUsername(), user));
+        }
+
+        // Keyed by task id, so several updates of the same task are merged into one
+        Map<String, Task> changedTasks = new LinkedHashMap<>();
+        Map<String, Map<String, Object>> taskUpdates = new LinkedHashMap<>();
+        for (TaskBatchUpdateInput input : updates) {
+            Task task = tasks.get(input.getTaskId());
+            Map<String, Object> taskUpdate = taskUpdates.computeIfAbsent(task.getTaskId(), id -> {
+                Map<String, Object> update = new HashMap<>();
+                update.put("id", id);
+                return update;
+            });
+            boolean changed = applyTaskInput(task, input, taskUpdate, username -> {
+                UserPrincipal user = users.get(username);
+                if (user == null) {
+                    throw new RuntimeException("User not found: " + username);
+                }
+                return user;
+            });
+            if (changed) {
+                changedTasks.put(task.getTaskId(), task);
+            }
+        }
+
+        if (!changedTasks.isEmpty()) {
+            projectService.saveTasks(projectId, List.copyOf(changedTasks.values()));
+            Map<String, Object> event = new HashMap<>();
+            event.put("tasks", changedTasks.keySet().stream().map(taskUpdates::get).collect(Collectors.toList()));
+            sseService.sendTasksBatchUpdate(projectId, event);
+        }
+
+        return updates.stream()
+                .map(TaskBatchUpdateInput::getTaskId)
+                .distinct()
+                .map(tasks::get)
+                .collect(Collectors.toList());
+    }
+
+    private void verifyTaskUserAssignment(String projectId) {
+        // Check if task user assignment is enabled
+        Project project = projectService.getProjectById(projectId);
+        if (!courseLevelConfigService.isTaskUserAssignmentEnabled(project.getCourseLevel())) {
+            throw new RuntimeException("Task user assignment is not enabled for this course level");
+        }
+    }
+
+    /**
+     * Copy the fields set in the input onto the task and record them for the SSE event
+     * @param users Resolves an assigned username, throwing if it does not exist
+     * @return true if the input changed anything
+     */
+    private static boolean applyTaskInput(Task task, TaskInput input, Map<String, Object> updates,
+                                          Function<String, UserPrincipal> users) {
+        boolean changed = false;
         if (input.getTitle() != null) {
             task.setTitle(input.getTitle());
             updates.put("title", input.getTitle());
@@ -213,24 +333,11 @@ public class ProjectResolver {
             changed = true;
         }
         if (input.getUserIds() != null) {
-            // Check if task user assignment is enabled
-            Project project = projectService.getProjectById(projectId);
-            if (!courseLevelConfigService.isTaskUserAssignmentEnabled(project.getCourseLevel())) {
-                throw new RuntimeException("Task user assignment is not enabled for this course level");
-            }
-
-            List<String> resolvedUserIds = input.getUserIds().stream()
-                .map(username -> userRepository.findByUsername(username)
-                    .orElseThrow(() -> new RuntimeException("User not found: " + username))
-                    .getId())
+            List<UserPrincipal> assignedUsers = input.getUserIds().stream()
+                .map(users)
                 .collect(Collectors.toList());
 
-            task.setUsers(resolvedUserIds);
-            
-            List<User> assignedUsers = resolvedUserIds.stream()
-                .map(userId -> userRepository.findById(userId)
-                    .orElseThrow(() -> new RuntimeException("User not found: " + userId)))
-                .collect(Collectors.toList());
+            task.setUsers(assignedUsers.stream().map(UserPrincipal::getId).collect(Collectors.toList()));
             
             updates.put("users", assignedUsers.stream()
                 .map(user -> {
@@ -242,14 +349,7 @@ public class ProjectResolver {
                 .collect(Collectors.toList()));
             changed = true;
         }
-
-        if (changed) {
-            Task updatedTask = projectService.saveTask(projectId, epicId, featureId, task);
-            sseService.sendTaskUpdate(projectId, updates);
-            return updatedTask;
-        }
-
-        return task;
+        return changed;
     }
     
     @MutationMapping
@@ -382,7 +482,7 @@ public class ProjectResolver {
             }
 
             List<String> resolvedUserIds = input.getUserIds().stream()
-                .map(username -> userRepository.findByUsername(username)
+                .map(username -> userRepository.findPrincipalByUsername(username)
                     .orElseThrow(() -> new RuntimeException("User not found: " + username))
                     .getId())
                 .collect(Collectors.toList());
@@ -0,0 +1,176 @@
+package bachelor.projectmanagement.graphql;
+
+import bachelor.projectmanagement.exception.RateLimitExceededException;
+import bachelor.projectmanagement.security.RateLimitInterceptor;
+import graphql.ExecutionResult;
+import graphql.GraphqlErrorBuilder;
+import graphql.execution.AbortExecutionException;
+import graphql.execution.CoercedVariables;
+import graphql.execution.ExecutionContext;
+import graphql.execution.instrumentation.InstrumentationContext;
+import graphql.execution.instrumentation.InstrumentationState;
+import graphql.execution.instrumentation.SimplePerformantInstrumentation;
+import graphql.execution.instrumentation.parameters.InstrumentationExecuteOperationParameters;
+import graphql.language.FragmentDefinition;
+import graphql.language.OperationDefinition;
+import graphql.normalized.ExecutableNormalizedField;
+import graphql.normalized.ExecutableNormalizedOperationFactory;
+import graphql.schema.GraphQLSchema;
+import graphql.schema.GraphQLTypeUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.graphql.execution.ErrorType;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Static cost analysis of every GraphQL operation before it is executed.
+ *
+ * Each selected field costs 1, and the cost of a list field's selection is multiplied by the
+ * number of items the list is expected to hold ({@link #LIST_SIZES}, the requested page size for
+ * connection edges, otherwise the configured default). Operations nested deeper than app.graphql.max-depth or costing more than
+ * app.graphql.max-cost are rejected without touching the database. Introspection fields are
+ * not counted.
+ *
+ * The cost is also charged to the caller's rate limit bucket: {@link RateLimitInterceptor}
+ * takes one token for the HTTP request, and every further app.graphql.cost-per-token of cost
+ * takes one more, so expensive queries use up the budget faster than cheap ones.
+ */
+@Component
+public class QueryCostInstrumentation extends SimplePerformantInstrumentation {
+
+    private static final Logger logger = LoggerFactory.getLogger(QueryCostInstrumentation.class);
+
+    // Expected number of items per list field, by "Type.field"
+    static final Map<String, Integer> LIST_SIZES = Map.of(
+            "Query.users", 50,
+            "Query.nonSuperAdminUsers", 50,
+            "Query.projects", 50,
+            "Query.projectsByUsername", 10,
+            "User.projects", 5,
+            "Project.owners", 3,
+            "Project.epics", 5,
+            "Epic.features", 5,
+            "Feature.tasks", 10,
+            "Task.users", 3);
+
+    private final RateLimitInterceptor rateLimitInterceptor;
+    private final int maxDepth;
+    private final long maxCost;
+    private final int defaultListSize;
+    private final long costPerToken;
+
+    public QueryCostInstrumentation(RateLimitInterceptor rateLimitInterceptor,
+                                    @Value("${app.graphql.max-depth:10}") int maxDepth,
+                                    @Value("${app.graphql.max-cost:5000}") long maxCost,
+                                    @Value("${app.graphql.default-list-size:10}") int defaultListSize,
+                                    @Value("${app.graphql.cost-per-token:500}") long costPerToken) {
+        this.rateLimitInterceptor = rateLimitInterceptor;
+        this.maxDepth = maxDepth;
+        this.maxCost = maxCost;
+        this.defaultListSize = defaultListSize;
+        this.costPerToken = costPerToken;
+    }
+
+    /**
+     * Depth and estimated cost of one operation
+     */
+    record QueryCost(int depth, long cost) {
+    }
+
+    @Override
+    public InstrumentationContext<ExecutionResult> beginExecuteOperation(InstrumentationExecuteOperationParameters parameters,
+                                                                         InstrumentationState state) {
+        ExecutionContext context = parameters.getExecutionContext();
+        QueryCost queryCost = measure(context.getGraphQLSchema(), context.getOperationDefinition(),
+                context.getFragmentsByName(), context.getCoercedVariables());
+        enforce(queryCost);
+        return super.beginExecuteOperation(parameters, state);
+    }
+
+    QueryCost measure(GraphQLSchema schema, OperationDefinition operation,
+                      Map<String, FragmentDefinition> fragments, CoercedVariables variables) {
+        List<ExecutableNormalizedField> topLevelFields = ExecutableNormalizedOperationFactory
+                .createExecutableNormalizedOperation(schema, operation, fragments, variables)
+                .getTopLevelFields();
+        long cost;
+        try {
+            cost = cost(schema, topLevelFields);
+        } catch (ArithmeticException e) {
+            cost = Long.MAX_VALUE;
+        }
+        return new QueryCost(depth(topLevelFields), cost);
+    }
+
+    /**
+     * Reject the operation if it is over the limits, otherwise charge its cost to the rate limit
+     * @throws AbortExecutionException If the operation is too deep, too expensive or over the rate limit
+     */
+    void enforce(QueryCost queryCost) {
+        if (queryCost.depth() > maxDepth) {
+            logger.warn("Rejected GraphQL operation with depth {} (limit {})", queryCost.depth(), maxDepth);
+            throw new AbortExecutionException("Query depth " + queryCost.depth() + " exceeds the limit of " + maxDepth);
+        }
+        if (queryCost.cost() > maxCost) {
+            logger.warn("Rejected GraphQL operation with cost {} (limit {})", queryCost.cost(), maxCost);
+            throw new AbortExecutionException("Query cost " + queryCost.cost() + " exceeds the limit of " + maxCost);
+        }
+        try {
+            rateLimitInterceptor.consumeAdditionalTokens(queryCost.cost() / costPerToken);
+        } catch (RateLimitExceededException e) {
+            throw new AbortExecutionException(List.of(GraphqlErrorBuilder.newError()
+                    .errorType(ErrorType.BAD_REQUEST)
+                    .message(e.getMessage())
+                    .extensions(Map.of(
+                            "retryAfterSeconds", e.getRetryAfterSeconds(),
+                            "code", "RATE_LIMIT_EXCEEDED"))
+                    .build()));
+        }
+    }
+
+    private static int depth(List<ExecutableNormalizedField> fields) {
+        int depth = 0;
+        for (ExecutableNormalizedField field : fields) {
+            if (!isIntrospection(field)) {
+                depth = Math.max(depth, 1 + depth(field.getChildren()));
+            }
+        }
+        return depth;
+    }
+
+    private long cost(GraphQLSchema schema, List<ExecutableNormalizedField> fields) {
+        long cost = 0;
+        for (ExecutableNormalizedField field : fields) {
+            if (isIntrospection(field)) {
+                continue;
+            }
+            long children = cost(schema, field.getChildren());
+            cost = Math.addExact(cost, Math.addExact(1, Math.multiplyExact(listSize(schema, field), children)));
+        }
+        return cost;
+    }
+
+    private int listSize(GraphQLSchema schema, ExecutableNormalizedField field) {
+        if (!GraphQLTypeUtil.isList(GraphQLTypeUtil.unwrapNonNull(field.getType(schema)))) {
+            return 1;
+        }
+        // Connection edges hold one page
+        if (field.getFieldName().equals("edges") && field.getParent() != null
+                && field.getObjectTypeNames().stream().anyMatch(typeName -> typeName.endsWith("Connection"))) {
+            return field.getParent().getResolvedArguments().get("first") instanceof Integer first
+                    ? first : Pagination.DEFAULT_PAGE_SIZE;
+        }
+        return field.getObjectTypeNames().stream()
+                .map(typeName -> LIST_SIZES.get(typeName + "." + field.getFieldName()))
+                .filter(size -> size != null)
+                .findFirst()
+                .orElse(defaultListSize);
+    }
+
+    private static boolean isIntrospection(ExecutableNormalizedField field) {
+        return field.getFieldName().startsWith("__");
+    }
+}
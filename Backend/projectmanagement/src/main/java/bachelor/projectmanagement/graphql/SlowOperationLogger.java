@@ -0,0 +1,55 @@
+package bachelor.projectmanagement.graphql;
+
+import graphql.ExecutionResult;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.graphql.observation.ExecutionRequestObservationContext;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Logs GraphQL operations slower than app.graphql.slow-operation-ms, using the
+ * "graphql.request" observation Spring already records for every operation.
+ */
+@Component
+public class SlowOperationLogger implements ObservationHandler<ExecutionRequestObservationContext> {
+
+    private static final Logger logger = LoggerFactory.getLogger(SlowOperationLogger.class);
+
+    private static final String START_NANOS = SlowOperationLogger.class.getName() + ".start";
+
+    private final long slowOperationMs;
+
+    public SlowOperationLogger(@Value("${app.graphql.slow-operation-ms:1000}") long slowOperationMs) {
+        this.slowOperationMs = slowOperationMs;
+    }
+
+    @Override
+    public void onStart(ExecutionRequestObservationContext context) {
+        context.put(START_NANOS, System.nanoTime());
+    }
+
+    @Override
+    public void onStop(ExecutionRequestObservationContext context) {
+        Long startNanos = context.get(START_NANOS);
+        if (startNanos == null) {
+            return;
+        }
+        long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+        if (millis >= slowOperationMs) {
+            ExecutionResult result = context.getExecutionResult();
+            logger.warn("Slow GraphQL operation {} took {} ms with {} error(s)",
+                    context.getExecutionInput().getOperationName(), millis,
+                    result != null ? result.getErrors().size() : 0);
+        }
+    }
+
+    @Override
+    public boolean supportsContext(Observation.Context context) {
+        return slowOperationMs > 0 && context instanceof ExecutionRequestObservationContext;
+    }
+}
@@ -1,11 +1,18 @@
 package bachelor.projectmanagement.graphql;
 
+import bachelor.projectmanagement.graphql.input.RosterGroupInput;
+import bachelor.projectmanagement.graphql.input.RosterStudentInput;
 import bachelor.projectmanagement.model.User;
+import bachelor.projectmanagement.service.RosterProvisioningResult;
+import bachelor.projectmanagement.service.RosterProvisioningService;
 import bachelor.projectmanagement.service.UserService;
 
+import org.springframework.data.domain.Window;
 import org.springframework.graphql.data.method.annotation.Argument;
 import org.springframework.graphql.data.method.annotation.MutationMapping;
 import org.springframework.graphql.data.method.annotation.QueryMapping;
+import org.springframework.graphql.data.query.ScrollSubrange;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Controller;
 
 import java.util.List;
@@ -15,9 +22,11 @@ import java.util.List;
 public class UserResolver {
 
     private final UserService userService;
+    private final RosterProvisioningService rosterProvisioningService;
 
-    public UserResolver(UserService userService) {
+    public UserResolver(UserService userService, RosterProvisioningService rosterProvisioningService) {
         this.userService = userService;
+        this.rosterProvisioningService = rosterProvisioningService;
     }
 
     @QueryMapping
@@ -36,8 +45,7 @@ public class UserResolver {
         if (user == null) {
             throw new RuntimeException("User not found");
         }
-        user.setUsername(newUsername);
-        User updatedUser = userService.save(user); 
+        User updatedUser = userService.updateUsername(user, newUsername);
         
         return updatedUser;
     }
@@ -58,6 +66,16 @@ public class UserResolver {
         return userService.getAllNonSuperAdminUsers();
     }
 
+    @QueryMapping
+    public Window<User> usersConnection(ScrollSubrange subrange) {
+        return userService.getUsersPage(Pagination.position(subrange), Pagination.pageSize(subrange), false);
+    }
+
+    @QueryMapping
+    public Window<User> nonSuperAdminUsersConnection(ScrollSubrange subrange) {
+        return userService.getUsersPage(Pagination.position(subrange), Pagination.pageSize(subrange), true);
+    }
+
     @MutationMapping
     public User updateUserRole(@Argument String username, @Argument String newRole) {
         User updatedUser = userService.updateUserRole(username, newRole);
@@ -65,4 +83,10 @@ public class UserResolver {
         return updatedUser;
     }
 
+    @MutationMapping
+    @PreAuthorize("hasAnyRole('ADMIN', 'SUPERADMIN')")
+    public RosterProvisioningResult provisionRoster(@Argument List<RosterStudentInput> students,
+                                                    @Argument List<RosterGroupInput> groups) {
+        return rosterProvisioningService.provision(students, groups);
+    }
 }
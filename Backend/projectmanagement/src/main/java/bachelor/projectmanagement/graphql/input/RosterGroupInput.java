@@ -0,0 +1,55 @@
+package bachelor.projectmanagement.graphql.input;
+
+import java.util.List;
+
+/**
+ * One group of a provisionRoster mutation, which gets a project from its course level's template
+ */
+public class RosterGroupInput {
+    private String title;
+    private String description;
+    private int courseLevel;
+    private List<String> usernames;
+
+    public RosterGroupInput() {}
+
+    public RosterGroupInput(String title, String description, int courseLevel, List<String> usernames) {
+        this.title = title;
+        this.description = description;
+        this.courseLevel = courseLevel;
+        this.usernames = usernames;
+    }
+
+    // Getters and setters
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public void setDescription(String description) {
+        this.description = description;
+    }
+
+    public int getCourseLevel() {
+        return courseLevel;
+    }
+
+    public void setCourseLevel(int courseLevel) {
+        this.courseLevel = courseLevel;
+    }
+
+    public List<String> getUsernames() {
+        return usernames;
+    }
+
+    public void setUsernames(List<String> usernames) {
+        this.usernames = usernames;
+    }
+}
@@ -0,0 +1,33 @@
+package bachelor.projectmanagement.graphql.input;
+
+/**
+ * One student of a provisionRoster mutation
+ */
+public class RosterStudentInput {
+    private String username;
+    private String password;
+
+    public RosterStudentInput() {}
+
+    public RosterStudentInput(String username, String password) {
+        this.username = username;
+        this.password = password;
+    }
+
+    // Getters and setters
+    public String getUsername() {
+        return username;
+    }
+
+    public void setUsername(String username) {
+        this.username = username;
+    }
+
+    public String getPassword() {
+        return password;
+    }
+
+    public void setPassword(String password) {
+        this.password = password;
+    }
+}
@@ -0,0 +1,37 @@
+package bachelor.projectmanagement.graphql.input;
+
+/**
+ * One entry of a batchUpdateTasks mutation: the task to change and the fields to set on it
+ */
+public class TaskBatchUpdateInput extends TaskInput {
+    private String epicId;
+    private String featureId;
+    private String taskId;
+
+    public TaskBatchUpdateInput() {}
+
+    // Getters and setters
+    public String getEpicId() {
+        return epicId;
+    }
+
+    public void setEpicId(String epicId) {
+        this.epicId = epicId;
+    }
+
+    public String getFeatureId() {
+        return featureId;
+    }
+
+    public void setFeatureId(String featureId) {
+        this.featureId = featureId;
+    }
+
+    public String getTaskId() {
+        return taskId;
+    }
+
+    public void setTaskId(String taskId) {
+        this.taskId = taskId;
+    }
+}
@@ -3,7 +3,6 @@ package bachelor.projectmanagement.model;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
-import org.springframework.data.mongodb.core.mapping.DBRef;
 import java.time.Instant;
 import java.util.HashMap;
 import java.util.Map;
@@ -28,9 +27,8 @@ public class CourseLevelConfig {
     // Extensible feature configuration
     private Map<String, Boolean> features = new HashMap<>();
     
-    // Template project for this course level
-    @DBRef
-    private Project templateProject;
+    // Id of the template project for this course level
+    private String templateProjectId;
     
     private Instant createdAt = Instant.now();
     private Instant updatedAt = Instant.now();
@@ -42,6 +40,18 @@ public class CourseLevelConfig {
         initializeDefaultFeatures();
     }
 
+    /**
+     * Copy of another config, with its own feature map
+     */
+    public CourseLevelConfig(CourseLevelConfig other) {
+        this.id = other.id;
+        this.courseLevel = other.courseLevel;
+        this.features = other.features == null ? new HashMap<>() : new HashMap<>(other.features);
+        this.templateProjectId = other.templateProjectId;
+        this.createdAt = other.createdAt;
+        this.updatedAt = other.updatedAt;
+    }
+
     private void initializeDefaultFeatures() {
         // By default, all features are enabled
         features.put(TASK_USER_ASSIGNMENT, true);
@@ -144,12 +154,12 @@ public class CourseLevelConfig {
         this.updatedAt = updatedAt; 
     }
 
-    public Project getTemplateProject() {
-        return templateProject;
+    public String getTemplateProjectId() {
+        return templateProjectId;
     }
 
-    public void setTemplateProject(Project templateProject) {
-        this.templateProject = templateProject;
+    public void setTemplateProjectId(String templateProjectId) {
+        this.templateProjectId = templateProjectId;
         this.updatedAt = Instant.now();
     }
 
@@ -1,7 +1,6 @@
 package bachelor.projectmanagement.model;
 
 import org.springframework.data.annotation.Id;
-import org.springframework.data.mongodb.core.mapping.DBRef;
 
 
 import java.util.ArrayList;
@@ -15,8 +14,7 @@ public class Epic {
     private String description;
     private EpicStatus status;
 
-    @DBRef
-    private User owner;
+    private UserRef owner;
 
     private List<Feature> features = new ArrayList<>();
 
@@ -26,7 +24,7 @@ public class Epic {
         this.title = title;
         this.description = description;
         this.status = EpicStatus.TODO;
-        this.owner = owner;
+        this.owner = owner != null ? UserRef.of(owner) : null;
         this.features = new ArrayList<>();
     }
 
@@ -43,8 +41,8 @@ public class Epic {
     public EpicStatus getStatus() { return status; }
     public void setStatus(EpicStatus status) { this.status = status; }
 
-    public User getOwner() { return owner; }
-    public void setOwner(User owner) { this.owner = owner; }
+    public UserRef getOwner() { return owner; }
+    public void setOwner(UserRef owner) { this.owner = owner; }
 
     public List<Feature> getFeatures() { return features; }
     public void setFeatures(List<Feature> features) { this.features = features != null ? features : new ArrayList<>(); }
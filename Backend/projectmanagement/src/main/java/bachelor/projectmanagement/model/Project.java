@@ -1,7 +1,7 @@
 package bachelor.projectmanagement.model;
 
 import org.springframework.data.annotation.Id;
-import org.springframework.data.mongodb.core.mapping.DBRef;
+import org.springframework.data.annotation.Version;
 import org.springframework.data.mongodb.core.mapping.Document;
 import java.time.Instant;
 import java.util.ArrayList;
@@ -18,8 +18,11 @@ public class Project {
     private ProjectStatus status;
     private Instant createdOn = Instant.now();
 
-    @DBRef
-    private List<User> owners = new ArrayList<>();
+    // Incremented on every write, so concurrent whole-document saves are detected
+    @Version
+    private Long version;
+
+    private List<UserRef> owners = new ArrayList<>();
 
     private List<Epic> epics = new ArrayList<>();
 
@@ -31,7 +34,7 @@ public class Project {
         this.courseLevel = courseLevel;
         this.status = ProjectStatus.TODO;
         this.owners = new ArrayList<>();
-        this.owners.add(owner);  // Add the initial owner to the list
+        this.owners.add(UserRef.of(owner));  // Add the initial owner to the list
         this.epics = new ArrayList<>();
         this.createdOn = Instant.now();
     }
@@ -55,31 +58,36 @@ public class Project {
     public Instant getCreatedOn() { return createdOn; }
     public void setCreatedOn(Instant createdOn) { this.createdOn = createdOn; }
 
-    public List<User> getOwners() { return owners; }
-    public void setOwners(List<User> owners) { this.owners = owners != null ? owners : new ArrayList<>(); }
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
+
+    public List<UserRef> getOwners() { return owners; }
+    public void setOwners(List<UserRef> owners) { this.owners = owners != null ? owners : new ArrayList<>(); }
     
     // Convenience method to get the first owner (for backward compatibility)
-    public User getOwner() { return owners != null && !owners.isEmpty() ? owners.get(0) : null; }
+    public UserRef getOwner() { return owners != null && !owners.isEmpty() ? owners.get(0) : null; }
     
     // Convenience method to set a single owner (for backward compatibility)
-    public void setOwner(User owner) { 
+    public void setOwner(UserPrincipal owner) { 
         if (owner != null) {
             this.owners = new ArrayList<>();
-            this.owners.add(owner);
+            this.owners.add(UserRef.of(owner));
         }
     }
     
     // Method to add an owner
-    public void addOwner(User owner) {
-        if (owner != null && !owners.contains(owner)) {
-            owners.add(owner);
+    public void addOwner(UserPrincipal owner) {
+        if (owner != null && !hasOwner(owner.getId())) {
+            owners.add(UserRef.of(owner));
         }
     }
     
-    public void removeOwner(User owner) {
-        if (owner != null) {
-            owners.remove(owner);
-        }
+    public boolean removeOwner(UserPrincipal owner) {
+        return owner != null && owners.removeIf(ref -> owner.getId() != null && owner.getId().equals(ref.getUserId()));
+    }
+
+    public boolean hasOwner(String userId) {
+        return userId != null && owners.stream().anyMatch(ref -> userId.equals(ref.getUserId()));
     }
 
     public List<Epic> getEpics() { return epics; }
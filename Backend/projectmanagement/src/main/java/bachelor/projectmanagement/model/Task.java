@@ -1,10 +1,13 @@
 package bachelor.projectmanagement.model;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
 
+// Embedded in Feature by default, stored in the "tasks" collection when app.tasks.storage=collection
+@Document(collection = "tasks")
 public class Task {
 
     @Id
@@ -12,7 +15,7 @@ public class Task {
     private String title;
     private String description;
     private TaskStatus status;
-    private List<String> users = new ArrayList<>(); // usernames assigned
+    private List<String> users = new ArrayList<>(); // ids of the assigned users
     private LocalDate dueDate; // New field for due date
     
     // Parent IDs for subscription filtering
@@ -1,7 +1,6 @@
 package bachelor.projectmanagement.model;
 
 import org.springframework.data.annotation.Id;
-import org.springframework.data.mongodb.core.mapping.DBRef;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
@@ -10,7 +9,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Document(collection = "users")
-public class User {
+public class User implements UserPrincipal {
 
     @Id
     private String id; // You can still use username as ID if desired
@@ -19,9 +18,9 @@ public class User {
     @JsonIgnore
     private String hashedPassword;
 
-    @DBRef
+    // Ids of the projects this user owns, the projects themselves are loaded on demand
     @JsonIgnore
-    private List<Project> projects = new ArrayList<>(); // Initialized
+    private List<String> projectIds = new ArrayList<>();
     private String role; // "USER", "ADMIN", or "SUPERADMIN"
 
     public User() {}
@@ -29,24 +28,27 @@ public class User {
     public User(String username, String hashedPassword) {
         this.username = username;
         this.hashedPassword = hashedPassword;
-        this.projects = new ArrayList<>();
+        this.projectIds = new ArrayList<>();
     }
 
     // Getters and setters
+    @Override
     public String getId() { return id; }
     public void setId(String id) { this.id = id; }
 
+    @Override
     public String getUsername() { return username; }
     public void setUsername(String username) { this.username = username; }
 
     public String getHashedPassword() { return hashedPassword; }
     public void setHashedPassword(String hashedPassword) { this.hashedPassword = hashedPassword; }
 
-    public List<Project> getProjects() { return projects; }
-    public void setProjects(List<Project> projects) { 
-        this.projects = projects != null ? projects : new ArrayList<>();
+    public List<String> getProjectIds() { return projectIds; }
+    public void setProjectIds(List<String> projectIds) { 
+        this.projectIds = projectIds != null ? projectIds : new ArrayList<>();
     }
 
+    @Override
     public String getRole() {
         return role;
     }
@@ -0,0 +1,15 @@
+package bachelor.projectmanagement.model;
+
+/**
+ * The id, username and role of a user, which is all that authorization and ownership
+ * checks need. UserRepository.findPrincipalByUsername loads only these fields, so those
+ * checks never load the password hash or the project id list.
+ */
+public interface UserPrincipal {
+
+    String getId();
+
+    String getUsername();
+
+    String getRole();
+}
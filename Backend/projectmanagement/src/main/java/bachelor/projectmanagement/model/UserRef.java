@@ -0,0 +1,42 @@
+package bachelor.projectmanagement.model;
+
+/**
+ * Embedded id/username summary of a user, stored instead of a DBRef so that reading a
+ * project never triggers extra user lookups. The username is updated when a user is renamed.
+ */
+public class UserRef {
+
+    private String userId;
+    private String username;
+
+    public UserRef() {}
+
+    public UserRef(String userId, String username) {
+        this.userId = userId;
+        this.username = username;
+    }
+
+    public static UserRef of(UserPrincipal user) {
+        return new UserRef(user.getId(), user.getUsername());
+    }
+
+    // Getters and setters
+    public String getUserId() { return userId; }
+    public void setUserId(String userId) { this.userId = userId; }
+
+    public String getUsername() { return username; }
+    public void setUsername(String username) { this.username = username; }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        UserRef ref = (UserRef) o;
+        return userId != null && userId.equals(ref.userId);
+    }
+
+    @Override
+    public int hashCode() {
+        return userId != null ? userId.hashCode() : 0;
+    }
+}
@@ -6,7 +6,7 @@ import org.springframework.stereotype.Repository;
 import java.util.List;
 
 @Repository
-public interface CourseLevelConfigRepository extends MongoRepository<CourseLevelConfig, String> {
+public interface CourseLevelConfigRepository extends MongoRepository<CourseLevelConfig, String>, CourseLevelConfigRepositoryCustom {
     // Return all configs matching the course level (defensive: database may contain duplicates)
     List<CourseLevelConfig> findAllByCourseLevel(int courseLevel);
 }
\ No newline at end of file
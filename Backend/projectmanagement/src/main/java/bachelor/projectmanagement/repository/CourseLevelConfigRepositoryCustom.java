@@ -0,0 +1,15 @@
+package bachelor.projectmanagement.repository;
+
+import bachelor.projectmanagement.model.CourseLevelConfig;
+
+/**
+ * Atomic creation of course level configs.
+ */
+public interface CourseLevelConfigRepositoryCustom {
+
+    /**
+     * Insert the given config unless one already exists for its course level, with a single upsert
+     * @return The config stored for the course level, either the existing one or the inserted one
+     */
+    CourseLevelConfig insertIfAbsent(CourseLevelConfig config);
+}
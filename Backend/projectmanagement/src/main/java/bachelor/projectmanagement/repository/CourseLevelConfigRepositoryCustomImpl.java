@@ -0,0 +1,37 @@
+package bachelor.projectmanagement.repository;
+
+import bachelor.projectmanagement.model.CourseLevelConfig;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+/**
+ * MongoTemplate backed implementation of {@link CourseLevelConfigRepositoryCustom}.
+ */
+public class CourseLevelConfigRepositoryCustomImpl implements CourseLevelConfigRepositoryCustom {
+
+    private final MongoTemplate mongoTemplate;
+
+    public CourseLevelConfigRepositoryCustomImpl(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public CourseLevelConfig insertIfAbsent(CourseLevelConfig config) {
+        Query query = Query.query(Criteria.where("courseLevel").is(config.getCourseLevel()));
+        Update update = new Update()
+                .setOnInsert("features", config.getFeatures())
+                .setOnInsert("createdAt", config.getCreatedAt())
+                .setOnInsert("updatedAt", config.getUpdatedAt());
+        FindAndModifyOptions options = FindAndModifyOptions.options().upsert(true).returnNew(true);
+        try {
+            return mongoTemplate.findAndModify(query, update, options, CourseLevelConfig.class);
+        } catch (DuplicateKeyException e) {
+            // Two concurrent upserts both missed, the unique index let only one insert
+            return mongoTemplate.findOne(query, CourseLevelConfig.class);
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package bachelor.projectmanagement.repository;
+
+import bachelor.projectmanagement.model.Project;
+import org.bson.Document;
+import org.springframework.data.mongodb.core.mapping.event.BeforeSaveCallback;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Keeps the project, epic and feature id of embedded tasks out of saved projects. They are
+ * implied by the task's position and set on read, but only tasks in the "tasks" collection store them.
+ */
+@Component
+public class EmbeddedTaskParentIdsCallback implements BeforeSaveCallback<Project> {
+
+    public static final List<String> PARENT_IDS = List.of("projectId", "epicId", "featureId");
+
+    @Override
+    public Project onBeforeSave(Project project, Document document, String collection) {
+        removeParentIds(document.getList("epics", Document.class, List.of()));
+        return project;
+    }
+
+    /**
+     * Remove the parent ids from every task of the given epic documents, in place
+     */
+    public static void removeParentIds(List<Document> epics) {
+        for (Document epic : epics) {
+            for (Document feature : epic.getList("features", Document.class, List.of())) {
+                for (Document task : feature.getList("tasks", Document.class, List.of())) {
+                    PARENT_IDS.forEach(task::remove);
+                }
+            }
+        }
+    }
+}
@@ -9,12 +9,12 @@ import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
 
 @Repository
-public interface ProjectRepository extends MongoRepository<Project, String> {
+public interface ProjectRepository extends MongoRepository<Project, String>, ProjectRepositoryCustom {
      List<Project> findByOwner(String owner);
 
      @Query("{ 'owners.username': ?0 }")
      List<Project> findByOwnerUsername(String username);
 
-     @Query("{ 'owners': ?0 }")
+     @Query("{ 'owners.userId': ?0 }")
      List<Project> findByOwnersContaining(String userId);
 }
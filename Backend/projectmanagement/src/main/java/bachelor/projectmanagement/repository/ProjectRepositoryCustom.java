@@ -0,0 +1,78 @@
+package bachelor.projectmanagement.repository;
+
+import bachelor.projectmanagement.model.Epic;
+import bachelor.projectmanagement.model.Feature;
+import bachelor.projectmanagement.model.Project;
+import bachelor.projectmanagement.model.Task;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.Window;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * In-place updates of the epic/feature/task tree embedded in a project.
+ *
+ * Instead of loading and re-saving the whole project, each method sends a single
+ * positional $push/$set/$pull update addressed with arrayFilters. Every method returns
+ * false when the addressed project, epic, feature or task does not exist.
+ *
+ * The find methods load only the given document fields, or the whole document when
+ * fields is null. Partially loaded projects must not be saved back.
+ */
+public interface ProjectRepositoryCustom {
+
+    Optional<Project> findProjectById(String projectId, Collection<String> fields);
+
+    List<Project> findProjectsByOwner(String userId, Collection<String> fields);
+
+    /**
+     * Load the given projects, skipping any the user is no longer an owner of
+     */
+    List<Project> findProjectsByIdsAndOwnerName(Collection<String> projectIds, String username, Collection<String> fields);
+
+    /**
+     * @return true if the user is listed as an owner of the project, checked without loading it
+     */
+    boolean isOwner(String projectId, String username);
+
+    /**
+     * Load one page of projects ordered by id, starting after the given position with a range query
+     * @param ownerId Only projects this user owns, or null for all projects
+     */
+    Window<Project> scrollProjects(String ownerId, KeysetScrollPosition position, int limit, Collection<String> fields);
+
+    /**
+     * Update the username stored in every owner reference to this user
+     */
+    void renameUserRefs(String userId, String newUsername);
+
+    boolean pushEpic(String projectId, Epic epic);
+
+    boolean updateEpicFields(String projectId, String epicId, Map<String, Object> fields);
+
+    boolean pullEpic(String projectId, String epicId);
+
+    boolean pushFeature(String projectId, String epicId, Feature feature);
+
+    boolean updateFeatureFields(String projectId, String epicId, String featureId, Map<String, Object> fields);
+
+    boolean pullFeature(String projectId, String epicId, String featureId);
+
+    boolean featureExists(String projectId, String epicId, String featureId);
+
+    boolean pushTask(String projectId, String epicId, String featureId, Task task);
+
+    boolean updateTaskFields(String projectId, String epicId, String featureId, String taskId, Map<String, Object> fields);
+
+    /**
+     * Set fields on several tasks of the project with a single update.
+     * Tasks that do not exist are skipped, so callers should check them beforehand.
+     * @return false if the project does not exist
+     */
+    boolean updateTasksFields(String projectId, List<TaskFieldUpdate> updates);
+
+    boolean pullTask(String projectId, String epicId, String featureId, String taskId);
+}
@@ -0,0 +1,237 @@
+package bachelor.projectmanagement.repository;
+
+import bachelor.projectmanagement.model.Epic;
+import bachelor.projectmanagement.model.Feature;
+import bachelor.projectmanagement.model.Project;
+import bachelor.projectmanagement.model.Task;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * MongoTemplate backed implementation of {@link ProjectRepositoryCustom}.
+ *
+ * Embedded epics, features and tasks store their id as "_id". The query part of every
+ * update uses nested $elemMatch so the matched count tells whether the addressed element
+ * exists, while the arrayFilters "e", "f" and "t" select the element to modify.
+ * Every update also increments the project version used for optimistic locking.
+ */
+public class ProjectRepositoryCustomImpl implements ProjectRepositoryCustom {
+
+    private static final String EPIC_PATH = "epics.$[e]";
+    private static final String FEATURE_PATH = EPIC_PATH + ".features.$[f]";
+    private static final String TASK_PATH = FEATURE_PATH + ".tasks.$[t]";
+
+    private final MongoTemplate mongoTemplate;
+
+    public ProjectRepositoryCustomImpl(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public Optional<Project> findProjectById(String projectId, Collection<String> fields) {
+        return Optional.ofNullable(mongoTemplate.findOne(project(Query.query(projectCriteria(projectId)), fields), Project.class));
+    }
+
+    @Override
+    public List<Project> findProjectsByOwner(String userId, Collection<String> fields) {
+        return mongoTemplate.find(project(Query.query(Criteria.where("owners.userId").is(userId)), fields), Project.class);
+    }
+
+    @Override
+    public List<Project> findProjectsByIdsAndOwnerName(Collection<String> projectIds, String username,
+                                                       Collection<String> fields) {
+        Query query = Query.query(Criteria.where("_id").in(projectIds).and("owners.username").is(username));
+        return mongoTemplate.find(project(query, fields), Project.class);
+    }
+
+    @Override
+    public boolean isOwner(String projectId, String username) {
+        return mongoTemplate.exists(Query.query(Criteria.where("_id").is(projectId).and("owners.username").is(username)),
+                Project.class);
+    }
+
+    @Override
+    public Window<Project> scrollProjects(String ownerId, KeysetScrollPosition position, int limit,
+                                          Collection<String> fields) {
+        Query query = ownerId != null ? Query.query(Criteria.where("owners.userId").is(ownerId)) : new Query();
+        return mongoTemplate.scroll(project(query, fields).with(Sort.by("_id")).with(position).limit(limit), Project.class);
+    }
+
+    @Override
+    public void renameUserRefs(String userId, String newUsername) {
+        mongoTemplate.updateMulti(Query.query(Criteria.where("owners.userId").is(userId)),
+                new Update().set("owners.$[o].username", newUsername)
+                        .filterArray(Criteria.where("o.userId").is(userId))
+                        .inc("version", 1),
+                Project.class);
+        mongoTemplate.updateMulti(Query.query(Criteria.where("epics.owner.userId").is(userId)),
+                new Update().set("epics.$[e].owner.username", newUsername)
+                        .filterArray(Criteria.where("e.owner.userId").is(userId))
+                        .inc("version", 1),
+                Project.class);
+    }
+
+    @Override
+    public boolean pushEpic(String projectId, Epic epic) {
+        Update update = new Update().push("epics", epic);
+        return apply(projectCriteria(projectId), update);
+    }
+
+    @Override
+    public boolean updateEpicFields(String projectId, String epicId, Map<String, Object> fields) {
+        Update update = setAll(EPIC_PATH, fields)
+                .filterArray(Criteria.where("e._id").is(epicId));
+        return apply(epicCriteria(projectId, epicId), update);
+    }
+
+    @Override
+    public boolean pullEpic(String projectId, String epicId) {
+        Update update = new Update().pull("epics", Query.query(Criteria.where("_id").is(epicId)));
+        return apply(epicCriteria(projectId, epicId), update);
+    }
+
+    @Override
+    public boolean pushFeature(String projectId, String epicId, Feature feature) {
+        Update update = new Update().push(EPIC_PATH + ".features", feature)
+                .filterArray(Criteria.where("e._id").is(epicId));
+        return apply(epicCriteria(projectId, epicId), update);
+    }
+
+    @Override
+    public boolean updateFeatureFields(String projectId, String epicId, String featureId, Map<String, Object> fields) {
+        Update update = setAll(FEATURE_PATH, fields)
+                .filterArray(Criteria.where("e._id").is(epicId))
+                .filterArray(Criteria.where("f._id").is(featureId));
+        return apply(featureCriteria(projectId, epicId, featureId), update);
+    }
+
+    @Override
+    public boolean pullFeature(String projectId, String epicId, String featureId) {
+        Update update = new Update().pull(EPIC_PATH + ".features", Query.query(Criteria.where("_id").is(featureId)))
+                .filterArray(Criteria.where("e._id").is(epicId));
+        return apply(featureCriteria(projectId, epicId, featureId), update);
+    }
+
+    @Override
+    public boolean featureExists(String projectId, String epicId, String featureId) {
+        return mongoTemplate.exists(Query.query(featureCriteria(projectId, epicId, featureId)), Project.class);
+    }
+
+    @Override
+    public boolean pushTask(String projectId, String epicId, String featureId, Task task) {
+        Update update = new Update().push(FEATURE_PATH + ".tasks", withoutParentIds(task))
+                .filterArray(Criteria.where("e._id").is(epicId))
+                .filterArray(Criteria.where("f._id").is(featureId));
+        return apply(featureCriteria(projectId, epicId, featureId), update);
+    }
+
+    @Override
+    public boolean updateTaskFields(String projectId, String epicId, String featureId, String taskId,
+                                    Map<String, Object> fields) {
+        Update update = setAll(TASK_PATH, fields)
+                .filterArray(Criteria.where("e._id").is(epicId))
+                .filterArray(Criteria.where("f._id").is(featureId))
+                .filterArray(Criteria.where("t._id").is(taskId));
+        return apply(taskCriteria(projectId, epicId, featureId, taskId), update);
+    }
+
+    @Override
+    public boolean updateTasksFields(String projectId, List<TaskFieldUpdate> updates) {
+        // One set of arrayFilters per distinct epic, feature and task, named e0, f0, t0, e1, ...
+        Map<String, String> epics = new LinkedHashMap<>();
+        Map<String, String> features = new LinkedHashMap<>();
+        Map<String, String> tasks = new LinkedHashMap<>();
+        Update update = new Update();
+        for (TaskFieldUpdate task : updates) {
+            if (task.fields().isEmpty()) {
+                // Mongo rejects arrayFilters that no path uses
+                continue;
+            }
+            String path = "epics.$[" + identifier(epics, "e", task.epicId()) + "]"
+                    + ".features.$[" + identifier(features, "f", task.featureId()) + "]"
+                    + ".tasks.$[" + identifier(tasks, "t", task.taskId()) + "]";
+            task.fields().forEach((field, value) -> update.set(path + "." + field, value));
+        }
+        epics.forEach((id, name) -> update.filterArray(Criteria.where(name + "._id").is(id)));
+        features.forEach((id, name) -> update.filterArray(Criteria.where(name + "._id").is(id)));
+        tasks.forEach((id, name) -> update.filterArray(Criteria.where(name + "._id").is(id)));
+        return apply(projectCriteria(projectId), update);
+    }
+
+    @Override
+    public boolean pullTask(String projectId, String epicId, String featureId, String taskId) {
+        Update update = new Update().pull(FEATURE_PATH + ".tasks", Query.query(Criteria.where("_id").is(taskId)))
+                .filterArray(Criteria.where("e._id").is(epicId))
+                .filterArray(Criteria.where("f._id").is(featureId));
+        return apply(taskCriteria(projectId, epicId, featureId, taskId), update);
+    }
+
+    private boolean apply(Criteria criteria, Update update) {
+        Query query = Query.query(criteria);
+        if (update.getUpdateObject().isEmpty()) {
+            // Nothing to change, only report whether the target exists
+            return mongoTemplate.exists(query, Project.class);
+        }
+        // Bump the version so a concurrent whole-document save of the same project conflicts
+        update.inc("version", 1);
+        return mongoTemplate.updateFirst(query, update, Project.class).getMatchedCount() > 0;
+    }
+
+    private static Query project(Query query, Collection<String> fields) {
+        if (fields != null) {
+            query.fields().include(fields.toArray(String[]::new));
+        }
+        return query;
+    }
+
+    private static String identifier(Map<String, String> names, String prefix, String id) {
+        return names.computeIfAbsent(id, key -> prefix + names.size());
+    }
+
+    private static Update setAll(String path, Map<String, Object> fields) {
+        Update update = new Update();
+        fields.forEach((field, value) -> update.set(path + "." + field, value));
+        return update;
+    }
+
+    private static Criteria projectCriteria(String projectId) {
+        return Criteria.where("_id").is(projectId);
+    }
+
+    private static Criteria epicCriteria(String projectId, String epicId) {
+        return projectCriteria(projectId)
+                .and("epics").elemMatch(Criteria.where("_id").is(epicId));
+    }
+
+    private static Criteria featureCriteria(String projectId, String epicId, String featureId) {
+        return projectCriteria(projectId)
+                .and("epics").elemMatch(Criteria.where("_id").is(epicId)
+                        .and("features._id").is(featureId));
+    }
+
+    private static Criteria taskCriteria(String projectId, String epicId, String featureId, String taskId) {
+        return projectCriteria(projectId)
+                .and("epics").elemMatch(Criteria.where("_id").is(epicId)
+                        .and("features").elemMatch(Criteria.where("_id").is(featureId)
+                                .and("tasks._id").is(taskId)));
+    }
+
+    // Embedded tasks do not store their parent ids, they are implied by the position
+    private static Task withoutParentIds(Task task) {
+        Task embedded = new Task(task.getTitle(), task.getDescription(), task.getUsers(), task.getStatus());
+        embedded.setTaskId(task.getTaskId());
+        embedded.setDueDate(task.getDueDate());
+        return embedded;
+    }
+}
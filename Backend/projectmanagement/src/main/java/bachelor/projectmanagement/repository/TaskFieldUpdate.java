@@ -0,0 +1,9 @@
+package bachelor.projectmanagement.repository;
+
+import java.util.Map;
+
+/**
+ * Fields to set on one task, addressed by its full parent path. Used for batched task updates.
+ */
+public record TaskFieldUpdate(String epicId, String featureId, String taskId, Map<String, Object> fields) {
+}
@@ -0,0 +1,32 @@
+package bachelor.projectmanagement.repository;
+
+import bachelor.projectmanagement.model.Task;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Tasks stored in their own collection, used when app.tasks.storage=collection.
+ * Every task carries its project, epic and feature id, which are indexed for these lookups.
+ */
+@Repository
+public interface TaskRepository extends MongoRepository<Task, String>, TaskRepositoryCustom {
+
+    List<Task> findByFeatureIdIn(Collection<String> featureIds);
+
+    List<Task> findByProjectId(String projectId);
+
+    Optional<Task> findByTaskIdAndProjectIdAndEpicIdAndFeatureId(String taskId, String projectId, String epicId, String featureId);
+
+    long deleteByProjectId(String projectId);
+
+    long deleteByProjectIdAndEpicId(String projectId, String epicId);
+
+    long deleteByProjectIdAndEpicIdAndFeatureId(String projectId, String epicId, String featureId);
+
+    long deleteByTaskIdAndProjectIdAndEpicIdAndFeatureId(String taskId, String projectId, String epicId, String featureId);
+}
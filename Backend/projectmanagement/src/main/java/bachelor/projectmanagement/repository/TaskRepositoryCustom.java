@@ -0,0 +1,31 @@
+package bachelor.projectmanagement.repository;
+
+import bachelor.projectmanagement.model.Task;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.Window;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Partial updates and paged reads of task documents in the "tasks" collection.
+ */
+public interface TaskRepositoryCustom {
+
+    /**
+     * Set the given fields on a task, addressed by its full parent path
+     * @return false if no task with this id exists under the given feature
+     */
+    boolean updateTaskFields(String projectId, String epicId, String featureId, String taskId, Map<String, Object> fields);
+
+    /**
+     * Set fields on several tasks of a project with a single bulk write
+     * @return The number of tasks that were found
+     */
+    int updateTasksFields(String projectId, List<TaskFieldUpdate> updates);
+
+    /**
+     * Load one page of a feature's tasks ordered by id, starting after the given position with a range query
+     */
+    Window<Task> scrollByFeatureId(String featureId, KeysetScrollPosition position, int limit);
+}
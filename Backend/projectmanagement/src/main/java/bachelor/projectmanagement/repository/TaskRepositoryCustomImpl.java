@@ -0,0 +1,64 @@
+package bachelor.projectmanagement.repository;
+
+import bachelor.projectmanagement.model.Task;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.List;
+import java.util.Map;
+
+public class TaskRepositoryCustomImpl implements TaskRepositoryCustom {
+
+    private final MongoTemplate mongoTemplate;
+
+    public TaskRepositoryCustomImpl(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public boolean updateTaskFields(String projectId, String epicId, String featureId, String taskId,
+                                    Map<String, Object> fields) {
+        Query query = taskQuery(projectId, epicId, featureId, taskId);
+        if (fields.isEmpty()) {
+            return mongoTemplate.exists(query, Task.class);
+        }
+        Update update = new Update();
+        fields.forEach(update::set);
+        return mongoTemplate.updateFirst(query, update, Task.class).getMatchedCount() > 0;
+    }
+
+    @Override
+    public int updateTasksFields(String projectId, List<TaskFieldUpdate> updates) {
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Task.class);
+        int queued = 0;
+        for (TaskFieldUpdate task : updates) {
+            if (task.fields().isEmpty()) {
+                continue;
+            }
+            Update update = new Update();
+            task.fields().forEach(update::set);
+            bulk.updateOne(taskQuery(projectId, task.epicId(), task.featureId(), task.taskId()), update);
+            queued++;
+        }
+        return queued == 0 ? 0 : bulk.execute().getMatchedCount();
+    }
+
+    private static Query taskQuery(String projectId, String epicId, String featureId, String taskId) {
+        return Query.query(Criteria.where("_id").is(taskId)
+                .and("projectId").is(projectId)
+                .and("epicId").is(epicId)
+                .and("featureId").is(featureId));
+    }
+
+    @Override
+    public Window<Task> scrollByFeatureId(String featureId, KeysetScrollPosition position, int limit) {
+        Query query = Query.query(Criteria.where("featureId").is(featureId));
+        return mongoTemplate.scroll(query.with(Sort.by("_id")).with(position).limit(limit), Task.class);
+    }
+}
@@ -1,11 +1,24 @@
 package bachelor.projectmanagement.repository;
 
 import bachelor.projectmanagement.model.User;
+import bachelor.projectmanagement.model.UserPrincipal;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface UserRepository extends MongoRepository<User, String> {
+public interface UserRepository extends MongoRepository<User, String>, UserRepositoryCustom {
     Optional<User> findByUsername(String username);
+
+    // Loads only id, username and role, use this when the full user is not needed.
+    // The fields are listed explicitly: User implements UserPrincipal, so Spring Data does not
+    // treat the return type as a projection and would otherwise load the whole document
+    @Query(value = "{ 'username': ?0 }", fields = "{ 'username': 1, 'role': 1 }")
+    Optional<UserPrincipal> findPrincipalByUsername(String username);
+
+    @Query(value = "{ 'username': { $in: ?0 } }", fields = "{ 'username': 1, 'role': 1 }")
+    List<UserPrincipal> findPrincipalsByUsernameIn(Collection<String> usernames);
 }
@@ -0,0 +1,47 @@
+package bachelor.projectmanagement.repository;
+
+import bachelor.projectmanagement.model.User;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.Window;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Targeted updates of the project id list on users, so that adding or removing an owner
+ * does not need to load and save the whole user document, and bulk writes for provisioning.
+ */
+public interface UserRepositoryCustom {
+
+    /**
+     * Add a project id to a user's projectIds if it is not already there
+     * @return false if the user does not exist
+     */
+    boolean addProjectId(String userId, String projectId);
+
+    /**
+     * Remove a project id from the projectIds of all given users
+     */
+    void removeProjectId(Collection<String> userIds, String projectId);
+
+    /**
+     * Add project ids to several users with one bulk write
+     * @param projectIdsByUserId Project ids to add, by user id
+     */
+    void addProjectIds(Map<String, ? extends Collection<String>> projectIdsByUserId);
+
+    /**
+     * Insert new users with one unordered bulk write, a failing user does not stop the others.
+     * The users must already have their ids.
+     * @return Error messages by the index of each user that was not inserted
+     */
+    Map<Integer, String> insertUnordered(List<User> users);
+
+    /**
+     * Load one page of users ordered by username, starting after the given position with a
+     * range query on the username index
+     * @param excludeSuperAdmins Leave out users with the SUPERADMIN role
+     */
+    Window<User> scrollUsers(boolean excludeSuperAdmins, KeysetScrollPosition position, int limit);
+}
@@ -0,0 +1,83 @@
+package bachelor.projectmanagement.repository;
+
+import bachelor.projectmanagement.model.User;
+import bachelor.projectmanagement.model.UserRole;
+import com.mongodb.ErrorCategory;
+import com.mongodb.bulk.BulkWriteError;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * MongoTemplate backed implementation of {@link UserRepositoryCustom}.
+ */
+public class UserRepositoryCustomImpl implements UserRepositoryCustom {
+
+    private final MongoTemplate mongoTemplate;
+
+    public UserRepositoryCustomImpl(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public boolean addProjectId(String userId, String projectId) {
+        return mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(userId)),
+                new Update().addToSet("projectIds", projectId), User.class).getMatchedCount() > 0;
+    }
+
+    @Override
+    public void removeProjectId(Collection<String> userIds, String projectId) {
+        if (userIds.isEmpty()) {
+            return;
+        }
+        mongoTemplate.updateMulti(Query.query(Criteria.where("_id").in(userIds)),
+                new Update().pull("projectIds", projectId), User.class);
+    }
+
+    @Override
+    public void addProjectIds(Map<String, ? extends Collection<String>> projectIdsByUserId) {
+        if (projectIdsByUserId.isEmpty()) {
+            return;
+        }
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, User.class);
+        projectIdsByUserId.forEach((userId, projectIds) -> bulk.updateOne(Query.query(Criteria.where("_id").is(userId)),
+                new Update().addToSet("projectIds").each(projectIds.toArray())));
+        bulk.execute();
+    }
+
+    @Override
+    public Map<Integer, String> insertUnordered(List<User> users) {
+        if (users.isEmpty()) {
+            return Map.of();
+        }
+        try {
+            mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, User.class).insert(users).execute();
+            return Map.of();
+        } catch (BulkOperationException e) {
+            Map<Integer, String> failed = new HashMap<>();
+            for (BulkWriteError error : e.getErrors()) {
+                failed.put(error.getIndex(), ErrorCategory.fromErrorCode(error.getCode()) == ErrorCategory.DUPLICATE_KEY
+                        ? "Username already exists"
+                        : error.getMessage());
+            }
+            return failed;
+        }
+    }
+
+    @Override
+    public Window<User> scrollUsers(boolean excludeSuperAdmins, KeysetScrollPosition position, int limit) {
+        Query query = excludeSuperAdmins ? Query.query(Criteria.where("role").ne(UserRole.SUPERADMIN)) : new Query();
+        return mongoTemplate.scroll(query.with(Sort.by("username")).with(position).limit(limit), User.class);
+    }
+}
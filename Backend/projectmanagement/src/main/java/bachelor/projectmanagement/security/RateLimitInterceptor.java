@@ -9,6 +9,8 @@ import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
 import org.springframework.web.servlet.HandlerInterceptor;
 
 import java.time.Duration;
@@ -23,10 +25,15 @@ import java.util.concurrent.ConcurrentHashMap;
  * - Regular users: 100 requests/minute for GraphQL queries
  * - Mutations: 30 requests/minute for write operations
  * - Unauthenticated: 10 requests/minute per IP
+ *
+ * GraphQL operations are charged extra tokens by their estimated cost, see
+ * {@link #consumeAdditionalTokens}.
  */
 @Component
 public class RateLimitInterceptor implements HandlerInterceptor {
 
+    private static final String BUCKET_ATTRIBUTE = RateLimitInterceptor.class.getName() + ".bucket";
+
     private final Map<String, Bucket> userBuckets = new ConcurrentHashMap<>();
     private final Map<String, Bucket> ipBuckets = new ConcurrentHashMap<>();
 
@@ -48,6 +55,9 @@ public class RateLimitInterceptor implements HandlerInterceptor {
             bucket = ipBuckets.computeIfAbsent(key, k -> createBucketForIP());
         }
 
+        // Remember the bucket so later stages of the request can charge more tokens
+        request.setAttribute(BUCKET_ATTRIBUTE, bucket);
+
         // Try to consume a token from the bucket
         if (bucket.tryConsume(1)) {
             // Request allowed
@@ -67,6 +77,25 @@ public class RateLimitInterceptor implements HandlerInterceptor {
         }
     }
 
+    /**
+     * Charges more tokens to the bucket of the current request, for work that is known to be
+     * more expensive than one request. Does nothing outside of a rate limited request.
+     * @throws RateLimitExceededException If the bucket does not hold enough tokens
+     */
+    public void consumeAdditionalTokens(long tokens) {
+        if (tokens <= 0 || !(RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes)) {
+            return;
+        }
+        Bucket bucket = (Bucket) attributes.getRequest().getAttribute(BUCKET_ATTRIBUTE);
+        if (bucket != null && !bucket.tryConsume(tokens)) {
+            long waitForRefill = 60;
+            throw new RateLimitExceededException(
+                "Rate limit exceeded by an expensive query. Please try again in " + waitForRefill + " seconds.",
+                waitForRefill
+            );
+        }
+    }
+
     /**
      * Creates a bucket with appropriate limits based on user role.
      */
@@ -41,6 +41,10 @@ public class SecurityConfig {
                 .requestMatchers("/users/create", "/users/verify").permitAll()
                 .requestMatchers("/hello/**").permitAll()
                 .requestMatchers("/sse/health").permitAll()
+                .requestMatchers("/actuator/health").permitAll()
+
+                // Metrics and other actuator endpoints are for superadmins only
+                .requestMatchers("/actuator/**").hasRole("SUPERADMIN")
                 
                 // SSE endpoints require authentication (but handled via query param)
                 .requestMatchers("/sse/**").authenticated()
@@ -2,158 +2,87 @@ package bachelor.projectmanagement.service;
 
 import bachelor.projectmanagement.model.CourseLevelConfig;
 import bachelor.projectmanagement.repository.CourseLevelConfigRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import jakarta.annotation.PostConstruct;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
 
+/**
+ * Course level configs are read on every task mutation, so they are served from an immutable
+ * in-memory snapshot of all configs that is read without locking. The snapshot is loaded on
+ * first use, replaced on every change made through this service and reloaded periodically
+ * (app.course-configs.refresh-interval-ms) to pick up changes made by other instances.
+ *
+ * Configs handed out by the public methods are copies, callers may change and save them.
+ */
 @Service
 public class CourseLevelConfigService {
 
+    private static final Logger logger = LoggerFactory.getLogger(CourseLevelConfigService.class);
+
     @Autowired
     private CourseLevelConfigRepository configRepository;
 
+    @Autowired
+    private ProjectTemplateCache templateCache;
+
+    // Course level -> config, replaced as a whole and never modified
+    private final AtomicReference<Map<Integer, CourseLevelConfig>> snapshot = new AtomicReference<>();
+
+    @Scheduled(fixedDelayString = "${app.course-configs.refresh-interval-ms:60000}",
+            initialDelayString = "${app.course-configs.refresh-interval-ms:60000}")
+    public void refresh() {
+        try {
+            reload();
+        } catch (RuntimeException e) {
+            // Keep serving the previous snapshot
+            logger.warn("Could not reload course level configs: {}", e.getMessage());
+        }
+    }
+
     /**
-     * Clean up duplicate course level configs on startup
+     * Replace the snapshot with the configs currently stored in the database. Stored configs
+     * are brought up to date by the schema migrations, not here.
      */
-    @PostConstruct
-    public void cleanupDuplicateConfigs() {
-        try {
-            System.out.println("🔍 Checking for duplicate CourseLevelConfig documents...");
-            
-            // Get all configs
-            List<CourseLevelConfig> allConfigs = configRepository.findAll();
-            Map<Integer, List<CourseLevelConfig>> configsByLevel = new HashMap<>();
-            
-            // Group by course level
-            for (CourseLevelConfig config : allConfigs) {
-                configsByLevel.computeIfAbsent(config.getCourseLevel(), k -> new java.util.ArrayList<>()).add(config);
-            }
-            
-            int duplicatesRemoved = 0;
-            for (Map.Entry<Integer, List<CourseLevelConfig>> entry : configsByLevel.entrySet()) {
-                List<CourseLevelConfig> configs = entry.getValue();
-                if (configs.size() > 1) {
-                    System.err.println("⚠️  Found " + configs.size() + " duplicate configs for courseLevel " + entry.getKey());
-                    
-                    // Keep the first one (oldest by createdAt), delete the rest
-                    configs.sort((a, b) -> a.getCreatedAt().compareTo(b.getCreatedAt()));
-                    CourseLevelConfig toKeep = configs.get(0);
-                    System.out.println("✅ Keeping config with ID: " + toKeep.getId() + " (created at " + toKeep.getCreatedAt() + ")");
-                    
-                    for (int i = 1; i < configs.size(); i++) {
-                        CourseLevelConfig toDelete = configs.get(i);
-                        System.out.println("🗑️  Deleting duplicate config with ID: " + toDelete.getId() + " (created at " + toDelete.getCreatedAt() + ")");
-                        configRepository.delete(toDelete);
-                        duplicatesRemoved++;
-                    }
-                }
-            }
-            
-            if (duplicatesRemoved > 0) {
-                System.out.println("✅ Cleaned up " + duplicatesRemoved + " duplicate CourseLevelConfig document(s)");
-            } else {
-                System.out.println("✅ No duplicate CourseLevelConfig documents found");
-            }
-        } catch (Exception e) {
-            System.err.println("❌ Error during duplicate config cleanup: " + e.getMessage());
-            e.printStackTrace();
+    public void reload() {
+        Map<Integer, CourseLevelConfig> configs = new HashMap<>();
+        for (CourseLevelConfig config : configRepository.findAll()) {
+            // Duplicates are removed by a migration, until then use the first one
+            configs.putIfAbsent(config.getCourseLevel(), config);
         }
+        snapshot.set(Map.copyOf(configs));
     }
 
     /**
      * Get configuration for a specific course level
      */
     public Optional<CourseLevelConfig> getConfig(int courseLevel) {
-        // Repository may return multiple documents if duplicates exist; return first if present
-        try {
-            var list = configRepository.findAllByCourseLevel(courseLevel);
-            if (list != null && !list.isEmpty()) {
-                if (list.size() > 1) {
-                    System.err.println("WARN: Multiple CourseLevelConfig documents found for courseLevel " + courseLevel + ". Using the first one.");
-                }
-                return Optional.of(list.get(0));
-            }
-            return Optional.empty();
-        } catch (Exception e) {
-            System.err.println("ERROR: Failed to load config list for course level " + courseLevel + ": " + e.getMessage());
-            throw e;
-        }
+        return Optional.ofNullable(configs().get(courseLevel)).map(CourseLevelConfig::new);
     }
 
     /**
      * Get configuration for a specific course level, creating default if not exists
-     * Synchronized to prevent race conditions during concurrent config creation
      */
-    public synchronized CourseLevelConfig getConfigOrDefault(int courseLevel) {
-        try {
-            System.out.println("DEBUG: Looking for config with course level " + courseLevel);
-            var list = configRepository.findAllByCourseLevel(courseLevel);
-            if (list != null && !list.isEmpty()) {
-                if (list.size() > 1) {
-                    System.err.println("WARN: Multiple CourseLevelConfig documents found for courseLevel " + courseLevel + ". Using the first one.");
-                }
-                CourseLevelConfig config = list.get(0);
-                System.out.println("DEBUG: Found existing config: " + config);
-                
-                // Migration: Check if the config has all required features
-                boolean needsUpdate = false;
-                Map<String, Boolean> features = config.getFeatures();
-                
-                if (!features.containsKey(CourseLevelConfig.EPIC_CREATE_DELETE)) {
-                    features.put(CourseLevelConfig.EPIC_CREATE_DELETE, true);
-                    needsUpdate = true;
-                }
-                if (!features.containsKey(CourseLevelConfig.FEATURE_CREATE_DELETE)) {
-                    features.put(CourseLevelConfig.FEATURE_CREATE_DELETE, true);
-                    needsUpdate = true;
-                }
-                if (!features.containsKey(CourseLevelConfig.TASK_CREATE_DELETE)) {
-                    features.put(CourseLevelConfig.TASK_CREATE_DELETE, true);
-                    needsUpdate = true;
-                }
-                
-                if (needsUpdate) {
-                    System.out.println("DEBUG: Migrating existing config to include new features");
-                    config.setFeatures(features);
-                    config = configRepository.save(config);
-                    System.out.println("DEBUG: Updated config: " + config);
-                }
-                
-                return config;
-            }
-            
-            System.out.println("DEBUG: No existing config found, creating default");
-            // Double-check after synchronization (another thread may have created it)
-            list = configRepository.findAllByCourseLevel(courseLevel);
-            if (list != null && !list.isEmpty()) {
-                System.out.println("DEBUG: Config was created by another thread, using it");
-                return list.get(0);
-            }
-            
-            // Create and save default config if it doesn't exist
-            CourseLevelConfig defaultConfig = createDefaultConfig(courseLevel);
-            System.out.println("DEBUG: Created default config: " + defaultConfig);
-            
-            CourseLevelConfig saved = configRepository.save(defaultConfig);
-            System.out.println("DEBUG: Saved default config: " + saved);
-            return saved;
-        } catch (Exception e) {
-            System.err.println("ERROR: Failed to get or create config for course level " + courseLevel);
-            System.err.println("ERROR: " + e.getMessage());
-            e.printStackTrace();
-            throw e;
-        }
+    public CourseLevelConfig getConfigOrDefault(int courseLevel) {
+        return new CourseLevelConfig(current(courseLevel));
     }
 
     /**
      * Create or update configuration for a course level
      */
     public CourseLevelConfig saveConfig(CourseLevelConfig config) {
-        return configRepository.save(config);
+        CourseLevelConfig saved = configRepository.save(config);
+        publish(saved);
+        // The template project may have changed
+        templateCache.invalidate();
+        return saved;
     }
 
     /**
@@ -161,17 +90,11 @@ public class CourseLevelConfigService {
      */
     public CourseLevelConfig updateFeature(int courseLevel, String featureKey, boolean enabled) {
         try {
-            System.out.println("DEBUG: Getting config for course level " + courseLevel);
             CourseLevelConfig config = getConfigOrDefault(courseLevel);
-            System.out.println("DEBUG: Got config: " + config);
-            
-            System.out.println("DEBUG: Setting feature " + featureKey + " to " + enabled);
             config.setFeature(featureKey, enabled);
-            
-            System.out.println("DEBUG: Saving config to database");
+
             CourseLevelConfig saved = configRepository.save(config);
-            System.out.println("DEBUG: Successfully saved config: " + saved);
-            
+            publish(saved);
             return saved;
         } catch (Exception e) {
             System.err.println("ERROR: Failed to update feature " + featureKey + " for course level " + courseLevel);
@@ -202,21 +125,24 @@ public class CourseLevelConfigService {
      * Check if task user assignment is enabled for a course level
      */
     public boolean isTaskUserAssignmentEnabled(int courseLevel) {
-        return getConfigOrDefault(courseLevel).isTaskUserAssignmentEnabled();
+        return current(courseLevel).isTaskUserAssignmentEnabled();
     }
 
     /**
      * Check if task due date is enabled for a course level
      */
     public boolean isTaskDueDateEnabled(int courseLevel) {
-        return getConfigOrDefault(courseLevel).isTaskDueDateEnabled();
+        return current(courseLevel).isTaskDueDateEnabled();
     }
 
     /**
      * Get all configurations
      */
     public List<CourseLevelConfig> getAllConfigs() {
-        return configRepository.findAll();
+        return configs().values().stream()
+                .sorted(Comparator.comparingInt(CourseLevelConfig::getCourseLevel))
+                .map(CourseLevelConfig::new)
+                .toList();
     }
 
     /**
@@ -227,7 +153,50 @@ public class CourseLevelConfigService {
         var list = configRepository.findAllByCourseLevel(courseLevel);
         if (list != null && !list.isEmpty()) {
             list.forEach(configRepository::delete);
+            templateCache.invalidate();
+        }
+        snapshot.updateAndGet(configs -> {
+            if (configs == null || !configs.containsKey(courseLevel)) {
+                return configs;
+            }
+            Map<Integer, CourseLevelConfig> updated = new HashMap<>(configs);
+            updated.remove(courseLevel);
+            return Map.copyOf(updated);
+        });
+    }
+
+    private Map<Integer, CourseLevelConfig> configs() {
+        Map<Integer, CourseLevelConfig> configs = snapshot.get();
+        if (configs == null) {
+            reload();
+            configs = snapshot.get();
+        }
+        return configs;
+    }
+
+    // The shared snapshot entry, must not be modified or handed out
+    private CourseLevelConfig current(int courseLevel) {
+        CourseLevelConfig config = configs().get(courseLevel);
+        if (config != null) {
+            return config;
         }
+        // A single upsert, so concurrent first reads of a level do not create duplicates
+        CourseLevelConfig created = configRepository.insertIfAbsent(createDefaultConfig(courseLevel));
+        publish(created);
+        return created;
+    }
+
+    private void publish(CourseLevelConfig config) {
+        CourseLevelConfig entry = new CourseLevelConfig(config);
+        snapshot.updateAndGet(configs -> {
+            if (configs == null) {
+                // Not loaded yet, the first read loads everything
+                return null;
+            }
+            Map<Integer, CourseLevelConfig> updated = new HashMap<>(configs);
+            updated.put(entry.getCourseLevel(), entry);
+            return Map.copyOf(updated);
+        });
     }
 
     /**
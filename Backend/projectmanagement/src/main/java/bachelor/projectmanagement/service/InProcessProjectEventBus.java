@@ -0,0 +1,37 @@
+package bachelor.projectmanagement.service;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Delivers events to the listeners of this instance only, on the publishing thread.
+ * Ids start at the startup time in milliseconds times 1000, so they keep increasing across restarts.
+ */
+@Component
+@ConditionalOnProperty(name = "app.sse.event-bus", havingValue = "local", matchIfMissing = true)
+public class InProcessProjectEventBus implements ProjectEventBus {
+
+    private final AtomicLong lastId = new AtomicLong(System.currentTimeMillis() * 1000);
+    private final List<Consumer<ProjectEvent>> listeners = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void publish(String projectId, String name, String json) {
+        ProjectEvent event = new ProjectEvent(lastId.incrementAndGet(), projectId, name, json);
+        listeners.forEach(listener -> listener.accept(event));
+    }
+
+    @Override
+    public void subscribe(Consumer<ProjectEvent> listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public long position() {
+        return lastId.get();
+    }
+}
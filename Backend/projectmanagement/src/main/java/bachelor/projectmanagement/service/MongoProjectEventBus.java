@@ -0,0 +1,180 @@
+package bachelor.projectmanagement.service;
+
+import com.mongodb.MongoCommandException;
+import com.mongodb.MongoException;
+import com.mongodb.client.MongoChangeStreamCursor;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import jakarta.annotation.PreDestroy;
+import org.bson.BsonDocument;
+import org.bson.BsonTimestamp;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.mongodb.core.CollectionOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Event bus for several instances sharing one database. Publishing inserts the event into the
+ * capped "project_events" collection, and every instance, the publishing one included, reads the
+ * inserts back through a change stream and hands them to its listeners.
+ *
+ * The event id is the cluster time of the insert, which is the same on every node and follows
+ * the order of the inserts. A node can therefore replay events to a client that reconnects with a
+ * Last-Event-ID issued by another node, as long as it kept them (see SSEService). Change
+ * streams need a replica set; a single-node replica set is enough (see DataBase/docker-compose.yml).
+ *
+ * The stream starts at the cluster time when the application started. If it fails it is resumed
+ * after the last event read, as long as the oplog still has it.
+ */
+@Component
+@Order(5)
+@ConditionalOnProperty(name = "app.sse.event-bus", havingValue = "mongo")
+public class MongoProjectEventBus implements ProjectEventBus, CommandLineRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(MongoProjectEventBus.class);
+    static final String COLLECTION = "project_events";
+    private static final long RETRY_DELAY_MS = 1000;
+    private static final int CHANGE_STREAM_HISTORY_LOST = 286;
+
+    private final MongoTemplate mongoTemplate;
+    private final long collectionSizeBytes;
+    private final List<Consumer<ProjectEvent>> listeners = new CopyOnWriteArrayList<>();
+
+    // Cluster time of the latest event handed to the listeners, or of the start of the stream
+    private volatile long position;
+    private volatile boolean running;
+    private Thread watcher;
+
+    public MongoProjectEventBus(MongoTemplate mongoTemplate,
+                                @Value("${app.sse.event-bus-collection-size-bytes:16777216}") long collectionSizeBytes) {
+        this.mongoTemplate = mongoTemplate;
+        this.collectionSizeBytes = collectionSizeBytes;
+    }
+
+    @Override
+    public void run(String... args) {
+        createCollection();
+        BsonTimestamp startAt = operationTime();
+        position = startAt.getValue() - 1;
+        running = true;
+        watcher = Thread.ofPlatform().name("project-events").daemon().start(() -> watch(startAt));
+        logger.info("Watching {} for project events", COLLECTION);
+    }
+
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        running = false;
+        if (watcher != null) {
+            watcher.interrupt();
+            watcher.join(5000);
+        }
+    }
+
+    @Override
+    public void publish(String projectId, String name, String json) {
+        mongoTemplate.getCollection(COLLECTION).insertOne(new Document("projectId", projectId)
+                .append("name", name)
+                .append("data", json)
+                .append("createdAt", new Date()));
+    }
+
+    @Override
+    public void subscribe(Consumer<ProjectEvent> listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public long position() {
+        return position;
+    }
+
+    /**
+     * Hand one inserted event to the listeners
+     */
+    void deliver(ChangeStreamDocument<Document> change) {
+        Document document = change.getFullDocument();
+        if (document == null) {
+            return;
+        }
+        ProjectEvent event = new ProjectEvent(change.getClusterTime().getValue(), document.getString("projectId"),
+                document.getString("name"), document.getString("data"));
+        // Before the listeners, like the in-process bus: a log created while a listener skips this event
+        // starts at it, so a client resuming from before it is sent a resync rather than an empty replay
+        position = event.id();
+        for (Consumer<ProjectEvent> listener : listeners) {
+            try {
+                listener.accept(event);
+            } catch (RuntimeException e) {
+                logger.warn("Could not deliver {} event of project {}: {}", event.name(), event.projectId(), e.getMessage());
+            }
+        }
+    }
+
+    private void watch(BsonTimestamp startAt) {
+        MongoCollection<Document> collection = mongoTemplate.getCollection(COLLECTION);
+        BsonDocument resumeToken = null;
+        while (running) {
+            var stream = collection.watch(List.of(Aggregates.match(Filters.eq("operationType", "insert"))));
+            stream = resumeToken != null ? stream.resumeAfter(resumeToken) : stream.startAtOperationTime(startAt);
+            try (MongoChangeStreamCursor<ChangeStreamDocument<Document>> cursor = stream.cursor()) {
+                while (running) {
+                    ChangeStreamDocument<Document> change = cursor.tryNext();
+                    if (change != null) {
+                        resumeToken = change.getResumeToken();
+                        deliver(change);
+                    }
+                }
+            } catch (MongoException | IllegalStateException e) {
+                if (!running) {
+                    return;
+                }
+                logger.warn("Project event stream failed, resuming: {}", e.getMessage());
+                if (e instanceof MongoCommandException command && command.getErrorCode() == CHANGE_STREAM_HISTORY_LOST) {
+                    // The oplog no longer reaches back to the last event read, continue from now
+                    logger.warn("Project events since the last one read are lost");
+                    resumeToken = null;
+                    startAt = operationTime();
+                }
+                try {
+                    Thread.sleep(RETRY_DELAY_MS);
+                } catch (InterruptedException interrupted) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private void createCollection() {
+        if (mongoTemplate.collectionExists(COLLECTION)) {
+            return;
+        }
+        try {
+            mongoTemplate.createCollection(COLLECTION, CollectionOptions.empty().capped().size(collectionSizeBytes));
+        } catch (RuntimeException e) {
+            // Created by another instance starting at the same time
+            logger.debug("Could not create {}: {}", COLLECTION, e.getMessage());
+        }
+    }
+
+    private BsonTimestamp operationTime() {
+        Document hello = mongoTemplate.getDb().runCommand(new Document("hello", 1));
+        Object operationTime = hello.get("operationTime");
+        if (!(operationTime instanceof BsonTimestamp timestamp)) {
+            throw new IllegalStateException("app.sse.event-bus=mongo needs MongoDB to run as a replica set");
+        }
+        return timestamp;
+    }
+}
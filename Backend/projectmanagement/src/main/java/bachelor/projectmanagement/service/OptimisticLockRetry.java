@@ -0,0 +1,108 @@
+package bachelor.projectmanagement.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Runs read-modify-write operations on versioned documents and retries them when a
+ * concurrent writer bumped the version in between.
+ *
+ * The action must re-read the document on every attempt, so a retry re-applies the
+ * change on top of the latest state. Attempts are bounded and separated by an
+ * exponential backoff with jitter. Conflicts, retries and exhausted operations are
+ * counted in the "projects.optimistic_lock.*" metrics.
+ */
+@Component
+public class OptimisticLockRetry {
+
+    private static final Logger logger = LoggerFactory.getLogger(OptimisticLockRetry.class);
+
+    private final int maxAttempts;
+    private final long initialBackoffMs;
+    private final long maxBackoffMs;
+
+    private final Counter conflicts;
+    private final Counter retries;
+    private final Counter exhausted;
+
+    public OptimisticLockRetry(MeterRegistry meterRegistry,
+                               @Value("${app.mongo.optimistic-retry.max-attempts:5}") int maxAttempts,
+                               @Value("${app.mongo.optimistic-retry.initial-backoff-ms:10}") long initialBackoffMs,
+                               @Value("${app.mongo.optimistic-retry.max-backoff-ms:200}") long maxBackoffMs) {
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("max-attempts must be at least 1");
+        }
+        this.maxAttempts = maxAttempts;
+        this.initialBackoffMs = initialBackoffMs;
+        this.maxBackoffMs = maxBackoffMs;
+        this.conflicts = Counter.builder("projects.optimistic_lock.conflicts")
+                .description("Version conflicts detected when saving a document")
+                .register(meterRegistry);
+        this.retries = Counter.builder("projects.optimistic_lock.retries")
+                .description("Operations re-applied after a version conflict")
+                .register(meterRegistry);
+        this.exhausted = Counter.builder("projects.optimistic_lock.exhausted")
+                .description("Operations that gave up after the maximum number of attempts")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Execute the action, retrying on optimistic locking failures
+     * @param operation Name used in log messages
+     * @param action Read-modify-write action, re-invoked from scratch on every attempt
+     * @return The result of the first successful attempt
+     * @throws OptimisticLockingFailureException if every attempt conflicted
+     */
+    public <T> T execute(String operation, Supplier<T> action) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return action.get();
+            } catch (OptimisticLockingFailureException e) {
+                conflicts.increment();
+                if (attempt >= maxAttempts) {
+                    exhausted.increment();
+                    logger.warn("Giving up on {} after {} conflicting attempts", operation, attempt);
+                    throw e;
+                }
+                logger.debug("Version conflict on {} (attempt {}), retrying", operation, attempt);
+                retries.increment();
+                backoff(attempt);
+            }
+        }
+    }
+
+    private void backoff(int attempt) {
+        long ceiling = Math.min(maxBackoffMs, initialBackoffMs << Math.min(attempt - 1, 20));
+        if (ceiling <= 0) {
+            return;
+        }
+        // Full jitter spreads out writers that collided on the same document
+        long delay = ThreadLocalRandom.current().nextLong(ceiling + 1);
+        try {
+            Thread.sleep(delay);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting to retry", e);
+        }
+    }
+
+    public double getConflictCount() {
+        return conflicts.count();
+    }
+
+    public double getRetryCount() {
+        return retries.count();
+    }
+
+    public double getExhaustedCount() {
+        return exhausted.count();
+    }
+}
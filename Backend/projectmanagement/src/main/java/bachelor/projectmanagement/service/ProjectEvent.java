@@ -0,0 +1,10 @@
+package bachelor.projectmanagement.service;
+
+/**
+ * One SSE event of a project as it travels over the ProjectEventBus
+ * @param id Given by the bus, increases per project and is the same on every node
+ * @param name The SSE event name, e.g. "taskUpdate"
+ * @param json The event data, already serialized
+ */
+public record ProjectEvent(long id, String projectId, String name, String json) {
+}
@@ -0,0 +1,30 @@
+package bachelor.projectmanagement.service;
+
+import java.util.function.Consumer;
+
+/**
+ * Carries project events from the node where the change was made to the SSE clients on every
+ * node. SSEService publishes and is also the listener that fans events out to its own clients.
+ *
+ * Selected with app.sse.event-bus: "local" (default, {@link InProcessProjectEventBus}) for a
+ * single instance, "mongo" ({@link MongoProjectEventBus}) when several instances share a database.
+ */
+public interface ProjectEventBus {
+
+    /**
+     * Publish an event to the listeners on every node, including this one.
+     * Events of one project have to be published one at a time, so their ids follow the order
+     * in which they were published.
+     */
+    void publish(String projectId, String name, String json);
+
+    /**
+     * Register a listener, called for every event in id order per project
+     */
+    void subscribe(Consumer<ProjectEvent> listener);
+
+    /**
+     * @return An id such that every event delivered from now on has a higher one
+     */
+    long position();
+}
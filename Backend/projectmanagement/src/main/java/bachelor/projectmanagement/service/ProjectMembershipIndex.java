@@ -0,0 +1,231 @@
+package bachelor.projectmanagement.service;
+
+import bachelor.projectmanagement.model.Project;
+import bachelor.projectmanagement.model.UserRef;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * In-memory copy of project ownership (project → owner usernames and username → project ids),
+ * so access checks and project listings do not have to query Mongo.
+ *
+ * The index is loaded on startup, after the migrations, and reloaded periodically to pick up
+ * changes made outside this instance. ProjectService and UserService keep it up to date for
+ * changes made here. Removals are not seen by other instances until their next reload, so
+ * callers confirm both answers against the database (a positive one with a cheap existence
+ * query) and report disagreements through {@link #recordStale}.
+ *
+ * Metrics: "projects.membership.lookups" tagged result=hit/miss, "projects.membership.stale"
+ * and "projects.membership.age.seconds" (time since the last full load).
+ */
+@Component
+@Order(4)
+public class ProjectMembershipIndex implements CommandLineRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProjectMembershipIndex.class);
+
+    private final MongoTemplate mongoTemplate;
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter stale;
+
+    private volatile Map<String, Set<String>> membersByProject = new ConcurrentHashMap<>();
+    private volatile Map<String, Set<String>> projectsByUser = new ConcurrentHashMap<>();
+    private volatile long loadedAt;
+
+    // Changes made while a reload is reading the database, replayed onto the new maps; guarded by this
+    private List<Consumer<ProjectMembershipIndex>> pendingChanges;
+
+    public ProjectMembershipIndex(MongoTemplate mongoTemplate, MeterRegistry meterRegistry) {
+        this.mongoTemplate = mongoTemplate;
+        this.hits = Counter.builder("projects.membership.lookups")
+                .tag("result", "hit")
+                .description("Membership lookups answered from memory")
+                .register(meterRegistry);
+        this.misses = Counter.builder("projects.membership.lookups")
+                .tag("result", "miss")
+                .description("Membership lookups that fell back to the database")
+                .register(meterRegistry);
+        this.stale = Counter.builder("projects.membership.stale")
+                .description("Memberships found in the database but missing from the index, or the other way around")
+                .register(meterRegistry);
+        Gauge.builder("projects.membership.age.seconds", this, ProjectMembershipIndex::getAgeSeconds)
+                .description("Seconds since the membership index was last loaded from the database")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void run(String... args) {
+        reload();
+        logger.info("Loaded project memberships for {} project(s)", membersByProject.size());
+    }
+
+    @Scheduled(fixedDelayString = "${app.membership.refresh-interval-ms:300000}",
+            initialDelayString = "${app.membership.refresh-interval-ms:300000}")
+    public void refresh() {
+        try {
+            reload();
+        } catch (RuntimeException e) {
+            // Keep serving the previous state, access denials are still checked against the database
+            logger.warn("Could not reload project memberships: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Replace the index with the owners currently stored in the database
+     */
+    public void reload() {
+        synchronized (this) {
+            pendingChanges = new ArrayList<>();
+        }
+        try {
+            Map<String, Set<String>> members = new ConcurrentHashMap<>();
+            Map<String, Set<String>> projects = new ConcurrentHashMap<>();
+            Query query = new Query();
+            query.fields().include("owners");
+            for (Project project : mongoTemplate.find(query, Project.class)) {
+                for (UserRef owner : project.getOwners()) {
+                    if (owner.getUsername() != null) {
+                        add(members, projects, project.getProjectId(), owner.getUsername());
+                    }
+                }
+            }
+            synchronized (this) {
+                membersByProject = members;
+                projectsByUser = projects;
+                pendingChanges.forEach(change -> change.accept(this));
+                loadedAt = System.currentTimeMillis();
+            }
+        } finally {
+            synchronized (this) {
+                pendingChanges = null;
+            }
+        }
+    }
+
+    public boolean isLoaded() {
+        return loadedAt > 0;
+    }
+
+    /**
+     * @return true if the index lists the user as an owner of the project
+     */
+    public boolean isMember(String projectId, String username) {
+        Set<String> members = membersByProject.get(projectId);
+        if (members != null && members.contains(username)) {
+            hits.increment();
+            return true;
+        }
+        misses.increment();
+        return false;
+    }
+
+    /**
+     * @return The ids of the projects the user owns according to the index
+     */
+    public Set<String> projectsOf(String username) {
+        Set<String> projects = projectsByUser.get(username);
+        if (projects == null || projects.isEmpty()) {
+            misses.increment();
+            return Set.of();
+        }
+        hits.increment();
+        return Set.copyOf(projects);
+    }
+
+    public synchronized void addMember(String projectId, String username) {
+        apply(index -> add(index.membersByProject, index.projectsByUser, projectId, username));
+    }
+
+    public synchronized void removeMember(String projectId, String username) {
+        apply(index -> remove(index.membersByProject, index.projectsByUser, projectId, username));
+    }
+
+    public synchronized void removeProject(String projectId) {
+        apply(index -> {
+            Set<String> members = index.membersByProject.remove(projectId);
+            if (members != null) {
+                members.forEach(username -> remove(index.membersByProject, index.projectsByUser, projectId, username));
+            }
+        });
+    }
+
+    public synchronized void renameUser(String oldUsername, String newUsername) {
+        apply(index -> {
+            Set<String> projects = index.projectsByUser.remove(oldUsername);
+            if (projects != null) {
+                for (String projectId : projects) {
+                    remove(index.membersByProject, index.projectsByUser, projectId, oldUsername);
+                    add(index.membersByProject, index.projectsByUser, projectId, newUsername);
+                }
+            }
+        });
+    }
+
+    /**
+     * Correct an entry the database disagreed with
+     * @param member Whether the database lists the user as an owner
+     */
+    public void recordStale(String projectId, String username, boolean member) {
+        stale.increment();
+        if (member) {
+            addMember(projectId, username);
+        } else {
+            removeMember(projectId, username);
+        }
+    }
+
+    public double getHitCount() {
+        return hits.count();
+    }
+
+    public double getMissCount() {
+        return misses.count();
+    }
+
+    public double getStaleCount() {
+        return stale.count();
+    }
+
+    private double getAgeSeconds() {
+        long loaded = loadedAt;
+        return loaded > 0 ? (System.currentTimeMillis() - loaded) / 1000.0 : Double.NaN;
+    }
+
+    // Caller holds the lock
+    private void apply(Consumer<ProjectMembershipIndex> change) {
+        change.accept(this);
+        if (pendingChanges != null) {
+            pendingChanges.add(change);
+        }
+    }
+
+    private static void add(Map<String, Set<String>> membersByProject, Map<String, Set<String>> projectsByUser,
+                            String projectId, String username) {
+        membersByProject.computeIfAbsent(projectId, id -> ConcurrentHashMap.newKeySet()).add(username);
+        projectsByUser.computeIfAbsent(username, name -> ConcurrentHashMap.newKeySet()).add(projectId);
+    }
+
+    private static void remove(Map<String, Set<String>> membersByProject, Map<String, Set<String>> projectsByUser,
+                               String projectId, String username) {
+        membersByProject.computeIfPresent(projectId, (id, members) -> members.remove(username) && members.isEmpty() ? null : members);
+        projectsByUser.computeIfPresent(username, (name, projects) -> projects.remove(projectId) && projects.isEmpty() ? null : projects);
+    }
+}
@@ -3,150 +3,228 @@ package bachelor.projectmanagement.service;
 import bachelor.projectmanagement.exception.UnauthorizedException;
 import bachelor.projectmanagement.model.*;
 import bachelor.projectmanagement.repository.ProjectRepository;
+import bachelor.projectmanagement.repository.TaskFieldUpdate;
+import bachelor.projectmanagement.repository.TaskRepository;
 import bachelor.projectmanagement.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
 
 @Service
 public class ProjectService {
 
     private final ProjectRepository projectRepository;
     private final UserRepository userRepository;
-
-    public ProjectService(ProjectRepository projectRepository, UserRepository userRepository) {
+    private final OptimisticLockRetry optimisticLockRetry;
+    private final TaskRepository taskRepository;
+    private final ProjectMembershipIndex membershipIndex;
+    private final ProjectUnitOfWork unitOfWork;
+    private final ProjectTemplateCache templateCache;
+    private final CourseLevelConfigService courseLevelConfigService;
+    // Runs independent loads of one call side by side when virtual threads are enabled
+    private final Executor fetchExecutor;
+    // True when tasks live in the "tasks" collection instead of being embedded in the project
+    private final boolean taskCollection;
+
+    public ProjectService(ProjectRepository projectRepository, UserRepository userRepository,
+                          OptimisticLockRetry optimisticLockRetry, TaskRepository taskRepository,
+                          ProjectMembershipIndex membershipIndex, ProjectUnitOfWork unitOfWork,
+                          ProjectTemplateCache templateCache, CourseLevelConfigService courseLevelConfigService,
+                          @Qualifier("fetchExecutor") Executor fetchExecutor,
+                          @Value("${app.tasks.storage:embedded}") String taskStorage) {
         this.projectRepository = projectRepository;
         this.userRepository = userRepository;
+        this.optimisticLockRetry = optimisticLockRetry;
+        this.taskRepository = taskRepository;
+        this.membershipIndex = membershipIndex;
+        this.unitOfWork = unitOfWork;
+        this.templateCache = templateCache;
+        this.courseLevelConfigService = courseLevelConfigService;
+        this.fetchExecutor = fetchExecutor;
+        this.taskCollection = "collection".equalsIgnoreCase(taskStorage);
+    }
+
+    public boolean isTaskCollectionStorage() {
+        return taskCollection;
     }
 
     public Project createProject(Project project, String username) {
-        User owner = userRepository.findByUsername(username)
+        UserPrincipal owner = userRepository.findPrincipalByUsername(username)
                 .orElseThrow(() -> new RuntimeException("User not found: " + username));
 
         if (project.getOwners() == null) {
             project.setOwners(new ArrayList<>());
         }
-        project.getOwners().add(owner);
+        project.getOwners().add(UserRef.of(owner));
 
         assignIdsToEmbeddedObjects(project);
+        List<Task> detachedTasks = taskCollection ? detachTasks(project) : List.of();
 
         Project savedProject = projectRepository.save(project);
+        unitOfWork.put(savedProject);
+        if (!detachedTasks.isEmpty()) {
+            detachedTasks.forEach(task -> task.setProjectId(savedProject.getProjectId()));
+            taskRepository.saveAll(detachedTasks);
+        }
 
-        owner.getProjects().add(savedProject);
-        userRepository.save(owner);
+        userRepository.addProjectId(owner.getId(), savedProject.getProjectId());
+        savedProject.getOwners().forEach(ref -> membershipIndex.addMember(savedProject.getProjectId(), ref.getUsername()));
 
         return savedProject;
     }
 
+    /**
+     * Create several projects whose owners are already set, with one insert for the projects,
+     * one for their tasks in collection mode and one bulk update linking the owners
+     */
+    public List<Project> createProjects(List<Project> projects) {
+        List<List<Task>> detachedTasks = new ArrayList<>();
+        for (Project project : projects) {
+            assignIdsToEmbeddedObjects(project);
+            detachedTasks.add(taskCollection ? detachTasks(project) : List.of());
+        }
+
+        List<Project> savedProjects = projectRepository.insert(projects);
+        List<Task> tasks = new ArrayList<>();
+        for (int i = 0; i < savedProjects.size(); i++) {
+            String projectId = savedProjects.get(i).getProjectId();
+            detachedTasks.get(i).forEach(task -> task.setProjectId(projectId));
+            tasks.addAll(detachedTasks.get(i));
+        }
+        if (!tasks.isEmpty()) {
+            taskRepository.insert(tasks);
+        }
+
+        Map<String, List<String>> projectIdsByOwner = new HashMap<>();
+        for (Project project : savedProjects) {
+            for (UserRef owner : project.getOwners()) {
+                projectIdsByOwner.computeIfAbsent(owner.getUserId(), id -> new ArrayList<>()).add(project.getProjectId());
+                membershipIndex.addMember(project.getProjectId(), owner.getUsername());
+            }
+        }
+        userRepository.addProjectIds(projectIdsByOwner);
+        return savedProjects;
+    }
+
     public List<Project> getProjectsByUsername(String username) {
+        return getProjectsByUsername(username, null);
+    }
+
+    /**
+     * @param fields Document fields to load, or null for whole projects
+     */
+    public List<Project> getProjectsByUsername(String username, Collection<String> fields) {
+        // Known memberships skip the user lookup; the owner condition drops projects the index still lists by mistake
+        Set<String> indexedIds = membershipIndex.isLoaded() ? membershipIndex.projectsOf(username) : Set.of();
+        if (!indexedIds.isEmpty()) {
+            List<Project> projects = projectRepository.findProjectsByIdsAndOwnerName(indexedIds, username, fields);
+            if (projects.size() < indexedIds.size()) {
+                Set<String> found = projects.stream().map(Project::getProjectId).collect(Collectors.toSet());
+                indexedIds.stream()
+                        .filter(id -> !found.contains(id))
+                        .forEach(id -> membershipIndex.recordStale(id, username, false));
+            }
+            return projects;
+        }
+
         // Fetch the user by username to get their String ID
-        Optional<User> userOptional = userRepository.findByUsername(username);
+        Optional<UserPrincipal> userOptional = userRepository.findPrincipalByUsername(username);
         
         // If user doesn't exist, return empty list instead of throwing exception
         if (userOptional.isEmpty()) {
             return new ArrayList<>();
         }
         
-        User user = userOptional.get();
-        return projectRepository.findByOwnersContaining(user.getId());
+        UserPrincipal user = userOptional.get();
+        if (fields == null) {
+            return projectRepository.findByOwnersContaining(user.getId());
+        }
+        return projectRepository.findProjectsByOwner(user.getId(), fields);
     }
 
-    public Epic addEpicToProject(String projectId, Epic epic) {
-        Project project = projectRepository.findById(projectId)
-                .orElseThrow(() -> new RuntimeException("Project not found: " + projectId));
+    /**
+     * One page of all projects ordered by id
+     * @param fields Document fields to load, or null for whole projects
+     */
+    public Window<Project> getProjectsPage(KeysetScrollPosition position, int limit, Collection<String> fields) {
+        return projectRepository.scrollProjects(null, position, limit, fields);
+    }
 
+    /**
+     * One page of the projects a user owns, ordered by id
+     * @param fields Document fields to load, or null for whole projects
+     */
+    public Window<Project> getProjectsByUsernamePage(String username, KeysetScrollPosition position, int limit,
+                                                     Collection<String> fields) {
+        Optional<UserPrincipal> user = userRepository.findPrincipalByUsername(username);
+        if (user.isEmpty()) {
+            return Window.from(List.of(), index -> position, false);
+        }
+        return projectRepository.scrollProjects(user.get().getId(), position, limit, fields);
+    }
+
+    public Epic addEpicToProject(String projectId, Epic epic) {
         if (epic.getEpicId() == null) {
             epic.setEpicId(UUID.randomUUID().toString());
         }
 
-        project.getEpics().add(epic);
-        projectRepository.save(project);
+        projectChanged(projectId);
+        if (!projectRepository.pushEpic(projectId, epic)) {
+            throw new RuntimeException("Project not found: " + projectId);
+        }
 
         return epic;
     }
 
     public Epic updateEpic(String projectId, Epic updatedEpic) {
-        Project project = projectRepository.findById(projectId)
-                .orElseThrow(() -> new RuntimeException("Project not found: " + projectId));
-
-        Epic epic = project.getEpics().stream()
-                .filter(e -> e.getEpicId().equals(updatedEpic.getEpicId()))
-                .findFirst()
-                .orElseThrow(() -> new RuntimeException("Epic not found: " + updatedEpic.getEpicId()));
-
-        if (updatedEpic.getTitle() != null) {
-            epic.setTitle(updatedEpic.getTitle());
-        }
-        if (updatedEpic.getDescription() != null) {
-            epic.setDescription(updatedEpic.getDescription());
+        projectChanged(projectId);
+        if (!projectRepository.updateEpicFields(projectId, updatedEpic.getEpicId(), epicFields(updatedEpic))) {
+            throw missingTarget(projectId, updatedEpic.getEpicId(), null, null);
         }
-        // Add more fields as needed
-
-        projectRepository.save(project);
-        return epic;
+        return updatedEpic;
     }
 
     public Feature addFeatureToEpic(String projectId, String epicId, Feature feature) {
-        Project project = projectRepository.findById(projectId)
-                .orElseThrow(() -> new RuntimeException("Project not found: " + projectId));
-
-        Epic epic = project.getEpics().stream()
-                .filter(e -> e.getEpicId().equals(epicId))
-                .findFirst()
-                .orElseThrow(() -> new RuntimeException("Epic not found: " + epicId));
-
         if (feature.getFeatureId() == null) {
             feature.setFeatureId(UUID.randomUUID().toString());
         }
-        epic.getFeatures().add(feature);
-        projectRepository.save(project);
+
+        projectChanged(projectId);
+        if (!projectRepository.pushFeature(projectId, epicId, feature)) {
+            throw missingTarget(projectId, epicId, null, null);
+        }
 
         return feature;
     }
 
     public Feature updateFeature(String projectId, String epicId, Feature updatedFeature) {
-        Project project = projectRepository.findById(projectId)
-                .orElseThrow(() -> new RuntimeException("Project not found: " + projectId));
-
-        Epic epic = project.getEpics().stream()
-                .filter(e -> e.getEpicId().equals(epicId))
-                .findFirst()
-                .orElseThrow(() -> new RuntimeException("Epic not found: " + epicId));
-
-        Feature feature = epic.getFeatures().stream()
-                .filter(f -> f.getFeatureId().equals(updatedFeature.getFeatureId()))
-                .findFirst()
-                .orElseThrow(() -> new RuntimeException("Feature not found: " + updatedFeature.getFeatureId()));
-
-        if (updatedFeature.getTitle() != null) {
-            feature.setTitle(updatedFeature.getTitle());
+        projectChanged(projectId);
+        if (!projectRepository.updateFeatureFields(projectId, epicId, updatedFeature.getFeatureId(), featureFields(updatedFeature))) {
+            throw missingTarget(projectId, epicId, updatedFeature.getFeatureId(), null);
         }
-        if (updatedFeature.getDescription() != null) {
-            feature.setDescription(updatedFeature.getDescription());
-        }
-        // Add more fields as needed
-
-        projectRepository.save(project);
-        return feature;
+        return updatedFeature;
     }
 
     public Task addTaskToFeature(String projectId, String epicId, String featureId, Task task) {
-        Project project = projectRepository.findById(projectId)
-                .orElseThrow(() -> new RuntimeException("Project not found: " + projectId));
-
-        Epic epic = project.getEpics().stream()
-                .filter(e -> e.getEpicId().equals(epicId))
-                .findFirst()
-                .orElseThrow(() -> new RuntimeException("Epic not found: " + epicId));
-
-        Feature feature = epic.getFeatures().stream()
-                .filter(f -> f.getFeatureId().equals(featureId))
-                .findFirst()
-                .orElseThrow(() -> new RuntimeException("Feature not found: " + featureId));
-
         if (task.getTaskId() == null) {
             task.setTaskId(UUID.randomUUID().toString());
         }
@@ -158,114 +236,116 @@ public class ProjectService {
         task.setProjectId(projectId);
         task.setEpicId(epicId);
         task.setFeatureId(featureId);
-        feature.getTasks().add(task);
-        projectRepository.save(project);
+
+        if (taskCollection) {
+            if (!projectRepository.featureExists(projectId, epicId, featureId)) {
+                throw missingTarget(projectId, epicId, featureId, null);
+            }
+            templateCache.projectChanged(projectId);
+            return taskRepository.insert(task);
+        }
+
+        projectChanged(projectId);
+        if (!projectRepository.pushTask(projectId, epicId, featureId, task)) {
+            throw missingTarget(projectId, epicId, featureId, null);
+        }
         return task;
     }
 
     public Task updateTask(String projectId, String epicId, String featureId, Task updatedTask) {
-        Project project = projectRepository.findById(projectId)
-                .orElseThrow(() -> new RuntimeException("Project not found: " + projectId));
-
-        Epic epic = project.getEpics().stream()
-                .filter(e -> e.getEpicId().equals(epicId))
-                .findFirst()
-                .orElseThrow(() -> new RuntimeException("Epic not found: " + epicId));
-
-        Feature feature = epic.getFeatures().stream()
-                .filter(f -> f.getFeatureId().equals(featureId))
-                .findFirst()
-                .orElseThrow(() -> new RuntimeException("Feature not found: " + featureId));
-
-        Task task = feature.getTasks().stream()
-                .filter(t -> t.getTaskId().equals(updatedTask.getTaskId()))
-                .findFirst()
-                .orElseThrow(() -> new RuntimeException("Task not found: " + updatedTask.getTaskId()));
-
-        if (updatedTask.getTitle() != null) {
-            task.setTitle(updatedTask.getTitle());
-        }
-        if (updatedTask.getDescription() != null) {
-            task.setDescription(updatedTask.getDescription());
+        if (!writeTaskFields(projectId, epicId, featureId, updatedTask.getTaskId(), taskFields(updatedTask))) {
+            throw missingTarget(projectId, epicId, featureId, updatedTask.getTaskId());
         }
-        if (updatedTask.getStatus() != null) {
-            task.setStatus(updatedTask.getStatus());
-        }
-
-        projectRepository.save(project);
-        return task;
+        return updatedTask;
     }
 
     public void deleteProject(String projectId) {
-        Project project = projectRepository.findById(projectId)
+        Project project = loadFields(projectId, List.of("owners"))
                 .orElseThrow(() -> new RuntimeException("Project not found: " + projectId));
 
-        if (project.getOwners() != null) {
-            for (User owner : project.getOwners()) {
-                owner.getProjects().removeIf(p -> p.getProjectId().equals(projectId));
-                userRepository.save(owner);
-            }
-        }
+        List<String> ownerIds = project.getOwners().stream().map(UserRef::getUserId).collect(Collectors.toList());
+        userRepository.removeProjectId(ownerIds, projectId);
+        membershipIndex.removeProject(projectId);
 
         projectRepository.deleteById(projectId);
+        projectChanged(projectId);
+        if (taskCollection) {
+            taskRepository.deleteByProjectId(projectId);
+        }
     }
 
     public void deleteEpicFromProject(String projectId, String epicId) {
-        Project project = projectRepository.findById(projectId)
-                .orElseThrow(() -> new RuntimeException("Project not found: " + projectId));
-
-        boolean removed = project.getEpics().removeIf(e -> e.getEpicId().equals(epicId));
-        if (removed) {
-            projectRepository.save(project);
-        } else {
-            throw new RuntimeException("Epic not found: " + epicId);
+        projectChanged(projectId);
+        if (!projectRepository.pullEpic(projectId, epicId)) {
+            throw missingTarget(projectId, epicId, null, null);
+        }
+        if (taskCollection) {
+            taskRepository.deleteByProjectIdAndEpicId(projectId, epicId);
         }
     }
 
     public void deleteFeatureFromEpic(String projectId, String epicId, String featureId) {
-        Project project = projectRepository.findById(projectId)
-                .orElseThrow(() -> new RuntimeException("Project not found: " + projectId));
-
-        Epic epic = project.getEpics().stream()
-                .filter(e -> e.getEpicId().equals(epicId))
-                .findFirst()
-                .orElseThrow(() -> new RuntimeException("Epic not found: " + epicId));
-
-        boolean removed = epic.getFeatures().removeIf(f -> f.getFeatureId().equals(featureId));
-        if (removed) {
-            projectRepository.save(project);
-        } else {
-            throw new RuntimeException("Feature not found: " + featureId);
+        projectChanged(projectId);
+        if (!projectRepository.pullFeature(projectId, epicId, featureId)) {
+            throw missingTarget(projectId, epicId, featureId, null);
+        }
+        if (taskCollection) {
+            taskRepository.deleteByProjectIdAndEpicIdAndFeatureId(projectId, epicId, featureId);
         }
     }
 
     public void deleteTaskFromFeature(String projectId, String epicId, String featureId, String taskId) {
-        Project project = projectRepository.findById(projectId)
-                .orElseThrow(() -> new RuntimeException("Project not found: " + projectId));
-
-        Epic epic = project.getEpics().stream()
-                .filter(e -> e.getEpicId().equals(epicId))
-                .findFirst()
-                .orElseThrow(() -> new RuntimeException("Epic not found: " + epicId));
-
-        Feature feature = epic.getFeatures().stream()
-                .filter(f -> f.getFeatureId().equals(featureId))
-                .findFirst()
-                .orElseThrow(() -> new RuntimeException("Feature not found: " + featureId));
-
-        boolean removed = feature.getTasks().removeIf(t -> t.getTaskId().equals(taskId));
-        if (removed) {
-            projectRepository.save(project);
-        } else {
-            throw new RuntimeException("Task not found: " + taskId);
+        projectChanged(projectId);
+        boolean deleted = taskCollection
+                ? taskRepository.deleteByTaskIdAndProjectIdAndEpicIdAndFeatureId(taskId, projectId, epicId, featureId) > 0
+                : projectRepository.pullTask(projectId, epicId, featureId, taskId);
+        if (!deleted) {
+            throw missingTarget(projectId, epicId, featureId, taskId);
         }
     }
 
     public Project getProjectById(String id) {
-        return projectRepository.findById(id)
+        return findProjectById(id)
+                .orElseThrow(() -> new RuntimeException("Project not found: " + id));
+    }
+
+    /**
+     * Load only the given document fields of a project, for read-only use
+     * @param fields Document fields to load, or null for the whole project
+     */
+    public Project getProjectById(String id, Collection<String> fields) {
+        if (fields == null) {
+            return getProjectById(id);
+        }
+        return loadFields(id, fields)
                 .orElseThrow(() -> new RuntimeException("Project not found: " + id));
     }
 
+    /**
+     * Load a project, at most once per request
+     */
+    public Optional<Project> findProjectById(String id) {
+        return unitOfWork.load(id, projectRepository::findById);
+    }
+
+    // A project already loaded in this request has every field, otherwise load just the given ones
+    private Optional<Project> loadFields(String id, Collection<String> fields) {
+        Optional<Project> cached = unitOfWork.cached(id);
+        return cached.isPresent() ? cached : projectRepository.findProjectById(id, fields);
+    }
+
+    /**
+     * Load several projects with a single query, used to resolve project references in batches
+     */
+    public List<Project> getProjectsByIds(Collection<String> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        List<Project> projects = new ArrayList<>();
+        projectRepository.findAllById(ids).forEach(projects::add);
+        return projects;
+    }
+
     public Epic getEpicById(String projectId, String epicId) {
         Project project = getProjectById(projectId);
         return project.getEpics().stream()
@@ -284,6 +364,10 @@ public class ProjectService {
     }
 
     public Task getTaskById(String projectId, String epicId, String featureId, String taskId) {
+        if (taskCollection) {
+            return taskRepository.findByTaskIdAndProjectIdAndEpicIdAndFeatureId(taskId, projectId, epicId, featureId)
+                    .orElse(null);
+        }
         Feature feature = getFeatureById(projectId, epicId, featureId);
         if (feature == null) return null;
         Task task = feature.getTasks().stream()
@@ -301,95 +385,238 @@ public class ProjectService {
         return task;
     }
 
+    /**
+     * Load the tasks of several features at once
+     * @param features The features to load tasks for, possibly from different projects
+     * @return The tasks of each feature, in the same order as the given features
+     */
+    public List<List<Task>> getTasksForFeatures(List<Feature> features) {
+        if (!taskCollection) {
+            return features.stream().map(Feature::getTasks).collect(Collectors.toList());
+        }
+        Map<String, List<Task>> tasksByFeature = loadTasksByFeature(
+                features.stream().map(Feature::getFeatureId).collect(Collectors.toSet()));
+        return features.stream()
+                .map(f -> tasksByFeature.getOrDefault(f.getFeatureId(), new ArrayList<>()))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * One page of a feature's tasks ordered by id
+     */
+    public Window<Task> getTasksPage(Feature feature, KeysetScrollPosition position, int limit) {
+        if (taskCollection) {
+            return taskRepository.scrollByFeatureId(feature.getFeatureId(), position, limit);
+        }
+        // Embedded tasks were loaded with the feature, the page is cut from them with the same keys
+        Object after = position.getKeys().get("_id");
+        List<Task> tasks = feature.getTasks().stream()
+                .filter(task -> after == null || task.getTaskId().compareTo(after.toString()) > 0)
+                .sorted(Comparator.comparing(Task::getTaskId))
+                .limit(limit + 1L)
+                .collect(Collectors.toList());
+        boolean hasNext = tasks.size() > limit;
+        List<Task> page = hasNext ? tasks.subList(0, limit) : tasks;
+        return Window.from(page, index -> ScrollPosition.forward(Map.of("_id", page.get(index).getTaskId())), hasNext);
+    }
+
+    private Map<String, List<Task>> loadTasksByFeature(Collection<String> featureIds) {
+        if (featureIds.isEmpty()) {
+            return Map.of();
+        }
+        return taskRepository.findByFeatureIdIn(featureIds).stream()
+                .collect(Collectors.groupingBy(Task::getFeatureId));
+    }
+
     public Project save(Project project) {
-        return projectRepository.save(project);
+        Project saved = projectRepository.save(project);
+        unitOfWork.put(saved);
+        templateCache.projectChanged(saved.getProjectId());
+        return saved;
     }
 
-    public Epic saveEpic(String projectId, Epic updatedEpic) {
-        Project project = getProjectById(projectId);
-        for (Epic epic : project.getEpics()) {
-            if (epic.getEpicId().equals(updatedEpic.getEpicId())) {
-                if (updatedEpic.getTitle() != null) {
-                    epic.setTitle(updatedEpic.getTitle());
-                }
-                if (updatedEpic.getDescription() != null) {
-                    epic.setDescription(updatedEpic.getDescription());
-                }
-                if (updatedEpic.getStatus() != null) {
-                    epic.setStatus(updatedEpic.getStatus());
-                }
-                // Save the whole project
-                projectRepository.save(project);
-                return epic;
+    /**
+     * Apply a change to the whole project document with optimistic locking.
+     * On a version conflict the project is re-read and the change applied again.
+     * @param projectId The project to modify
+     * @param change Applies the change and returns true if anything was modified
+     * @return The saved project, or the unchanged project if nothing was modified
+     */
+    public Project modifyProject(String projectId, Predicate<Project> change) {
+        return optimisticLockRetry.execute("modifyProject " + projectId, () -> {
+            // Always read the latest version, a copy cached earlier in the request may be outdated
+            Project project = projectRepository.findById(projectId)
+                    .orElseThrow(() -> new RuntimeException("Project not found: " + projectId));
+            if (!change.test(project)) {
+                unitOfWork.put(project);
+                return project;
             }
-        }
-        return null;
+            Project saved = projectRepository.save(project);
+            unitOfWork.put(saved);
+            templateCache.projectChanged(projectId);
+            return saved;
+        });
+    }
+
+    public Epic saveEpic(String projectId, Epic updatedEpic) {
+        projectChanged(projectId);
+        boolean updated = projectRepository.updateEpicFields(projectId, updatedEpic.getEpicId(), epicFields(updatedEpic));
+        return updated ? updatedEpic : null;
     }
 
     public Feature saveFeature(String projectId, String epicId, Feature updatedFeature) {
-        Project project = getProjectById(projectId);
-        if (project == null) return null;
+        projectChanged(projectId);
+        boolean updated = projectRepository.updateFeatureFields(projectId, epicId, updatedFeature.getFeatureId(), featureFields(updatedFeature));
+        return updated ? updatedFeature : null;
+    }
 
-        for (Epic epic : project.getEpics()) {
-            if (epic.getEpicId().equals(epicId)) {
-                for (Feature feature : epic.getFeatures()) {
-                    if (feature.getFeatureId().equals(updatedFeature.getFeatureId())) {
-                        if (updatedFeature.getTitle() != null) {
-                            feature.setTitle(updatedFeature.getTitle());
-                        }
-                        if (updatedFeature.getDescription() != null) {
-                            feature.setDescription(updatedFeature.getDescription());
-                        }
-                        // Save the whole project
-                        projectRepository.save(project);
-                        return feature;
-                    }
-                }
-            }
-        }
+    public Task saveTask(String projectId, String epicId, String featureId, Task updatedTask) {
+        if (!writeTaskFields(projectId, epicId, featureId, updatedTask.getTaskId(), savedTaskFields(updatedTask))) {
             return null;
         }
 
-    public Task saveTask(String projectId, String epicId, String featureId, Task updatedTask) {
-        Project project = getProjectById(projectId);
-        if (project == null) return null;
-        for (Epic epic : project.getEpics()) {
-            if (epic.getEpicId().equals(epicId)) {
-                for (Feature feature : epic.getFeatures()) {
-                    if (feature.getFeatureId().equals(featureId)) {
-                        for (Task task : feature.getTasks()) {
-                            if (task.getTaskId().equals(updatedTask.getTaskId())) {
-                                if (updatedTask.getTitle() != null) {
-                                    task.setTitle(updatedTask.getTitle());
-                                }
-                                if (updatedTask.getDescription() != null) {
-                                    task.setDescription(updatedTask.getDescription());
-                                }
-                                if (updatedTask.getStatus() != null) {
-                                    task.setStatus(updatedTask.getStatus());
-                                }
-                                if (updatedTask.getUsers() != null) {
-                                    System.out.println("Updating task users from: " + task.getUsers() + " to: " + updatedTask.getUsers());
-                                    task.setUsers(updatedTask.getUsers());
-                                }
-                                // Update dueDate - allow null to clear the date
-                                task.setDueDate(updatedTask.getDueDate());
-                                
-                                // Ensure parent IDs are set for subscription filtering
-                                task.setProjectId(projectId);
-                                task.setEpicId(epicId);
-                                task.setFeatureId(featureId);
-                                
-                                // Add more fields as needed
-                                projectRepository.save(project);
-                                return task;
-                        }
+        // Ensure parent IDs are set for subscription filtering
+        updatedTask.setProjectId(projectId);
+        updatedTask.setEpicId(epicId);
+        updatedTask.setFeatureId(featureId);
+        return updatedTask;
+    }
+
+    /**
+     * Save several changed tasks of one project with a single write
+     * @param tasks Tasks with their epic and feature ids set, each task at most once
+     * @throws RuntimeException if the project does not exist
+     */
+    public List<Task> saveTasks(String projectId, List<Task> tasks) {
+        List<TaskFieldUpdate> updates = tasks.stream()
+                .map(task -> new TaskFieldUpdate(task.getEpicId(), task.getFeatureId(), task.getTaskId(), savedTaskFields(task)))
+                .collect(Collectors.toList());
+        projectChanged(projectId);
+        if (taskCollection) {
+            taskRepository.updateTasksFields(projectId, updates);
+        } else if (!projectRepository.updateTasksFields(projectId, updates)) {
+            throw new RuntimeException("Project not found: " + projectId);
+        }
+        tasks.forEach(task -> task.setProjectId(projectId));
+        return tasks;
+    }
+
+    /**
+     * Load several tasks of one project, with their parent ids set
+     * @return The tasks by id; ids that do not exist in the project are left out
+     */
+    public Map<String, Task> getTasksById(String projectId, Collection<String> taskIds) {
+        Map<String, Task> tasks = new LinkedHashMap<>();
+        if (taskCollection) {
+            taskRepository.findAllById(taskIds).forEach(task -> {
+                if (projectId.equals(task.getProjectId())) {
+                    tasks.put(task.getTaskId(), task);
+                }
+            });
+            return tasks;
+        }
+        Set<String> wanted = Set.copyOf(taskIds);
+        for (Epic epic : getProjectById(projectId).getEpics()) {
+            for (Feature feature : epic.getFeatures()) {
+                for (Task task : feature.getTasks()) {
+                    if (wanted.contains(task.getTaskId())) {
+                        task.setProjectId(projectId);
+                        task.setEpicId(epic.getEpicId());
+                        task.setFeatureId(feature.getFeatureId());
+                        tasks.put(task.getTaskId(), task);
                     }
                 }
             }
         }
+        return tasks;
+    }
+
+    // Fields written when a whole task is saved; dueDate is always included so it can be cleared
+    private static Map<String, Object> savedTaskFields(Task task) {
+        Map<String, Object> fields = taskFields(task);
+        if (task.getUsers() != null) {
+            fields.put("users", task.getUsers());
+        }
+        fields.put("dueDate", task.getDueDate());
+        return fields;
+    }
+
+    private boolean writeTaskFields(String projectId, String epicId, String featureId, String taskId,
+                                    Map<String, Object> fields) {
+        projectChanged(projectId);
+        return taskCollection
+                ? taskRepository.updateTaskFields(projectId, epicId, featureId, taskId, fields)
+                : projectRepository.updateTaskFields(projectId, epicId, featureId, taskId, fields);
+    }
+
+    // Only non-null fields are written, so partial updates leave the rest of the element untouched
+    private static Map<String, Object> epicFields(Epic epic) {
+        Map<String, Object> fields = new LinkedHashMap<>();
+        if (epic.getTitle() != null) {
+            fields.put("title", epic.getTitle());
+        }
+        if (epic.getDescription() != null) {
+            fields.put("description", epic.getDescription());
+        }
+        if (epic.getStatus() != null) {
+            fields.put("status", epic.getStatus());
+        }
+        return fields;
+    }
+
+    private static Map<String, Object> featureFields(Feature feature) {
+        Map<String, Object> fields = new LinkedHashMap<>();
+        if (feature.getTitle() != null) {
+            fields.put("title", feature.getTitle());
+        }
+        if (feature.getDescription() != null) {
+            fields.put("description", feature.getDescription());
+        }
+        return fields;
+    }
+
+    private static Map<String, Object> taskFields(Task task) {
+        Map<String, Object> fields = new LinkedHashMap<>();
+        if (task.getTitle() != null) {
+            fields.put("title", task.getTitle());
+        }
+        if (task.getDescription() != null) {
+            fields.put("description", task.getDescription());
+        }
+        if (task.getStatus() != null) {
+            fields.put("status", task.getStatus());
+        }
+        return fields;
     }
-        return null;
+
+    // Called before every write to a project: later reads in this request reload it and
+    // a compiled template made from it is dropped
+    private void projectChanged(String projectId) {
+        unitOfWork.evict(projectId);
+        templateCache.projectChanged(projectId);
+    }
+
+    /**
+     * Builds the not-found error for a targeted update that matched nothing.
+     * Only runs on the failure path, so the full project read is acceptable here.
+     */
+    private RuntimeException missingTarget(String projectId, String epicId, String featureId, String taskId) {
+        Optional<Project> project = projectRepository.findById(projectId);
+        if (project.isEmpty()) {
+            return new RuntimeException("Project not found: " + projectId);
+        }
+        Optional<Epic> epic = project.get().getEpics().stream()
+                .filter(e -> e.getEpicId().equals(epicId))
+                .findFirst();
+        if (epic.isEmpty() || featureId == null) {
+            return new RuntimeException("Epic not found: " + epicId);
+        }
+        boolean featureExists = epic.get().getFeatures().stream()
+                .anyMatch(f -> f.getFeatureId().equals(featureId));
+        if (!featureExists || taskId == null) {
+            return new RuntimeException("Feature not found: " + featureId);
+        }
+        return new RuntimeException("Task not found: " + taskId);
     }
 
     private void assignIdsToEmbeddedObjects(Project project) {
@@ -416,46 +643,64 @@ public class ProjectService {
         }
     }
 
-    public Project addUserToProject(String projectId, String username) {
-        // Fetch the project
-        Project project = projectRepository.findById(projectId)
-                .orElseThrow(() -> new RuntimeException("Project not found: " + projectId));
+    /**
+     * Move the embedded tasks of a new project out of the document, setting their epic and feature ids.
+     * The project is saved without tasks and the returned tasks go to the tasks collection
+     * once the project id is known.
+     */
+    private List<Task> detachTasks(Project project) {
+        List<Task> tasks = new ArrayList<>();
+        if (project.getEpics() == null) {
+            return tasks;
+        }
+        for (Epic epic : project.getEpics()) {
+            if (epic.getFeatures() == null) {
+                continue;
+            }
+            for (Feature feature : epic.getFeatures()) {
+                for (Task task : feature.getTasks()) {
+                    task.setEpicId(epic.getEpicId());
+                    task.setFeatureId(feature.getFeatureId());
+                    tasks.add(task);
+                }
+                feature.setTasks(new ArrayList<>());
+            }
+        }
+        return tasks;
+    }
 
+    public Project addUserToProject(String projectId, String username) {
         // Fetch the user
-        User user = userRepository.findByUsername(username)
+        UserPrincipal user = userRepository.findPrincipalByUsername(username)
                 .orElseThrow(() -> new bachelor.projectmanagement.exception.UserNotFoundException("User '" + username + "' does not exist"));
 
         // Add the user to the project's owners list if not already present
-        if (!project.getOwners().contains(user)) {
-            project.getOwners().add(user);
-            projectRepository.save(project);
-        }
+        Project project = modifyProject(projectId, p -> {
+            if (p.hasOwner(user.getId())) {
+                return false;
+            }
+            p.addOwner(user);
+            return true;
+        });
 
         // Add the project to the user's projects list if not already present
-        if (!user.getProjects().contains(project)) {
-            user.getProjects().add(project);
-            userRepository.save(user);
-        }
+        userRepository.addProjectId(user.getId(), projectId);
+        membershipIndex.addMember(projectId, user.getUsername());
 
         return project;
     }
 
     public Project removeUserFromProject(String projectId, String username) {
-        // Fetch the project
-        Project project = projectRepository.findById(projectId)
-                .orElseThrow(() -> new RuntimeException("Project not found: " + projectId));
-
         // Fetch the user
-        User user = userRepository.findByUsername(username)
+        UserPrincipal user = userRepository.findPrincipalByUsername(username)
                 .orElseThrow(() -> new bachelor.projectmanagement.exception.UserNotFoundException("User '" + username + "' does not exist"));
 
         // Remove the user from the project's owners list
-        project.getOwners().remove(user);
-        projectRepository.save(project);
+        Project project = modifyProject(projectId, p -> p.removeOwner(user));
 
         // Remove the project from the user's projects list
-        user.getProjects().removeIf(p -> p.getProjectId().equals(projectId));
-        userRepository.save(user);
+        userRepository.removeProjectId(List.of(user.getId()), projectId);
+        membershipIndex.removeMember(projectId, user.getUsername());
 
         return project;
     }
@@ -467,10 +712,22 @@ public class ProjectService {
      * @return true if user is an owner or superadmin, false otherwise
      */
     public boolean hasProjectAccess(String projectId, String username) {
-        Project project = projectRepository.findById(projectId)
+        if (membershipIndex.isMember(projectId, username)) {
+            // Another instance may have removed the user since the index was loaded
+            if (projectRepository.isOwner(projectId, username)) {
+                return true;
+            }
+            membershipIndex.recordStale(projectId, username, false);
+        }
+
+        // Not an owner according to the index, confirm with the database.
+        // The user is looked up while the project's owners (not its epic tree) are loaded
+        CompletableFuture<Optional<UserPrincipal>> userLookup = CompletableFuture.supplyAsync(
+                () -> userRepository.findPrincipalByUsername(username), fetchExecutor);
+        Project project = loadFields(projectId, List.of("owners"))
                 .orElseThrow(() -> new RuntimeException("Project not found: " + projectId));
         
-        User user = userRepository.findByUsername(username)
+        UserPrincipal user = join(userLookup)
                 .orElseThrow(() -> new RuntimeException("User not found: " + username));
         
         // SuperAdmins have access to all projects
@@ -479,8 +736,23 @@ public class ProjectService {
         }
         
         // Check if user is in the project's owners list
-        return project.getOwners().stream()
-                .anyMatch(owner -> owner.getUsername().equals(username));
+        boolean owner = project.getOwners().stream()
+                .anyMatch(ref -> username.equals(ref.getUsername()));
+        if (owner && membershipIndex.isLoaded()) {
+            membershipIndex.recordStale(projectId, username, true);
+        }
+        return owner;
+    }
+
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
     }
 
     /**
@@ -499,54 +771,57 @@ public class ProjectService {
         return project.getProjectId();
     }
 
+    /**
+     * Create a project for the user from the course level's template, the default template
+     * (course level 0) or, without either, an empty project. Compiled templates are cached,
+     * see {@link ProjectTemplateCache}, so this is a clone plus one insert.
+     */
+    public Project createProjectFromTemplate(int courseLevel, String title, String description, String username) {
+        return createProject(newProjectFromTemplate(courseLevel, title, description), username);
+    }
+
+    /**
+     * Build, without saving, a project from the course level's template, the default template or nothing
+     */
+    public Project newProjectFromTemplate(int courseLevel, String title, String description) {
+        return templateCache.get(courseLevel, this::compileTemplate)
+                .map(template -> template.instantiate(title, description, courseLevel))
+                .orElseGet(() -> {
+                    Project empty = new Project();
+                    empty.setTitle(title);
+                    empty.setDescription(description);
+                    empty.setCourseLevel(courseLevel);
+                    return empty;
+                });
+    }
+
     public Project copyProjectStructure(Project template, String newTitle, String newDescription, int courseLevel, String username) {
-        System.out.println("DEBUG: Copying project structure from template: " + template.getTitle());
-        
-        // Create new project with basic info
-        Project newProject = new Project();
-        newProject.setTitle(newTitle);
-        newProject.setDescription(newDescription);
-        newProject.setCourseLevel(courseLevel);
-        
-        // Copy epics structure
-        List<Epic> newEpics = new ArrayList<>();
-        if (template.getEpics() != null) {
-            for (Epic templateEpic : template.getEpics()) {
-                Epic newEpic = new Epic();
-                newEpic.setTitle(templateEpic.getTitle());
-                newEpic.setDescription(templateEpic.getDescription());
-                
-                // Copy features structure
-                List<Feature> newFeatures = new ArrayList<>();
-                if (templateEpic.getFeatures() != null) {
-                    for (Feature templateFeature : templateEpic.getFeatures()) {
-                        Feature newFeature = new Feature();
-                        newFeature.setTitle(templateFeature.getTitle());
-                        newFeature.setDescription(templateFeature.getDescription());
-                        
-                        // Copy tasks structure
-                        List<Task> newTasks = new ArrayList<>();
-                        if (templateFeature.getTasks() != null) {
-                            for (Task templateTask : templateFeature.getTasks()) {
-                                Task newTask = new Task();
-                                newTask.setTitle(templateTask.getTitle());
-                                newTask.setDescription(templateTask.getDescription());
-                                newTask.setStatus(TaskStatus.TODO); // Start with default status
-                                newTask.setUsers(new ArrayList<>()); // Start with no assigned users
-                                newTasks.add(newTask);
-                            }
-                        }
-                        newFeature.setTasks(newTasks);
-                        newFeatures.add(newFeature);
-                    }
-                }
-                newEpic.setFeatures(newFeatures);
-                newEpics.add(newEpic);
-            }
+        return createProject(compile(template).instantiate(newTitle, newDescription, courseLevel), username);
+    }
+
+    private Optional<ProjectTemplate> compileTemplate(int courseLevel) {
+        Optional<Project> template = findTemplate(courseLevel);
+        if (template.isEmpty() && courseLevel != 0) {
+            template = findTemplate(0);
         }
-        newProject.setEpics(newEpics);
-        
-        // Assign IDs and save the project with current user as owner
-        return createProject(newProject, username); // This will assign IDs and save
+        return template.map(this::compile);
+    }
+
+    // A template project that has since been deleted counts as no template
+    private Optional<Project> findTemplate(int courseLevel) {
+        String templateProjectId = courseLevelConfigService.getConfigOrDefault(courseLevel).getTemplateProjectId();
+        return templateProjectId == null ? Optional.empty() : findProjectById(templateProjectId);
+    }
+
+    private ProjectTemplate compile(Project template) {
+        // Template tasks are not embedded in collection mode, so load them for all features at once
+        Map<String, List<Task>> templateTasks = taskCollection && template.getEpics() != null
+                ? loadTasksByFeature(template.getEpics().stream()
+                        .filter(e -> e.getFeatures() != null)
+                        .flatMap(e -> e.getFeatures().stream())
+                        .map(Feature::getFeatureId)
+                        .collect(Collectors.toSet()))
+                : Map.of();
+        return ProjectTemplate.compile(template, templateTasks);
     }
 }
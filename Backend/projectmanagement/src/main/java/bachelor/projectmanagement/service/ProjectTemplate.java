@@ -0,0 +1,113 @@
+package bachelor.projectmanagement.service;
+
+import bachelor.projectmanagement.model.Epic;
+import bachelor.projectmanagement.model.Feature;
+import bachelor.projectmanagement.model.Project;
+import bachelor.projectmanagement.model.Task;
+import bachelor.projectmanagement.model.TaskStatus;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Immutable epic/feature/task skeleton of a template project. Compiled once from the
+ * template and then instantiated into any number of new projects without touching the
+ * database. New tasks start as TODO without assigned users or due date.
+ */
+public final class ProjectTemplate {
+
+    record TaskNode(String title, String description) {}
+
+    record FeatureNode(String title, String description, List<TaskNode> tasks) {}
+
+    record EpicNode(String title, String description, List<FeatureNode> features) {}
+
+    private final String sourceProjectId;
+    private final List<EpicNode> epics;
+
+    private ProjectTemplate(String sourceProjectId, List<EpicNode> epics) {
+        this.sourceProjectId = sourceProjectId;
+        this.epics = epics;
+    }
+
+    /**
+     * @param template The template project
+     * @param tasksByFeature Tasks by feature id when tasks are not embedded in the project, otherwise empty
+     */
+    static ProjectTemplate compile(Project template, Map<String, List<Task>> tasksByFeature) {
+        List<EpicNode> epics = new ArrayList<>();
+        if (template.getEpics() != null) {
+            for (Epic epic : template.getEpics()) {
+                List<FeatureNode> features = new ArrayList<>();
+                if (epic.getFeatures() != null) {
+                    for (Feature feature : epic.getFeatures()) {
+                        List<Task> sourceTasks = tasksByFeature.isEmpty()
+                                ? feature.getTasks()
+                                : tasksByFeature.getOrDefault(feature.getFeatureId(), List.of());
+                        List<TaskNode> tasks = new ArrayList<>();
+                        if (sourceTasks != null) {
+                            for (Task task : sourceTasks) {
+                                tasks.add(new TaskNode(task.getTitle(), task.getDescription()));
+                            }
+                        }
+                        features.add(new FeatureNode(feature.getTitle(), feature.getDescription(), List.copyOf(tasks)));
+                    }
+                }
+                epics.add(new EpicNode(epic.getTitle(), epic.getDescription(), List.copyOf(features)));
+            }
+        }
+        return new ProjectTemplate(template.getProjectId(), List.copyOf(epics));
+    }
+
+    /**
+     * @return The id of the project this template was compiled from
+     */
+    public String getSourceProjectId() {
+        return sourceProjectId;
+    }
+
+    /**
+     * Build a new, unsaved project with this structure and fresh ids
+     */
+    public Project instantiate(String title, String description, int courseLevel) {
+        Project project = new Project();
+        project.setTitle(title);
+        project.setDescription(description);
+        project.setCourseLevel(courseLevel);
+
+        List<Epic> newEpics = new ArrayList<>(epics.size());
+        for (EpicNode epicNode : epics) {
+            Epic epic = new Epic();
+            epic.setEpicId(UUID.randomUUID().toString());
+            epic.setTitle(epicNode.title());
+            epic.setDescription(epicNode.description());
+
+            List<Feature> newFeatures = new ArrayList<>(epicNode.features().size());
+            for (FeatureNode featureNode : epicNode.features()) {
+                Feature feature = new Feature();
+                feature.setFeatureId(UUID.randomUUID().toString());
+                feature.setTitle(featureNode.title());
+                feature.setDescription(featureNode.description());
+
+                List<Task> newTasks = new ArrayList<>(featureNode.tasks().size());
+                for (TaskNode taskNode : featureNode.tasks()) {
+                    Task task = new Task();
+                    task.setTaskId(UUID.randomUUID().toString());
+                    task.setTitle(taskNode.title());
+                    task.setDescription(taskNode.description());
+                    task.setStatus(TaskStatus.TODO);
+                    task.setUsers(new ArrayList<>());
+                    newTasks.add(task);
+                }
+                feature.setTasks(newTasks);
+                newFeatures.add(feature);
+            }
+            epic.setFeatures(newFeatures);
+            newEpics.add(epic);
+        }
+        project.setEpics(newEpics);
+        return project;
+    }
+}
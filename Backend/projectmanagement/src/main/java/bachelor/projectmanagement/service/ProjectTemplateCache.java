@@ -0,0 +1,87 @@
+package bachelor.projectmanagement.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntFunction;
+
+/**
+ * Compiled templates by course level, including "no template" results.
+ *
+ * Everything is dropped when a course level config is saved or deleted, since a new
+ * template for level 0 changes the fallback for every level. When a project is changed only
+ * the templates compiled from it are dropped. Entries also expire after app.templates.cache-ttl-ms
+ * so that changes made through another instance are picked up.
+ */
+@Component
+public class ProjectTemplateCache {
+
+    private record Entry(Optional<ProjectTemplate> template, long expiresAt) {}
+
+    // Projects changed while a template was being compiled, it is not stored if it came from one of them
+    private static final class Compilation {
+        private final Set<String> changedProjects = ConcurrentHashMap.newKeySet();
+    }
+
+    private final long ttlMs;
+    private final Map<Integer, Entry> entries = new ConcurrentHashMap<>();
+    private final Set<Compilation> compilations = ConcurrentHashMap.newKeySet();
+    // Bumped on every invalidation, a template compiled across an invalidation is not stored
+    private final AtomicLong generation = new AtomicLong();
+
+    public ProjectTemplateCache(@Value("${app.templates.cache-ttl-ms:600000}") long ttlMs) {
+        this.ttlMs = ttlMs;
+    }
+
+    /**
+     * @param compiler Resolves and compiles the template of a course level on a cache miss
+     */
+    public Optional<ProjectTemplate> get(int courseLevel, IntFunction<Optional<ProjectTemplate>> compiler) {
+        Entry entry = entries.get(courseLevel);
+        long now = System.currentTimeMillis();
+        if (entry != null && entry.expiresAt() > now) {
+            return entry.template();
+        }
+        long before = generation.get();
+        Compilation compilation = new Compilation();
+        compilations.add(compilation);
+        Optional<ProjectTemplate> template;
+        try {
+            template = compiler.apply(courseLevel);
+            if (generation.get() == before) {
+                entry = new Entry(template, now + ttlMs);
+                entries.put(courseLevel, entry);
+                if (generation.get() != before) {
+                    // Invalidated while storing
+                    entries.remove(courseLevel);
+                }
+            }
+        } finally {
+            compilations.remove(compilation);
+        }
+        // Checked after storing, a change from here on finds the entry in projectChanged
+        if (template.map(t -> compilation.changedProjects.contains(t.getSourceProjectId())).orElse(false)) {
+            entries.remove(courseLevel, entry);
+        }
+        return template;
+    }
+
+    public void invalidate() {
+        generation.incrementAndGet();
+        entries.clear();
+    }
+
+    /**
+     * Drop the cached templates compiled from the changed project
+     */
+    public void projectChanged(String projectId) {
+        // The project may be a template that is being compiled right now
+        compilations.forEach(compilation -> compilation.changedProjects.add(projectId));
+        entries.values().removeIf(entry -> entry.template().map(t -> projectId.equals(t.getSourceProjectId())).orElse(false));
+    }
+}
@@ -0,0 +1,88 @@
+package bachelor.projectmanagement.service;
+
+import bachelor.projectmanagement.model.Project;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Request scoped identity map for projects, so that one GraphQL execution (or REST call)
+ * loads each project at most once, however many resolvers and service methods read it.
+ *
+ * The map lives in the current request's attributes and is dropped with the request.
+ * Outside of a request, for example in startup runners, every lookup goes to the loader.
+ *
+ * Writes are not deferred: ProjectService still sends each change as its own targeted
+ * update and then marks the project dirty with {@link #evict}, so the next read in the
+ * same request sees the new state. Whole-document saves put the saved project back.
+ */
+@Component
+public class ProjectUnitOfWork {
+
+    private static final String ATTRIBUTE = ProjectUnitOfWork.class.getName() + ".projects";
+
+    /**
+     * Return the project loaded earlier in this request, or load and remember it
+     * @param loader Loads the full project, only called on the first lookup
+     */
+    public Optional<Project> load(String projectId, Function<String, Optional<Project>> loader) {
+        Map<String, Project> projects = projects();
+        if (projects == null) {
+            return loader.apply(projectId);
+        }
+        Project cached = projects.get(projectId);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        Optional<Project> loaded = loader.apply(projectId);
+        loaded.ifPresent(project -> projects.put(projectId, project));
+        return loaded;
+    }
+
+    /**
+     * @return The full project if it was already loaded in this request, without querying
+     */
+    public Optional<Project> cached(String projectId) {
+        Map<String, Project> projects = projects();
+        return projects == null ? Optional.empty() : Optional.ofNullable(projects.get(projectId));
+    }
+
+    /**
+     * Remember a project that was just saved as a whole
+     */
+    public void put(Project project) {
+        Map<String, Project> projects = projects();
+        if (projects != null && project != null && project.getProjectId() != null) {
+            projects.put(project.getProjectId(), project);
+        }
+    }
+
+    /**
+     * Forget a project that was changed in the database, the next lookup reloads it
+     */
+    public void evict(String projectId) {
+        Map<String, Project> projects = projects();
+        if (projects != null) {
+            projects.remove(projectId);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Project> projects() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            return null;
+        }
+        Map<String, Project> projects = (Map<String, Project>) attributes.getAttribute(ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (projects == null) {
+            projects = new ConcurrentHashMap<>();
+            attributes.setAttribute(ATTRIBUTE, projects, RequestAttributes.SCOPE_REQUEST);
+        }
+        return projects;
+    }
+}
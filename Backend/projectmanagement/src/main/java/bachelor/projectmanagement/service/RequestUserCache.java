@@ -0,0 +1,69 @@
+package bachelor.projectmanagement.service;
+
+import bachelor.projectmanagement.model.User;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Request scoped cache of users resolved by id, shared by the GraphQL batch loaders for
+ * project owners, epic owners and task assignees, so a user that appears on several levels
+ * of one response is loaded once.
+ *
+ * Like {@link ProjectUnitOfWork} the map lives in the current request's attributes. Outside
+ * of a request every lookup goes to the loader.
+ */
+@Component
+public class RequestUserCache {
+
+    private static final String ATTRIBUTE = RequestUserCache.class.getName() + ".users";
+
+    /**
+     * Return the users loaded earlier in this request and load the rest at once
+     * @param loader Loads the users for the ids not cached yet, only called when there are any
+     * @return The found users by id, ids without a user are left out
+     */
+    public Map<String, User> loadAll(Set<String> userIds, Function<Set<String>, ? extends Iterable<User>> loader) {
+        Map<String, User> cache = users();
+        Map<String, User> result = new HashMap<>();
+        Set<String> missing = new LinkedHashSet<>();
+        for (String userId : userIds) {
+            User cached = cache != null ? cache.get(userId) : null;
+            if (cached != null) {
+                result.put(userId, cached);
+            } else if (userId != null) {
+                missing.add(userId);
+            }
+        }
+        if (!missing.isEmpty()) {
+            for (User user : loader.apply(missing)) {
+                result.put(user.getId(), user);
+                if (cache != null) {
+                    cache.put(user.getId(), user);
+                }
+            }
+        }
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, User> users() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            return null;
+        }
+        Map<String, User> users = (Map<String, User>) attributes.getAttribute(ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (users == null) {
+            users = new ConcurrentHashMap<>();
+            attributes.setAttribute(ATTRIBUTE, users, RequestAttributes.SCOPE_REQUEST);
+        }
+        return users;
+    }
+}
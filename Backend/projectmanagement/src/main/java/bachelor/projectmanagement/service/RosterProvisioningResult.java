@@ -0,0 +1,47 @@
+package bachelor.projectmanagement.service;
+
+import java.util.List;
+
+/**
+ * Outcome of a roster provisioning, with one row per student and per group in input order
+ */
+public record RosterProvisioningResult(List<Row> students, List<Row> groups) {
+
+    public enum Status { CREATED, SKIPPED, FAILED }
+
+    /**
+     * @param row Index of the student or group in the input
+     * @param name Username or project title
+     * @param id Id of the created user or project, or of the existing user when skipped
+     */
+    public record Row(int row, String name, Status status, String message, String id) {
+
+        static Row created(int row, String name, String id) {
+            return new Row(row, name, Status.CREATED, null, id);
+        }
+
+        static Row skipped(int row, String name, String message, String id) {
+            return new Row(row, name, Status.SKIPPED, message, id);
+        }
+
+        static Row failed(int row, String name, String message) {
+            return new Row(row, name, Status.FAILED, message, null);
+        }
+    }
+
+    public int usersCreated() {
+        return count(students, Status.CREATED);
+    }
+
+    public int projectsCreated() {
+        return count(groups, Status.CREATED);
+    }
+
+    public int failed() {
+        return count(students, Status.FAILED) + count(groups, Status.FAILED);
+    }
+
+    private static int count(List<Row> rows, Status status) {
+        return (int) rows.stream().filter(row -> row.status() == status).count();
+    }
+}
@@ -0,0 +1,181 @@
+package bachelor.projectmanagement.service;
+
+import bachelor.projectmanagement.graphql.input.RosterGroupInput;
+import bachelor.projectmanagement.graphql.input.RosterStudentInput;
+import bachelor.projectmanagement.model.Project;
+import bachelor.projectmanagement.model.User;
+import bachelor.projectmanagement.model.UserPrincipal;
+import bachelor.projectmanagement.model.UserRef;
+import bachelor.projectmanagement.model.UserRole;
+import bachelor.projectmanagement.repository.UserRepository;
+import bachelor.projectmanagement.service.RosterProvisioningResult.Row;
+import jakarta.annotation.PreDestroy;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Creates the users and group projects of a whole class in one operation.
+ *
+ * Instead of one createUser and one createProjectFromTemplate call per row, passwords are
+ * hashed in parallel on a bounded pool (BCrypt is deliberately slow), all new users are
+ * inserted with one unordered bulk write, all projects with one insert and the owners are
+ * linked with one bulk update. A failing row does not stop the others, every student and
+ * group gets its own result row.
+ *
+ * Students whose username already exists are skipped, but can still be members of groups,
+ * so a roster can be provisioned again after fixing the failed rows.
+ */
+@Service
+public class RosterProvisioningService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RosterProvisioningService.class);
+
+    private final UserService userService;
+    private final UserRepository userRepository;
+    private final ProjectService projectService;
+    private final ExecutorService hashingPool;
+
+    public RosterProvisioningService(UserService userService, UserRepository userRepository, ProjectService projectService,
+                                     @Value("${app.provisioning.hash-threads:4}") int hashThreads) {
+        this.userService = userService;
+        this.userRepository = userRepository;
+        this.projectService = projectService;
+        this.hashingPool = Executors.newFixedThreadPool(hashThreads);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        hashingPool.shutdown();
+    }
+
+    public RosterProvisioningResult provision(List<RosterStudentInput> students, List<RosterGroupInput> groups) {
+        Row[] studentRows = new Row[students.size()];
+        Row[] groupRows = new Row[groups.size()];
+
+        // One query for every username the roster mentions
+        Set<String> usernames = new HashSet<>();
+        students.stream().map(RosterStudentInput::getUsername).filter(Objects::nonNull).forEach(usernames::add);
+        groups.forEach(group -> usernames.addAll(group.getUsernames()));
+        Map<String, UserPrincipal> users = new HashMap<>();
+        userRepository.findPrincipalsByUsernameIn(usernames).forEach(user -> users.put(user.getUsername(), user));
+
+        List<Integer> toCreate = validateStudents(students, users, studentRows);
+        List<User> newUsers = hashPasswords(students, toCreate);
+        logger.info("Provisioning roster: hashed {} password(s)", newUsers.size());
+
+        Map<Integer, String> failedInserts = userRepository.insertUnordered(newUsers);
+        for (int i = 0; i < newUsers.size(); i++) {
+            int row = toCreate.get(i);
+            User user = newUsers.get(i);
+            String error = failedInserts.get(i);
+            if (error == null) {
+                users.put(user.getUsername(), user);
+                studentRows[row] = Row.created(row, user.getUsername(), user.getId());
+            } else {
+                studentRows[row] = Row.failed(row, user.getUsername(), error);
+            }
+        }
+        logger.info("Provisioning roster: created {} of {} user(s)", newUsers.size() - failedInserts.size(), students.size());
+
+        createProjects(groups, users, groupRows);
+        logger.info("Provisioning roster: processed {} group(s)", groups.size());
+
+        return new RosterProvisioningResult(Arrays.asList(studentRows), Arrays.asList(groupRows));
+    }
+
+    // Fills in the rows of students that are skipped or invalid, returns the rows to create
+    private List<Integer> validateStudents(List<RosterStudentInput> students, Map<String, UserPrincipal> existing, Row[] rows) {
+        List<Integer> toCreate = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+        for (int row = 0; row < students.size(); row++) {
+            String username = students.get(row).getUsername();
+            if (username == null || username.isBlank()) {
+                rows[row] = Row.failed(row, username, "Username is required");
+            } else if (!seen.add(username)) {
+                rows[row] = Row.failed(row, username, "Duplicate username in roster");
+            } else if (existing.containsKey(username)) {
+                rows[row] = Row.skipped(row, username, "Username already exists", existing.get(username).getId());
+            } else {
+                try {
+                    userService.validatePassword(students.get(row).getPassword());
+                    toCreate.add(row);
+                } catch (RuntimeException e) {
+                    rows[row] = Row.failed(row, username, e.getMessage());
+                }
+            }
+        }
+        return toCreate;
+    }
+
+    private List<User> hashPasswords(List<RosterStudentInput> students, List<Integer> rows) {
+        List<CompletableFuture<User>> hashed = rows.stream()
+                .map(students::get)
+                .map(student -> CompletableFuture.supplyAsync(() -> {
+                    User user = new User(student.getUsername(), userService.encodePassword(student.getPassword()));
+                    // Assigned up front, since bulk inserts do not write generated ids back
+                    user.setId(new ObjectId().toHexString());
+                    user.setRole(UserRole.USER);
+                    return user;
+                }, hashingPool))
+                .toList();
+        return hashed.stream().map(CompletableFuture::join).toList();
+    }
+
+    private void createProjects(List<RosterGroupInput> groups, Map<String, UserPrincipal> users, Row[] rows) {
+        List<Integer> toCreate = new ArrayList<>();
+        List<Project> projects = new ArrayList<>();
+        for (int row = 0; row < groups.size(); row++) {
+            RosterGroupInput group = groups.get(row);
+            Set<String> members = new LinkedHashSet<>(group.getUsernames());
+            List<String> unknown = members.stream().filter(username -> !users.containsKey(username)).toList();
+            if (group.getTitle() == null || group.getTitle().isBlank()) {
+                rows[row] = Row.failed(row, group.getTitle(), "Title is required");
+            } else if (members.isEmpty()) {
+                rows[row] = Row.failed(row, group.getTitle(), "Group has no members");
+            } else if (!unknown.isEmpty()) {
+                rows[row] = Row.failed(row, group.getTitle(), "Unknown or failed user(s): " + String.join(", ", unknown));
+            } else {
+                try {
+                    Project project = projectService.newProjectFromTemplate(group.getCourseLevel(), group.getTitle(), group.getDescription());
+                    project.setOwners(new ArrayList<>(members.stream().map(users::get).map(UserRef::of).toList()));
+                    projects.add(project);
+                    toCreate.add(row);
+                } catch (RuntimeException e) {
+                    rows[row] = Row.failed(row, group.getTitle(), e.getMessage());
+                }
+            }
+        }
+        if (projects.isEmpty()) {
+            return;
+        }
+
+        try {
+            List<Project> saved = projectService.createProjects(projects);
+            for (int i = 0; i < saved.size(); i++) {
+                int row = toCreate.get(i);
+                rows[row] = Row.created(row, saved.get(i).getTitle(), saved.get(i).getProjectId());
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Provisioning roster: could not create projects: {}", e.getMessage());
+            for (int row : toCreate) {
+                rows[row] = Row.failed(row, groups.get(row).getTitle(), "Could not create project: " + e.getMessage());
+            }
+        }
+    }
+}
@@ -1,57 +1,221 @@
 package bachelor.projectmanagement.service;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
-import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
 
+/**
+ * Fans project events out to the SSE clients subscribed to the project.
+ *
+ * Events go through the ProjectEventBus, so with several instances a change made on one reaches
+ * the clients connected to any of them. Each event is serialized once and published on the bus;
+ * every instance, this one included, receives it in {@link #deliver} and fans it out locally.
+ *
+ * Fanning out never waits for a client: the event is encoded into one SSE frame, which is put in
+ * the bounded queue of every local subscriber (see SseSubscriber) and sent from the dispatcher
+ * executor. A subscriber whose queue is full has fallen queue-capacity events behind and is
+ * dropped; its response is completed and the browser's EventSource reconnects.
+ *
+ * Updates of projects, epics, features and tasks are held for the coalescing window before they
+ * are published. Further updates of the same entity (same event and "id") within the window are
+ * merged into the held one, later values winning, so clients get one event with the latest
+ * state. Any other event first publishes the held updates of its project, so creates and deletes
+ * keep their order relative to the updates before them.
+ *
+ * Events carry the ids the bus gives them. Each instance keeps the latest replay-buffer-size
+ * events of the projects that have, or recently had, subscribers on that instance (see
+ * SseEventLog). A client reconnecting with the id of the last event it saw is sent the events it
+ * missed. If some of them are not kept here, for example because it reconnected to an instance
+ * that had no subscribers for the project, it gets a "resync" event instead and reloads the
+ * project. The "connected" event carries the id the stream continues from, so a client has a
+ * position even before the first event.
+ *
+ * Subscribers are also registered with the SseHeartbeatWheel, which pings quiet connections
+ * and reaps dead ones.
+ *
+ * Metrics: "sse.subscribers" (connected clients), "sse.events.published",
+ * "sse.events.coalesced" (updates merged into a held one), "sse.subscribers.evicted"
+ * (dropped for falling behind), "sse.subscribers.reaped" (dropped because the connection was
+ * dead) and "sse.resumes" tagged outcome=replayed/resync.
+ */
 @Service
 public class SSEService {
 
     private static final Logger logger = LoggerFactory.getLogger(SSEService.class);
     private static final long SSE_TIMEOUT = 30 * 60 * 1000L; // 30 minutes
+    private static final MediaType TEXT_PLAIN = new MediaType(MediaType.TEXT_PLAIN, StandardCharsets.UTF_8);
+    private static final Set<String> COALESCED_EVENTS = Set.of("projectUpdate", "epicUpdate", "featureUpdate", "taskUpdate");
 
-    // Map of project ID to list of emitters
-    private final ConcurrentHashMap<String, CopyOnWriteArrayList<SseEmitter>> projectEmitters = new ConcurrentHashMap<>();
+    // Map of project ID to list of subscribers
+    private final ConcurrentHashMap<String, CopyOnWriteArrayList<SseSubscriber>> projectEmitters = new ConcurrentHashMap<>();
+    // Map of project ID to the updates held for its coalescing window, keyed by event name and entity id.
+    // Each map is also the lock that keeps the project's events in order
+    private final ConcurrentHashMap<String, Map<String, PendingUpdate>> pendingUpdates = new ConcurrentHashMap<>();
+    // Map of project ID to its recent events, kept for replay-retention-ms after the last subscriber left
+    private final ConcurrentHashMap<String, SseEventLog> eventLogs = new ConcurrentHashMap<>();
     private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Executor sseExecutor;
+    private final TaskScheduler taskScheduler;
+    private final SseHeartbeatWheel heartbeatWheel;
+    private final ProjectEventBus eventBus;
+    private final int queueCapacity;
+    private final long coalesceWindowMs;
+    private final int replayBufferSize;
+    private final long replayRetentionMs;
+
+    private final Counter published;
+    private final Counter coalesced;
+    private final Counter evicted;
+    private final Counter reaped;
+    private final Counter replayed;
+    private final Counter resynced;
+
+    private record PendingUpdate(String eventName, Map<Object, Object> data) {
+    }
+
+    public SSEService(MeterRegistry meterRegistry, @Qualifier("sseExecutor") Executor sseExecutor,
+                      @Qualifier("sseScheduler") TaskScheduler taskScheduler, SseHeartbeatWheel heartbeatWheel, ProjectEventBus eventBus,
+                      @Value("${app.sse.queue-capacity:256}") int queueCapacity,
+                      @Value("${app.sse.coalesce-window-ms:250}") long coalesceWindowMs,
+                      @Value("${app.sse.replay-buffer-size:128}") int replayBufferSize,
+                      @Value("${app.sse.replay-retention-ms:600000}") long replayRetentionMs) {
+        this.sseExecutor = sseExecutor;
+        this.taskScheduler = taskScheduler;
+        this.heartbeatWheel = heartbeatWheel;
+        this.eventBus = eventBus;
+        this.queueCapacity = queueCapacity;
+        this.coalesceWindowMs = coalesceWindowMs;
+        this.replayBufferSize = replayBufferSize;
+        this.replayRetentionMs = replayRetentionMs;
+        this.published = Counter.builder("sse.events.published")
+                .description("Events fanned out to SSE subscribers")
+                .register(meterRegistry);
+        this.coalesced = Counter.builder("sse.events.coalesced")
+                .description("Entity updates merged into an update still held for the coalescing window")
+                .register(meterRegistry);
+        this.evicted = Counter.builder("sse.subscribers.evicted")
+                .description("SSE subscribers dropped because their queue was full")
+                .register(meterRegistry);
+        this.reaped = Counter.builder("sse.subscribers.reaped")
+                .description("SSE subscribers dropped because a send failed or was stuck")
+                .register(meterRegistry);
+        this.replayed = Counter.builder("sse.resumes")
+                .tag("outcome", "replayed")
+                .description("Reconnecting SSE clients sent the events they missed")
+                .register(meterRegistry);
+        this.resynced = Counter.builder("sse.resumes")
+                .tag("outcome", "resync")
+                .description("Reconnecting SSE clients told to reload, their missed events were no longer kept")
+                .register(meterRegistry);
+        Gauge.builder("sse.subscribers", projectEmitters,
+                        emitters -> emitters.values().stream().mapToInt(CopyOnWriteArrayList::size).sum())
+                .description("Connected SSE clients")
+                .register(meterRegistry);
+        eventBus.subscribe(this::deliver);
+    }
 
     /**
      * Create an SSE emitter for a project
      */
     public SseEmitter createEmitter(String projectId) {
+        return createEmitter(projectId, null);
+    }
+
+    /**
+     * Create an SSE emitter for a project, resuming after the given event
+     * @param lastEventId The id of the last event the client received, null for a new client
+     */
+    public SseEmitter createEmitter(String projectId, String lastEventId) {
         SseEmitter emitter = new SseEmitter(SSE_TIMEOUT);
-        
-        // Add to project emitters list
-        projectEmitters.computeIfAbsent(projectId, k -> new CopyOnWriteArrayList<>()).add(emitter);
-        
+        SseSubscriber subscriber = new SseSubscriber(projectId, emitter, queueCapacity, sseExecutor,
+                failed -> {
+                    logger.warn("Failed to send SSE event to client, removing emitter for project: {}", projectId);
+                    reaped.increment();
+                    removeEmitter(projectId, failed);
+                });
+
+        // Under the project's lock, so no event is delivered between the replay and the subscription
+        withProjectLock(projectId, pending -> {
+            // Add to project subscribers list
+            projectEmitters.compute(projectId, (id, subscribers) -> {
+                CopyOnWriteArrayList<SseSubscriber> list = subscribers != null ? subscribers : new CopyOnWriteArrayList<>();
+                list.add(subscriber);
+                return list;
+            });
+            SseEventLog log = eventLogs.computeIfAbsent(projectId,
+                    id -> new SseEventLog(replayBufferSize, eventBus.position()));
+            log.setIdleSince(0);
+            heartbeatWheel.add(subscriber);
+
+            // Send initial connection event, then whatever the client missed
+            List<SseEventLog.Entry> missed = lastEventId == null ? List.of() : missedEvents(log, lastEventId);
+            if (missed == null) {
+                subscriber.offer(frame(log.getLastId(), "connected", connectedMessage(projectId)));
+                subscriber.offer(frame("resync", "{\"projectId\":\"" + projectId + "\"}"));
+                resynced.increment();
+                logger.info("SSE client of project {} missed events that are no longer kept, sent resync", projectId);
+            } else {
+                long position = missed.isEmpty() ? log.getLastId() : Long.parseLong(lastEventId.trim());
+                subscriber.offer(frame(position, "connected", connectedMessage(projectId)));
+                missed.forEach(entry -> subscriber.offer(entry.frame()));
+                if (lastEventId != null) {
+                    replayed.increment();
+                    logger.info("Replayed {} SSE event(s) to reconnecting client of project {}", missed.size(), projectId);
+                }
+            }
+        });
+
         // Handle completion and timeout
-        emitter.onCompletion(() -> removeEmitter(projectId, emitter));
+        emitter.onCompletion(() -> removeEmitter(projectId, subscriber));
         emitter.onTimeout(() -> {
             logger.info("SSE connection timed out for project: {}", projectId);
-            removeEmitter(projectId, emitter);
+            removeEmitter(projectId, subscriber);
         });
         emitter.onError((ex) -> {
             logger.error("SSE error for project {}: {}", projectId, ex.getMessage());
-            removeEmitter(projectId, emitter);
+            removeEmitter(projectId, subscriber);
         });
 
-        // Send initial connection event
+        logger.info("Created SSE emitter for project: {}", projectId);
+        return emitter;
+    }
+
+    // Null when the client has to reload the project instead
+    private List<SseEventLog.Entry> missedEvents(SseEventLog log, String lastEventId) {
+        List<SseEventLog.Entry> missed;
         try {
-            emitter.send(SseEmitter.event()
-                .name("connected")
-                .data("{\"message\":\"Connected to project " + projectId + " updates\"}"));
-        } catch (IOException e) {
-            logger.error("Failed to send initial SSE event for project {}: {}", projectId, e.getMessage());
-            removeEmitter(projectId, emitter);
+            missed = log.since(Long.parseLong(lastEventId.trim()));
+        } catch (NumberFormatException e) {
+            return null;
         }
+        // The connected event and the replay have to fit in the subscriber's queue
+        return missed != null && missed.size() < queueCapacity ? missed : null;
+    }
 
-        logger.info("Created SSE emitter for project: {}", projectId);
-        return emitter;
+    private static String connectedMessage(String projectId) {
+        return "{\"message\":\"Connected to project " + projectId + " updates\"}";
     }
 
     /**
@@ -61,6 +225,13 @@ public class SSEService {
         sendEventToProject(projectId, "taskUpdate", taskUpdate);
     }
 
+    /**
+     * Send one event for several task updates made at once, as {"tasks": [taskUpdate, ...]}
+     */
+    public void sendTasksBatchUpdate(String projectId, Object batchUpdate) {
+        sendEventToProject(projectId, "tasksBatchUpdate", batchUpdate);
+    }
+
     /**
      * Send epic update event to all clients subscribed to the project
      */
@@ -132,15 +303,84 @@ public class SSEService {
     }
 
     /**
-     * Send event to all emitters for a specific project
+     * Send event to all emitters for a specific project, holding entity updates for the coalescing window.
+     * Clients may be connected to other instances, so the event is published even without local subscribers
      */
     private void sendEventToProject(String projectId, String eventName, Object data) {
-        CopyOnWriteArrayList<SseEmitter> emitters = projectEmitters.get(projectId);
-        if (emitters == null || emitters.isEmpty()) {
-            logger.debug("No SSE clients connected for project: {}", projectId);
-            return;
+        withProjectLock(projectId, pending -> {
+            if (coalesceWindowMs > 0 && COALESCED_EVENTS.contains(eventName)
+                    && data instanceof Map<?, ?> update && update.get("id") != null) {
+                boolean firstHeld = pending.isEmpty();
+                PendingUpdate held = pending.get(eventName + ":" + update.get("id"));
+                if (held != null) {
+                    held.data().putAll(update);
+                    coalesced.increment();
+                } else {
+                    pending.put(eventName + ":" + update.get("id"), new PendingUpdate(eventName, new LinkedHashMap<>(update)));
+                }
+                if (firstHeld) {
+                    taskScheduler.schedule(() -> flushPendingUpdates(projectId), Instant.now().plusMillis(coalesceWindowMs));
+                }
+                return;
+            }
+            sendHeldUpdates(projectId, pending);
+            publish(projectId, eventName, data);
+        });
+    }
+
+    /**
+     * Send the updates held for a project at the end of its coalescing window
+     */
+    void flushPendingUpdates(String projectId) {
+        if (pendingUpdates.containsKey(projectId)) {
+            withProjectLock(projectId, pending -> sendHeldUpdates(projectId, pending));
         }
+    }
 
+    /**
+     * Run an action under the project's lock, which is the project's map of held updates. The map is
+     * dropped once it is empty and the project has neither subscribers nor an event log here, so
+     * projects nobody follows any more do not keep an entry.
+     */
+    private void withProjectLock(String projectId, Consumer<Map<String, PendingUpdate>> action) {
+        while (true) {
+            Map<String, PendingUpdate> pending = pendingUpdates.computeIfAbsent(projectId, id -> new LinkedHashMap<>());
+            if (Thread.holdsLock(pending)) {
+                // Delivered by the in-process bus while this thread publishes, the outer call cleans up
+                action.accept(pending);
+                return;
+            }
+            synchronized (pending) {
+                if (pendingUpdates.get(projectId) != pending) {
+                    // Dropped while this thread waited for it, lock the project's new map instead
+                    continue;
+                }
+                action.accept(pending);
+                if (pending.isEmpty() && !projectEmitters.containsKey(projectId) && !eventLogs.containsKey(projectId)) {
+                    pendingUpdates.remove(projectId, pending);
+                }
+                return;
+            }
+        }
+    }
+
+    // Caller holds the lock on pending
+    private void sendHeldUpdates(String projectId, Map<String, PendingUpdate> pending) {
+        try {
+            for (PendingUpdate update : pending.values()) {
+                publish(projectId, update.eventName(), update.data());
+            }
+        } finally {
+            // Even when one fails, so the next update starts a new window instead of being held forever
+            pending.clear();
+        }
+    }
+
+    /**
+     * Serialize one event and publish it on the bus.
+     * Caller holds the project's lock, so the project's events are published one at a time
+     */
+    void publish(String projectId, String eventName, Object data) {
         String jsonData;
         try {
             jsonData = objectMapper.writeValueAsString(data);
@@ -148,42 +388,116 @@ public class SSEService {
             logger.error("Failed to serialize SSE event data: {}", e.getMessage());
             return;
         }
+        try {
+            eventBus.publish(projectId, eventName, jsonData);
+        } catch (RuntimeException e) {
+            // The change itself is already saved, clients that miss the event catch up on their next reload
+            logger.error("Failed to publish {} event for project {}: {}", eventName, projectId, e.getMessage());
+        }
+    }
 
-        // Send to all connected clients for this project
-        emitters.removeIf(emitter -> {
-            try {
-                emitter.send(SseEmitter.event()
-                    .name(eventName)
-                    .data(jsonData));
-                return false; // Keep emitter
-            } catch (IOException e) {
-                logger.warn("Failed to send SSE event to client, removing emitter: {}", e.getMessage());
-                return true;
+    /**
+     * Encode an event from the bus, keep it for replay and queue it for every local subscriber of the project
+     */
+    void deliver(ProjectEvent event) {
+        String projectId = event.projectId();
+        // Under the project's lock, so a client subscribing meanwhile either gets this event or starts after it
+        withProjectLock(projectId, pending -> {
+            CopyOnWriteArrayList<SseSubscriber> subscribers = projectEmitters.get(projectId);
+            SseEventLog log = eventLogs.get(projectId);
+            if (subscribers == null && log == null) {
+                return;
+            }
+            // Encoded once, the same frame is kept and queued for every subscriber
+            Set<ResponseBodyEmitter.DataWithMediaType> frame = frame(event.id(), event.name(), event.json());
+            if (log != null && !log.append(event.id(), frame)) {
+                // From before the log's position, the subscribers started after it
+                return;
             }
+            published.increment();
+            if (subscribers == null) {
+                return;
+            }
+            for (SseSubscriber subscriber : subscribers) {
+                if (!subscriber.offer(frame)) {
+                    logger.warn("SSE client for project {} is {} events behind, dropping it", projectId, subscriber.getQueued());
+                    evicted.increment();
+                    removeEmitter(projectId, subscriber);
+                    subscriber.close();
+                }
+            }
+
+            logger.debug("Queued {} event for {} clients of project: {}", event.name(), subscribers.size(), projectId);
         });
+    }
 
-        logger.info("Sent {} event to {} clients for project: {}", eventName, emitters.size(), projectId);
+    /**
+     * Encode an event the way SseEmitter.event().name(name).data(json) would, as a single piece.
+     * JSON from the ObjectMapper has no line breaks, so it fits on one data line.
+     */
+    static Set<ResponseBodyEmitter.DataWithMediaType> frame(String eventName, String json) {
+        return Set.of(new ResponseBodyEmitter.DataWithMediaType(
+                "event:" + eventName + "\ndata:" + json + "\n\n", TEXT_PLAIN));
+    }
+
+    /**
+     * Encode an event with an id, which the browser sends back as Last-Event-ID when it reconnects
+     */
+    static Set<ResponseBodyEmitter.DataWithMediaType> frame(long id, String eventName, String json) {
+        return Set.of(new ResponseBodyEmitter.DataWithMediaType(
+                "id:" + id + "\nevent:" + eventName + "\ndata:" + json + "\n\n", TEXT_PLAIN));
+    }
+
+    /**
+     * Drop the event logs of projects nobody has been subscribed to for replay-retention-ms
+     */
+    @Scheduled(fixedDelayString = "${app.sse.replay-retention-ms:600000}", scheduler = "sseScheduler")
+    public void dropIdleEventLogs() {
+        long idleBefore = System.currentTimeMillis() - replayRetentionMs;
+        eventLogs.forEach((projectId, log) -> {
+            if (log.getIdleSince() == 0 || log.getIdleSince() > idleBefore) {
+                return;
+            }
+            withProjectLock(projectId, pending -> {
+                if (log.getIdleSince() != 0 && log.getIdleSince() <= idleBefore) {
+                    eventLogs.remove(projectId, log);
+                }
+            });
+        });
     }
 
     /**
-     * Remove an emitter from the project's emitter list
+     * Remove a subscriber from the project's subscriber list
      */
-    private void removeEmitter(String projectId, SseEmitter emitter) {
-        CopyOnWriteArrayList<SseEmitter> emitters = projectEmitters.get(projectId);
-        if (emitters != null) {
-            emitters.remove(emitter);
-            if (emitters.isEmpty()) {
-                projectEmitters.remove(projectId);
+    private void removeEmitter(String projectId, SseSubscriber subscriber) {
+        heartbeatWheel.remove(subscriber);
+        // Atomic with the add in createEmitter, so a new subscriber is never put in a list that is being dropped
+        projectEmitters.computeIfPresent(projectId, (id, subscribers) -> {
+            subscribers.remove(subscriber);
+            if (subscribers.isEmpty()) {
                 logger.info("Removed last SSE emitter for project: {}", projectId);
+                SseEventLog log = eventLogs.get(projectId);
+                if (log != null) {
+                    log.setIdleSince(System.currentTimeMillis());
+                }
+                return null;
             }
-        }
+            return subscribers;
+        });
+    }
+
+    /**
+     * Number of projects with a lock and held updates on this instance
+     */
+    int getTrackedProjectCount() {
+        return pendingUpdates.size();
     }
 
     /**
      * Get the number of connected clients for a project
      */
     public int getConnectedClientsCount(String projectId) {
-        CopyOnWriteArrayList<SseEmitter> emitters = projectEmitters.get(projectId);
-        return emitters != null ? emitters.size() : 0;
+        CopyOnWriteArrayList<SseSubscriber> subscribers = projectEmitters.get(projectId);
+        return subscribers != null ? subscribers.size() : 0;
     }
 }
\ No newline at end of file
@@ -0,0 +1,93 @@
+package bachelor.projectmanagement.service;
+
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The most recent events of one project with their SSE ids, so a reconnecting client can be
+ * sent what it missed instead of reloading the project.
+ *
+ * Ids come from the ProjectEventBus. They increase but are not contiguous, since other projects'
+ * events share the sequence, so the log tracks the id from which it is complete: its position
+ * when it was created, then the id of the latest event it had to overwrite. Not thread safe,
+ * SSEService uses it under the project's lock.
+ */
+class SseEventLog {
+
+    record Entry(long id, Set<ResponseBodyEmitter.DataWithMediaType> frame) {
+    }
+
+    private final Entry[] entries;
+    // Index of the oldest entry and number of entries kept
+    private int head;
+    private int size;
+    // Every event of the project after floor and up to lastId is kept
+    private long floor;
+    private long lastId;
+    // Time the project's last subscriber left, 0 while it has subscribers
+    private volatile long idleSince;
+
+    /**
+     * @param position Bus position when the log was created, no event up to it is kept
+     */
+    SseEventLog(int capacity, long position) {
+        this.entries = new Entry[capacity];
+        this.floor = position;
+        this.lastId = position;
+    }
+
+    /**
+     * Keep an event, overwriting the oldest once the log is full
+     * @return false if the id is not after the latest one, the event is then ignored
+     */
+    boolean append(long id, Set<ResponseBodyEmitter.DataWithMediaType> frame) {
+        if (id <= lastId) {
+            return false;
+        }
+        if (size == entries.length) {
+            floor = entries[head].id();
+            head = (head + 1) % entries.length;
+            size--;
+        }
+        entries[(head + size) % entries.length] = new Entry(id, frame);
+        size++;
+        lastId = id;
+        return true;
+    }
+
+    /**
+     * @return The events after lastEventId, oldest first, or null if some of them are no longer
+     * kept or the id is not one this log can place
+     */
+    List<Entry> since(long lastEventId) {
+        if (lastEventId < floor || lastEventId > lastId) {
+            return null;
+        }
+        List<Entry> missed = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            Entry entry = entries[(head + i) % entries.length];
+            if (entry.id() > lastEventId) {
+                missed.add(entry);
+            }
+        }
+        return missed;
+    }
+
+    /**
+     * @return The id of the latest event, or the position the log was created at if there was none yet
+     */
+    long getLastId() {
+        return lastId;
+    }
+
+    long getIdleSince() {
+        return idleSince;
+    }
+
+    void setIdleSince(long idleSince) {
+        this.idleSince = idleSince;
+    }
+}
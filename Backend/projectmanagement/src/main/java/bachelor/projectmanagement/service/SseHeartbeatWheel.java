@@ -0,0 +1,126 @@
+package bachelor.projectmanagement.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Heartbeats for all SSE subscribers, so dead connections are found on quiet projects too.
+ *
+ * Subscribers are spread round-robin over the slots of a wheel with one slot per tick, and
+ * every tick visits the next slot. Each subscriber is visited once per heartbeat interval and
+ * the work is spread evenly over the interval instead of pinging everyone at once.
+ *
+ * A visited subscriber that had no event for a whole interval gets an SSE comment as ping.
+ * If the ping cannot be sent the subscriber is dropped like on any failed send. A subscriber
+ * whose send has been stuck for two intervals (a half-open connection whose buffers are full)
+ * or that is too far behind to queue the ping is reaped right away.
+ *
+ * Metrics: "sse.subscribers.idle" (subscribers that needed a ping when last visited).
+ * Reaped subscribers are counted by SSEService in "sse.subscribers.reaped".
+ */
+@Component
+public class SseHeartbeatWheel {
+
+    private static final Logger logger = LoggerFactory.getLogger(SseHeartbeatWheel.class);
+    private static final Set<ResponseBodyEmitter.DataWithMediaType> PING = Set.of(new ResponseBodyEmitter.DataWithMediaType(
+            ":ping\n\n", new MediaType(MediaType.TEXT_PLAIN, StandardCharsets.UTF_8)));
+
+    private final long heartbeatIntervalMs;
+    private final Set<SseSubscriber>[] slots;
+    // Subscribers found idle per slot on its last visit
+    private final int[] idleBySlot;
+    private final AtomicInteger nextSlot = new AtomicInteger();
+    private int tick;
+
+    @SuppressWarnings("unchecked")
+    public SseHeartbeatWheel(MeterRegistry meterRegistry,
+                             @Value("${app.sse.heartbeat-interval-ms:15000}") long heartbeatIntervalMs,
+                             @Value("${app.sse.heartbeat-tick-ms:1000}") long tickMs) {
+        this.heartbeatIntervalMs = heartbeatIntervalMs;
+        int slotCount = (int) Math.max(1, heartbeatIntervalMs / tickMs);
+        this.slots = new Set[slotCount];
+        for (int i = 0; i < slotCount; i++) {
+            slots[i] = ConcurrentHashMap.newKeySet();
+        }
+        this.idleBySlot = new int[slotCount];
+        Gauge.builder("sse.subscribers.idle", this, SseHeartbeatWheel::getIdleCount)
+                .description("SSE subscribers without an event for a heartbeat interval when last visited")
+                .register(meterRegistry);
+    }
+
+    void add(SseSubscriber subscriber) {
+        slots[Math.floorMod(nextSlot.getAndIncrement(), slots.length)].add(subscriber);
+    }
+
+    void remove(SseSubscriber subscriber) {
+        for (Set<SseSubscriber> slot : slots) {
+            if (slot.remove(subscriber)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Visit the next slot of the wheel
+     */
+    @Scheduled(fixedRateString = "${app.sse.heartbeat-tick-ms:1000}", scheduler = "sseScheduler")
+    public synchronized void tick() {
+        int index = tick;
+        tick = (tick + 1) % slots.length;
+
+        long now = System.currentTimeMillis();
+        int idle = 0;
+        int reaped = 0;
+        for (SseSubscriber subscriber : slots[index]) {
+            if (subscriber.isClosed()) {
+                slots[index].remove(subscriber);
+                continue;
+            }
+            long sendStartedAt = subscriber.getSendStartedAt();
+            if (sendStartedAt != 0 && now - sendStartedAt > 2 * heartbeatIntervalMs) {
+                subscriber.fail();
+                reaped++;
+                continue;
+            }
+            if (now - subscriber.getLastEventAt() >= heartbeatIntervalMs) {
+                idle++;
+                if (!subscriber.ping(PING)) {
+                    subscriber.fail();
+                    reaped++;
+                }
+            }
+        }
+        idleBySlot[index] = idle;
+        if (reaped > 0) {
+            logger.info("Reaped {} SSE subscriber(s) with stuck or backed up connections", reaped);
+        }
+    }
+
+    int getSubscriberCount() {
+        int count = 0;
+        for (Set<SseSubscriber> slot : slots) {
+            count += slot.size();
+        }
+        return count;
+    }
+
+    private synchronized double getIdleCount() {
+        int idle = 0;
+        for (int count : idleBySlot) {
+            idle += count;
+        }
+        return idle;
+    }
+}
@@ -0,0 +1,164 @@
+package bachelor.projectmanagement.service;
+
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * One SSE connection with its own bounded queue of encoded events.
+ *
+ * Publishing only puts the event in the queue. A drain task on the dispatcher executor sends
+ * queued events in order, at most one task per subscriber at a time, so a slow connection
+ * only holds up its own queue. When the queue is full the subscriber has fallen too far behind
+ * and {@link #offer} returns false; the caller then drops it with {@link #close}.
+ *
+ * SseHeartbeatWheel pings subscribers that had no event for a while and reaps those whose
+ * send has been stuck, see {@link #getSendStartedAt}.
+ *
+ * The emitter of a closed subscriber is completed by the drain task, after the send in progress
+ * if there is one. Completing waits for that send, so closing never ties up another thread
+ * behind a connection that is stuck.
+ */
+class SseSubscriber {
+
+    private final String projectId;
+    private final SseEmitter emitter;
+    private final BlockingQueue<Set<ResponseBodyEmitter.DataWithMediaType>> queue;
+    private final Executor executor;
+    private final Consumer<SseSubscriber> onSendFailure;
+
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private final AtomicBoolean closed = new AtomicBoolean();
+    private final AtomicBoolean completed = new AtomicBoolean();
+    // When the last event (not heartbeat) was queued, and when the send in progress started, 0 if none
+    private volatile long lastEventAt = System.currentTimeMillis();
+    private volatile long sendStartedAt;
+
+    SseSubscriber(String projectId, SseEmitter emitter, int queueCapacity, Executor executor,
+                  Consumer<SseSubscriber> onSendFailure) {
+        this.projectId = projectId;
+        this.emitter = emitter;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.executor = executor;
+        this.onSendFailure = onSendFailure;
+    }
+
+    String getProjectId() {
+        return projectId;
+    }
+
+    SseEmitter getEmitter() {
+        return emitter;
+    }
+
+    int getQueued() {
+        return queue.size();
+    }
+
+    boolean isClosed() {
+        return closed.get();
+    }
+
+    long getLastEventAt() {
+        return lastEventAt;
+    }
+
+    long getSendStartedAt() {
+        return sendStartedAt;
+    }
+
+    /**
+     * Queue an encoded event, never blocks
+     * @return false if the queue is full
+     */
+    boolean offer(Set<ResponseBodyEmitter.DataWithMediaType> frame) {
+        lastEventAt = System.currentTimeMillis();
+        return enqueue(frame);
+    }
+
+    /**
+     * Queue a heartbeat, which does not count as an event
+     * @return false if the queue is full
+     */
+    boolean ping(Set<ResponseBodyEmitter.DataWithMediaType> heartbeat) {
+        return enqueue(heartbeat);
+    }
+
+    /**
+     * Stop sending and end the response, never blocks
+     */
+    void close() {
+        if (!closed.compareAndSet(false, true)) {
+            return;
+        }
+        queue.clear();
+        scheduleDrain();
+    }
+
+    /**
+     * Drop a subscriber whose connection is dead, as when a send fails. Never blocks: it is
+     * removed right away, and the response is ended once a send that is stuck returns.
+     */
+    void fail() {
+        if (!closed.compareAndSet(false, true)) {
+            return;
+        }
+        queue.clear();
+        onSendFailure.accept(this);
+        scheduleDrain();
+    }
+
+    private boolean enqueue(Set<ResponseBodyEmitter.DataWithMediaType> frame) {
+        if (closed.get()) {
+            return true;
+        }
+        if (!queue.offer(frame)) {
+            return false;
+        }
+        scheduleDrain();
+        return true;
+    }
+
+    private void scheduleDrain() {
+        if (draining.compareAndSet(false, true)) {
+            executor.execute(this::drain);
+        }
+    }
+
+    private void drain() {
+        try {
+            Set<ResponseBodyEmitter.DataWithMediaType> frame;
+            while (!closed.get() && (frame = queue.poll()) != null) {
+                sendStartedAt = System.currentTimeMillis();
+                emitter.send(frame);
+                sendStartedAt = 0;
+            }
+        } catch (IOException | IllegalStateException e) {
+            // The client went away or the emitter was completed, the response has ended already
+            sendStartedAt = 0;
+            completed.set(true);
+            if (closed.compareAndSet(false, true)) {
+                queue.clear();
+                onSendFailure.accept(this);
+            }
+        } finally {
+            draining.set(false);
+        }
+        if (closed.get()) {
+            // End the response here, after the send this task may have been stuck in
+            if (completed.compareAndSet(false, true)) {
+                emitter.complete();
+            }
+        } else if (!queue.isEmpty()) {
+            // An event queued after the last poll but before draining was reset
+            scheduleDrain();
+        }
+    }
+}
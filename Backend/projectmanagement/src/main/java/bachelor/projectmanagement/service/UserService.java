@@ -2,7 +2,10 @@ package bachelor.projectmanagement.service;
 
 import bachelor.projectmanagement.model.User;
 import bachelor.projectmanagement.model.UserRole;
+import bachelor.projectmanagement.repository.ProjectRepository;
 import bachelor.projectmanagement.repository.UserRepository;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.Window;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.stereotype.Service;
 
@@ -12,10 +15,15 @@ import java.util.List;
 public class UserService {
 
     private final UserRepository userRepository;
+    private final ProjectRepository projectRepository;
+    private final ProjectMembershipIndex membershipIndex;
     private final BCryptPasswordEncoder passwordEncoder;
 
-    public UserService(UserRepository userRepository) {
+    public UserService(UserRepository userRepository, ProjectRepository projectRepository,
+                       ProjectMembershipIndex membershipIndex) {
         this.userRepository = userRepository;
+        this.projectRepository = projectRepository;
+        this.membershipIndex = membershipIndex;
         this.passwordEncoder = new BCryptPasswordEncoder();
     }
 
@@ -28,7 +36,7 @@ public class UserService {
      * @param password The password to validate
      * @throws RuntimeException if password doesn't meet requirements
      */
-    private void validatePassword(String password) {
+    void validatePassword(String password) {
         if (password == null || password.length() < 8) {
             throw new RuntimeException("Password must be at least 8 characters long");
         }
@@ -72,6 +80,11 @@ public class UserService {
         return userRepository.save(user);
     }
 
+    // Thread safe, used by the roster provisioning to hash on several threads
+    String encodePassword(String rawPassword) {
+        return passwordEncoder.encode(rawPassword);
+    }
+
     public boolean verifyPassword(String username, String rawPassword) {
         return userRepository.findByUsername(username)
                 .map(user -> passwordEncoder.matches(rawPassword, user.getHashedPassword()))
@@ -87,6 +100,25 @@ public class UserService {
         return userRepository.save(user);
     }
 
+    /**
+     * Rename a user and update the username stored in the project owner references
+     * @throws RuntimeException if the new username is already taken
+     */
+    public User updateUsername(User user, String newUsername) {
+        if (newUsername.equals(user.getUsername())) {
+            return user;
+        }
+        if (userRepository.findByUsername(newUsername).isPresent()) {
+            throw new RuntimeException("Username already exists");
+        }
+        String oldUsername = user.getUsername();
+        user.setUsername(newUsername);
+        User savedUser = userRepository.save(user);
+        projectRepository.renameUserRefs(savedUser.getId(), newUsername);
+        membershipIndex.renameUser(oldUsername, newUsername);
+        return savedUser;
+    }
+
     public User updatePassword(User user, String newPassword) {
         String hashedPassword = passwordEncoder.encode(newPassword);
         user.setHashedPassword(hashedPassword);
@@ -122,17 +154,25 @@ public class UserService {
     }
 
     public boolean isSuperAdmin(String username) {
-        return userRepository.findByUsername(username)
+        return userRepository.findPrincipalByUsername(username)
                 .map(user -> UserRole.SUPERADMIN.equals(user.getRole()))
                 .orElse(false);
     }
 
     public boolean isAdmin(String username) {
-        return userRepository.findByUsername(username)
+        return userRepository.findPrincipalByUsername(username)
                 .map(user -> UserRole.ADMIN.equals(user.getRole()) || UserRole.SUPERADMIN.equals(user.getRole()))
                 .orElse(false);
     }
 
+    /**
+     * One page of users ordered by username
+     * @param excludeSuperAdmins Leave out superadmins, like {@link #getAllNonSuperAdminUsers}
+     */
+    public Window<User> getUsersPage(KeysetScrollPosition position, int limit, boolean excludeSuperAdmins) {
+        return userRepository.scrollUsers(excludeSuperAdmins, position, limit);
+    }
+
     public List<User> getAllNonSuperAdminUsers() {
         return userRepository.findAll().stream()
                 .filter(user -> !UserRole.SUPERADMIN.equals(user.getRole()))
@@ -0,0 +1,111 @@
+package bachelor.projectmanagement.benchmark;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Compares the default platform thread setup with the "virtual" profile for requests that
+ * spend most of their time waiting on Mongo.
+ *
+ * Each simulated request does what an access checked project query does: two independent
+ * blocking loads (project owners and user) followed by a third (the project itself). The
+ * platform run uses Tomcat's default of 200 worker threads and loads one after the other,
+ * the virtual run uses a thread per request and runs the two independent loads side by side.
+ *
+ * Not a test, run it by hand from the IDE or with
+ * mvn test-compile exec:java -Dexec.mainClass=... -Dexec.classpathScope=test
+ * Arguments: [requests] [concurrent clients] [latency per load in ms], default 20000 2000 5.
+ */
+public class ThreadModelBenchmark {
+
+    private static final int TOMCAT_MAX_THREADS = 200;
+
+    public static void main(String[] args) throws Exception {
+        int requests = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+        int clients = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+        long loadMillis = args.length > 2 ? Long.parseLong(args[2]) : 5;
+
+        System.out.println("Requests: " + requests + ", clients: " + clients + ", load latency: " + loadMillis + " ms");
+        try (ExecutorService fetchExecutor = Executors.newVirtualThreadPerTaskExecutor()) {
+            // Warm up both paths before measuring
+            run("warmup", Executors.newFixedThreadPool(TOMCAT_MAX_THREADS), null, requests / 10, clients, loadMillis, false);
+            run("warmup", Executors.newVirtualThreadPerTaskExecutor(), fetchExecutor, requests / 10, clients, loadMillis, true);
+
+            print(run("platform (200 threads, sequential loads)", Executors.newFixedThreadPool(TOMCAT_MAX_THREADS),
+                    null, requests, clients, loadMillis, false));
+            print(run("virtual (thread per request, concurrent loads)", Executors.newVirtualThreadPerTaskExecutor(),
+                    fetchExecutor, requests, clients, loadMillis, true));
+        }
+    }
+
+    private record Result(String name, int requests, long elapsedNanos, long[] latencies) {
+    }
+
+    private static Result run(String name, ExecutorService workers, ExecutorService fetchExecutor,
+                              int requests, int clients, long loadMillis, boolean concurrentLoads) throws Exception {
+        long[] latencies = new long[requests];
+        long start = System.nanoTime();
+        try (workers; ExecutorService clientThreads = Executors.newVirtualThreadPerTaskExecutor()) {
+            // Each client sends its next request once the previous one was answered, like a browser tab
+            List<Future<?>> done = new ArrayList<>();
+            int perClient = requests / clients;
+            for (int c = 0; c < clients; c++) {
+                int first = c * perClient;
+                int count = c == clients - 1 ? requests - first : perClient;
+                done.add(clientThreads.submit(() -> {
+                    for (int i = first; i < first + count; i++) {
+                        long sent = System.nanoTime();
+                        workers.submit(() -> handle(fetchExecutor, loadMillis, concurrentLoads)).get();
+                        latencies[i] = System.nanoTime() - sent;
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : done) {
+                future.get();
+            }
+        }
+        return new Result(name, requests, System.nanoTime() - start, latencies);
+    }
+
+    private static Void handle(ExecutorService fetchExecutor, long loadMillis, boolean concurrentLoads) {
+        if (concurrentLoads) {
+            CompletableFuture<Void> user = CompletableFuture.runAsync(() -> load(loadMillis), fetchExecutor);
+            load(loadMillis);
+            user.join();
+        } else {
+            load(loadMillis);
+            load(loadMillis);
+        }
+        load(loadMillis);
+        return null;
+    }
+
+    // Stands in for a Mongo round trip, the thread is blocked but not busy
+    private static void load(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void print(Result result) {
+        long[] sorted = result.latencies().clone();
+        Arrays.sort(sorted);
+        double seconds = result.elapsedNanos() / 1e9;
+        System.out.printf("%-48s %8.0f req/s   p50 %6.1f ms   p99 %6.1f ms   max %6.1f ms%n",
+                result.name(), result.requests() / seconds,
+                percentile(sorted, 0.50), percentile(sorted, 0.99), sorted[sorted.length - 1] / 1e6);
+    }
+
+    private static double percentile(long[] sorted, double percentile) {
+        return sorted[(int) Math.min(sorted.length - 1, Math.round(percentile * (sorted.length - 1)))] / 1e6;
+    }
+}
@@ -0,0 +1,194 @@
+package bachelor.projectmanagement.config;
+
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.UncategorizedMongoDbException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexField;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MongoIndexManagerTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private IndexOperations usersIndexOps;
+
+    @Mock
+    private IndexOperations projectsIndexOps;
+
+    @Mock
+    private IndexOperations configIndexOps;
+
+    private MongoIndexManager indexManager;
+
+    @BeforeEach
+    void setUp() {
+        indexManager = new MongoIndexManager(mongoTemplate, "embedded");
+        lenient().when(mongoTemplate.indexOps("users")).thenReturn(usersIndexOps);
+        lenient().when(mongoTemplate.indexOps("projects")).thenReturn(projectsIndexOps);
+        lenient().when(mongoTemplate.indexOps("course_configs")).thenReturn(configIndexOps);
+    }
+
+    @Test
+    void reconcile_ShouldCreateAllMissingIndexes() {
+        // Given
+        when(usersIndexOps.getIndexInfo()).thenReturn(List.of(idIndex()));
+        when(projectsIndexOps.getIndexInfo()).thenReturn(List.of(idIndex()));
+        when(configIndexOps.getIndexInfo()).thenReturn(List.of(idIndex()));
+
+        // When
+        indexManager.reconcile();
+
+        // Then
+        ArgumentCaptor<Index> userIndex = ArgumentCaptor.forClass(Index.class);
+        verify(usersIndexOps).createIndex(userIndex.capture());
+        assertEquals(1, userIndex.getValue().getIndexKeys().get("username"));
+        assertEquals(true, userIndex.getValue().getIndexOptions().get("unique"));
+        verify(projectsIndexOps, times(3)).createIndex(any(Index.class));
+        verify(configIndexOps).createIndex(any(Index.class));
+    }
+
+    @Test
+    void reconcile_ShouldKeepExistingIndexesWithSameKeys() {
+        // Given - username index created by hand under another name
+        when(usersIndexOps.getIndexInfo()).thenReturn(List.of(idIndex(), index("username_1", true, "username")));
+        when(projectsIndexOps.getIndexInfo()).thenReturn(List.of(idIndex(),
+                index("owners_userId", false, "owners.userId"),
+                index("task_users", false, "epics.features.tasks.users"),
+                index("task_dueDate", false, "epics.features.tasks.dueDate")));
+        when(configIndexOps.getIndexInfo()).thenReturn(List.of(idIndex(), index("courseLevel", true, "courseLevel")));
+
+        // When
+        indexManager.reconcile();
+
+        // Then
+        verify(usersIndexOps, never()).createIndex(any(Index.class));
+        verify(projectsIndexOps, never()).createIndex(any(Index.class));
+        verify(configIndexOps, never()).createIndex(any(Index.class));
+    }
+
+    @Test
+    void reconcile_ShouldConvertIndexThatIsNotUniqueInPlace() {
+        // Given
+        when(usersIndexOps.getIndexInfo()).thenReturn(List.of(idIndex(), index("username_1", false, "username")));
+        when(projectsIndexOps.getIndexInfo()).thenReturn(List.of(idIndex()));
+        when(configIndexOps.getIndexInfo()).thenReturn(List.of(idIndex()));
+
+        // When
+        indexManager.reconcile();
+
+        // Then
+        ArgumentCaptor<Document> commands = ArgumentCaptor.forClass(Document.class);
+        verify(mongoTemplate, times(2)).executeCommand(commands.capture());
+        assertEquals(new Document("name", "username_1").append("prepareUnique", true), commands.getAllValues().get(0).get("index"));
+        assertEquals(new Document("name", "username_1").append("unique", true), commands.getAllValues().get(1).get("index"));
+        verify(usersIndexOps, never()).dropIndex(anyString());
+        verify(usersIndexOps, never()).createIndex(any(Index.class));
+    }
+
+    @Test
+    void reconcile_ShouldKeepIndexWhenItCannotBeMadeUnique() {
+        // Given - duplicate usernames
+        when(usersIndexOps.getIndexInfo()).thenReturn(List.of(idIndex(), index("username_1", false, "username")));
+        when(mongoTemplate.executeCommand(any(Document.class)))
+                .thenReturn(new Document("ok", 1))
+                .thenThrow(new UncategorizedMongoDbException("Cannot convert the index to unique", null))
+                .thenReturn(new Document("ok", 1));
+
+        // When & Then
+        assertThrows(IllegalStateException.class, () -> indexManager.reconcile());
+        ArgumentCaptor<Document> commands = ArgumentCaptor.forClass(Document.class);
+        verify(mongoTemplate, times(3)).executeCommand(commands.capture());
+        assertEquals(new Document("name", "username_1").append("prepareUnique", false), commands.getAllValues().get(2).get("index"));
+        verify(usersIndexOps, never()).dropIndex(anyString());
+    }
+
+    @Test
+    void reconcile_ShouldBuildReplacementBeforeDroppingIndexWithOtherKeys() {
+        // Given - an index named like the declared one but on other keys
+        when(usersIndexOps.getIndexInfo()).thenReturn(List.of(idIndex(), index("username_unique", true, "email")));
+        when(projectsIndexOps.getIndexInfo()).thenReturn(List.of(idIndex()));
+        when(configIndexOps.getIndexInfo()).thenReturn(List.of(idIndex()));
+
+        // When
+        indexManager.reconcile();
+
+        // Then
+        InOrder inOrder = inOrder(usersIndexOps);
+        ArgumentCaptor<Index> built = ArgumentCaptor.forClass(Index.class);
+        inOrder.verify(usersIndexOps).createIndex(built.capture());
+        inOrder.verify(usersIndexOps).dropIndex("username_unique");
+        assertEquals("username_unique_rebuilt", built.getValue().getIndexOptions().get("name"));
+    }
+
+    @Test
+    void reconcile_ShouldKeepIndexWithOtherKeysWhenReplacementCannotBeBuilt() {
+        // Given
+        when(usersIndexOps.getIndexInfo()).thenReturn(List.of(idIndex(), index("username_unique", true, "email")));
+        when(usersIndexOps.createIndex(any(Index.class)))
+                .thenThrow(new UncategorizedMongoDbException("E11000 duplicate key error", null));
+
+        // When & Then
+        assertThrows(IllegalStateException.class, () -> indexManager.reconcile());
+        verify(usersIndexOps, never()).dropIndex(anyString());
+    }
+
+    @Test
+    void reconcile_ShouldFailFastWhenIndexCannotBeBuilt() {
+        // Given
+        when(usersIndexOps.getIndexInfo()).thenReturn(new ArrayList<>(List.of(idIndex())));
+        when(usersIndexOps.createIndex(any(Index.class)))
+                .thenThrow(new UncategorizedMongoDbException("E11000 duplicate key error", null));
+
+        // When & Then
+        IllegalStateException exception = assertThrows(IllegalStateException.class, () -> indexManager.reconcile());
+        assertTrue(exception.getMessage().contains("username_unique"));
+        verify(projectsIndexOps, never()).createIndex(any(Index.class));
+    }
+
+    @Test
+    void declaredIndexes_ShouldCoverTaskCollectionInCollectionMode() {
+        // Given
+        MongoIndexManager collectionManager = new MongoIndexManager(mongoTemplate, "collection");
+
+        // When
+        List<MongoIndexManager.DeclaredIndex> indexes = collectionManager.declaredIndexes();
+
+        // Then
+        assertTrue(indexes.stream().anyMatch(i -> i.collection().equals("tasks") && i.keys().equals(List.of("users"))));
+        assertTrue(indexes.stream().anyMatch(i -> i.collection().equals("tasks") && i.keys().equals(List.of("dueDate"))));
+        assertTrue(indexes.stream().noneMatch(i -> i.keys().contains("epics.features.tasks.users")));
+    }
+
+    private static IndexInfo idIndex() {
+        return index("_id_", false, "_id");
+    }
+
+    private static IndexInfo index(String name, boolean unique, String... keys) {
+        List<IndexField> fields = new ArrayList<>();
+        for (String key : keys) {
+            fields.add(IndexField.create(key, Sort.Direction.ASC));
+        }
+        return new IndexInfo(fields, name, unique, false, null);
+    }
+}
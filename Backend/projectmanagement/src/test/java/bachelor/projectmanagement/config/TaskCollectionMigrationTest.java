@@ -0,0 +1,126 @@
+package bachelor.projectmanagement.config;
+
+import bachelor.projectmanagement.model.Epic;
+import bachelor.projectmanagement.model.Feature;
+import bachelor.projectmanagement.model.Project;
+import bachelor.projectmanagement.model.Task;
+import bachelor.projectmanagement.util.TestDataBuilder;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.client.result.UpdateResult;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TaskCollectionMigrationTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private BulkOperations bulk;
+
+    private final TaskCollectionMigration migration = new TaskCollectionMigration();
+
+    @Test
+    void migrateEmbeddedTasks_ShouldUpsertTasksBeforeEmptyingProject() throws Exception {
+        // Given
+        Project project = projectWithTask("p1", "t1");
+        when(mongoTemplate.stream(any(Query.class), eq(Project.class))).thenReturn(Stream.of(project));
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Task.class)).thenReturn(bulk);
+        when(bulk.execute()).thenReturn(BulkWriteResult.acknowledged(0, 0, 0, 0, List.of(), List.of()));
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(Project.class)))
+                .thenReturn(UpdateResult.acknowledged(1, 1L, null));
+
+        // When
+        migration.migrateEmbeddedTasks(mongoTemplate).run();
+
+        // Then
+        ArgumentCaptor<Task> task = ArgumentCaptor.forClass(Task.class);
+        ArgumentCaptor<FindAndReplaceOptions> options = ArgumentCaptor.forClass(FindAndReplaceOptions.class);
+        InOrder inOrder = inOrder(bulk, mongoTemplate);
+        inOrder.verify(bulk).replaceOne(eq(Query.query(Criteria.where("_id").is("t1"))), task.capture(), options.capture());
+        inOrder.verify(bulk).execute();
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        inOrder.verify(mongoTemplate).updateFirst(query.capture(), update.capture(), eq(Project.class));
+
+        assertTrue(options.getValue().isUpsert());
+        assertEquals("p1", task.getValue().getProjectId());
+        assertEquals(project.getEpics().get(0).getEpicId(), task.getValue().getEpicId());
+        assertEquals(project.getEpics().get(0).getFeatures().get(0).getFeatureId(), task.getValue().getFeatureId());
+        assertEquals(new Document("_id", "p1").append("version", 3L), query.getValue().getQueryObject());
+        assertTrue(project.getEpics().get(0).getFeatures().get(0).getTasks().isEmpty());
+        assertEquals(new Document("version", 1), update.getValue().getUpdateObject().get("$inc"));
+    }
+
+    @Test
+    void migrateEmbeddedTasks_ShouldUpsertSameTasksWhenProjectChangedMeanwhile() throws Exception {
+        // Given - the first run loses the race on the project's version, so the next run sees the same tasks
+        when(mongoTemplate.stream(any(Query.class), eq(Project.class)))
+                .thenReturn(Stream.of(projectWithTask("p1", "t1")))
+                .thenReturn(Stream.of(projectWithTask("p1", "t1")));
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Task.class)).thenReturn(bulk);
+        when(bulk.execute()).thenReturn(BulkWriteResult.acknowledged(0, 0, 0, 0, List.of(), List.of()));
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(Project.class)))
+                .thenReturn(UpdateResult.acknowledged(0, 0L, null))
+                .thenReturn(UpdateResult.acknowledged(1, 1L, null));
+
+        // When
+        migration.migrateEmbeddedTasks(mongoTemplate).run();
+        migration.migrateEmbeddedTasks(mongoTemplate).run();
+
+        // Then - replaced by id both times, so the task is stored once
+        verify(bulk, times(2)).replaceOne(eq(Query.query(Criteria.where("_id").is("t1"))), any(Task.class),
+                any(FindAndReplaceOptions.class));
+        verify(bulk, never()).insert(any(Object.class));
+    }
+
+    @Test
+    void migrateEmbeddedTasks_ShouldDoNothingOnceAllTasksAreMoved() throws Exception {
+        // Given
+        when(mongoTemplate.stream(any(Query.class), eq(Project.class))).thenReturn(Stream.empty());
+
+        // When
+        migration.migrateEmbeddedTasks(mongoTemplate).run();
+
+        // Then
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).stream(query.capture(), eq(Project.class));
+        assertEquals(new Document("epics.features.tasks.0", new Document("$exists", true)), query.getValue().getQueryObject());
+        verify(mongoTemplate, never()).bulkOps(any(BulkOperations.BulkMode.class), eq(Task.class));
+        verify(mongoTemplate, never()).updateFirst(any(Query.class), any(Update.class), eq(Project.class));
+    }
+
+    private static Project projectWithTask(String projectId, String taskId) {
+        Project project = TestDataBuilder.createTestProject();
+        project.setProjectId(projectId);
+        project.setVersion(3L);
+        Epic epic = TestDataBuilder.createTestEpic();
+        Feature feature = TestDataBuilder.createTestFeature();
+        Task task = TestDataBuilder.createTestTask();
+        task.setTaskId(taskId);
+        feature.getTasks().add(task);
+        epic.getFeatures().add(feature);
+        project.getEpics().add(epic);
+        return project;
+    }
+}
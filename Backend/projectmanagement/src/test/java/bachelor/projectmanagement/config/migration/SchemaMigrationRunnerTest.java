@@ -0,0 +1,130 @@
+package bachelor.projectmanagement.config.migration;
+
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SchemaMigrationRunnerTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    private final List<Integer> appliedOrder = new ArrayList<>();
+
+    @Test
+    void run_ShouldApplyPendingMigrationsInVersionOrderAndRecordThem() {
+        // Given
+        when(mongoTemplate.findAll(Document.class, SchemaMigrationRunner.COLLECTION))
+                .thenReturn(List.of(new Document("_id", 1)));
+        SchemaMigrationRunner runner = runner(Runnable::run, migration(3, false), migration(1, false), migration(2, false));
+
+        // When
+        runner.run();
+
+        // Then
+        assertEquals(List.of(2, 3), appliedOrder);
+        ArgumentCaptor<Document> record = ArgumentCaptor.forClass(Document.class);
+        verify(mongoTemplate, times(2)).insert(record.capture(), eq(SchemaMigrationRunner.COLLECTION));
+        assertEquals(2, record.getAllValues().get(0).get("_id"));
+        assertEquals(5L, record.getAllValues().get(0).get("changed"));
+    }
+
+    @Test
+    void run_ShouldDoNothingWhenAllMigrationsApplied() {
+        // Given
+        when(mongoTemplate.findAll(Document.class, SchemaMigrationRunner.COLLECTION))
+                .thenReturn(List.of(new Document("_id", 1)));
+        SchemaMigrationRunner runner = runner(Runnable::run, migration(1, false));
+
+        // When
+        runner.run();
+
+        // Then
+        assertTrue(appliedOrder.isEmpty());
+        verify(mongoTemplate, never()).insert(any(Document.class), anyString());
+    }
+
+    @Test
+    void run_ShouldRunBackgroundMigrationsAfterForegroundOnes() {
+        // Given
+        when(mongoTemplate.findAll(Document.class, SchemaMigrationRunner.COLLECTION)).thenReturn(List.of());
+        List<Runnable> background = new ArrayList<>();
+        SchemaMigrationRunner runner = runner(background::add, migration(1, true), migration(2, false));
+
+        // When
+        runner.run();
+
+        // Then
+        assertEquals(List.of(2), appliedOrder);
+        assertEquals(1, background.size());
+        background.get(0).run();
+        assertEquals(List.of(2, 1), appliedOrder);
+    }
+
+    @Test
+    void run_ShouldNotRecordFailedBackgroundMigration() {
+        // Given
+        when(mongoTemplate.findAll(Document.class, SchemaMigrationRunner.COLLECTION)).thenReturn(List.of());
+        SchemaMigration failing = mock(SchemaMigration.class);
+        when(failing.version()).thenReturn(1);
+        when(failing.background()).thenReturn(true);
+        when(failing.apply(mongoTemplate, 100)).thenThrow(new RuntimeException("Database down"));
+        SchemaMigrationRunner runner = runner(Runnable::run, failing, migration(2, true));
+
+        // When
+        runner.run();
+
+        // Then
+        assertTrue(appliedOrder.isEmpty());
+        verify(mongoTemplate, never()).insert(any(Document.class), anyString());
+    }
+
+    @Test
+    void constructor_ShouldRejectDuplicateVersions() {
+        assertThrows(IllegalStateException.class, () -> runner(Runnable::run, migration(1, false), migration(1, false)));
+    }
+
+    private SchemaMigrationRunner runner(Executor executor, SchemaMigration... migrations) {
+        return new SchemaMigrationRunner(mongoTemplate, List.of(migrations), 100, executor);
+    }
+
+    private SchemaMigration migration(int version, boolean background) {
+        return new SchemaMigration() {
+            @Override
+            public int version() {
+                return version;
+            }
+
+            @Override
+            public String description() {
+                return "Migration " + version;
+            }
+
+            @Override
+            public boolean background() {
+                return background;
+            }
+
+            @Override
+            public long apply(MongoTemplate mongoTemplate, int batchSize) {
+                appliedOrder.add(version);
+                return 5;
+            }
+        };
+    }
+}
@@ -0,0 +1,95 @@
+package bachelor.projectmanagement.config.migration;
+
+import bachelor.projectmanagement.model.Project;
+import com.mongodb.bulk.BulkWriteResult;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class StripEmbeddedTaskParentIdsTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private BulkOperations bulk;
+
+    private final StripEmbeddedTaskParentIds migration = new StripEmbeddedTaskParentIds();
+
+    @Test
+    void apply_ShouldRewriteProjectsInBatchesWithoutParentIds() {
+        // Given
+        when(mongoTemplate.getCollectionName(Project.class)).thenReturn("projects");
+        when(mongoTemplate.stream(any(Query.class), eq(Document.class), eq("projects")))
+                .thenReturn(Stream.of(project("p1"), project("p2"), project("p3")));
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, "projects")).thenReturn(bulk);
+        when(bulk.execute())
+                .thenReturn(BulkWriteResult.acknowledged(0, 2, 0, 2, List.of(), List.of()))
+                .thenReturn(BulkWriteResult.acknowledged(0, 1, 0, 1, List.of(), List.of()));
+
+        // When
+        long changed = migration.apply(mongoTemplate, 2);
+
+        // Then
+        assertEquals(3, changed);
+        verify(bulk, times(2)).execute();
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(bulk, times(3)).updateOne(any(Query.class), update.capture());
+        List<?> epics = (List<?>) ((Document) update.getValue().getUpdateObject().get("$set")).get("epics");
+        Document task = firstTask((Document) epics.get(0));
+        assertEquals("t1", task.get("_id"));
+        assertFalse(task.containsKey("projectId"));
+        assertFalse(task.containsKey("epicId"));
+        assertFalse(task.containsKey("featureId"));
+    }
+
+    @Test
+    void apply_ShouldRepeatPassForProjectsChangedMeanwhile() {
+        // Given
+        when(mongoTemplate.getCollectionName(Project.class)).thenReturn("projects");
+        when(mongoTemplate.stream(any(Query.class), eq(Document.class), eq("projects")))
+                .thenReturn(Stream.of(project("p1"), project("p2")))
+                .thenReturn(Stream.of(project("p2")));
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, "projects")).thenReturn(bulk);
+        when(bulk.execute())
+                .thenReturn(BulkWriteResult.acknowledged(0, 1, 0, 1, List.of(), List.of()))
+                .thenReturn(BulkWriteResult.acknowledged(0, 1, 0, 1, List.of(), List.of()));
+
+        // When
+        long changed = migration.apply(mongoTemplate, 10);
+
+        // Then
+        assertEquals(2, changed);
+        verify(mongoTemplate, times(2)).stream(any(Query.class), eq(Document.class), eq("projects"));
+    }
+
+    private static Document project(String id) {
+        Document task = new Document("_id", "t1").append("title", "Task")
+                .append("projectId", id).append("epicId", "e1").append("featureId", "f1");
+        Document feature = new Document("_id", "f1").append("tasks", new ArrayList<>(List.of(task)));
+        Document epic = new Document("_id", "e1").append("features", new ArrayList<>(List.of(feature)));
+        return new Document("_id", id).append("version", 3L).append("epics", new ArrayList<>(List.of(epic)));
+    }
+
+    private static Document firstTask(Document epic) {
+        Document feature = epic.getList("features", Document.class).get(0);
+        return feature.getList("tasks", Document.class).get(0);
+    }
+}
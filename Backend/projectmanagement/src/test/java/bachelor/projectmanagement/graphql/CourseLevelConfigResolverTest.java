@@ -20,6 +20,7 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -186,85 +187,42 @@ class CourseLevelConfigResolverTest {
     }
 
     @Test
-    void createProjectFromTemplate_ShouldCreateProjectWithTemplate() {
+    void createProjectFromTemplate_ShouldCreateProjectForCurrentUser() {
         // Given
-        Project template = TestDataBuilder.createTestProject("Template Project", TestDataBuilder.createTestUser());
-        testConfig.setTemplateProject(template);
-        
         Project newProject = TestDataBuilder.createTestProject("New Project", TestDataBuilder.createTestUser());
-
-        when(configService.getConfigOrDefault(100)).thenReturn(testConfig);
-        when(projectService.copyProjectStructure(eq(template), eq("New Project"), eq("New Description"), 
-            eq(100), eq("testuser"))).thenReturn(newProject);
-
-        // When
-        Project result = configResolver.createProjectFromTemplate(100, "New Project", "New Description");
-
-        // Then
-        assertNotNull(result);
-        assertEquals("New Project", result.getTitle());
-        verify(configService).getConfigOrDefault(100);
-        verify(projectService).copyProjectStructure(eq(template), eq("New Project"), 
-            eq("New Description"), eq(100), eq("testuser"));
-    }
-
-    @Test
-    void createProjectFromTemplate_ShouldFallbackToDefaultTemplate() {
-        // Given
-        CourseLevelConfig defaultConfig = new CourseLevelConfig();
-        defaultConfig.setCourseLevel(0);
-        Project defaultTemplate = TestDataBuilder.createTestProject("Default Template", TestDataBuilder.createTestUser());
-        defaultConfig.setTemplateProject(defaultTemplate);
-        
-        testConfig.setTemplateProject(null); // No template for course level 100
-        
-        Project newProject = TestDataBuilder.createTestProject("New Project", TestDataBuilder.createTestUser());
-
-        when(configService.getConfigOrDefault(100)).thenReturn(testConfig);
-        when(configService.getConfigOrDefault(0)).thenReturn(defaultConfig);
-        when(projectService.copyProjectStructure(eq(defaultTemplate), eq("New Project"), 
-            eq("New Description"), eq(100), eq("testuser"))).thenReturn(newProject);
+        when(projectService.createProjectFromTemplate(100, "New Project", "New Description", "testuser"))
+            .thenReturn(newProject);
 
         // When
         Project result = configResolver.createProjectFromTemplate(100, "New Project", "New Description");
 
         // Then
-        assertNotNull(result);
-        verify(configService).getConfigOrDefault(100);
-        verify(configService).getConfigOrDefault(0);
-        verify(projectService).copyProjectStructure(eq(defaultTemplate), eq("New Project"), 
-            eq("New Description"), eq(100), eq("testuser"));
+        assertSame(newProject, result);
+        verify(projectService).createProjectFromTemplate(100, "New Project", "New Description", "testuser");
     }
 
     @Test
-    void createProjectFromTemplate_ShouldCreateEmptyProjectWhenNoTemplate() {
+    void templateProject_ShouldLoadAllTemplatesInOneQuery() {
         // Given
-        testConfig.setTemplateProject(null);
-        CourseLevelConfig defaultConfig = new CourseLevelConfig();
-        defaultConfig.setCourseLevel(0);
-        defaultConfig.setTemplateProject(null);
-
-        Project newProject = TestDataBuilder.createTestProject("New Project", TestDataBuilder.createTestUser());
-
-        when(configService.getConfigOrDefault(100)).thenReturn(testConfig);
-        when(configService.getConfigOrDefault(0)).thenReturn(defaultConfig);
-        when(projectService.createProject(any(Project.class), eq("testuser"))).thenReturn(newProject);
+        CourseLevelConfig withoutTemplate = new CourseLevelConfig();
+        testConfig.setTemplateProjectId(testProject.getProjectId());
+        when(projectService.getProjectsByIds(Set.of(testProject.getProjectId()))).thenReturn(List.of(testProject));
 
         // When
-        Project result = configResolver.createProjectFromTemplate(100, "New Project", "New Description");
+        List<Project> result = configResolver.templateProject(List.of(testConfig, withoutTemplate));
 
         // Then
-        assertNotNull(result);
-        verify(configService).getConfigOrDefault(100);
-        verify(configService).getConfigOrDefault(0);
-        verify(projectService).createProject(any(Project.class), eq("testuser"));
-        verify(projectService, never()).copyProjectStructure(any(), anyString(), anyString(), anyInt(), anyString());
+        assertEquals(2, result.size());
+        assertSame(testProject, result.get(0));
+        assertNull(result.get(1));
+        verify(projectService, times(1)).getProjectsByIds(anyCollection());
     }
 
     @Test
     void createProjectFromTemplate_ShouldThrowExceptionOnFailure() {
         // Given
-        when(configService.getConfigOrDefault(100)).thenThrow(new RuntimeException("Database error"));
+        when(projectService.createProjectFromTemplate(anyInt(), anyString(), anyString(), anyString()))
+            .thenThrow(new RuntimeException("Database error"));
 
         // When & Then
         RuntimeException exception = assertThrows(RuntimeException.class, () -> {
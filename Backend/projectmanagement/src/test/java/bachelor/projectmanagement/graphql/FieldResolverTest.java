@@ -0,0 +1,158 @@
+package bachelor.projectmanagement.graphql;
+
+import bachelor.projectmanagement.model.Epic;
+import bachelor.projectmanagement.model.Project;
+import bachelor.projectmanagement.model.Task;
+import bachelor.projectmanagement.model.User;
+import bachelor.projectmanagement.repository.UserRepository;
+import bachelor.projectmanagement.model.UserRef;
+import bachelor.projectmanagement.service.ProjectService;
+import bachelor.projectmanagement.service.RequestUserCache;
+import bachelor.projectmanagement.util.TestDataBuilder;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class FieldResolverTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private ProjectService projectService;
+
+    @Spy
+    private RequestUserCache userCache = new RequestUserCache();
+
+    @InjectMocks
+    private FieldResolver fieldResolver;
+
+    @Test
+    void owners_ShouldLoadOwnersOfAllProjectsInOneQuery() {
+        // Given
+        User alice = TestDataBuilder.createTestUser("alice");
+        User bob = TestDataBuilder.createTestUser("bob");
+        Project first = TestDataBuilder.createTestProject("First", alice);
+        first.addOwner(bob);
+        Project second = TestDataBuilder.createTestProject("Second", bob);
+        when(userRepository.findAllById(Set.of(alice.getId(), bob.getId()))).thenReturn(List.of(alice, bob));
+
+        // When
+        List<List<User>> result = fieldResolver.owners(List.of(first, second));
+
+        // Then
+        assertEquals(List.of(List.of(alice, bob), List.of(bob)), result);
+        verify(userRepository, times(1)).findAllById(anyCollection());
+    }
+
+    @Test
+    void owner_ShouldReturnFirstOwnerPerProject() {
+        // Given
+        User alice = TestDataBuilder.createTestUser("alice");
+        Project project = TestDataBuilder.createTestProject("First", alice);
+        Project withoutOwner = new Project();
+        when(userRepository.findAllById(Set.of(alice.getId()))).thenReturn(List.of(alice));
+
+        // When
+        List<User> result = fieldResolver.owner(List.of(project, withoutOwner));
+
+        // Then
+        assertSame(alice, result.get(0));
+        assertNull(result.get(1));
+    }
+
+    @Test
+    void projects_ShouldResolveProjectIdsInOneQuery() {
+        // Given
+        User alice = TestDataBuilder.createTestUser("alice");
+        Project project = TestDataBuilder.createTestProject("First", alice);
+        alice.getProjectIds().add(project.getProjectId());
+        alice.getProjectIds().add("deleted-project");
+        when(projectService.getProjectsByIds(Set.of(project.getProjectId(), "deleted-project"))).thenReturn(List.of(project));
+
+        // When
+        List<List<Project>> result = fieldResolver.projects(List.of(alice));
+
+        // Then
+        assertEquals(List.of(List.of(project)), result);
+    }
+
+    @Test
+    void users_ShouldLoadAssigneesOfAllTasksInOneQuery() {
+        // Given
+        User alice = TestDataBuilder.createTestUser("alice");
+        User bob = TestDataBuilder.createTestUser("bob");
+        Task first = TestDataBuilder.createTestTask("First");
+        first.setUsers(List.of(alice.getId(), bob.getId()));
+        Task second = TestDataBuilder.createTestTask("Second");
+        second.setUsers(List.of(bob.getId(), "deleted-user"));
+        Task unassigned = TestDataBuilder.createTestTask("Third");
+        when(userRepository.findAllById(Set.of(alice.getId(), bob.getId(), "deleted-user"))).thenReturn(List.of(alice, bob));
+
+        // When
+        List<List<User>> result = fieldResolver.users(List.of(first, second, unassigned));
+
+        // Then
+        assertEquals(List.of(List.of(alice, bob), List.of(bob), List.of()), result);
+        verify(userRepository, times(1)).findAllById(anyCollection());
+        verify(userRepository, never()).findById(anyString());
+    }
+
+    @Test
+    void epicOwner_ShouldResolveEpicOwners() {
+        // Given
+        User alice = TestDataBuilder.createTestUser("alice");
+        Epic epic = TestDataBuilder.createTestEpic("Owned");
+        epic.setOwner(UserRef.of(alice));
+        Epic withoutOwner = TestDataBuilder.createTestEpic("Unowned");
+        when(userRepository.findAllById(Set.of(alice.getId()))).thenReturn(List.of(alice));
+
+        // When
+        List<User> result = fieldResolver.epicOwner(List.of(epic, withoutOwner));
+
+        // Then
+        assertSame(alice, result.get(0));
+        assertNull(result.get(1));
+    }
+
+    @Test
+    void users_ShouldReuseUsersLoadedEarlierInTheRequest() {
+        // Given
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+        try {
+            User alice = TestDataBuilder.createTestUser("alice");
+            User bob = TestDataBuilder.createTestUser("bob");
+            Project project = TestDataBuilder.createTestProject("First", alice);
+            Task task = TestDataBuilder.createTestTask("Task");
+            task.setUsers(List.of(alice.getId(), bob.getId()));
+            when(userRepository.findAllById(Set.of(alice.getId()))).thenReturn(List.of(alice));
+            when(userRepository.findAllById(Set.of(bob.getId()))).thenReturn(List.of(bob));
+
+            // When
+            fieldResolver.owners(List.of(project));
+            List<List<User>> result = fieldResolver.users(List.of(task));
+
+            // Then
+            assertEquals(List.of(List.of(alice, bob)), result);
+            verify(userRepository).findAllById(Set.of(bob.getId()));
+            verify(userRepository, times(2)).findAllById(anyCollection());
+        } finally {
+            RequestContextHolder.resetRequestAttributes();
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package bachelor.projectmanagement.graphql;
+
+import graphql.ExecutionInput;
+import graphql.ExecutionResult;
+import graphql.GraphQL;
+import graphql.schema.GraphQLSchema;
+import graphql.schema.idl.RuntimeWiring;
+import graphql.schema.idl.SchemaGenerator;
+import graphql.schema.idl.SchemaParser;
+import io.micrometer.core.instrument.observation.DefaultMeterObservationHandler;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.graphql.observation.DefaultDataFetcherObservationConvention;
+import org.springframework.graphql.observation.GraphQlObservationInstrumentation;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GraphQlRequestObservationConventionTest {
+
+    private static final String SCHEMA = """
+            type Query { project: Project broken: String }
+            type Project { title: String owners: [String] }
+            """;
+
+    private SimpleMeterRegistry meterRegistry;
+    private GraphQL graphQL;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        ObservationRegistry observationRegistry = ObservationRegistry.create();
+        observationRegistry.observationConfig()
+                .observationHandler(new DefaultMeterObservationHandler(meterRegistry))
+                .observationHandler(new SlowOperationLogger(1000));
+        RuntimeWiring wiring = RuntimeWiring.newRuntimeWiring()
+                .type("Query", type -> type
+                        .dataFetcher("project", env -> Map.of("title", "Board"))
+                        .dataFetcher("broken", env -> {
+                            throw new RuntimeException("Project not found: p1");
+                        }))
+                .type("Project", type -> type
+                        .dataFetcher("owners", env -> CompletableFuture.supplyAsync(() -> List.of("alice", "bob"))))
+                .build();
+        GraphQLSchema schema = new SchemaGenerator().makeExecutableSchema(new SchemaParser().parse(SCHEMA), wiring);
+        graphQL = GraphQL.newGraphQL(schema)
+                .instrumentation(new GraphQlObservationInstrumentation(observationRegistry,
+                        new GraphQlRequestObservationConvention(), new DefaultDataFetcherObservationConvention()))
+                .build();
+    }
+
+    @Test
+    void execute_ShouldTagRequestTimerWithOperationName() {
+        // When
+        ExecutionResult result = execute("ProjectBoard", "query ProjectBoard { project { title owners } }");
+
+        // Then
+        assertTrue(result.getErrors().isEmpty());
+        assertEquals(1, meterRegistry.get("graphql.request")
+                .tags(GraphQlRequestObservationConvention.OPERATION_NAME, "ProjectBoard", "graphql.outcome", "SUCCESS")
+                .timer().count());
+        assertEquals(1, meterRegistry.get("graphql.datafetcher").tags("graphql.field.name", "owners").timer().count());
+    }
+
+    @Test
+    void execute_ShouldTagOperationsWithoutNameAsAnonymous() {
+        // When
+        execute(null, "{ project { title } }");
+
+        // Then
+        assertNotNull(meterRegistry.find("graphql.request")
+                .tags(GraphQlRequestObservationConvention.OPERATION_NAME, "anonymous").timer());
+    }
+
+    @Test
+    void execute_ShouldKeepOperationNameOfFailedOperations() {
+        // When
+        execute("Broken", "query Broken { broken }");
+
+        // Then
+        assertNotNull(meterRegistry.find("graphql.request")
+                .tags(GraphQlRequestObservationConvention.OPERATION_NAME, "Broken").timer());
+        assertEquals(1, meterRegistry.get("graphql.datafetcher")
+                .tags("graphql.field.name", "broken", "graphql.outcome", "ERROR").timer().count());
+    }
+
+    @Test
+    void execute_ShouldBoundTheNumberOfOperationTags() {
+        // When
+        for (int i = 0; i <= GraphQlRequestObservationConvention.MAX_OPERATION_NAMES; i++) {
+            execute("Operation" + i, "query Operation" + i + " { project { title } }");
+        }
+
+        // Then
+        assertEquals(GraphQlRequestObservationConvention.MAX_OPERATION_NAMES + 1,
+                meterRegistry.find("graphql.request").timers().size());
+        assertEquals(1, meterRegistry.get("graphql.request")
+                .tags(GraphQlRequestObservationConvention.OPERATION_NAME, GraphQlRequestObservationConvention.OTHER_OPERATION)
+                .timer().count());
+    }
+
+    private ExecutionResult execute(String operationName, String query) {
+        return graphQL.execute(ExecutionInput.newExecutionInput(query).operationName(operationName).build());
+    }
+}
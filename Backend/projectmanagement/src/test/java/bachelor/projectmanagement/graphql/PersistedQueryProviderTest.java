@@ -0,0 +1,141 @@
+package bachelor.projectmanagement.graphql;
+
+import graphql.ExecutionInput;
+import graphql.GraphqlErrorBuilder;
+import graphql.execution.preparsed.PreparsedDocumentEntry;
+import graphql.parser.Parser;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PersistedQueryProviderTest {
+
+    private static final String QUERY = "{ projects { id title } }";
+
+    private final List<String> parsedQueries = new ArrayList<>();
+
+    private final Function<ExecutionInput, PreparsedDocumentEntry> parseAndValidate = input -> {
+        parsedQueries.add(input.getQuery());
+        if (input.getQuery().contains("invalid")) {
+            return new PreparsedDocumentEntry(GraphqlErrorBuilder.newError().message("Validation error").build());
+        }
+        return new PreparsedDocumentEntry(Parser.parse(input.getQuery()));
+    };
+
+    @Test
+    void getDocument_ShouldParseRepeatedQueriesOnce() {
+        // Given
+        PersistedQueryProvider provider = new PersistedQueryProvider(Map.of(), 10, false);
+
+        // When
+        PreparsedDocumentEntry first = provider.getDocument(input(QUERY, null), parseAndValidate);
+        PreparsedDocumentEntry second = provider.getDocument(input(QUERY, null), parseAndValidate);
+
+        // Then
+        assertSame(first, second);
+        assertEquals(List.of(QUERY), parsedQueries);
+    }
+
+    @Test
+    void getDocument_ShouldAnswerHashOnlyRequestsFromTheCache() {
+        // Given
+        PersistedQueryProvider provider = new PersistedQueryProvider(Map.of(), 10, false);
+        String hash = PersistedQueryProvider.sha256(QUERY);
+
+        // When
+        PreparsedDocumentEntry missing = provider.getDocument(input("", hash), parseAndValidate);
+        PreparsedDocumentEntry registered = provider.getDocument(input(QUERY, hash), parseAndValidate);
+        PreparsedDocumentEntry cached = provider.getDocument(input("", hash), parseAndValidate);
+
+        // Then
+        assertEquals("PersistedQueryNotFound", missing.getErrors().get(0).getMessage());
+        assertFalse(registered.hasErrors());
+        assertSame(registered, cached);
+        assertEquals(List.of(QUERY), parsedQueries);
+    }
+
+    @Test
+    void getDocument_ShouldRejectHashThatDoesNotMatchTheQuery() {
+        // Given
+        PersistedQueryProvider provider = new PersistedQueryProvider(Map.of(), 10, false);
+
+        // When
+        PreparsedDocumentEntry entry = provider.getDocument(input(QUERY, PersistedQueryProvider.sha256("{ users { id } }")), parseAndValidate);
+
+        // Then
+        assertEquals("PersistedQueryIdInvalid", entry.getErrors().get(0).getMessage());
+        assertTrue(parsedQueries.isEmpty());
+    }
+
+    @Test
+    void getDocument_ShouldResolveRegisteredOperationsByHash() {
+        // Given
+        String hash = PersistedQueryProvider.sha256(QUERY);
+        PersistedQueryProvider provider = new PersistedQueryProvider(Map.of(hash, QUERY), 10, true);
+
+        // When
+        PreparsedDocumentEntry entry = provider.getDocument(input("", hash), parseAndValidate);
+
+        // Then
+        assertFalse(entry.hasErrors());
+        assertEquals(List.of(QUERY), parsedQueries);
+    }
+
+    @Test
+    void getDocument_ShouldRejectUnregisteredOperationsInAllowlistMode() {
+        // Given
+        PersistedQueryProvider provider = new PersistedQueryProvider(Map.of(PersistedQueryProvider.sha256(QUERY), QUERY), 10, true);
+
+        // When
+        PreparsedDocumentEntry entry = provider.getDocument(input("{ users { id } }", null), parseAndValidate);
+
+        // Then
+        assertEquals("OPERATION_NOT_REGISTERED", entry.getErrors().get(0).getExtensions().get("code"));
+        assertTrue(parsedQueries.isEmpty());
+    }
+
+    @Test
+    void getDocument_ShouldNotCacheInvalidDocuments() {
+        // Given
+        PersistedQueryProvider provider = new PersistedQueryProvider(Map.of(), 10, false);
+
+        // When
+        provider.getDocument(input("{ invalid }", null), parseAndValidate);
+        provider.getDocument(input("{ invalid }", null), parseAndValidate);
+
+        // Then
+        assertEquals(2, parsedQueries.size());
+        assertEquals(0, provider.getCacheSize());
+    }
+
+    @Test
+    void getDocument_ShouldDropLeastRecentlyUsedDocuments() {
+        // Given
+        PersistedQueryProvider provider = new PersistedQueryProvider(Map.of(), 2, false);
+        provider.getDocument(input("{ a }", null), parseAndValidate);
+        provider.getDocument(input("{ b }", null), parseAndValidate);
+        provider.getDocument(input("{ a }", null), parseAndValidate);
+
+        // When
+        provider.getDocument(input("{ c }", null), parseAndValidate);
+        provider.getDocument(input("{ a }", null), parseAndValidate);
+        provider.getDocument(input("{ b }", null), parseAndValidate);
+
+        // Then - "b" was the least recently used when "c" was added
+        assertEquals(List.of("{ a }", "{ b }", "{ c }", "{ b }"), parsedQueries);
+        assertEquals(2, provider.getCacheSize());
+    }
+
+    private static ExecutionInput input(String query, String hash) {
+        ExecutionInput.Builder builder = ExecutionInput.newExecutionInput().query(query);
+        if (hash != null) {
+            builder.extensions(Map.of("persistedQuery", Map.of("version", 1, "sha256Hash", hash)));
+        }
+        return builder.build();
+    }
+}
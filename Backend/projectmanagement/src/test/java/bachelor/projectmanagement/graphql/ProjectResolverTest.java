@@ -7,6 +7,8 @@ import bachelor.projectmanagement.service.SSEService;
 import bachelor.projectmanagement.service.CourseLevelConfigService;
 import bachelor.projectmanagement.repository.UserRepository;
 import bachelor.projectmanagement.util.TestDataBuilder;
+import graphql.schema.DataFetchingFieldSelectionSet;
+import graphql.schema.SelectedField;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
@@ -18,7 +20,10 @@ import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -82,30 +87,71 @@ class ProjectResolverTest {
     void projectsByUsername_ShouldReturnProjects() {
         // Given
         List<Project> projects = List.of(testProject);
-        when(projectService.getProjectsByUsername("testuser")).thenReturn(projects);
+        when(projectService.getProjectsByUsername("testuser", null)).thenReturn(projects);
 
         // When
-        List<Project> result = projectResolver.projectsByUsername("testuser");
+        List<Project> result = projectResolver.projectsByUsername("testuser", null);
 
         // Then
         assertNotNull(result);
         assertEquals(1, result.size());
         assertEquals(testProject, result.get(0));
-        verify(projectService).getProjectsByUsername("testuser");
+        verify(projectService).getProjectsByUsername("testuser", null);
+    }
+
+    @Test
+    void projectsByUsername_ShouldOnlyLoadSelectedFields() {
+        // Given
+        DataFetchingFieldSelectionSet selectionSet = selection("id", "title", "courseLevel", "owners", "owners/username");
+        when(projectService.getProjectsByUsername(eq("testuser"), anyCollection())).thenReturn(List.of(testProject));
+
+        // When
+        projectResolver.projectsByUsername("testuser", selectionSet);
+
+        // Then
+        verify(projectService).getProjectsByUsername("testuser", Set.of("title", "courseLevel", "owners"));
+    }
+
+    @Test
+    void projectById_ShouldMapNestedSelectionToDocumentPaths() {
+        // Given
+        DataFetchingFieldSelectionSet selectionSet = selection("id", "epics", "epics/title",
+                "epics/features", "epics/features/tasks", "epics/features/tasks/users", "epics/features/tasks/users/username");
+        when(projectService.getProjectById(eq(testProject.getProjectId()), anyCollection())).thenReturn(testProject);
+
+        // When
+        projectResolver.projectById(testProject.getProjectId(), selectionSet);
+
+        // Then
+        verify(projectService).getProjectById(testProject.getProjectId(), Set.of("epics._id", "epics.title",
+                "epics.features._id", "epics.features.tasks._id", "epics.features.tasks.users"));
+    }
+
+    @Test
+    void projectById_ShouldLoadEpicOwnersWhenSelected() {
+        // Given
+        DataFetchingFieldSelectionSet selectionSet = selection("id", "epics", "epics/owner", "epics/owner/username");
+        when(projectService.getProjectById(eq(testProject.getProjectId()), anyCollection())).thenReturn(testProject);
+
+        // When
+        projectResolver.projectById(testProject.getProjectId(), selectionSet);
+
+        // Then
+        verify(projectService).getProjectById(testProject.getProjectId(), Set.of("epics._id", "epics.owner"));
     }
 
     @Test
     void projectById_ShouldReturnProject() {
         // Given
-        when(projectService.getProjectById(testProject.getProjectId())).thenReturn(testProject);
+        when(projectService.getProjectById(testProject.getProjectId(), null)).thenReturn(testProject);
 
         // When
-        Project result = projectResolver.projectById(testProject.getProjectId());
+        Project result = projectResolver.projectById(testProject.getProjectId(), null);
 
         // Then
         assertNotNull(result);
         assertEquals(testProject, result);
-        verify(projectService).getProjectById(testProject.getProjectId());
+        verify(projectService).getProjectById(testProject.getProjectId(), null);
     }
 
     @Test
@@ -116,8 +162,7 @@ class ProjectResolverTest {
         input.setDescription("Updated Project Description");
         input.setCourseLevel(2);
         
-        when(projectService.getProjectById(testProject.getProjectId())).thenReturn(testProject);
-        when(projectService.save(any(Project.class))).thenReturn(testProject);
+        stubModifyProject();
 
         // When
         Project result = projectResolver.updateProject(testProject.getProjectId(), input);
@@ -127,8 +172,7 @@ class ProjectResolverTest {
         assertEquals("Updated Project Title", testProject.getTitle());
         assertEquals("Updated Project Description", testProject.getDescription());
         assertEquals(2, testProject.getCourseLevel());
-        verify(projectService).getProjectById(testProject.getProjectId());
-        verify(projectService).save(testProject);
+        verify(projectService).modifyProject(eq(testProject.getProjectId()), any());
         verify(sseService).sendProjectUpdate(eq(testProject.getProjectId()), anyMap());
     }
 
@@ -137,9 +181,9 @@ class ProjectResolverTest {
         // Given
         ProjectInput input = new ProjectInput();
         input.setTitle("Updated Title Only");
+        String originalDescription = testProject.getDescription();
         
-        when(projectService.getProjectById(testProject.getProjectId())).thenReturn(testProject);
-        when(projectService.save(any(Project.class))).thenReturn(testProject);
+        stubModifyProject();
 
         // When
         Project result = projectResolver.updateProject(testProject.getProjectId(), input);
@@ -147,7 +191,8 @@ class ProjectResolverTest {
         // Then
         assertNotNull(result);
         assertEquals("Updated Title Only", testProject.getTitle());
-        verify(projectService).save(testProject);
+        assertEquals(originalDescription, testProject.getDescription());
+        verify(projectService).modifyProject(eq(testProject.getProjectId()), any());
     }
 
     @Test
@@ -155,13 +200,28 @@ class ProjectResolverTest {
         // Given
         ProjectInput input = new ProjectInput();
         input.setTitle("New Title");
-        when(projectService.getProjectById("nonexistent")).thenReturn(null);
+        when(projectService.modifyProject(eq("nonexistent"), any()))
+                .thenThrow(new RuntimeException("Project not found: nonexistent"));
 
         // When & Then
         assertThrows(RuntimeException.class, () -> 
             projectResolver.updateProject("nonexistent", input));
-        verify(projectService).getProjectById("nonexistent");
         verify(projectService, never()).save(any(Project.class));
+        verify(sseService, never()).sendProjectUpdate(anyString(), any());
+    }
+
+    @Test
+    void updateProject_ShouldNotWriteWhenInputIsEmpty() {
+        // Given
+        when(projectService.getProjectById(testProject.getProjectId())).thenReturn(testProject);
+
+        // When
+        Project result = projectResolver.updateProject(testProject.getProjectId(), new ProjectInput());
+
+        // Then
+        assertSame(testProject, result);
+        verify(projectService, never()).modifyProject(anyString(), any());
+        verify(sseService, never()).sendProjectUpdate(anyString(), any());
     }
 
     @Test
@@ -351,8 +411,7 @@ class ProjectResolverTest {
     void getAllMutations_ShouldCallServiceCorrectly() {
         // This test ensures all mutation methods are properly wired
         // Given
-        when(projectService.getProjectById(anyString())).thenReturn(testProject);
-        when(projectService.save(any(Project.class))).thenReturn(testProject);
+        stubModifyProject();
         when(projectService.getEpicById(anyString(), anyString())).thenReturn(testEpic);
         when(projectService.saveEpic(anyString(), any(Epic.class))).thenReturn(testEpic);
         when(projectService.getFeatureById(anyString(), anyString(), anyString())).thenReturn(testFeature);
@@ -401,8 +460,7 @@ class ProjectResolverTest {
         projectResolver.updateTask(testProject.getProjectId(), testEpic.getEpicId(), testFeature.getFeatureId(), testTask.getTaskId(), taskInput);
 
         // Verify all service calls
-        verify(projectService, times(2)).getProjectById(testProject.getProjectId());
-        verify(projectService, times(2)).save(testProject);
+        verify(projectService, times(2)).modifyProject(eq(testProject.getProjectId()), any());
         verify(projectService, times(2)).getEpicById(eq(testProject.getProjectId()), eq(testEpic.getEpicId()));
         verify(projectService, times(2)).saveEpic(eq(testProject.getProjectId()), any(Epic.class));
         verify(projectService, times(2)).getFeatureById(eq(testProject.getProjectId()), eq(testEpic.getEpicId()), eq(testFeature.getFeatureId()));
@@ -742,10 +800,8 @@ class ProjectResolverTest {
         when(projectService.getProjectById(testProject.getProjectId())).thenReturn(testProject);
         when(courseLevelConfigService.isTaskUserAssignmentEnabled(anyInt())).thenReturn(true);
         when(projectService.getTaskById(anyString(), anyString(), anyString(), anyString())).thenReturn(testTask);
-        when(userRepository.findByUsername("user1")).thenReturn(java.util.Optional.of(user1));
-        when(userRepository.findByUsername("user2")).thenReturn(java.util.Optional.of(user2));
-        when(userRepository.findById(user1.getId())).thenReturn(java.util.Optional.of(user1));
-        when(userRepository.findById(user2.getId())).thenReturn(java.util.Optional.of(user2));
+        when(userRepository.findPrincipalByUsername("user1")).thenReturn(java.util.Optional.of(user1));
+        when(userRepository.findPrincipalByUsername("user2")).thenReturn(java.util.Optional.of(user2));
         when(projectService.saveTask(anyString(), anyString(), anyString(), any(Task.class))).thenReturn(updatedTask);
 
         // When
@@ -763,6 +819,71 @@ class ProjectResolverTest {
         verify(sseService).sendTaskUpdate(eq(testProject.getProjectId()), anyMap());
     }
 
+    @Test
+    void batchUpdateTasks_ShouldSaveAllChangesOnceAndSendOneEvent() {
+        // Given
+        Task second = TestDataBuilder.createTestTask("Second Task");
+        for (Task task : List.of(testTask, second)) {
+            task.setEpicId(testEpic.getEpicId());
+            task.setFeatureId(testFeature.getFeatureId());
+        }
+        User user1 = TestDataBuilder.createTestUser("user1");
+        when(projectService.getTasksById(eq(testProject.getProjectId()), anyCollection()))
+                .thenReturn(java.util.Map.of(testTask.getTaskId(), testTask, second.getTaskId(), second));
+        when(projectService.getProjectById(testProject.getProjectId())).thenReturn(testProject);
+        when(courseLevelConfigService.isTaskUserAssignmentEnabled(anyInt())).thenReturn(true);
+        when(userRepository.findPrincipalsByUsernameIn(Set.of("user1"))).thenReturn(List.of(user1));
+
+        // When
+        List<Task> result = projectResolver.batchUpdateTasks(testProject.getProjectId(), List.of(
+                batchInput(testTask, "DONE", null),
+                batchInput(second, "DONE", List.of("user1")),
+                batchInput(testTask, null, List.of("user1"))));
+
+        // Then
+        assertEquals(List.of(testTask, second), result);
+        assertEquals(TaskStatus.DONE, testTask.getStatus());
+        assertEquals(List.of(user1.getId()), testTask.getUsers());
+        assertEquals(List.of(user1.getId()), second.getUsers());
+        verify(projectService).verifyProjectAccess(testProject.getProjectId(), "testuser");
+        verify(projectService).saveTasks(testProject.getProjectId(), List.of(testTask, second));
+        verify(userRepository, never()).findPrincipalByUsername(anyString());
+        verify(sseService).sendTasksBatchUpdate(eq(testProject.getProjectId()),
+                argThat(event -> ((List<?>) ((java.util.Map<?, ?>) event).get("tasks")).size() == 2));
+        verify(sseService, never()).sendTaskUpdate(anyString(), any());
+    }
+
+    @Test
+    void batchUpdateTasks_ShouldRejectTaskOutsideGivenFeature() {
+        // Given
+        testTask.setEpicId(testEpic.getEpicId());
+        testTask.setFeatureId("other-feature");
+        when(projectService.getTasksById(eq(testProject.getProjectId()), anyCollection()))
+                .thenReturn(java.util.Map.of(testTask.getTaskId(), testTask));
+        TaskBatchUpdateInput input = new TaskBatchUpdateInput();
+        input.setEpicId(testEpic.getEpicId());
+        input.setFeatureId(testFeature.getFeatureId());
+        input.setTaskId(testTask.getTaskId());
+        input.setTitle("Moved");
+
+        // When & Then
+        RuntimeException exception = assertThrows(RuntimeException.class,
+                () -> projectResolver.batchUpdateTasks(testProject.getProjectId(), List.of(input)));
+        assertEquals("Task not found: " + testTask.getTaskId(), exception.getMessage());
+        verify(projectService, never()).saveTasks(anyString(), anyList());
+        verifyNoInteractions(sseService);
+    }
+
+    private TaskBatchUpdateInput batchInput(Task task, String status, List<String> usernames) {
+        TaskBatchUpdateInput input = new TaskBatchUpdateInput();
+        input.setEpicId(testEpic.getEpicId());
+        input.setFeatureId(testFeature.getFeatureId());
+        input.setTaskId(task.getTaskId());
+        input.setStatus(status);
+        input.setUserIds(usernames);
+        return input;
+    }
+
     @Test
     void updateTask_ShouldThrowExceptionWhenFeatureDisabledForUsers() {
         // Given
@@ -813,7 +934,7 @@ class ProjectResolverTest {
         when(projectService.getProjectById(testProject.getProjectId())).thenReturn(testProject);
         when(courseLevelConfigService.isTaskUserAssignmentEnabled(anyInt())).thenReturn(true);
         when(projectService.getTaskById(anyString(), anyString(), anyString(), anyString())).thenReturn(testTask);
-        when(userRepository.findByUsername("nonexistent")).thenReturn(java.util.Optional.empty());
+        when(userRepository.findPrincipalByUsername("nonexistent")).thenReturn(java.util.Optional.empty());
 
         // When & Then
         RuntimeException exception = assertThrows(RuntimeException.class, () -> {
@@ -824,4 +945,28 @@ class ProjectResolverTest {
         assertTrue(exception.getMessage().contains("User not found"));
         verify(projectService, never()).saveTask(anyString(), anyString(), anyString(), any(Task.class));
     }
+
+    private static DataFetchingFieldSelectionSet selection(String... qualifiedNames) {
+        List<SelectedField> fields = new ArrayList<>();
+        for (String name : qualifiedNames) {
+            SelectedField field = mock(SelectedField.class);
+            when(field.getQualifiedName()).thenReturn(name);
+            fields.add(field);
+        }
+        DataFetchingFieldSelectionSet selectionSet = mock(DataFetchingFieldSelectionSet.class);
+        when(selectionSet.getFields()).thenReturn(fields);
+        return selectionSet;
+    }
+
+    /**
+     * Let modifyProject apply the resolver's change to the test project, like the real retry loop does.
+     */
+    @SuppressWarnings("unchecked")
+    private void stubModifyProject() {
+        when(projectService.modifyProject(anyString(), any())).thenAnswer(invocation -> {
+            Predicate<Project> change = invocation.getArgument(1);
+            change.test(testProject);
+            return testProject;
+        });
+    }
 }
@@ -0,0 +1,143 @@
+package bachelor.projectmanagement.graphql;
+
+import bachelor.projectmanagement.exception.RateLimitExceededException;
+import bachelor.projectmanagement.security.RateLimitInterceptor;
+import graphql.execution.AbortExecutionException;
+import graphql.execution.CoercedVariables;
+import graphql.language.Document;
+import graphql.language.FragmentDefinition;
+import graphql.language.OperationDefinition;
+import graphql.parser.Parser;
+import graphql.schema.GraphQLSchema;
+import graphql.schema.idl.SchemaParser;
+import graphql.schema.idl.TypeDefinitionRegistry;
+import graphql.schema.idl.UnExecutableSchemaGenerator;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.graphql.execution.ConnectionTypeDefinitionConfigurer;
+
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class QueryCostInstrumentationTest {
+
+    private static GraphQLSchema schema;
+
+    @Mock
+    private RateLimitInterceptor rateLimitInterceptor;
+
+    private QueryCostInstrumentation instrumentation;
+
+    @BeforeAll
+    static void loadSchema() {
+        TypeDefinitionRegistry registry = new SchemaParser().parse(new InputStreamReader(
+                QueryCostInstrumentationTest.class.getResourceAsStream("/graphql/schema.graphqls"), StandardCharsets.UTF_8));
+        // Adds the Connection types, like Spring Boot does on startup
+        new ConnectionTypeDefinitionConfigurer().configure(registry);
+        schema = UnExecutableSchemaGenerator.makeUnExecutableSchema(registry);
+    }
+
+    @BeforeEach
+    void setUp() {
+        instrumentation = new QueryCostInstrumentation(rateLimitInterceptor, 10, 5000, 10, 500);
+    }
+
+    @Test
+    void measure_ShouldMultiplyListSelectionsByExpectedSize() {
+        // When
+        QueryCostInstrumentation.QueryCost cost = measure("{ projectById(id: \"p1\") { title epics { title features { title } } } }");
+
+        // Then - projectById(1) + title(1) + epics(1 + 5 * (title(1) + features(1 + 5 * title(1))))
+        assertEquals(4, cost.depth());
+        assertEquals(2 + 1 + 5 * (1 + 1 + 5), cost.cost());
+    }
+
+    @Test
+    void measure_ShouldCountFragmentsAndIgnoreIntrospection() {
+        // When
+        QueryCostInstrumentation.QueryCost cost = measure(
+                "query { __schema { types { name fields { name type { ofType { ofType { name } } } } } } users { ...names } } "
+                        + "fragment names on User { username }");
+
+        // Then - users(1 + 50 * username(1))
+        assertEquals(2, cost.depth());
+        assertEquals(51, cost.cost());
+    }
+
+    @Test
+    void measure_ShouldUseRequestedPageSizeForConnectionEdges() {
+        // When
+        QueryCostInstrumentation.QueryCost paged = measure("{ usersConnection(first: 5) { edges { node { username } } } }");
+        QueryCostInstrumentation.QueryCost defaultPage = measure("{ usersConnection { edges { node { username } } } }");
+
+        // Then - usersConnection(1 + edges(1 + size * node(1 + username(1))))
+        assertEquals(1 + 1 + 5 * 2, paged.cost());
+        assertEquals(1 + 1 + Pagination.DEFAULT_PAGE_SIZE * 2, defaultPage.cost());
+    }
+
+    @Test
+    void enforce_ShouldRejectTooDeepQueries() {
+        // Given
+        QueryCostInstrumentation.QueryCost cost = measure(
+                "{ users { projects { owners { projects { owners { projects { owners { projects { owners { projects { id } } } } } } } } } } }");
+
+        // When & Then
+        assertEquals(11, cost.depth());
+        AbortExecutionException exception = assertThrows(AbortExecutionException.class, () -> instrumentation.enforce(cost));
+        assertTrue(exception.getMessage().contains("depth"));
+        verifyNoInteractions(rateLimitInterceptor);
+    }
+
+    @Test
+    void enforce_ShouldRejectTooExpensiveQueries() {
+        // Given
+        QueryCostInstrumentation.QueryCost cost = measure(
+                "{ users { projects { owners { projects { epics { features { tasks { id } } } } } } } }");
+
+        // When & Then
+        assertTrue(cost.cost() > 5000);
+        AbortExecutionException exception = assertThrows(AbortExecutionException.class, () -> instrumentation.enforce(cost));
+        assertTrue(exception.getMessage().contains("cost"));
+        verifyNoInteractions(rateLimitInterceptor);
+    }
+
+    @Test
+    void enforce_ShouldChargeCostToRateLimit() {
+        // When
+        instrumentation.enforce(new QueryCostInstrumentation.QueryCost(5, 1200));
+
+        // Then
+        verify(rateLimitInterceptor).consumeAdditionalTokens(2);
+    }
+
+    @Test
+    void enforce_ShouldReportExhaustedRateLimitAsGraphQLError() {
+        // Given
+        doThrow(new RateLimitExceededException("Rate limit exceeded", 60)).when(rateLimitInterceptor).consumeAdditionalTokens(4);
+
+        // When
+        AbortExecutionException exception = assertThrows(AbortExecutionException.class,
+                () -> instrumentation.enforce(new QueryCostInstrumentation.QueryCost(5, 2000)));
+
+        // Then
+        assertEquals("RATE_LIMIT_EXCEEDED", exception.toExecutionResult().getErrors().get(0).getExtensions().get("code"));
+    }
+
+    private QueryCostInstrumentation.QueryCost measure(String query) {
+        Document document = Parser.parse(query);
+        Map<String, FragmentDefinition> fragments = document.getDefinitionsOfType(FragmentDefinition.class).stream()
+                .collect(Collectors.toMap(FragmentDefinition::getName, fragment -> fragment));
+        OperationDefinition operation = document.getDefinitionsOfType(OperationDefinition.class).get(0);
+        return instrumentation.measure(schema, operation, fragments, CoercedVariables.emptyVariables());
+    }
+}
@@ -0,0 +1,67 @@
+package bachelor.projectmanagement.repository;
+
+import bachelor.projectmanagement.model.CourseLevelConfig;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CourseLevelConfigRepositoryCustomImplTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @InjectMocks
+    private CourseLevelConfigRepositoryCustomImpl repository;
+
+    @Test
+    void insertIfAbsent_ShouldUpsertWithSetOnInsert() {
+        // Given
+        CourseLevelConfig defaults = new CourseLevelConfig(3);
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class), eq(CourseLevelConfig.class)))
+                .thenReturn(defaults);
+
+        // When
+        CourseLevelConfig result = repository.insertIfAbsent(defaults);
+
+        // Then
+        assertSame(defaults, result);
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        ArgumentCaptor<FindAndModifyOptions> options = ArgumentCaptor.forClass(FindAndModifyOptions.class);
+        verify(mongoTemplate).findAndModify(query.capture(), update.capture(), options.capture(), eq(CourseLevelConfig.class));
+        assertEquals(3, query.getValue().getQueryObject().get("courseLevel"));
+        assertTrue(((Document) update.getValue().getUpdateObject().get("$setOnInsert")).containsKey("features"));
+        assertTrue(options.getValue().isUpsert());
+        assertTrue(options.getValue().isReturnNew());
+    }
+
+    @Test
+    void insertIfAbsent_ShouldReturnExistingConfigWhenConcurrentInsertWon() {
+        // Given
+        CourseLevelConfig existing = new CourseLevelConfig(3);
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class), eq(CourseLevelConfig.class)))
+                .thenThrow(new DuplicateKeyException("E11000"));
+        when(mongoTemplate.findOne(any(Query.class), eq(CourseLevelConfig.class))).thenReturn(existing);
+
+        // When
+        CourseLevelConfig result = repository.insertIfAbsent(new CourseLevelConfig(3));
+
+        // Then
+        assertSame(existing, result);
+    }
+}
@@ -0,0 +1,206 @@
+package bachelor.projectmanagement.repository;
+
+import bachelor.projectmanagement.model.Project;
+import bachelor.projectmanagement.model.Task;
+import bachelor.projectmanagement.model.TaskStatus;
+import bachelor.projectmanagement.util.TestDataBuilder;
+import com.mongodb.client.result.UpdateResult;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ProjectRepositoryCustomImplTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @InjectMocks
+    private ProjectRepositoryCustomImpl repository;
+
+    @Test
+    void isOwner_ShouldCheckOwnerWithExistsQuery() {
+        // Given
+        when(mongoTemplate.exists(any(Query.class), eq(Project.class))).thenReturn(true);
+
+        // When
+        boolean result = repository.isOwner("p1", "alice");
+
+        // Then
+        assertTrue(result);
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).exists(query.capture(), eq(Project.class));
+        assertEquals(new Document("_id", "p1").append("owners.username", "alice"), query.getValue().getQueryObject());
+    }
+
+    @Test
+    void updateTaskFields_ShouldSetOnlyGivenFieldsWithArrayFilters() {
+        // Given
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(Project.class)))
+                .thenReturn(UpdateResult.acknowledged(1, 1L, null));
+        Map<String, Object> fields = new LinkedHashMap<>();
+        fields.put("status", TaskStatus.DONE);
+
+        // When
+        boolean result = repository.updateTaskFields("p1", "e1", "f1", "t1", fields);
+
+        // Then
+        assertTrue(result);
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).updateFirst(query.capture(), update.capture(), eq(Project.class));
+
+        Document set = (Document) update.getValue().getUpdateObject().get("$set");
+        assertEquals(Map.of("epics.$[e].features.$[f].tasks.$[t].status", TaskStatus.DONE), set);
+        assertEquals(3, update.getValue().getArrayFilters().size());
+        assertEquals(new Document("version", 1), update.getValue().getUpdateObject().get("$inc"));
+
+        Document epicMatch = (Document) ((Document) query.getValue().getQueryObject().get("epics")).get("$elemMatch");
+        assertEquals("e1", epicMatch.get("_id"));
+        assertEquals("p1", query.getValue().getQueryObject().get("_id"));
+    }
+
+    @Test
+    void updateTaskFields_ShouldReturnFalseWhenNothingMatched() {
+        // Given
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(Project.class)))
+                .thenReturn(UpdateResult.acknowledged(0, 0L, null));
+
+        // When
+        boolean result = repository.updateTaskFields("p1", "e1", "f1", "missing", Map.of("title", "New"));
+
+        // Then
+        assertFalse(result);
+    }
+
+    @Test
+    void updateTaskFields_ShouldOnlyCheckExistenceWhenNoFieldsGiven() {
+        // Given
+        when(mongoTemplate.exists(any(Query.class), eq(Project.class))).thenReturn(true);
+
+        // When
+        boolean result = repository.updateTaskFields("p1", "e1", "f1", "t1", Map.of());
+
+        // Then
+        assertTrue(result);
+        verify(mongoTemplate, never()).updateFirst(any(Query.class), any(Update.class), eq(Project.class));
+    }
+
+    @Test
+    void updateTasksFields_ShouldUpdateAllTasksInOneWrite() {
+        // Given
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(Project.class)))
+                .thenReturn(UpdateResult.acknowledged(1, 1L, null));
+
+        // When
+        boolean result = repository.updateTasksFields("p1", List.of(
+                new TaskFieldUpdate("e1", "f1", "t1", Map.of("status", TaskStatus.DONE)),
+                new TaskFieldUpdate("e1", "f2", "t2", Map.of("title", "Second")),
+                new TaskFieldUpdate("e1", "f2", "t3", Map.of())));
+
+        // Then
+        assertTrue(result);
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate, times(1)).updateFirst(any(Query.class), update.capture(), eq(Project.class));
+        Document set = (Document) update.getValue().getUpdateObject().get("$set");
+        assertEquals(Map.of(
+                "epics.$[e0].features.$[f0].tasks.$[t0].status", TaskStatus.DONE,
+                "epics.$[e0].features.$[f1].tasks.$[t1].title", "Second"), set);
+        // e0, f0, f1, t0, t1; the task without fields gets no filter
+        assertEquals(5, update.getValue().getArrayFilters().size());
+        assertEquals(new Document("version", 1), update.getValue().getUpdateObject().get("$inc"));
+    }
+
+    @Test
+    void pushTask_ShouldPushIntoAddressedFeature() {
+        // Given
+        Task task = TestDataBuilder.createTestTask("New Task");
+        task.setProjectId("p1");
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(Project.class)))
+                .thenReturn(UpdateResult.acknowledged(1, 1L, null));
+
+        // When
+        boolean result = repository.pushTask("p1", "e1", "f1", task);
+
+        // Then
+        assertTrue(result);
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).updateFirst(any(Query.class), update.capture(), eq(Project.class));
+        Document push = (Document) update.getValue().getUpdateObject().get("$push");
+        assertTrue(push.containsKey("epics.$[e].features.$[f].tasks"));
+        Task pushed = (Task) push.get("epics.$[e].features.$[f].tasks");
+        assertEquals(task.getTaskId(), pushed.getTaskId());
+        assertNull(pushed.getProjectId());
+        assertEquals(List.of("e", "f"), update.getValue().getArrayFilters().stream()
+                .map(filter -> filter.asDocument().keySet().iterator().next().split("\\.")[0])
+                .toList());
+    }
+
+    @Test
+    void pullEpic_ShouldPullFromProjectEpics() {
+        // Given
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(Project.class)))
+                .thenReturn(UpdateResult.acknowledged(1, 1L, null));
+
+        // When
+        boolean result = repository.pullEpic("p1", "e1");
+
+        // Then
+        assertTrue(result);
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).updateFirst(any(Query.class), update.capture(), eq(Project.class));
+        assertTrue(((Document) update.getValue().getUpdateObject().get("$pull")).containsKey("epics"));
+        assertTrue(update.getValue().getArrayFilters().isEmpty());
+    }
+
+    @Test
+    void renameUserRefs_ShouldUpdateProjectAndEpicOwnerUsernames() {
+        // Given
+        when(mongoTemplate.updateMulti(any(Query.class), any(Update.class), eq(Project.class)))
+                .thenReturn(UpdateResult.acknowledged(1, 1L, null));
+
+        // When
+        repository.renameUserRefs("u1", "newname");
+
+        // Then
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate, times(2)).updateMulti(any(Query.class), update.capture(), eq(Project.class));
+        assertEquals(Map.of("owners.$[o].username", "newname"), update.getAllValues().get(0).getUpdateObject().get("$set"));
+        assertEquals(Map.of("epics.$[e].owner.username", "newname"), update.getAllValues().get(1).getUpdateObject().get("$set"));
+    }
+
+    @Test
+    void scrollProjects_ShouldReadOwnersPageWithKeysetOnId() {
+        // Given
+        when(mongoTemplate.scroll(any(Query.class), eq(Project.class))).thenReturn(Window.from(List.of(), i -> null));
+
+        // When
+        repository.scrollProjects("u1", ScrollPosition.keyset(), 10, List.of("title"));
+
+        // Then
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).scroll(query.capture(), eq(Project.class));
+        assertEquals(new Document("owners.userId", "u1"), query.getValue().getQueryObject());
+        assertEquals(new Document("_id", 1), query.getValue().getSortObject());
+        assertEquals(new Document("title", 1), query.getValue().getFieldsObject());
+        assertEquals(10, query.getValue().getLimit());
+    }
+}
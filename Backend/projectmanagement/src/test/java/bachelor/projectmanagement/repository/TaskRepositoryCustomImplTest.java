@@ -0,0 +1,151 @@
+package bachelor.projectmanagement.repository;
+
+import bachelor.projectmanagement.model.Task;
+import bachelor.projectmanagement.model.TaskStatus;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.client.result.UpdateResult;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TaskRepositoryCustomImplTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private BulkOperations bulk;
+
+    @InjectMocks
+    private TaskRepositoryCustomImpl repository;
+
+    @Test
+    void updateTaskFields_ShouldSetFieldsOnTaskAddressedByFullParentPath() {
+        // Given
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(Task.class)))
+                .thenReturn(UpdateResult.acknowledged(1, 1L, null));
+
+        // When
+        boolean result = repository.updateTaskFields("p1", "e1", "f1", "t1", Map.of("status", TaskStatus.DONE));
+
+        // Then
+        assertTrue(result);
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).updateFirst(query.capture(), update.capture(), eq(Task.class));
+        assertEquals(new Document("_id", "t1").append("projectId", "p1").append("epicId", "e1").append("featureId", "f1"),
+                query.getValue().getQueryObject());
+        assertEquals(new Document("status", TaskStatus.DONE), update.getValue().getUpdateObject().get("$set"));
+    }
+
+    @Test
+    void updateTaskFields_ShouldReturnFalseWhenTaskIsUnderAnotherFeature() {
+        // Given
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(Task.class)))
+                .thenReturn(UpdateResult.acknowledged(0, 0L, null));
+
+        // When
+        boolean result = repository.updateTaskFields("p1", "e1", "other", "t1", Map.of("title", "New"));
+
+        // Then
+        assertFalse(result);
+    }
+
+    @Test
+    void updateTaskFields_ShouldOnlyCheckExistenceWhenNoFieldsGiven() {
+        // Given
+        when(mongoTemplate.exists(any(Query.class), eq(Task.class))).thenReturn(true);
+
+        // When
+        boolean result = repository.updateTaskFields("p1", "e1", "f1", "t1", Map.of());
+
+        // Then
+        assertTrue(result);
+        verify(mongoTemplate, never()).updateFirst(any(Query.class), any(Update.class), eq(Task.class));
+    }
+
+    @Test
+    void updateTasksFields_ShouldSendOneBulkWriteForAllTasks() {
+        // Given
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Task.class)).thenReturn(bulk);
+        when(bulk.execute()).thenReturn(BulkWriteResult.acknowledged(0, 2, 0, 2, List.of(), List.of()));
+
+        // When
+        int found = repository.updateTasksFields("p1", List.of(
+                new TaskFieldUpdate("e1", "f1", "t1", Map.of("status", TaskStatus.DONE)),
+                new TaskFieldUpdate("e1", "f1", "t2", Map.of()),
+                new TaskFieldUpdate("e1", "f2", "t3", Map.of("title", "Renamed"))));
+
+        // Then
+        assertEquals(2, found);
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(bulk, times(2)).updateOne(query.capture(), any(Update.class));
+        assertEquals("t3", query.getAllValues().get(1).getQueryObject().get("_id"));
+        assertEquals("f2", query.getAllValues().get(1).getQueryObject().get("featureId"));
+        verify(bulk).execute();
+    }
+
+    @Test
+    void updateTasksFields_ShouldNotWriteWhenNoTaskHasFields() {
+        // Given
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Task.class)).thenReturn(bulk);
+
+        // When
+        int found = repository.updateTasksFields("p1", List.of(new TaskFieldUpdate("e1", "f1", "t1", Map.of())));
+
+        // Then
+        assertEquals(0, found);
+        verify(bulk, never()).execute();
+    }
+
+    @Test
+    void scrollByFeatureId_ShouldReadFirstPageWithKeysetOnId() {
+        // Given
+        when(mongoTemplate.scroll(any(Query.class), eq(Task.class))).thenReturn(Window.from(List.of(), i -> null));
+
+        // When
+        repository.scrollByFeatureId("f1", ScrollPosition.keyset(), 20);
+
+        // Then
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).scroll(query.capture(), eq(Task.class));
+        assertEquals(new Document("featureId", "f1"), query.getValue().getQueryObject());
+        assertEquals(new Document("_id", 1), query.getValue().getSortObject());
+        assertEquals(20, query.getValue().getLimit());
+        assertTrue(query.getValue().getKeyset().isInitial());
+    }
+
+    @Test
+    void scrollByFeatureId_ShouldContinueAfterLastTaskOfPreviousPage() {
+        // Given
+        when(mongoTemplate.scroll(any(Query.class), eq(Task.class))).thenReturn(Window.from(List.of(), i -> null));
+
+        // When
+        repository.scrollByFeatureId("f1", ScrollPosition.forward(Map.of("_id", "t20")), 20);
+
+        // Then
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).scroll(query.capture(), eq(Task.class));
+        assertEquals(Map.of("_id", "t20"), query.getValue().getKeyset().getKeys());
+        assertEquals(new Document("featureId", "f1"), query.getValue().getQueryObject());
+    }
+}
@@ -0,0 +1,152 @@
+package bachelor.projectmanagement.repository;
+
+import bachelor.projectmanagement.model.User;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.client.result.UpdateResult;
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UserRepositoryCustomImplTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @InjectMocks
+    private UserRepositoryCustomImpl repository;
+
+    @Test
+    void addProjectId_ShouldAddToSetWithoutLoadingUser() {
+        // Given
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(User.class)))
+                .thenReturn(UpdateResult.acknowledged(1, 1L, null));
+
+        // When
+        boolean result = repository.addProjectId("u1", "p1");
+
+        // Then
+        assertTrue(result);
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).updateFirst(query.capture(), update.capture(), eq(User.class));
+        assertEquals("u1", query.getValue().getQueryObject().get("_id"));
+        assertEquals(new Document("projectIds", "p1"), update.getValue().getUpdateObject().get("$addToSet"));
+        verify(mongoTemplate, never()).findById(any(), any());
+    }
+
+    @Test
+    void addProjectId_ShouldReturnFalseWhenUserMissing() {
+        // Given
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(User.class)))
+                .thenReturn(UpdateResult.acknowledged(0, 0L, null));
+
+        // When
+        boolean result = repository.addProjectId("missing", "p1");
+
+        // Then
+        assertFalse(result);
+    }
+
+    @Test
+    void removeProjectId_ShouldPullFromAllGivenUsers() {
+        // When
+        repository.removeProjectId(List.of("u1", "u2"), "p1");
+
+        // Then
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).updateMulti(any(Query.class), update.capture(), eq(User.class));
+        assertEquals(new Document("projectIds", "p1"), update.getValue().getUpdateObject().get("$pull"));
+    }
+
+    @Test
+    void removeProjectId_ShouldSkipQueryForNoUsers() {
+        // When
+        repository.removeProjectId(List.of(), "p1");
+
+        // Then
+        verifyNoInteractions(mongoTemplate);
+    }
+
+    @Test
+    void addProjectIds_ShouldUpdateAllUsersInOneBulkWrite() {
+        // Given
+        BulkOperations bulk = mock(BulkOperations.class);
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, User.class)).thenReturn(bulk);
+
+        // When
+        repository.addProjectIds(Map.of("u1", List.of("p1", "p2"), "u2", List.of("p1")));
+
+        // Then
+        verify(bulk, times(2)).updateOne(any(Query.class), any(Update.class));
+        verify(bulk, times(1)).execute();
+    }
+
+    @Test
+    void addProjectIds_ShouldSkipWriteForNoUsers() {
+        // When
+        repository.addProjectIds(Map.of());
+
+        // Then
+        verifyNoInteractions(mongoTemplate);
+    }
+
+    @Test
+    void insertUnordered_ShouldReportFailedUsersByIndex() {
+        // Given
+        BulkOperations bulk = mock(BulkOperations.class);
+        BulkOperationException failure = mock(BulkOperationException.class);
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, User.class)).thenReturn(bulk);
+        when(bulk.insert(anyList())).thenReturn(bulk);
+        when(bulk.execute()).thenThrow(failure);
+        when(failure.getErrors()).thenReturn(List.of(
+                new BulkWriteError(11000, "E11000 duplicate key", new BsonDocument(), 1)));
+
+        // When
+        Map<Integer, String> failed = repository.insertUnordered(List.of(new User("a", "h"), new User("b", "h")));
+
+        // Then
+        assertEquals(Map.of(1, "Username already exists"), failed);
+    }
+
+    @Test
+    void scrollUsers_ShouldReadPageWithKeysetOnUsername() {
+        // Given
+        when(mongoTemplate.scroll(any(Query.class), eq(User.class))).thenReturn(Window.from(List.of(), i -> null));
+        KeysetScrollPosition position = ScrollPosition.forward(Map.of("username", "alice"));
+
+        // When
+        repository.scrollUsers(true, position, 20);
+
+        // Then
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).scroll(query.capture(), eq(User.class));
+        assertEquals(new Document("role", new Document("$ne", "SUPERADMIN")), query.getValue().getQueryObject());
+        assertEquals(new Document("username", 1), query.getValue().getSortObject());
+        assertEquals(20, query.getValue().getLimit());
+        assertSame(position, query.getValue().getKeyset());
+        assertEquals(0, query.getValue().getSkip());
+    }
+}
@@ -0,0 +1,93 @@
+package bachelor.projectmanagement.repository;
+
+import bachelor.projectmanagement.model.User;
+import com.mongodb.MongoClientSettings;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.DbCallback;
+import org.springframework.data.mongodb.core.ExecutableFindOperation;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.repository.support.MongoRepositoryFactory;
+import org.springframework.data.repository.core.support.RepositoryComposition.RepositoryFragments;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Runs the derived queries of UserRepository through Spring Data and checks the query they send
+ */
+@ExtendWith(MockitoExtension.class)
+class UserRepositoryTest {
+
+    private static final Document PRINCIPAL_FIELDS = new Document("username", 1).append("role", 1);
+
+    @Mock
+    private MongoOperations mongoOperations;
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    private ExecutableFindOperation.ExecutableFind<User> find;
+
+    private UserRepository userRepository;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        MongoMappingContext mappingContext = new MongoMappingContext();
+        when(mongoOperations.getConverter()).thenReturn(new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, mappingContext));
+        // @Query strings are parsed with the database's codecs
+        lenient().when(mongoOperations.execute(any(DbCallback.class))).thenReturn(MongoClientSettings.getDefaultCodecRegistry());
+        // Every step of the fluent find returns the same mock, matching(query) is where the query arrives
+        find = mock(ExecutableFindOperation.ExecutableFind.class, RETURNS_SELF);
+        when(mongoOperations.query(any())).thenReturn((ExecutableFindOperation.ExecutableFind) find);
+        userRepository = new MongoRepositoryFactory(mongoOperations)
+                .getRepository(UserRepository.class, RepositoryFragments.just(new UserRepositoryCustomImpl(mongoTemplate)));
+    }
+
+    @Test
+    void findPrincipalByUsername_ShouldOnlyLoadUsernameAndRole() {
+        // Given
+        doReturn(null).when(find).oneValue();
+
+        // When
+        userRepository.findPrincipalByUsername("alice");
+
+        // Then
+        Query query = capturedQuery();
+        assertEquals(new Document("username", "alice"), query.getQueryObject());
+        assertEquals(PRINCIPAL_FIELDS, query.getFieldsObject());
+    }
+
+    @Test
+    void findPrincipalsByUsernameIn_ShouldOnlyLoadUsernameAndRole() {
+        // Given
+        doReturn(List.of()).when(find).all();
+
+        // When
+        userRepository.findPrincipalsByUsernameIn(Set.of("alice"));
+
+        // Then
+        assertEquals(PRINCIPAL_FIELDS, capturedQuery().getFieldsObject());
+    }
+
+    private Query capturedQuery() {
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(find).matching(query.capture());
+        return query.getValue();
+    }
+}
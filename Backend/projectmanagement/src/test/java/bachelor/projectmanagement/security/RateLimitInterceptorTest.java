@@ -9,6 +9,8 @@ import org.springframework.security.authentication.UsernamePasswordAuthenticatio
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
 
 import java.util.List;
 
@@ -258,6 +260,31 @@ class RateLimitInterceptorTest {
         assertTrue(exception.getMessage().contains("60 seconds"));
     }
 
+    @Test
+    void consumeAdditionalTokens_ShouldChargeTheBucketOfTheCurrentRequest() {
+        // Given
+        setupAuthenticatedUser("testuser", "USER");
+        rateLimitInterceptor.preHandle(request, response, null);
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+        try {
+            // When
+            rateLimitInterceptor.consumeAdditionalTokens(49);
+
+            // Then - 100 - 1 - 49 left, so an expensive query for 51 more is rejected
+            assertThrows(RateLimitExceededException.class, () -> rateLimitInterceptor.consumeAdditionalTokens(51));
+            rateLimitInterceptor.consumeAdditionalTokens(50);
+            assertThrows(RateLimitExceededException.class, () -> rateLimitInterceptor.preHandle(request, response, null));
+        } finally {
+            RequestContextHolder.resetRequestAttributes();
+        }
+    }
+
+    @Test
+    void consumeAdditionalTokens_ShouldDoNothingOutsideOfARequest() {
+        // When & Then
+        assertDoesNotThrow(() -> rateLimitInterceptor.consumeAdditionalTokens(1000));
+    }
+
     private void setupAuthenticatedUser(String username, String role) {
         Authentication auth = new UsernamePasswordAuthenticationToken(
             username, 
@@ -22,6 +22,9 @@ class CourseLevelConfigServiceTest {
     @Mock
     private CourseLevelConfigRepository configRepository;
 
+    @Mock
+    private ProjectTemplateCache templateCache;
+
     @InjectMocks
     private CourseLevelConfigService configService;
 
@@ -54,30 +57,28 @@ class CourseLevelConfigServiceTest {
     @Test
     void getConfig_ShouldReturnConfigWhenExists() {
         // Given
-        when(configRepository.findAllByCourseLevel(TEST_COURSE_LEVEL))
-                .thenReturn(List.of(testConfig));
+        when(configRepository.findAll()).thenReturn(List.of(testConfig));
 
         // When
         Optional<CourseLevelConfig> result = configService.getConfig(TEST_COURSE_LEVEL);
 
         // Then
         assertTrue(result.isPresent());
-        assertEquals(testConfig, result.get());
-        verify(configRepository).findAllByCourseLevel(TEST_COURSE_LEVEL);
+        assertEquals(testConfig.getId(), result.get().getId());
+        verify(configRepository).findAll();
     }
 
     @Test
     void getConfig_ShouldReturnEmptyWhenNotExists() {
         // Given
-        when(configRepository.findAllByCourseLevel(TEST_COURSE_LEVEL))
-                .thenReturn(Collections.emptyList());
+        when(configRepository.findAll()).thenReturn(Collections.emptyList());
 
         // When
         Optional<CourseLevelConfig> result = configService.getConfig(TEST_COURSE_LEVEL);
 
         // Then
         assertFalse(result.isPresent());
-        verify(configRepository).findAllByCourseLevel(TEST_COURSE_LEVEL);
+        verify(configRepository, never()).insertIfAbsent(any(CourseLevelConfig.class));
     }
 
     @Test
@@ -85,39 +86,36 @@ class CourseLevelConfigServiceTest {
         // Given
         CourseLevelConfig config1 = createTestConfig(TEST_COURSE_LEVEL);
         CourseLevelConfig config2 = createTestConfig(TEST_COURSE_LEVEL);
-        when(configRepository.findAllByCourseLevel(TEST_COURSE_LEVEL))
-                .thenReturn(List.of(config1, config2));
+        when(configRepository.findAll()).thenReturn(List.of(config1, config2));
 
         // When
         Optional<CourseLevelConfig> result = configService.getConfig(TEST_COURSE_LEVEL);
 
         // Then
         assertTrue(result.isPresent());
-        assertEquals(config1, result.get());
+        assertEquals(config1.getId(), result.get().getId());
     }
 
     @Test
     void getConfigOrDefault_ShouldReturnExistingConfig() {
         // Given
-        when(configRepository.findAllByCourseLevel(TEST_COURSE_LEVEL))
-                .thenReturn(List.of(testConfig));
+        when(configRepository.findAll()).thenReturn(List.of(testConfig));
 
         // When
         CourseLevelConfig result = configService.getConfigOrDefault(TEST_COURSE_LEVEL);
 
         // Then
         assertNotNull(result);
-        assertEquals(testConfig, result);
-        verify(configRepository).findAllByCourseLevel(TEST_COURSE_LEVEL);
+        assertEquals(testConfig.getId(), result.getId());
         verify(configRepository, never()).save(any(CourseLevelConfig.class));
+        verify(configRepository, never()).insertIfAbsent(any(CourseLevelConfig.class));
     }
 
     @Test
     void getConfigOrDefault_ShouldCreateDefaultWhenNotExists() {
         // Given
-        when(configRepository.findAllByCourseLevel(TEST_COURSE_LEVEL))
-                .thenReturn(Collections.emptyList());
-        when(configRepository.save(any(CourseLevelConfig.class)))
+        when(configRepository.findAll()).thenReturn(Collections.emptyList());
+        when(configRepository.insertIfAbsent(any(CourseLevelConfig.class)))
                 .thenAnswer(invocation -> invocation.getArgument(0));
 
         // When
@@ -132,30 +130,97 @@ class CourseLevelConfigServiceTest {
         assertTrue(result.isTaskCreateDeleteEnabled());
         assertNotNull(result.getCreatedAt());
         assertNotNull(result.getUpdatedAt());
-        verify(configRepository, atLeast(2)).findAllByCourseLevel(TEST_COURSE_LEVEL);
-        verify(configRepository).save(any(CourseLevelConfig.class));
+        verify(configRepository).insertIfAbsent(any(CourseLevelConfig.class));
+        verify(configRepository, never()).save(any(CourseLevelConfig.class));
     }
 
     @Test
-    void getConfigOrDefault_ShouldMigrateOldConfigWithMissingFeatures() {
-        // Given - Create config with missing features
-        testConfig.getFeatures().clear();
-        testConfig.getFeatures().put(CourseLevelConfig.TASK_USER_ASSIGNMENT, true);
-        
-        when(configRepository.findAllByCourseLevel(TEST_COURSE_LEVEL))
-                .thenReturn(List.of(testConfig));
+    void getConfigOrDefault_ShouldCreateDefaultOnlyOnce() {
+        // Given
+        when(configRepository.findAll()).thenReturn(Collections.emptyList());
+        when(configRepository.insertIfAbsent(any(CourseLevelConfig.class)))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+
+        // When
+        configService.getConfigOrDefault(TEST_COURSE_LEVEL);
+        configService.getConfigOrDefault(TEST_COURSE_LEVEL);
+
+        // Then
+        verify(configRepository, times(1)).insertIfAbsent(any(CourseLevelConfig.class));
+    }
+
+    @Test
+    void getConfigOrDefault_ShouldReturnCopyThatDoesNotChangeSnapshot() {
+        // Given
+        when(configRepository.findAll()).thenReturn(List.of(testConfig));
+
+        // When
+        configService.getConfigOrDefault(TEST_COURSE_LEVEL).setFeature(CourseLevelConfig.TASK_USER_ASSIGNMENT, false);
+
+        // Then
+        assertTrue(configService.isTaskUserAssignmentEnabled(TEST_COURSE_LEVEL));
+    }
+
+    @Test
+    void isTaskUserAssignmentEnabled_ShouldNotQueryDatabaseAfterFirstLoad() {
+        // Given
+        when(configRepository.findAll()).thenReturn(List.of(testConfig));
+
+        // When
+        for (int i = 0; i < 5; i++) {
+            configService.isTaskUserAssignmentEnabled(TEST_COURSE_LEVEL);
+            configService.isTaskDueDateEnabled(TEST_COURSE_LEVEL);
+        }
+
+        // Then
+        verify(configRepository, times(1)).findAll();
+        verifyNoMoreInteractions(configRepository);
+    }
+
+    @Test
+    void saveConfig_ShouldReplaceConfigInSnapshot() {
+        // Given
+        when(configRepository.findAll()).thenReturn(List.of(testConfig));
         when(configRepository.save(any(CourseLevelConfig.class)))
                 .thenAnswer(invocation -> invocation.getArgument(0));
+        CourseLevelConfig config = configService.getConfigOrDefault(TEST_COURSE_LEVEL);
+        config.setTaskUserAssignmentEnabled(false);
 
         // When
-        CourseLevelConfig result = configService.getConfigOrDefault(TEST_COURSE_LEVEL);
+        configService.saveConfig(config);
 
         // Then
-        assertNotNull(result);
-        assertTrue(result.getFeatures().containsKey(CourseLevelConfig.EPIC_CREATE_DELETE));
-        assertTrue(result.getFeatures().containsKey(CourseLevelConfig.FEATURE_CREATE_DELETE));
-        assertTrue(result.getFeatures().containsKey(CourseLevelConfig.TASK_CREATE_DELETE));
-        verify(configRepository).save(testConfig);
+        assertFalse(configService.isTaskUserAssignmentEnabled(TEST_COURSE_LEVEL));
+        verify(configRepository, times(1)).findAll();
+    }
+
+    @Test
+    void deleteConfig_ShouldRemoveConfigFromSnapshot() {
+        // Given
+        when(configRepository.findAll()).thenReturn(List.of(testConfig));
+        when(configRepository.findAllByCourseLevel(TEST_COURSE_LEVEL)).thenReturn(List.of(testConfig));
+        configService.getConfigOrDefault(TEST_COURSE_LEVEL);
+
+        // When
+        configService.deleteConfig(TEST_COURSE_LEVEL);
+
+        // Then
+        assertTrue(configService.getConfig(TEST_COURSE_LEVEL).isEmpty());
+    }
+
+    @Test
+    void refresh_ShouldKeepSnapshotWhenReloadFails() {
+        // Given
+        when(configRepository.findAll())
+                .thenReturn(List.of(testConfig))
+                .thenThrow(new RuntimeException("Database down"));
+        configService.getConfigOrDefault(TEST_COURSE_LEVEL);
+
+        // When
+        configService.refresh();
+
+        // Then
+        assertTrue(configService.getConfig(TEST_COURSE_LEVEL).isPresent());
     }
 
     @Test
@@ -170,12 +235,13 @@ class CourseLevelConfigServiceTest {
         assertNotNull(result);
         assertEquals(testConfig, result);
         verify(configRepository).save(testConfig);
+        verify(templateCache).invalidate();
     }
 
     @Test
     void updateFeature_ShouldUpdateFeatureSuccessfully() {
         // Given
-        when(configRepository.findAllByCourseLevel(TEST_COURSE_LEVEL))
+        when(configRepository.findAll())
                 .thenReturn(List.of(testConfig));
         when(configRepository.save(any(CourseLevelConfig.class)))
                 .thenAnswer(invocation -> invocation.getArgument(0));
@@ -193,8 +259,10 @@ class CourseLevelConfigServiceTest {
     @Test
     void updateFeature_ShouldCreateDefaultIfNotExists() {
         // Given
-        when(configRepository.findAllByCourseLevel(TEST_COURSE_LEVEL))
+        when(configRepository.findAll())
                 .thenReturn(Collections.emptyList());
+        when(configRepository.insertIfAbsent(any(CourseLevelConfig.class)))
+                .thenAnswer(invocation -> invocation.getArgument(0));
         when(configRepository.save(any(CourseLevelConfig.class)))
                 .thenAnswer(invocation -> invocation.getArgument(0));
 
@@ -205,14 +273,15 @@ class CourseLevelConfigServiceTest {
         // Then
         assertNotNull(result);
         assertFalse(result.isTaskUserAssignmentEnabled());
-        // Should save twice: once for creating default, once for updating feature
-        verify(configRepository, times(2)).save(any(CourseLevelConfig.class));
+        // The default is created with an upsert, then the feature is saved
+        verify(configRepository).insertIfAbsent(any(CourseLevelConfig.class));
+        verify(configRepository, times(1)).save(any(CourseLevelConfig.class));
     }
 
     @Test
     void updateTaskUserAssignment_ShouldEnableFeature() {
         // Given
-        when(configRepository.findAllByCourseLevel(TEST_COURSE_LEVEL))
+        when(configRepository.findAll())
                 .thenReturn(List.of(testConfig));
         when(configRepository.save(any(CourseLevelConfig.class)))
                 .thenAnswer(invocation -> invocation.getArgument(0));
@@ -229,7 +298,7 @@ class CourseLevelConfigServiceTest {
     @Test
     void updateTaskUserAssignment_ShouldDisableFeature() {
         // Given
-        when(configRepository.findAllByCourseLevel(TEST_COURSE_LEVEL))
+        when(configRepository.findAll())
                 .thenReturn(List.of(testConfig));
         when(configRepository.save(any(CourseLevelConfig.class)))
                 .thenAnswer(invocation -> invocation.getArgument(0));
@@ -246,7 +315,7 @@ class CourseLevelConfigServiceTest {
     @Test
     void isTaskUserAssignmentEnabled_ShouldReturnTrueWhenEnabled() {
         // Given
-        when(configRepository.findAllByCourseLevel(TEST_COURSE_LEVEL))
+        when(configRepository.findAll())
                 .thenReturn(List.of(testConfig));
 
         // When
@@ -260,7 +329,7 @@ class CourseLevelConfigServiceTest {
     void isTaskUserAssignmentEnabled_ShouldReturnFalseWhenDisabled() {
         // Given
         testConfig.setFeature(CourseLevelConfig.TASK_USER_ASSIGNMENT, false);
-        when(configRepository.findAllByCourseLevel(TEST_COURSE_LEVEL))
+        when(configRepository.findAll())
                 .thenReturn(List.of(testConfig));
 
         // When
@@ -284,8 +353,8 @@ class CourseLevelConfigServiceTest {
         // Then
         assertNotNull(result);
         assertEquals(2, result.size());
-        assertTrue(result.contains(config1));
-        assertTrue(result.contains(config2));
+        assertEquals(List.of(config1.getId(), config2.getId()),
+                result.stream().map(CourseLevelConfig::getId).toList());
         verify(configRepository).findAll();
     }
 
@@ -301,6 +370,7 @@ class CourseLevelConfigServiceTest {
         // Then
         verify(configRepository).findAllByCourseLevel(TEST_COURSE_LEVEL);
         verify(configRepository).delete(testConfig);
+        verify(templateCache).invalidate();
     }
 
     @Test
@@ -336,7 +406,7 @@ class CourseLevelConfigServiceTest {
     @Test
     void updateCreateDeletePermissions_ShouldUpdateEpicPermission() {
         // Given
-        when(configRepository.findAllByCourseLevel(TEST_COURSE_LEVEL))
+        when(configRepository.findAll())
                 .thenReturn(List.of(testConfig));
         when(configRepository.save(any(CourseLevelConfig.class)))
                 .thenAnswer(invocation -> invocation.getArgument(0));
@@ -354,7 +424,7 @@ class CourseLevelConfigServiceTest {
     @Test
     void updateCreateDeletePermissions_ShouldUpdateFeaturePermission() {
         // Given
-        when(configRepository.findAllByCourseLevel(TEST_COURSE_LEVEL))
+        when(configRepository.findAll())
                 .thenReturn(List.of(testConfig));
         when(configRepository.save(any(CourseLevelConfig.class)))
                 .thenAnswer(invocation -> invocation.getArgument(0));
@@ -372,7 +442,7 @@ class CourseLevelConfigServiceTest {
     @Test
     void updateCreateDeletePermissions_ShouldUpdateTaskPermission() {
         // Given
-        when(configRepository.findAllByCourseLevel(TEST_COURSE_LEVEL))
+        when(configRepository.findAll())
                 .thenReturn(List.of(testConfig));
         when(configRepository.save(any(CourseLevelConfig.class)))
                 .thenAnswer(invocation -> invocation.getArgument(0));
@@ -387,22 +457,12 @@ class CourseLevelConfigServiceTest {
         verify(configRepository).save(any(CourseLevelConfig.class));
     }
 
-    @Test
-    void cleanupDuplicateConfigs_ShouldNotExecuteInTests() {
-        // Given - PostConstruct methods are not called in unit tests
-        // This test documents that cleanupDuplicateConfigs is a PostConstruct method
-        // and verifies that the repository is not called during test initialization
-
-        // Then - No repository calls should have been made during setUp
-        verifyNoInteractions(configRepository);
-    }
-
     @Test
     void defaultConfig_ShouldHaveAllFeaturesEnabled() {
         // Given
-        when(configRepository.findAllByCourseLevel(TEST_COURSE_LEVEL))
+        when(configRepository.findAll())
                 .thenReturn(Collections.emptyList());
-        when(configRepository.save(any(CourseLevelConfig.class)))
+        when(configRepository.insertIfAbsent(any(CourseLevelConfig.class)))
                 .thenAnswer(invocation -> invocation.getArgument(0));
 
         // When
@@ -418,9 +478,9 @@ class CourseLevelConfigServiceTest {
     @Test
     void getConfigOrDefault_ShouldSetTimestamps() {
         // Given
-        when(configRepository.findAllByCourseLevel(TEST_COURSE_LEVEL))
+        when(configRepository.findAll())
                 .thenReturn(Collections.emptyList());
-        when(configRepository.save(any(CourseLevelConfig.class)))
+        when(configRepository.insertIfAbsent(any(CourseLevelConfig.class)))
                 .thenAnswer(invocation -> invocation.getArgument(0));
 
         // When
@@ -434,7 +494,7 @@ class CourseLevelConfigServiceTest {
     @Test
     void updateFeature_ShouldPreserveOtherFeatures() {
         // Given
-        when(configRepository.findAllByCourseLevel(TEST_COURSE_LEVEL))
+        when(configRepository.findAll())
                 .thenReturn(List.of(testConfig));
         when(configRepository.save(any(CourseLevelConfig.class)))
                 .thenAnswer(invocation -> invocation.getArgument(0));
@@ -0,0 +1,42 @@
+package bachelor.projectmanagement.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InProcessProjectEventBusTest {
+
+    @Test
+    void publish_ShouldDeliverToListenersWithIncreasingIds() {
+        // Given
+        InProcessProjectEventBus eventBus = new InProcessProjectEventBus();
+        List<ProjectEvent> received = new ArrayList<>();
+        eventBus.subscribe(received::add);
+        long position = eventBus.position();
+
+        // When
+        eventBus.publish("project-1", "taskDeleted", "{\"taskId\":\"t1\"}");
+        eventBus.publish("project-2", "epicDeleted", "{}");
+
+        // Then
+        assertEquals(2, received.size());
+        assertEquals(new ProjectEvent(position + 1, "project-1", "taskDeleted", "{\"taskId\":\"t1\"}"), received.get(0));
+        assertEquals(position + 2, received.get(1).id());
+        assertEquals(position + 2, eventBus.position());
+    }
+
+    @Test
+    void position_ShouldStartFromStartupTime() {
+        // Given
+        long before = System.currentTimeMillis() * 1000;
+
+        // When
+        InProcessProjectEventBus eventBus = new InProcessProjectEventBus();
+
+        // Then - ids from before a restart are lower than anything handed out now
+        assertTrue(eventBus.position() >= before);
+    }
+}
@@ -0,0 +1,122 @@
+package bachelor.projectmanagement.service;
+
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.BsonTimestamp;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.scheduling.TaskScheduler;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MongoProjectEventBusTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private MongoCollection<Document> collection;
+
+    @Mock
+    private ChangeStreamDocument<Document> change;
+
+    @Test
+    void publish_ShouldInsertEventIntoCollection() {
+        // Given
+        MongoProjectEventBus eventBus = new MongoProjectEventBus(mongoTemplate, 1024);
+        when(mongoTemplate.getCollection(MongoProjectEventBus.COLLECTION)).thenReturn(collection);
+
+        // When
+        eventBus.publish("project-1", "taskDeleted", "{\"taskId\":\"t1\"}");
+
+        // Then
+        ArgumentCaptor<Document> inserted = ArgumentCaptor.forClass(Document.class);
+        verify(collection).insertOne(inserted.capture());
+        assertEquals("project-1", inserted.getValue().getString("projectId"));
+        assertEquals("taskDeleted", inserted.getValue().getString("name"));
+        assertEquals("{\"taskId\":\"t1\"}", inserted.getValue().getString("data"));
+    }
+
+    @Test
+    void deliver_ShouldUseClusterTimeAsEventId() {
+        // Given
+        MongoProjectEventBus eventBus = new MongoProjectEventBus(mongoTemplate, 1024);
+        List<ProjectEvent> received = new ArrayList<>();
+        eventBus.subscribe(received::add);
+        BsonTimestamp clusterTime = new BsonTimestamp(1_700_000_000, 3);
+        when(change.getClusterTime()).thenReturn(clusterTime);
+        when(change.getFullDocument()).thenReturn(new Document("projectId", "project-1")
+                .append("name", "taskDeleted")
+                .append("data", "{}"));
+
+        // When
+        eventBus.deliver(change);
+
+        // Then
+        assertEquals(List.of(new ProjectEvent(clusterTime.getValue(), "project-1", "taskDeleted", "{}")), received);
+        assertEquals(clusterTime.getValue(), eventBus.position());
+    }
+
+    @Test
+    void deliver_ShouldKeepDeliveringWhenListenerFails() {
+        // Given
+        MongoProjectEventBus eventBus = new MongoProjectEventBus(mongoTemplate, 1024);
+        List<ProjectEvent> received = new ArrayList<>();
+        eventBus.subscribe(event -> {
+            throw new RuntimeException("Listener failed");
+        });
+        eventBus.subscribe(received::add);
+        when(change.getClusterTime()).thenReturn(new BsonTimestamp(1_700_000_000, 1));
+        when(change.getFullDocument()).thenReturn(new Document("projectId", "project-1")
+                .append("name", "taskDeleted")
+                .append("data", "{}"));
+
+        // When
+        eventBus.deliver(change);
+
+        // Then
+        assertEquals(1, received.size());
+    }
+
+    @Test
+    void deliver_ShouldResyncClientSubscribingWhileEventIsSkipped() {
+        // Given - the client saw the first event, then disconnected, and nobody here follows the project
+        MongoProjectEventBus eventBus = new MongoProjectEventBus(mongoTemplate, 1024);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        SSEService sseService = new SSEService(registry, Runnable::run, mock(TaskScheduler.class),
+                new SseHeartbeatWheel(new SimpleMeterRegistry(), 15000, 1000), eventBus, 256, 0, 128, 600000);
+        BsonTimestamp seen = new BsonTimestamp(1_700_000_000, 1);
+        eventBus.deliver(change(seen));
+
+        // The client reconnects right after SSEService skipped the next event, before deliver returns
+        eventBus.subscribe(event -> sseService.createEmitter("project-1", String.valueOf(seen.getValue())));
+
+        // When
+        eventBus.deliver(change(new BsonTimestamp(1_700_000_000, 2)));
+
+        // Then - the skipped event is not in the replay log, so the client has to reload
+        assertEquals(1.0, registry.get("sse.resumes").tag("outcome", "resync").counter().count());
+        assertEquals(0.0, registry.get("sse.resumes").tag("outcome", "replayed").counter().count());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ChangeStreamDocument<Document> change(BsonTimestamp clusterTime) {
+        ChangeStreamDocument<Document> change = mock(ChangeStreamDocument.class);
+        when(change.getClusterTime()).thenReturn(clusterTime);
+        when(change.getFullDocument()).thenReturn(new Document("projectId", "project-1")
+                .append("name", "taskDeleted")
+                .append("data", "{}"));
+        return change;
+    }
+}
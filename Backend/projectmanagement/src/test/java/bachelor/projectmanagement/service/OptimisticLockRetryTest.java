@@ -0,0 +1,87 @@
+package bachelor.projectmanagement.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.OptimisticLockingFailureException;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OptimisticLockRetryTest {
+
+    private OptimisticLockRetry retry;
+
+    @BeforeEach
+    void setUp() {
+        retry = new OptimisticLockRetry(new SimpleMeterRegistry(), 3, 1, 2);
+    }
+
+    @Test
+    void execute_ShouldReturnResultWithoutRetryWhenNoConflict() {
+        // When
+        String result = retry.execute("test", () -> "done");
+
+        // Then
+        assertEquals("done", result);
+        assertEquals(0.0, retry.getConflictCount());
+        assertEquals(0.0, retry.getRetryCount());
+    }
+
+    @Test
+    void execute_ShouldRetryUntilSuccess() {
+        // Given
+        AtomicInteger attempts = new AtomicInteger();
+
+        // When
+        String result = retry.execute("test", () -> {
+            if (attempts.incrementAndGet() < 3) {
+                throw new OptimisticLockingFailureException("conflict");
+            }
+            return "done";
+        });
+
+        // Then
+        assertEquals("done", result);
+        assertEquals(3, attempts.get());
+        assertEquals(2.0, retry.getConflictCount());
+        assertEquals(2.0, retry.getRetryCount());
+        assertEquals(0.0, retry.getExhaustedCount());
+    }
+
+    @Test
+    void execute_ShouldGiveUpAfterMaxAttempts() {
+        // Given
+        AtomicInteger attempts = new AtomicInteger();
+
+        // When & Then
+        assertThrows(OptimisticLockingFailureException.class, () -> retry.execute("test", () -> {
+            attempts.incrementAndGet();
+            throw new OptimisticLockingFailureException("conflict");
+        }));
+        assertEquals(3, attempts.get());
+        assertEquals(3.0, retry.getConflictCount());
+        assertEquals(1.0, retry.getExhaustedCount());
+    }
+
+    @Test
+    void execute_ShouldNotRetryOtherExceptions() {
+        // Given
+        AtomicInteger attempts = new AtomicInteger();
+
+        // When & Then
+        assertThrows(IllegalStateException.class, () -> retry.execute("test", () -> {
+            attempts.incrementAndGet();
+            throw new IllegalStateException("boom");
+        }));
+        assertEquals(1, attempts.get());
+        assertEquals(0.0, retry.getConflictCount());
+    }
+
+    @Test
+    void constructor_ShouldRejectInvalidMaxAttempts() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new OptimisticLockRetry(new SimpleMeterRegistry(), 0, 1, 1));
+    }
+}
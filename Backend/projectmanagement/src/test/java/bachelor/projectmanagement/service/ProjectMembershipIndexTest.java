@@ -0,0 +1,129 @@
+package bachelor.projectmanagement.service;
+
+import bachelor.projectmanagement.model.Project;
+import bachelor.projectmanagement.model.User;
+import bachelor.projectmanagement.util.TestDataBuilder;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ProjectMembershipIndexTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    private ProjectMembershipIndex index;
+    private Project project;
+
+    @BeforeEach
+    void setUp() {
+        index = new ProjectMembershipIndex(mongoTemplate, new SimpleMeterRegistry());
+        User alice = TestDataBuilder.createTestUser("alice");
+        project = TestDataBuilder.createTestProject("Project", alice);
+        project.setProjectId("p1");
+    }
+
+    @Test
+    void reload_ShouldIndexOwnersFromDatabase() {
+        // Given
+        when(mongoTemplate.find(any(Query.class), eq(Project.class))).thenReturn(List.of(project));
+
+        // When
+        index.reload();
+
+        // Then
+        assertTrue(index.isLoaded());
+        assertTrue(index.isMember("p1", "alice"));
+        assertFalse(index.isMember("p1", "bob"));
+        assertEquals(Set.of("p1"), index.projectsOf("alice"));
+        assertEquals(2, index.getHitCount());
+        assertEquals(1, index.getMissCount());
+    }
+
+    @Test
+    void isLoaded_ShouldBeFalseBeforeFirstLoad() {
+        // Then
+        assertFalse(index.isLoaded());
+        assertFalse(index.isMember("p1", "alice"));
+    }
+
+    @Test
+    void addAndRemoveMember_ShouldUpdateBothDirections() {
+        // When
+        index.addMember("p1", "bob");
+        index.addMember("p2", "bob");
+        index.removeMember("p1", "bob");
+
+        // Then
+        assertFalse(index.isMember("p1", "bob"));
+        assertTrue(index.isMember("p2", "bob"));
+        assertEquals(Set.of("p2"), index.projectsOf("bob"));
+    }
+
+    @Test
+    void removeProject_ShouldDropItFromEveryMember() {
+        // Given
+        index.addMember("p1", "alice");
+        index.addMember("p1", "bob");
+
+        // When
+        index.removeProject("p1");
+
+        // Then
+        assertTrue(index.projectsOf("alice").isEmpty());
+        assertTrue(index.projectsOf("bob").isEmpty());
+    }
+
+    @Test
+    void renameUser_ShouldMoveMemberships() {
+        // Given
+        index.addMember("p1", "alice");
+
+        // When
+        index.renameUser("alice", "alicia");
+
+        // Then
+        assertFalse(index.isMember("p1", "alice"));
+        assertTrue(index.isMember("p1", "alicia"));
+    }
+
+    @Test
+    void reload_ShouldKeepChangesMadeWhileLoading() {
+        // Given - a member is added after the database was read but before the new state is swapped in
+        when(mongoTemplate.find(any(Query.class), eq(Project.class))).thenAnswer(invocation -> {
+            index.addMember("p2", "bob");
+            return List.of(project);
+        });
+
+        // When
+        index.reload();
+
+        // Then
+        assertTrue(index.isMember("p1", "alice"));
+        assertTrue(index.isMember("p2", "bob"));
+    }
+
+    @Test
+    void recordStale_ShouldCountAndCorrectEntry() {
+        // When
+        index.recordStale("p1", "bob", true);
+
+        // Then
+        assertEquals(1, index.getStaleCount());
+        assertTrue(index.isMember("p1", "bob"));
+    }
+}
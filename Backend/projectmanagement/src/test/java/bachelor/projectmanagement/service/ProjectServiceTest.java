@@ -2,20 +2,41 @@ package bachelor.projectmanagement.service;
 
 import bachelor.projectmanagement.model.*;
 import bachelor.projectmanagement.repository.ProjectRepository;
+import bachelor.projectmanagement.repository.TaskRepository;
 import bachelor.projectmanagement.repository.UserRepository;
 import bachelor.projectmanagement.util.TestDataBuilder;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Executor;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyMap;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -27,6 +48,27 @@ class ProjectServiceTest {
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private TaskRepository taskRepository;
+
+    @Mock
+    private ProjectMembershipIndex membershipIndex;
+
+    @Mock
+    private CourseLevelConfigService courseLevelConfigService;
+
+    @Spy
+    private ProjectTemplateCache templateCache = new ProjectTemplateCache(600000);
+
+    @Spy
+    private ProjectUnitOfWork unitOfWork = new ProjectUnitOfWork();
+
+    @Spy
+    private OptimisticLockRetry optimisticLockRetry = new OptimisticLockRetry(new SimpleMeterRegistry(), 3, 0, 0);
+
+    @Spy
+    private Executor fetchExecutor = new SyncTaskExecutor();
+
     @InjectMocks
     private ProjectService projectService;
 
@@ -49,9 +91,8 @@ class ProjectServiceTest {
     void createProject_ShouldCreateProjectSuccessfully() {
         // Given
         Project newProject = TestDataBuilder.createTestProject("New Project", testUser);
-        when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(testUser));
+        when(userRepository.findPrincipalByUsername("testuser")).thenReturn(Optional.of(testUser));
         when(projectRepository.save(any(Project.class))).thenReturn(newProject);
-        when(userRepository.save(any(User.class))).thenReturn(testUser);
 
         // When
         Project result = projectService.createProject(newProject, "testuser");
@@ -59,16 +100,17 @@ class ProjectServiceTest {
         // Then
         assertNotNull(result);
         assertEquals("New Project", result.getTitle());
-        assertTrue(result.getOwners().contains(testUser));
+        assertTrue(result.hasOwner(testUser.getId()));
         verify(projectRepository).save(any(Project.class));
-        verify(userRepository).save(any(User.class));
+        verify(userRepository).addProjectId(testUser.getId(), newProject.getProjectId());
+        verify(userRepository, never()).save(any(User.class));
     }
 
     @Test
     void createProject_ShouldThrowExceptionWhenUserNotFound() {
         // Given
         Project newProject = TestDataBuilder.createTestProject();
-        when(userRepository.findByUsername("nonexistent")).thenReturn(Optional.empty());
+        when(userRepository.findPrincipalByUsername("nonexistent")).thenReturn(Optional.empty());
 
         // When & Then
         assertThrows(RuntimeException.class, () -> 
@@ -80,7 +122,7 @@ class ProjectServiceTest {
     void getProjectsByUsername_ShouldReturnUserProjects() {
         // Given
         List<Project> projects = List.of(testProject);
-        when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(testUser));
+        when(userRepository.findPrincipalByUsername("testuser")).thenReturn(Optional.of(testUser));
         when(projectRepository.findByOwnersContaining(testUser.getId())).thenReturn(projects);
 
         // When
@@ -95,7 +137,7 @@ class ProjectServiceTest {
     @Test
     void getProjectsByUsername_ShouldHandleEmptyResult() {
         // Given - Mock that user doesn't exist
-        when(userRepository.findByUsername("nonexistent")).thenReturn(Optional.empty());
+        when(userRepository.findPrincipalByUsername("nonexistent")).thenReturn(Optional.empty());
 
         // When
         List<Project> result = projectService.getProjectsByUsername("nonexistent");
@@ -108,8 +150,7 @@ class ProjectServiceTest {
     @Test
     void addEpicToProject_ShouldAddEpicSuccessfully() {
         // Given
-        when(projectRepository.findById(testProject.getProjectId())).thenReturn(Optional.of(testProject));
-        when(projectRepository.save(any(Project.class))).thenReturn(testProject);
+        when(projectRepository.pushEpic(testProject.getProjectId(), testEpic)).thenReturn(true);
 
         // When
         Epic result = projectService.addEpicToProject(testProject.getProjectId(), testEpic);
@@ -118,13 +159,14 @@ class ProjectServiceTest {
         assertNotNull(result);
         assertEquals(testEpic.getTitle(), result.getTitle());
         assertNotNull(result.getEpicId());
-        verify(projectRepository).save(testProject);
+        verify(projectRepository).pushEpic(testProject.getProjectId(), testEpic);
+        verify(projectRepository, never()).save(any(Project.class));
     }
 
     @Test
     void addEpicToProject_ShouldThrowExceptionWhenProjectNotFound() {
         // Given
-        when(projectRepository.findById("nonexistent")).thenReturn(Optional.empty());
+        when(projectRepository.pushEpic("nonexistent", testEpic)).thenReturn(false);
 
         // When & Then
         assertThrows(RuntimeException.class, () -> 
@@ -134,12 +176,11 @@ class ProjectServiceTest {
     @Test
     void updateEpic_ShouldUpdateEpicSuccessfully() {
         // Given
-        testProject.getEpics().add(testEpic);
         Epic updatedEpic = TestDataBuilder.createTestEpic("Updated Epic Title");
         updatedEpic.setEpicId(testEpic.getEpicId());
         
-        when(projectRepository.findById(testProject.getProjectId())).thenReturn(Optional.of(testProject));
-        when(projectRepository.save(any(Project.class))).thenReturn(testProject);
+        when(projectRepository.updateEpicFields(eq(testProject.getProjectId()), eq(testEpic.getEpicId()), anyMap()))
+                .thenReturn(true);
 
         // When
         Epic result = projectService.updateEpic(testProject.getProjectId(), updatedEpic);
@@ -147,7 +188,9 @@ class ProjectServiceTest {
         // Then
         assertNotNull(result);
         assertEquals("Updated Epic Title", result.getTitle());
-        verify(projectRepository).save(testProject);
+        verify(projectRepository).updateEpicFields(eq(testProject.getProjectId()), eq(testEpic.getEpicId()),
+                argThat(fields -> "Updated Epic Title".equals(fields.get("title"))));
+        verify(projectRepository, never()).save(any(Project.class));
     }
 
     @Test
@@ -165,9 +208,7 @@ class ProjectServiceTest {
     @Test
     void addFeatureToEpic_ShouldAddFeatureSuccessfully() {
         // Given
-        testProject.getEpics().add(testEpic);
-        when(projectRepository.findById(testProject.getProjectId())).thenReturn(Optional.of(testProject));
-        when(projectRepository.save(any(Project.class))).thenReturn(testProject);
+        when(projectRepository.pushFeature(testProject.getProjectId(), testEpic.getEpicId(), testFeature)).thenReturn(true);
 
         // When
         Feature result = projectService.addFeatureToEpic(testProject.getProjectId(), testEpic.getEpicId(), testFeature);
@@ -176,20 +217,29 @@ class ProjectServiceTest {
         assertNotNull(result);
         assertEquals(testFeature.getTitle(), result.getTitle());
         assertNotNull(result.getFeatureId());
-        verify(projectRepository).save(testProject);
+        verify(projectRepository).pushFeature(testProject.getProjectId(), testEpic.getEpicId(), testFeature);
+    }
+
+    @Test
+    void addFeatureToEpic_ShouldThrowExceptionWhenEpicNotFound() {
+        // Given
+        when(projectRepository.pushFeature(testProject.getProjectId(), "nonexistent", testFeature)).thenReturn(false);
+        when(projectRepository.findById(testProject.getProjectId())).thenReturn(Optional.of(testProject));
+
+        // When & Then
+        RuntimeException exception = assertThrows(RuntimeException.class, () ->
+            projectService.addFeatureToEpic(testProject.getProjectId(), "nonexistent", testFeature));
+        assertEquals("Epic not found: nonexistent", exception.getMessage());
     }
 
     @Test
     void updateFeature_ShouldUpdateFeatureSuccessfully() {
         // Given
-        testEpic.getFeatures().add(testFeature);
-        testProject.getEpics().add(testEpic);
-        
         Feature updatedFeature = TestDataBuilder.createTestFeature("Updated Feature");
         updatedFeature.setFeatureId(testFeature.getFeatureId());
         
-        when(projectRepository.findById(testProject.getProjectId())).thenReturn(Optional.of(testProject));
-        when(projectRepository.save(any(Project.class))).thenReturn(testProject);
+        when(projectRepository.updateFeatureFields(eq(testProject.getProjectId()), eq(testEpic.getEpicId()),
+                eq(testFeature.getFeatureId()), anyMap())).thenReturn(true);
 
         // When
         Feature result = projectService.updateFeature(testProject.getProjectId(), testEpic.getEpicId(), updatedFeature);
@@ -197,18 +247,14 @@ class ProjectServiceTest {
         // Then
         assertNotNull(result);
         assertEquals("Updated Feature", result.getTitle());
-        verify(projectRepository).save(testProject);
+        verify(projectRepository, never()).save(any(Project.class));
     }
 
     @Test
     void addTaskToFeature_ShouldAddTaskSuccessfully() {
         // Given
-        testFeature.getTasks().add(testTask);
-        testEpic.getFeatures().add(testFeature);
-        testProject.getEpics().add(testEpic);
-        
-        when(projectRepository.findById(testProject.getProjectId())).thenReturn(Optional.of(testProject));
-        when(projectRepository.save(any(Project.class))).thenReturn(testProject);
+        when(projectRepository.pushTask(testProject.getProjectId(), testEpic.getEpicId(), testFeature.getFeatureId(), testTask))
+                .thenReturn(true);
 
         // When
         Task result = projectService.addTaskToFeature(
@@ -218,21 +264,33 @@ class ProjectServiceTest {
         assertNotNull(result);
         assertEquals(testTask.getTitle(), result.getTitle());
         assertNotNull(result.getTaskId());
-        verify(projectRepository).save(testProject);
+        assertEquals(testFeature.getFeatureId(), result.getFeatureId());
+        verify(projectRepository).pushTask(testProject.getProjectId(), testEpic.getEpicId(), testFeature.getFeatureId(), testTask);
+        verify(projectRepository, never()).save(any(Project.class));
     }
 
     @Test
-    void updateTask_ShouldUpdateTaskSuccessfully() {
+    void addTaskToFeature_ShouldThrowExceptionWhenFeatureNotFound() {
         // Given
-        testFeature.getTasks().add(testTask);
-        testEpic.getFeatures().add(testFeature);
         testProject.getEpics().add(testEpic);
-        
+        when(projectRepository.pushTask(testProject.getProjectId(), testEpic.getEpicId(), "nonexistent", testTask))
+                .thenReturn(false);
+        when(projectRepository.findById(testProject.getProjectId())).thenReturn(Optional.of(testProject));
+
+        // When & Then
+        RuntimeException exception = assertThrows(RuntimeException.class, () ->
+            projectService.addTaskToFeature(testProject.getProjectId(), testEpic.getEpicId(), "nonexistent", testTask));
+        assertEquals("Feature not found: nonexistent", exception.getMessage());
+    }
+
+    @Test
+    void updateTask_ShouldUpdateTaskSuccessfully() {
+        // Given
         Task updatedTask = TestDataBuilder.createTestTask("Updated Task");
         updatedTask.setTaskId(testTask.getTaskId());
         
-        when(projectRepository.findById(testProject.getProjectId())).thenReturn(Optional.of(testProject));
-        when(projectRepository.save(any(Project.class))).thenReturn(testProject);
+        when(projectRepository.updateTaskFields(eq(testProject.getProjectId()), eq(testEpic.getEpicId()),
+                eq(testFeature.getFeatureId()), eq(testTask.getTaskId()), anyMap())).thenReturn(true);
 
         // When
         Task result = projectService.updateTask(
@@ -241,25 +299,28 @@ class ProjectServiceTest {
         // Then
         assertNotNull(result);
         assertEquals("Updated Task", result.getTitle());
-        verify(projectRepository).save(testProject);
+        verify(projectRepository, never()).save(any(Project.class));
     }
 
     @Test
     void deleteProject_ShouldDeleteProjectSuccessfully() {
         // Given
-        when(projectRepository.findById(testProject.getProjectId())).thenReturn(Optional.of(testProject));
+        when(projectRepository.findProjectById(testProject.getProjectId(), List.of("owners"))).thenReturn(Optional.of(testProject));
 
         // When
         projectService.deleteProject(testProject.getProjectId());
 
         // Then
+        verify(userRepository).removeProjectId(List.of(testUser.getId()), testProject.getProjectId());
+        verify(userRepository, never()).save(any(User.class));
+        verify(membershipIndex).removeProject(testProject.getProjectId());
         verify(projectRepository).deleteById(testProject.getProjectId());
     }
 
     @Test
     void deleteProject_ShouldThrowExceptionWhenProjectNotFound() {
         // Given
-        when(projectRepository.findById("nonexistent")).thenReturn(Optional.empty());
+        when(projectRepository.findProjectById("nonexistent", List.of("owners"))).thenReturn(Optional.empty());
 
         // When & Then
         assertThrows(RuntimeException.class, () -> 
@@ -270,50 +331,60 @@ class ProjectServiceTest {
     @Test
     void deleteEpicFromProject_ShouldDeleteEpicSuccessfully() {
         // Given
-        testProject.getEpics().add(testEpic);
-        when(projectRepository.findById(testProject.getProjectId())).thenReturn(Optional.of(testProject));
-        when(projectRepository.save(any(Project.class))).thenReturn(testProject);
+        when(projectRepository.pullEpic(testProject.getProjectId(), testEpic.getEpicId())).thenReturn(true);
 
         // When
         projectService.deleteEpicFromProject(testProject.getProjectId(), testEpic.getEpicId());
 
         // Then
-        assertTrue(testProject.getEpics().isEmpty());
-        verify(projectRepository).save(testProject);
+        verify(projectRepository).pullEpic(testProject.getProjectId(), testEpic.getEpicId());
+        verify(projectRepository, never()).save(any(Project.class));
     }
 
     @Test
     void deleteFeatureFromEpic_ShouldDeleteFeatureSuccessfully() {
         // Given
-        testEpic.getFeatures().add(testFeature);
-        testProject.getEpics().add(testEpic);
-        when(projectRepository.findById(testProject.getProjectId())).thenReturn(Optional.of(testProject));
-        when(projectRepository.save(any(Project.class))).thenReturn(testProject);
+        when(projectRepository.pullFeature(testProject.getProjectId(), testEpic.getEpicId(), testFeature.getFeatureId()))
+                .thenReturn(true);
 
         // When
         projectService.deleteFeatureFromEpic(testProject.getProjectId(), testEpic.getEpicId(), testFeature.getFeatureId());
 
         // Then
-        assertTrue(testEpic.getFeatures().isEmpty());
-        verify(projectRepository).save(testProject);
+        verify(projectRepository).pullFeature(testProject.getProjectId(), testEpic.getEpicId(), testFeature.getFeatureId());
+        verify(projectRepository, never()).save(any(Project.class));
     }
 
     @Test
     void deleteTaskFromFeature_ShouldDeleteTaskSuccessfully() {
         // Given
-        testFeature.getTasks().add(testTask);
-        testEpic.getFeatures().add(testFeature);
-        testProject.getEpics().add(testEpic);
-        when(projectRepository.findById(testProject.getProjectId())).thenReturn(Optional.of(testProject));
-        when(projectRepository.save(any(Project.class))).thenReturn(testProject);
+        when(projectRepository.pullTask(testProject.getProjectId(), testEpic.getEpicId(),
+                testFeature.getFeatureId(), testTask.getTaskId())).thenReturn(true);
 
         // When
         projectService.deleteTaskFromFeature(
             testProject.getProjectId(), testEpic.getEpicId(), testFeature.getFeatureId(), testTask.getTaskId());
 
         // Then
-        assertTrue(testFeature.getTasks().isEmpty());
-        verify(projectRepository).save(testProject);
+        verify(projectRepository).pullTask(testProject.getProjectId(), testEpic.getEpicId(),
+                testFeature.getFeatureId(), testTask.getTaskId());
+        verify(projectRepository, never()).save(any(Project.class));
+    }
+
+    @Test
+    void deleteTaskFromFeature_ShouldThrowExceptionWhenTaskNotFound() {
+        // Given
+        testEpic.getFeatures().add(testFeature);
+        testProject.getEpics().add(testEpic);
+        when(projectRepository.pullTask(testProject.getProjectId(), testEpic.getEpicId(),
+                testFeature.getFeatureId(), "nonexistent")).thenReturn(false);
+        when(projectRepository.findById(testProject.getProjectId())).thenReturn(Optional.of(testProject));
+
+        // When & Then
+        RuntimeException exception = assertThrows(RuntimeException.class, () ->
+            projectService.deleteTaskFromFeature(
+                testProject.getProjectId(), testEpic.getEpicId(), testFeature.getFeatureId(), "nonexistent"));
+        assertEquals("Task not found: nonexistent", exception.getMessage());
     }
 
     @Test
@@ -342,70 +413,425 @@ class ProjectServiceTest {
     @Test
     void saveEpic_ShouldSaveEpicWithPartialUpdate() {
         // Given
-        testProject.getEpics().add(testEpic);
         Epic partialUpdate = new Epic();
         partialUpdate.setEpicId(testEpic.getEpicId());
         partialUpdate.setTitle("New Title Only");
 
-        when(projectRepository.findById(testProject.getProjectId())).thenReturn(Optional.of(testProject));
-        when(projectRepository.save(any(Project.class))).thenReturn(testProject);
+        when(projectRepository.updateEpicFields(eq(testProject.getProjectId()), eq(testEpic.getEpicId()), anyMap()))
+                .thenReturn(true);
 
         // When
         Epic result = projectService.saveEpic(testProject.getProjectId(), partialUpdate);
 
-        // Then
+        // Then - only the provided field is sent, so the stored description is retained
         assertNotNull(result);
         assertEquals("New Title Only", result.getTitle());
-        assertEquals(testEpic.getDescription(), result.getDescription()); // Should retain original description
-        verify(projectRepository).save(testProject);
+        verify(projectRepository).updateEpicFields(testProject.getProjectId(), testEpic.getEpicId(),
+                Map.of("title", "New Title Only"));
+        verify(projectRepository, never()).save(any(Project.class));
     }
 
     @Test
     void saveFeature_ShouldSaveFeatureWithPartialUpdate() {
         // Given
-        testEpic.getFeatures().add(testFeature);
-        testProject.getEpics().add(testEpic);
-        
         Feature partialUpdate = new Feature();
         partialUpdate.setFeatureId(testFeature.getFeatureId());
         partialUpdate.setDescription("New Description Only");
 
-        when(projectRepository.findById(testProject.getProjectId())).thenReturn(Optional.of(testProject));
-        when(projectRepository.save(any(Project.class))).thenReturn(testProject);
+        when(projectRepository.updateFeatureFields(eq(testProject.getProjectId()), eq(testEpic.getEpicId()),
+                eq(testFeature.getFeatureId()), anyMap())).thenReturn(true);
 
         // When
         Feature result = projectService.saveFeature(testProject.getProjectId(), testEpic.getEpicId(), partialUpdate);
 
-        // Then
+        // Then - only the provided field is sent, so the stored title is retained
         assertNotNull(result);
         assertEquals("New Description Only", result.getDescription());
-        assertEquals(testFeature.getTitle(), result.getTitle()); // Should retain original title
-        verify(projectRepository).save(testProject);
+        verify(projectRepository).updateFeatureFields(testProject.getProjectId(), testEpic.getEpicId(),
+                testFeature.getFeatureId(), Map.of("description", "New Description Only"));
+        verify(projectRepository, never()).save(any(Project.class));
     }
 
     @Test
     void saveTask_ShouldSaveTaskWithPartialUpdate() {
         // Given
-        testFeature.getTasks().add(testTask);
-        testEpic.getFeatures().add(testFeature);
-        testProject.getEpics().add(testEpic);
-        
         Task partialUpdate = new Task();
         partialUpdate.setTaskId(testTask.getTaskId());
         partialUpdate.setStatus(TaskStatus.DONE);
 
-        when(projectRepository.findById(testProject.getProjectId())).thenReturn(Optional.of(testProject));
-        when(projectRepository.save(any(Project.class))).thenReturn(testProject);
+        when(projectRepository.updateTaskFields(eq(testProject.getProjectId()), eq(testEpic.getEpicId()),
+                eq(testFeature.getFeatureId()), eq(testTask.getTaskId()), anyMap())).thenReturn(true);
 
         // When
         Task result = projectService.saveTask(
             testProject.getProjectId(), testEpic.getEpicId(), testFeature.getFeatureId(), partialUpdate);
 
-        // Then
+        // Then - title is not part of the update, so the stored title is retained
         assertNotNull(result);
         assertEquals(TaskStatus.DONE, result.getStatus());
-        assertEquals(testTask.getTitle(), result.getTitle()); // Should retain original title
+        assertEquals(testProject.getProjectId(), result.getProjectId());
+        verify(projectRepository).updateTaskFields(eq(testProject.getProjectId()), eq(testEpic.getEpicId()),
+                eq(testFeature.getFeatureId()), eq(testTask.getTaskId()),
+                argThat(fields -> fields.get("status") == TaskStatus.DONE
+                        && !fields.containsKey("title")
+                        && fields.containsKey("dueDate")));
+        verify(projectRepository, never()).save(any(Project.class));
+    }
+
+    @Test
+    void saveTask_ShouldReturnNullWhenTaskNotFound() {
+        // Given
+        when(projectRepository.updateTaskFields(anyString(), anyString(), anyString(), anyString(), anyMap()))
+                .thenReturn(false);
+
+        // When
+        Task result = projectService.saveTask(
+            testProject.getProjectId(), testEpic.getEpicId(), testFeature.getFeatureId(), testTask);
+
+        // Then
+        assertNull(result);
+    }
+
+    @Test
+    void modifyProject_ShouldRereadAndReapplyChangeOnVersionConflict() {
+        // Given - the first save loses the race against a concurrent writer
+        Project staleCopy = TestDataBuilder.createTestProject("Test Project", testUser);
+        staleCopy.setProjectId(testProject.getProjectId());
+        when(projectRepository.findById(testProject.getProjectId()))
+                .thenReturn(Optional.of(staleCopy))
+                .thenReturn(Optional.of(testProject));
+        when(projectRepository.save(staleCopy)).thenThrow(new OptimisticLockingFailureException("version conflict"));
+        when(projectRepository.save(testProject)).thenReturn(testProject);
+
+        // When
+        Project result = projectService.modifyProject(testProject.getProjectId(), project -> {
+            project.setTitle("Renamed");
+            return true;
+        });
+
+        // Then
+        assertSame(testProject, result);
+        assertEquals("Renamed", testProject.getTitle());
+        verify(projectRepository, times(2)).findById(testProject.getProjectId());
+        assertEquals(1.0, optimisticLockRetry.getRetryCount());
+    }
+
+    @Test
+    void modifyProject_ShouldNotSaveWhenNothingChanged() {
+        // Given
+        when(projectRepository.findById(testProject.getProjectId())).thenReturn(Optional.of(testProject));
+
+        // When
+        Project result = projectService.modifyProject(testProject.getProjectId(), project -> false);
+
+        // Then
+        assertSame(testProject, result);
+        verify(projectRepository, never()).save(any(Project.class));
+    }
+
+    @Test
+    void addUserToProject_ShouldAddOwnerThroughVersionedSave() {
+        // Given
+        User newUser = TestDataBuilder.createTestUser("newuser");
+        when(userRepository.findPrincipalByUsername("newuser")).thenReturn(Optional.of(newUser));
+        when(projectRepository.findById(testProject.getProjectId())).thenReturn(Optional.of(testProject));
+        when(projectRepository.save(testProject)).thenReturn(testProject);
+
+        // When
+        Project result = projectService.addUserToProject(testProject.getProjectId(), "newuser");
+
+        // Then
+        assertTrue(result.hasOwner(newUser.getId()));
         verify(projectRepository).save(testProject);
+        verify(userRepository).addProjectId(newUser.getId(), testProject.getProjectId());
+        verify(membershipIndex).addMember(testProject.getProjectId(), "newuser");
+    }
+
+    @Test
+    void addTaskToFeature_ShouldInsertIntoTaskCollectionInCollectionMode() {
+        // Given
+        ProjectService service = collectionModeService();
+        when(projectRepository.featureExists("p1", "e1", "f1")).thenReturn(true);
+        when(taskRepository.insert(testTask)).thenReturn(testTask);
+
+        // When
+        Task result = service.addTaskToFeature("p1", "e1", "f1", testTask);
+
+        // Then
+        assertSame(testTask, result);
+        assertEquals("p1", result.getProjectId());
+        assertEquals("e1", result.getEpicId());
+        assertEquals("f1", result.getFeatureId());
+        verify(projectRepository, never()).pushTask(anyString(), anyString(), anyString(), any(Task.class));
+    }
+
+    @Test
+    void addTaskToFeature_ShouldThrowWhenFeatureMissingInCollectionMode() {
+        // Given
+        ProjectService service = collectionModeService();
+        when(projectRepository.featureExists(testProject.getProjectId(), "e1", "missing")).thenReturn(false);
+        when(projectRepository.findById(testProject.getProjectId())).thenReturn(Optional.of(testProject));
+        testEpic.setEpicId("e1");
+        testProject.getEpics().add(testEpic);
+
+        // When & Then
+        RuntimeException exception = assertThrows(RuntimeException.class, () ->
+            service.addTaskToFeature(testProject.getProjectId(), "e1", "missing", testTask));
+        assertEquals("Feature not found: missing", exception.getMessage());
+        verify(taskRepository, never()).insert(any(Task.class));
+    }
+
+    @Test
+    void saveTask_ShouldUpdateTaskDocumentInCollectionMode() {
+        // Given
+        ProjectService service = collectionModeService();
+        testTask.setTaskId("t1");
+        when(taskRepository.updateTaskFields(eq("p1"), eq("e1"), eq("f1"), eq("t1"), anyMap())).thenReturn(true);
+
+        // When
+        Task result = service.saveTask("p1", "e1", "f1", testTask);
+
+        // Then
+        assertSame(testTask, result);
+        verify(projectRepository, never()).updateTaskFields(anyString(), anyString(), anyString(), anyString(), anyMap());
+    }
+
+    @Test
+    void deleteFeatureFromEpic_ShouldDeleteFeatureTasksInCollectionMode() {
+        // Given
+        ProjectService service = collectionModeService();
+        when(projectRepository.pullFeature("p1", "e1", "f1")).thenReturn(true);
+
+        // When
+        service.deleteFeatureFromEpic("p1", "e1", "f1");
+
+        // Then
+        verify(taskRepository).deleteByProjectIdAndEpicIdAndFeatureId("p1", "e1", "f1");
+    }
+
+    @Test
+    void createProject_ShouldMoveTasksToCollectionInCollectionMode() {
+        // Given
+        ProjectService service = collectionModeService();
+        Project newProject = TestDataBuilder.createTestProject("New Project", testUser);
+        testFeature.getTasks().add(testTask);
+        testEpic.getFeatures().add(testFeature);
+        newProject.getEpics().add(testEpic);
+        when(userRepository.findPrincipalByUsername("testuser")).thenReturn(Optional.of(testUser));
+        when(projectRepository.save(newProject)).thenReturn(newProject);
+
+        // When
+        service.createProject(newProject, "testuser");
+
+        // Then
+        assertTrue(testFeature.getTasks().isEmpty());
+        assertEquals(newProject.getProjectId(), testTask.getProjectId());
+        assertEquals(testFeature.getFeatureId(), testTask.getFeatureId());
+        verify(taskRepository).saveAll(List.of(testTask));
+    }
+
+    @Test
+    void getTasksForFeatures_ShouldBatchLoadTasksInCollectionMode() {
+        // Given
+        ProjectService service = collectionModeService();
+        Feature other = TestDataBuilder.createTestFeature("Other Feature");
+        testFeature.setFeatureId("f1");
+        other.setFeatureId("f2");
+        testTask.setFeatureId("f1");
+        when(taskRepository.findByFeatureIdIn(anyCollection())).thenReturn(List.of(testTask));
+
+        // When
+        List<List<Task>> result = service.getTasksForFeatures(List.of(testFeature, other));
+
+        // Then
+        assertEquals(List.of(List.of(testTask), List.of()), result);
+        verify(taskRepository, times(1)).findByFeatureIdIn(anyCollection());
+    }
+
+    @Test
+    void getTasksForFeatures_ShouldReturnEmbeddedTasksInEmbeddedMode() {
+        // Given
+        testFeature.getTasks().add(testTask);
+
+        // When
+        List<List<Task>> result = projectService.getTasksForFeatures(List.of(testFeature));
+
+        // Then
+        assertEquals(List.of(List.of(testTask)), result);
+        verifyNoInteractions(taskRepository);
+    }
+
+    @Test
+    void getTaskById_ShouldReuseProjectLoadedEarlierInRequest() {
+        // Given
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+        testFeature.getTasks().add(testTask);
+        testEpic.getFeatures().add(testFeature);
+        testProject.getEpics().add(testEpic);
+        when(projectRepository.findById(testProject.getProjectId())).thenReturn(Optional.of(testProject));
+
+        try {
+            // When
+            Task task = projectService.getTaskById(testProject.getProjectId(), testEpic.getEpicId(),
+                    testFeature.getFeatureId(), testTask.getTaskId());
+            Project project = projectService.getProjectById(testProject.getProjectId());
+            Project owners = projectService.getProjectById(testProject.getProjectId(), List.of("owners"));
+
+            // Then
+            assertSame(testTask, task);
+            assertSame(testProject, project);
+            assertSame(testProject, owners);
+            verify(projectRepository, times(1)).findById(testProject.getProjectId());
+            verify(projectRepository, never()).findProjectById(anyString(), anyCollection());
+        } finally {
+            RequestContextHolder.resetRequestAttributes();
+        }
+    }
+
+    @Test
+    void saveTasks_ShouldWriteAllTasksWithOneUpdate() {
+        // Given
+        testFeature.getTasks().add(testTask);
+        testEpic.getFeatures().add(testFeature);
+        testProject.getEpics().add(testEpic);
+        when(projectRepository.findById(testProject.getProjectId())).thenReturn(Optional.of(testProject));
+        when(projectRepository.updateTasksFields(eq(testProject.getProjectId()), anyList())).thenReturn(true);
+
+        // When
+        Map<String, Task> tasks = projectService.getTasksById(testProject.getProjectId(), List.of(testTask.getTaskId(), "missing"));
+        tasks.get(testTask.getTaskId()).setStatus(TaskStatus.DONE);
+        projectService.saveTasks(testProject.getProjectId(), List.copyOf(tasks.values()));
+
+        // Then
+        assertEquals(Set.of(testTask.getTaskId()), tasks.keySet());
+        assertEquals(testFeature.getFeatureId(), testTask.getFeatureId());
+        verify(projectRepository).updateTasksFields(eq(testProject.getProjectId()), argThat(updates ->
+                updates.size() == 1
+                        && updates.get(0).epicId().equals(testEpic.getEpicId())
+                        && updates.get(0).fields().get("status") == TaskStatus.DONE));
+        verify(projectRepository, never()).save(any(Project.class));
+    }
+
+    @Test
+    void hasProjectAccess_ShouldConfirmIndexedMemberWithoutLoadingProject() {
+        // Given
+        when(membershipIndex.isMember(testProject.getProjectId(), "testuser")).thenReturn(true);
+        when(projectRepository.isOwner(testProject.getProjectId(), "testuser")).thenReturn(true);
+
+        // When
+        boolean result = projectService.hasProjectAccess(testProject.getProjectId(), "testuser");
+
+        // Then
+        assertTrue(result);
+        verify(projectRepository, never()).findProjectById(any(), any());
+        verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    void hasProjectAccess_ShouldDenyMemberRemovedOnAnotherInstance() {
+        // Given - still listed by this instance's index, but no longer an owner in the database
+        testProject.getOwners().clear();
+        when(membershipIndex.isMember(testProject.getProjectId(), "testuser")).thenReturn(true);
+        when(projectRepository.isOwner(testProject.getProjectId(), "testuser")).thenReturn(false);
+        when(projectRepository.findProjectById(testProject.getProjectId(), List.of("owners")))
+                .thenReturn(Optional.of(testProject));
+        when(userRepository.findPrincipalByUsername("testuser")).thenReturn(Optional.of(testUser));
+
+        // When
+        boolean result = projectService.hasProjectAccess(testProject.getProjectId(), "testuser");
+
+        // Then
+        assertFalse(result);
+        verify(membershipIndex).recordStale(testProject.getProjectId(), "testuser", false);
+    }
+
+    @Test
+    void hasProjectAccess_ShouldRecordStaleIndexWhenDatabaseListsOwner() {
+        // Given
+        when(membershipIndex.isLoaded()).thenReturn(true);
+        when(projectRepository.findProjectById(testProject.getProjectId(), List.of("owners")))
+                .thenReturn(Optional.of(testProject));
+        when(userRepository.findPrincipalByUsername("testuser")).thenReturn(Optional.of(testUser));
+
+        // When
+        boolean result = projectService.hasProjectAccess(testProject.getProjectId(), "testuser");
+
+        // Then
+        assertTrue(result);
+        verify(membershipIndex).recordStale(testProject.getProjectId(), "testuser", true);
+    }
+
+    @Test
+    void getProjectsByUsername_ShouldLoadIndexedProjectsWithoutUserLookup() {
+        // Given
+        when(membershipIndex.isLoaded()).thenReturn(true);
+        when(membershipIndex.projectsOf("testuser")).thenReturn(Set.of(testProject.getProjectId(), "removed"));
+        when(projectRepository.findProjectsByIdsAndOwnerName(Set.of(testProject.getProjectId(), "removed"), "testuser", null))
+                .thenReturn(List.of(testProject));
+
+        // When
+        List<Project> result = projectService.getProjectsByUsername("testuser");
+
+        // Then
+        assertEquals(List.of(testProject), result);
+        verify(membershipIndex).recordStale("removed", "testuser", false);
+        verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    void hasProjectAccess_ShouldOnlyLoadOwners() {
+        // Given
+        when(projectRepository.findProjectById(testProject.getProjectId(), List.of("owners")))
+                .thenReturn(Optional.of(testProject));
+        when(userRepository.findPrincipalByUsername("testuser")).thenReturn(Optional.of(testUser));
+
+        // When
+        boolean result = projectService.hasProjectAccess(testProject.getProjectId(), "testuser");
+
+        // Then
+        assertTrue(result);
+        verify(projectRepository, never()).findById(anyString());
+    }
+
+    @Test
+    void hasProjectAccess_ShouldLookUpUserOnFetchExecutor() {
+        // Given
+        when(projectRepository.findProjectById(testProject.getProjectId(), List.of("owners")))
+                .thenReturn(Optional.of(testProject));
+        when(userRepository.findPrincipalByUsername("testuser")).thenReturn(Optional.of(testUser));
+
+        // When
+        projectService.hasProjectAccess(testProject.getProjectId(), "testuser");
+
+        // Then
+        verify(fetchExecutor).execute(any(Runnable.class));
+    }
+
+    @Test
+    void hasProjectAccess_ShouldRethrowUserLookupFailure() {
+        // Given
+        when(projectRepository.findProjectById(testProject.getProjectId(), List.of("owners")))
+                .thenReturn(Optional.of(testProject));
+        when(userRepository.findPrincipalByUsername("ghost")).thenThrow(new IllegalStateException("Mongo down"));
+
+        // When & Then
+        IllegalStateException exception = assertThrows(IllegalStateException.class,
+                () -> projectService.hasProjectAccess(testProject.getProjectId(), "ghost"));
+        assertEquals("Mongo down", exception.getMessage());
+    }
+
+    @Test
+    void getProjectById_WithFields_ShouldUseProjection() {
+        // Given
+        List<String> fields = List.of("title");
+        when(projectRepository.findProjectById("p1", fields)).thenReturn(Optional.of(testProject));
+
+        // When
+        Project result = projectService.getProjectById("p1", fields);
+
+        // Then
+        assertSame(testProject, result);
+        verify(projectRepository, never()).findById(anyString());
     }
 
     @Test
@@ -422,13 +848,12 @@ class ProjectServiceTest {
         templateEpic.getFeatures().add(templateFeature);
         template.getEpics().add(templateEpic);
 
-        when(userRepository.findByUsername("newowner")).thenReturn(Optional.of(testUser));
+        when(userRepository.findPrincipalByUsername("newowner")).thenReturn(Optional.of(testUser));
         when(projectRepository.save(any(Project.class))).thenAnswer(invocation -> {
             Project saved = invocation.getArgument(0);
             saved.setProjectId("new-project-id");
             return saved;
         });
-        when(userRepository.save(any(User.class))).thenReturn(testUser);
 
         // When
         Project result = projectService.copyProjectStructure(
@@ -458,7 +883,7 @@ class ProjectServiceTest {
         assertTrue(copiedTask.getUsers().isEmpty()); // Should start with no assigned users
         
         verify(projectRepository).save(any(Project.class));
-        verify(userRepository).findByUsername("newowner");
+        verify(userRepository).findPrincipalByUsername("newowner");
     }
 
     @Test
@@ -488,13 +913,12 @@ class ProjectServiceTest {
         template.getEpics().add(epic1);
         template.getEpics().add(epic2);
 
-        when(userRepository.findByUsername("newowner")).thenReturn(Optional.of(testUser));
+        when(userRepository.findPrincipalByUsername("newowner")).thenReturn(Optional.of(testUser));
         when(projectRepository.save(any(Project.class))).thenAnswer(invocation -> {
             Project saved = invocation.getArgument(0);
             saved.setProjectId("new-project-id");
             return saved;
         });
-        when(userRepository.save(any(User.class))).thenReturn(testUser);
 
         // When
         Project result = projectService.copyProjectStructure(
@@ -517,13 +941,12 @@ class ProjectServiceTest {
         Project template = TestDataBuilder.createTestProject("Empty Template", testUser);
         template.setEpics(List.of()); // Empty epics list
 
-        when(userRepository.findByUsername("newowner")).thenReturn(Optional.of(testUser));
+        when(userRepository.findPrincipalByUsername("newowner")).thenReturn(Optional.of(testUser));
         when(projectRepository.save(any(Project.class))).thenAnswer(invocation -> {
             Project saved = invocation.getArgument(0);
             saved.setProjectId("new-project-id");
             return saved;
         });
-        when(userRepository.save(any(User.class))).thenReturn(testUser);
 
         // When
         Project result = projectService.copyProjectStructure(
@@ -543,13 +966,12 @@ class ProjectServiceTest {
         Project template = TestDataBuilder.createTestProject("Null Epics Template", testUser);
         template.setEpics(null); // Null epics list
 
-        when(userRepository.findByUsername("newowner")).thenReturn(Optional.of(testUser));
+        when(userRepository.findPrincipalByUsername("newowner")).thenReturn(Optional.of(testUser));
         when(projectRepository.save(any(Project.class))).thenAnswer(invocation -> {
             Project saved = invocation.getArgument(0);
             saved.setProjectId("new-project-id");
             return saved;
         });
-        when(userRepository.save(any(User.class))).thenReturn(testUser);
 
         // When
         Project result = projectService.copyProjectStructure(
@@ -570,13 +992,12 @@ class ProjectServiceTest {
         epic.setFeatures(null);
         template.getEpics().add(epic);
 
-        when(userRepository.findByUsername("newowner")).thenReturn(Optional.of(testUser));
+        when(userRepository.findPrincipalByUsername("newowner")).thenReturn(Optional.of(testUser));
         when(projectRepository.save(any(Project.class))).thenAnswer(invocation -> {
             Project saved = invocation.getArgument(0);
             saved.setProjectId("new-project-id");
             return saved;
         });
-        when(userRepository.save(any(User.class))).thenReturn(testUser);
 
         // When
         Project result = projectService.copyProjectStructure(
@@ -600,13 +1021,12 @@ class ProjectServiceTest {
         epic.getFeatures().add(feature);
         template.getEpics().add(epic);
 
-        when(userRepository.findByUsername("newowner")).thenReturn(Optional.of(testUser));
+        when(userRepository.findPrincipalByUsername("newowner")).thenReturn(Optional.of(testUser));
         when(projectRepository.save(any(Project.class))).thenAnswer(invocation -> {
             Project saved = invocation.getArgument(0);
             saved.setProjectId("new-project-id");
             return saved;
         });
-        when(userRepository.save(any(User.class))).thenReturn(testUser);
 
         // When
         Project result = projectService.copyProjectStructure(
@@ -638,13 +1058,12 @@ class ProjectServiceTest {
         epic.getFeatures().add(feature);
         template.getEpics().add(epic);
 
-        when(userRepository.findByUsername("newowner")).thenReturn(Optional.of(testUser));
+        when(userRepository.findPrincipalByUsername("newowner")).thenReturn(Optional.of(testUser));
         when(projectRepository.save(any(Project.class))).thenAnswer(invocation -> {
             Project saved = invocation.getArgument(0);
             saved.setProjectId("new-project-id");
             return saved;
         });
-        when(userRepository.save(any(User.class))).thenReturn(testUser);
 
         // When
         Project result = projectService.copyProjectStructure(
@@ -664,13 +1083,12 @@ class ProjectServiceTest {
         Epic epic = TestDataBuilder.createTestEpic("Epic");
         template.getEpics().add(epic);
 
-        when(userRepository.findByUsername("testowner")).thenReturn(Optional.of(testUser));
+        when(userRepository.findPrincipalByUsername("testowner")).thenReturn(Optional.of(testUser));
         when(projectRepository.save(any(Project.class))).thenAnswer(invocation -> {
             Project saved = invocation.getArgument(0);
             saved.setProjectId("new-project-id");
             return saved;
         });
-        when(userRepository.save(any(User.class))).thenReturn(testUser);
 
         // When
         Project result = projectService.copyProjectStructure(
@@ -681,9 +1099,175 @@ class ProjectServiceTest {
         assertEquals("Specific Title", result.getTitle());
         assertEquals("Specific Description", result.getDescription());
         assertEquals(4, result.getCourseLevel());
-        assertTrue(result.getOwners().contains(testUser));
-        verify(userRepository).findByUsername("testowner");
+        assertTrue(result.hasOwner(testUser.getId()));
+        verify(userRepository).findPrincipalByUsername("testowner");
         verify(projectRepository).save(any(Project.class));
-        verify(userRepository).save(any(User.class));
+        verify(userRepository).addProjectId(testUser.getId(), "new-project-id");
+    }
+
+    @Test
+    void createProjectFromTemplate_ShouldCompileTemplateOnceAndReuseIt() {
+        // Given
+        Project template = TestDataBuilder.createTestProject("Template", testUser);
+        Epic epic = TestDataBuilder.createTestEpic("Template Epic");
+        template.getEpics().add(epic);
+        CourseLevelConfig config = new CourseLevelConfig();
+        config.setTemplateProjectId(template.getProjectId());
+
+        when(courseLevelConfigService.getConfigOrDefault(2)).thenReturn(config);
+        when(projectRepository.findById(template.getProjectId())).thenReturn(Optional.of(template));
+        when(userRepository.findPrincipalByUsername("testuser")).thenReturn(Optional.of(testUser));
+        when(projectRepository.save(any(Project.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // When
+        Project first = projectService.createProjectFromTemplate(2, "First", "Description", "testuser");
+        Project second = projectService.createProjectFromTemplate(2, "Second", "Description", "testuser");
+
+        // Then
+        assertEquals("Template Epic", first.getEpics().get(0).getTitle());
+        assertEquals("Template Epic", second.getEpics().get(0).getTitle());
+        assertNotEquals(first.getEpics().get(0).getEpicId(), second.getEpics().get(0).getEpicId());
+        assertNotEquals(epic.getEpicId(), first.getEpics().get(0).getEpicId());
+        verify(courseLevelConfigService, times(1)).getConfigOrDefault(2);
+        verify(projectRepository, times(1)).findById(template.getProjectId());
+    }
+
+    @Test
+    void createProjectFromTemplate_ShouldFallbackToDefaultTemplate() {
+        // Given
+        Project defaultTemplate = TestDataBuilder.createTestProject("Default Template", testUser);
+        defaultTemplate.getEpics().add(TestDataBuilder.createTestEpic("Default Epic"));
+        CourseLevelConfig defaultConfig = new CourseLevelConfig();
+        defaultConfig.setCourseLevel(0);
+        defaultConfig.setTemplateProjectId(defaultTemplate.getProjectId());
+
+        when(courseLevelConfigService.getConfigOrDefault(3)).thenReturn(new CourseLevelConfig());
+        when(courseLevelConfigService.getConfigOrDefault(0)).thenReturn(defaultConfig);
+        when(projectRepository.findById(defaultTemplate.getProjectId())).thenReturn(Optional.of(defaultTemplate));
+        when(userRepository.findPrincipalByUsername("testuser")).thenReturn(Optional.of(testUser));
+        when(projectRepository.save(any(Project.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // When
+        Project result = projectService.createProjectFromTemplate(3, "New Project", "Description", "testuser");
+
+        // Then
+        assertEquals(3, result.getCourseLevel());
+        assertEquals("Default Epic", result.getEpics().get(0).getTitle());
+    }
+
+    @Test
+    void createProjectFromTemplate_ShouldCreateEmptyProjectWhenTemplateIsMissing() {
+        // Given
+        CourseLevelConfig config = new CourseLevelConfig();
+        config.setTemplateProjectId("deleted-template");
+
+        when(courseLevelConfigService.getConfigOrDefault(3)).thenReturn(config);
+        when(courseLevelConfigService.getConfigOrDefault(0)).thenReturn(new CourseLevelConfig());
+        when(projectRepository.findById("deleted-template")).thenReturn(Optional.empty());
+        when(userRepository.findPrincipalByUsername("testuser")).thenReturn(Optional.of(testUser));
+        when(projectRepository.save(any(Project.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // When
+        Project result = projectService.createProjectFromTemplate(3, "New Project", "Description", "testuser");
+
+        // Then
+        assertEquals("New Project", result.getTitle());
+        assertTrue(result.getEpics().isEmpty());
+        assertTrue(result.hasOwner(testUser.getId()));
+    }
+
+    @Test
+    void createProjectFromTemplate_ShouldRecompileAfterTemplateProjectChanges() {
+        // Given
+        Project template = TestDataBuilder.createTestProject("Template", testUser);
+        CourseLevelConfig config = new CourseLevelConfig();
+        config.setTemplateProjectId(template.getProjectId());
+
+        when(courseLevelConfigService.getConfigOrDefault(2)).thenReturn(config);
+        when(projectRepository.findById(template.getProjectId())).thenReturn(Optional.of(template));
+        when(userRepository.findPrincipalByUsername("testuser")).thenReturn(Optional.of(testUser));
+        when(projectRepository.save(any(Project.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(projectRepository.pushEpic(eq(template.getProjectId()), any(Epic.class))).thenReturn(true);
+        projectService.createProjectFromTemplate(2, "First", "Description", "testuser");
+
+        // When
+        projectService.addEpicToProject(template.getProjectId(), testEpic);
+        projectService.createProjectFromTemplate(2, "Second", "Description", "testuser");
+
+        // Then
+        verify(courseLevelConfigService, times(2)).getConfigOrDefault(2);
+    }
+
+    @Test
+    void createProjects_ShouldInsertProjectsAndTasksAndLinkOwnersInBulk() {
+        // Given
+        ProjectService service = collectionModeService();
+        User other = TestDataBuilder.createTestUser("other");
+        Project first = TestDataBuilder.createTestProject("First", testUser);
+        first.setProjectId(null);
+        first.addOwner(other);
+        testFeature.getTasks().add(testTask);
+        testEpic.getFeatures().add(testFeature);
+        first.getEpics().add(testEpic);
+        Project second = TestDataBuilder.createTestProject("Second", testUser);
+        second.setProjectId(null);
+        when(projectRepository.insert(anyList())).thenAnswer(invocation -> {
+            List<Project> projects = invocation.getArgument(0);
+            projects.get(0).setProjectId("p1");
+            projects.get(1).setProjectId("p2");
+            return projects;
+        });
+
+        // When
+        service.createProjects(List.of(first, second));
+
+        // Then
+        verify(projectRepository, times(1)).insert(anyList());
+        verify(taskRepository, times(1)).insert(argThat((List<Task> tasks) ->
+                tasks.size() == 1 && "p1".equals(tasks.get(0).getProjectId())));
+        assertTrue(testFeature.getTasks().isEmpty());
+        verify(userRepository).addProjectIds(Map.of(testUser.getId(), List.of("p1", "p2"), other.getId(), List.of("p1")));
+        verify(membershipIndex).addMember("p1", "other");
+        verify(projectRepository, never()).save(any(Project.class));
+    }
+
+    private ProjectService collectionModeService() {
+        return new ProjectService(projectRepository, userRepository, optimisticLockRetry, taskRepository, membershipIndex, unitOfWork,
+                templateCache, courseLevelConfigService, fetchExecutor, "collection");
+    }
+
+    @Test
+    void getTasksPage_ShouldCutEmbeddedTasksAfterCursorOrderedById() {
+        // Given
+        for (String id : List.of("t3", "t1", "t4", "t2")) {
+            Task task = TestDataBuilder.createTestTask(id);
+            task.setTaskId(id);
+            testFeature.getTasks().add(task);
+        }
+
+        // When
+        Window<Task> first = projectService.getTasksPage(testFeature, ScrollPosition.keyset(), 2);
+        Window<Task> second = projectService.getTasksPage(testFeature, (KeysetScrollPosition) first.positionAt(1), 2);
+
+        // Then
+        assertEquals(List.of("t1", "t2"), first.getContent().stream().map(Task::getTaskId).toList());
+        assertTrue(first.hasNext());
+        assertEquals(List.of("t3", "t4"), second.getContent().stream().map(Task::getTaskId).toList());
+        assertFalse(second.hasNext());
+        verifyNoInteractions(taskRepository);
+    }
+
+    @Test
+    void getProjectsByUsernamePage_ShouldReturnEmptyPageForUnknownUser() {
+        // Given
+        when(userRepository.findPrincipalByUsername("ghost")).thenReturn(Optional.empty());
+
+        // When
+        Window<Project> result = projectService.getProjectsByUsernamePage("ghost", ScrollPosition.keyset(), 20, null);
+
+        // Then
+        assertTrue(result.isEmpty());
+        assertFalse(result.hasNext());
+        verify(projectRepository, never()).scrollProjects(any(), any(), anyInt(), any());
     }
 }
@@ -0,0 +1,177 @@
+package bachelor.projectmanagement.service;
+
+import bachelor.projectmanagement.model.Epic;
+import bachelor.projectmanagement.model.Feature;
+import bachelor.projectmanagement.model.Project;
+import bachelor.projectmanagement.model.Task;
+import bachelor.projectmanagement.model.TaskStatus;
+import bachelor.projectmanagement.util.TestDataBuilder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProjectTemplateCacheTest {
+
+    private ProjectTemplateCache cache;
+    private Project templateProject;
+    private AtomicInteger compilations;
+
+    @BeforeEach
+    void setUp() {
+        cache = new ProjectTemplateCache(600000);
+        templateProject = TestDataBuilder.createTestProject("Template", TestDataBuilder.createTestUser());
+        compilations = new AtomicInteger();
+    }
+
+    @Test
+    void get_ShouldCompileOncePerCourseLevel() {
+        // When
+        cache.get(1, this::compile);
+        cache.get(1, this::compile);
+        cache.get(2, this::compile);
+
+        // Then
+        assertEquals(2, compilations.get());
+    }
+
+    @Test
+    void get_ShouldCacheMissingTemplates() {
+        // When
+        Optional<ProjectTemplate> first = cache.get(1, level -> {
+            compilations.incrementAndGet();
+            return Optional.empty();
+        });
+        Optional<ProjectTemplate> second = cache.get(1, this::compile);
+
+        // Then
+        assertTrue(first.isEmpty());
+        assertTrue(second.isEmpty());
+        assertEquals(1, compilations.get());
+    }
+
+    @Test
+    void get_ShouldRecompileAfterTtl() {
+        // Given
+        cache = new ProjectTemplateCache(0);
+
+        // When
+        cache.get(1, this::compile);
+        cache.get(1, this::compile);
+
+        // Then
+        assertEquals(2, compilations.get());
+    }
+
+    @Test
+    void invalidate_ShouldDropAllTemplates() {
+        // Given
+        cache.get(1, this::compile);
+
+        // When
+        cache.invalidate();
+        cache.get(1, this::compile);
+
+        // Then
+        assertEquals(2, compilations.get());
+    }
+
+    @Test
+    void projectChanged_ShouldOnlyDropTemplatesOfSourceProject() {
+        // Given
+        cache.get(1, this::compile);
+
+        // When
+        cache.projectChanged("other-project");
+        cache.get(1, this::compile);
+        cache.projectChanged(templateProject.getProjectId());
+        cache.get(1, this::compile);
+
+        // Then
+        assertEquals(2, compilations.get());
+    }
+
+    @Test
+    void get_ShouldNotStoreTemplateCompiledDuringInvalidation() {
+        // When
+        cache.get(1, level -> {
+            Optional<ProjectTemplate> template = compile(level);
+            cache.projectChanged(templateProject.getProjectId());
+            return template;
+        });
+        cache.get(1, this::compile);
+
+        // Then
+        assertEquals(2, compilations.get());
+    }
+
+    @Test
+    void get_ShouldStoreTemplateWhenOtherProjectChangesDuringCompile() {
+        // When
+        cache.get(1, level -> {
+            Optional<ProjectTemplate> template = compile(level);
+            cache.projectChanged("other-project");
+            return template;
+        });
+        cache.get(1, this::compile);
+
+        // Then
+        assertEquals(1, compilations.get());
+    }
+
+    @Test
+    void projectChanged_ShouldKeepTemplatesOfOtherSources() {
+        // Given
+        Project otherTemplate = TestDataBuilder.createTestProject("Other template", TestDataBuilder.createTestUser());
+        cache.get(1, this::compile);
+        cache.get(2, level -> {
+            compilations.incrementAndGet();
+            return Optional.of(ProjectTemplate.compile(otherTemplate, Map.of()));
+        });
+
+        // When
+        cache.projectChanged(otherTemplate.getProjectId());
+        cache.get(1, this::compile);
+
+        // Then
+        assertEquals(2, compilations.get());
+    }
+
+    @Test
+    void instantiate_ShouldCopyStructureWithFreshIdsAndResetTasks() {
+        // Given
+        Epic epic = TestDataBuilder.createTestEpic("Epic");
+        Feature feature = TestDataBuilder.createTestFeature("Feature");
+        Task task = TestDataBuilder.createTestTask("Task");
+        task.setStatus(TaskStatus.DONE);
+        task.setUsers(List.of("user1"));
+        feature.getTasks().add(task);
+        epic.getFeatures().add(feature);
+        templateProject.getEpics().add(epic);
+        ProjectTemplate template = ProjectTemplate.compile(templateProject, Map.of());
+
+        // When
+        Project first = template.instantiate("First", "Description", 2);
+        Project second = template.instantiate("Second", "Description", 2);
+
+        // Then
+        Task copied = first.getEpics().get(0).getFeatures().get(0).getTasks().get(0);
+        assertEquals("Task", copied.getTitle());
+        assertEquals(TaskStatus.TODO, copied.getStatus());
+        assertTrue(copied.getUsers().isEmpty());
+        assertNotEquals(task.getTaskId(), copied.getTaskId());
+        assertNotEquals(copied.getTaskId(), second.getEpics().get(0).getFeatures().get(0).getTasks().get(0).getTaskId());
+        assertEquals(2, first.getCourseLevel());
+        assertEquals(templateProject.getProjectId(), template.getSourceProjectId());
+    }
+
+    private Optional<ProjectTemplate> compile(int courseLevel) {
+        compilations.incrementAndGet();
+        return Optional.of(ProjectTemplate.compile(templateProject, Map.of()));
+    }
+}
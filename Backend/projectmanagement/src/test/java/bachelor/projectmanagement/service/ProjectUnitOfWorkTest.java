@@ -0,0 +1,96 @@
+package bachelor.projectmanagement.service;
+
+import bachelor.projectmanagement.model.Project;
+import bachelor.projectmanagement.model.User;
+import bachelor.projectmanagement.util.TestDataBuilder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProjectUnitOfWorkTest {
+
+    private final ProjectUnitOfWork unitOfWork = new ProjectUnitOfWork();
+    private final AtomicInteger loads = new AtomicInteger();
+    private Project project;
+    private Function<String, Optional<Project>> loader;
+
+    @BeforeEach
+    void setUp() {
+        User owner = TestDataBuilder.createTestUser("owner");
+        project = TestDataBuilder.createTestProject("Project", owner);
+        project.setProjectId("p1");
+        loader = id -> {
+            loads.incrementAndGet();
+            return Optional.of(project);
+        };
+    }
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void load_ShouldQueryOncePerRequest() {
+        // Given
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+
+        // When
+        unitOfWork.load("p1", loader);
+        Optional<Project> second = unitOfWork.load("p1", loader);
+
+        // Then
+        assertSame(project, second.orElseThrow());
+        assertEquals(1, loads.get());
+        assertSame(project, unitOfWork.cached("p1").orElseThrow());
+    }
+
+    @Test
+    void load_ShouldNotShareProjectsBetweenRequests() {
+        // Given
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+        unitOfWork.load("p1", loader);
+
+        // When
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+        unitOfWork.load("p1", loader);
+
+        // Then
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void evict_ShouldReloadOnNextLookup() {
+        // Given
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+        unitOfWork.load("p1", loader);
+
+        // When
+        unitOfWork.evict("p1");
+        unitOfWork.load("p1", loader);
+
+        // Then
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void load_ShouldAlwaysQueryOutsideRequest() {
+        // When
+        unitOfWork.load("p1", loader);
+        unitOfWork.load("p1", loader);
+        unitOfWork.put(project);
+
+        // Then
+        assertEquals(2, loads.get());
+        assertTrue(unitOfWork.cached("p1").isEmpty());
+    }
+}
@@ -0,0 +1,175 @@
+package bachelor.projectmanagement.service;
+
+import bachelor.projectmanagement.graphql.input.RosterGroupInput;
+import bachelor.projectmanagement.graphql.input.RosterStudentInput;
+import bachelor.projectmanagement.model.Project;
+import bachelor.projectmanagement.model.User;
+import bachelor.projectmanagement.repository.UserRepository;
+import bachelor.projectmanagement.service.RosterProvisioningResult.Row;
+import bachelor.projectmanagement.service.RosterProvisioningResult.Status;
+import bachelor.projectmanagement.util.TestDataBuilder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RosterProvisioningServiceTest {
+
+    @Mock
+    private UserService userService;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private ProjectService projectService;
+
+    private RosterProvisioningService provisioningService;
+
+    @BeforeEach
+    void setUp() {
+        provisioningService = new RosterProvisioningService(userService, userRepository, projectService, 2);
+        lenient().when(userService.encodePassword(anyString())).thenAnswer(invocation -> "hashed-" + invocation.getArgument(0));
+        lenient().when(projectService.newProjectFromTemplate(anyInt(), anyString(), any()))
+                .thenAnswer(invocation -> {
+                    Project project = new Project();
+                    project.setTitle(invocation.getArgument(1));
+                    return project;
+                });
+        lenient().when(projectService.createProjects(anyList())).thenAnswer(invocation -> {
+            List<Project> projects = invocation.getArgument(0);
+            for (int i = 0; i < projects.size(); i++) {
+                projects.get(i).setProjectId("project-" + i);
+            }
+            return projects;
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        provisioningService.shutdown();
+    }
+
+    @Test
+    void provision_ShouldCreateUsersAndProjectsWithBulkWrites() {
+        // Given
+        when(userRepository.findPrincipalsByUsernameIn(anyCollection())).thenReturn(List.of());
+        when(userRepository.insertUnordered(anyList())).thenReturn(Map.of());
+
+        // When
+        RosterProvisioningResult result = provisioningService.provision(
+                List.of(new RosterStudentInput("alice", "Password1"), new RosterStudentInput("bob", "Password2")),
+                List.of(new RosterGroupInput("Group 1", "First group", 2, List.of("alice", "bob"))));
+
+        // Then
+        assertEquals(2, result.usersCreated());
+        assertEquals(1, result.projectsCreated());
+        assertEquals(0, result.failed());
+
+        ArgumentCaptor<List<User>> users = ArgumentCaptor.forClass(List.class);
+        verify(userRepository, times(1)).insertUnordered(users.capture());
+        assertEquals(List.of("alice", "bob"), users.getValue().stream().map(User::getUsername).toList());
+        assertEquals("hashed-Password1", users.getValue().get(0).getHashedPassword());
+        assertNotNull(users.getValue().get(0).getId());
+
+        ArgumentCaptor<List<Project>> projects = ArgumentCaptor.forClass(List.class);
+        verify(projectService, times(1)).createProjects(projects.capture());
+        assertEquals(2, projects.getValue().get(0).getOwners().size());
+        assertEquals(users.getValue().get(0).getId(), projects.getValue().get(0).getOwners().get(0).getUserId());
+        assertEquals("project-0", result.groups().get(0).id());
+    }
+
+    @Test
+    void provision_ShouldSkipExistingUsersButUseThemInGroups() {
+        // Given
+        User existing = TestDataBuilder.createTestUser("alice");
+        when(userRepository.findPrincipalsByUsernameIn(anyCollection())).thenReturn(List.of(existing));
+
+        // When
+        RosterProvisioningResult result = provisioningService.provision(
+                List.of(new RosterStudentInput("alice", "Password1")),
+                List.of(new RosterGroupInput("Group 1", null, 2, List.of("alice"))));
+
+        // Then
+        Row student = result.students().get(0);
+        assertEquals(Status.SKIPPED, student.status());
+        assertEquals(existing.getId(), student.id());
+        assertEquals(Status.CREATED, result.groups().get(0).status());
+        verify(userService, never()).encodePassword(anyString());
+    }
+
+    @Test
+    void provision_ShouldReportInvalidRowsWithoutStoppingOthers() {
+        // Given
+        when(userRepository.findPrincipalsByUsernameIn(anyCollection())).thenReturn(List.of());
+        lenient().doThrow(new RuntimeException("Password must be at least 8 characters long"))
+                .when(userService).validatePassword("short");
+        when(userRepository.insertUnordered(anyList())).thenReturn(Map.of());
+
+        // When
+        RosterProvisioningResult result = provisioningService.provision(
+                List.of(new RosterStudentInput("alice", "Password1"),
+                        new RosterStudentInput("alice", "Password1"),
+                        new RosterStudentInput("bob", "short")),
+                List.of(new RosterGroupInput("Group 1", null, 2, List.of("alice")),
+                        new RosterGroupInput("Group 2", null, 2, List.of("alice", "bob"))));
+
+        // Then
+        assertEquals(Status.CREATED, result.students().get(0).status());
+        assertEquals("Duplicate username in roster", result.students().get(1).message());
+        assertEquals("Password must be at least 8 characters long", result.students().get(2).message());
+        assertEquals(Status.CREATED, result.groups().get(0).status());
+        assertEquals(Status.FAILED, result.groups().get(1).status());
+        assertTrue(result.groups().get(1).message().contains("bob"));
+        assertEquals(3, result.failed());
+    }
+
+    @Test
+    void provision_ShouldMarkUsersRejectedByDatabaseAsFailed() {
+        // Given
+        when(userRepository.findPrincipalsByUsernameIn(anyCollection())).thenReturn(List.of());
+        when(userRepository.insertUnordered(anyList())).thenReturn(Map.of(1, "Username already exists"));
+
+        // When
+        RosterProvisioningResult result = provisioningService.provision(
+                List.of(new RosterStudentInput("alice", "Password1"), new RosterStudentInput("bob", "Password2")),
+                List.of(new RosterGroupInput("Group 1", null, 2, List.of("bob"))));
+
+        // Then
+        assertEquals(Status.CREATED, result.students().get(0).status());
+        assertEquals(Status.FAILED, result.students().get(1).status());
+        assertEquals(Status.FAILED, result.groups().get(0).status());
+        verify(projectService, never()).createProjects(anyList());
+    }
+
+    @Test
+    void provision_ShouldFailAllGroupsWhenProjectInsertFails() {
+        // Given
+        User alice = TestDataBuilder.createTestUser("alice");
+        when(userRepository.findPrincipalsByUsernameIn(anyCollection())).thenReturn(List.of(alice));
+        when(projectService.createProjects(anyList())).thenThrow(new RuntimeException("Database error"));
+
+        // When
+        RosterProvisioningResult result = provisioningService.provision(
+                List.of(), List.of(new RosterGroupInput("Group 1", null, 2, List.of("alice"))));
+
+        // Then
+        assertEquals(Status.FAILED, result.groups().get(0).status());
+        assertTrue(result.groups().get(0).message().contains("Database error"));
+    }
+}
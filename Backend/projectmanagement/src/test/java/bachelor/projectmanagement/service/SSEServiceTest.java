@@ -1,26 +1,38 @@
 package bachelor.projectmanagement.service;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
-import org.mockito.Spy;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.time.Instant;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
 class SSEServiceTest {
 
-    @Spy
-    private ObjectMapper objectMapper;
+    @Mock
+    private TaskScheduler taskScheduler;
+
+    private final SseHeartbeatWheel heartbeatWheel = new SseHeartbeatWheel(new SimpleMeterRegistry(), 15000, 1000);
 
-    @InjectMocks
     private SSEService sseService;
 
     private final String TEST_PROJECT_ID = "test-project-123";
@@ -28,8 +40,8 @@ class SSEServiceTest {
 
     @BeforeEach
     void setUp() {
-        // Fresh instance for each test
-        sseService = new SSEService();
+        // Fresh instance for each test, sending on the calling thread without coalescing
+        sseService = new SSEService(new SimpleMeterRegistry(), Runnable::run, taskScheduler, heartbeatWheel, new InProcessProjectEventBus(), 256, 0, 128, 600000);
     }
 
     @Test
@@ -322,8 +334,293 @@ class SSEServiceTest {
         assertDoesNotThrow(() -> sseService.sendTaskUpdate(TEST_PROJECT_ID, largeUpdate));
     }
 
+    @Test
+    void sendTaskUpdate_ShouldNotWaitForDispatcher() {
+        // Given - a dispatcher that never gets to run
+        List<Runnable> pending = new ArrayList<>();
+        sseService = new SSEService(new SimpleMeterRegistry(), pending::add, taskScheduler, heartbeatWheel, new InProcessProjectEventBus(), 256, 0, 128, 600000);
+        sseService.createEmitter(TEST_PROJECT_ID);
+        sseService.createEmitter(TEST_PROJECT_ID);
+
+        // When
+        sseService.sendTaskUpdate(TEST_PROJECT_ID, createTestTaskUpdate());
+        sseService.sendTaskUpdate(TEST_PROJECT_ID, createTestTaskUpdate());
+
+        // Then - one drain task per subscriber, however many events are queued
+        assertEquals(2, pending.size());
+        assertEquals(2, sseService.getConnectedClientsCount(TEST_PROJECT_ID));
+    }
+
+    @Test
+    void sendTaskUpdate_ShouldDropSubscriberWhoseQueueIsFull() {
+        // Given - room for the connected event and one update
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        List<Runnable> pending = new ArrayList<>();
+        sseService = new SSEService(registry, pending::add, taskScheduler, heartbeatWheel, new InProcessProjectEventBus(), 2, 0, 128, 600000);
+        sseService.createEmitter(TEST_PROJECT_ID);
+        sseService.sendTaskUpdate(TEST_PROJECT_ID, createTestTaskUpdate());
+
+        // When
+        sseService.sendTaskUpdate(TEST_PROJECT_ID, createTestTaskUpdate());
+
+        // Then
+        assertEquals(0, sseService.getConnectedClientsCount(TEST_PROJECT_ID));
+        assertEquals(1.0, registry.get("sse.subscribers.evicted").counter().count());
+        assertEquals(2.0, registry.get("sse.events.published").counter().count());
+    }
+
+    @Test
+    void sendTaskUpdate_ShouldRemoveSubscriberWhenSendFails() {
+        // Given
+        SseEmitter emitter = sseService.createEmitter(TEST_PROJECT_ID);
+        emitter.complete();
+
+        // When
+        sseService.sendTaskUpdate(TEST_PROJECT_ID, createTestTaskUpdate());
+
+        // Then
+        assertEquals(0, sseService.getConnectedClientsCount(TEST_PROJECT_ID));
+    }
+
+    @Test
+    void sendTaskUpdate_ShouldMergeUpdatesOfSameTaskWithinWindow() {
+        // Given
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        List<List<Object>> sent = new ArrayList<>();
+        sseService = recordingService(registry, sent);
+        sseService.createEmitter(TEST_PROJECT_ID);
+
+        // When
+        sseService.sendTaskUpdate(TEST_PROJECT_ID, new HashMap<>(Map.of("id", "t1", "status", "TODO")));
+        sseService.sendTaskUpdate(TEST_PROJECT_ID, new HashMap<>(Map.of("id", "t2", "title", "Other")));
+        sseService.sendTaskUpdate(TEST_PROJECT_ID, new HashMap<>(Map.of("id", "t1", "status", "DONE", "title", "Moved")));
+        assertTrue(sent.isEmpty());
+        runScheduledFlush();
+
+        // Then - one event per task, the first with both updates merged
+        assertEquals(List.of(
+                List.of("taskUpdate", Map.of("id", "t1", "status", "DONE", "title", "Moved")),
+                List.of("taskUpdate", Map.of("id", "t2", "title", "Other"))), sent);
+        assertEquals(1.0, registry.get("sse.events.coalesced").counter().count());
+        verify(taskScheduler, times(1)).schedule(any(Runnable.class), any(Instant.class));
+    }
+
+    @Test
+    void sendTaskDeleted_ShouldSendHeldUpdatesFirst() {
+        // Given
+        List<List<Object>> sent = new ArrayList<>();
+        sseService = recordingService(new SimpleMeterRegistry(), sent);
+        sseService.createEmitter(TEST_PROJECT_ID);
+        sseService.sendTaskUpdate(TEST_PROJECT_ID, new HashMap<>(Map.of("id", "t1", "status", "DONE")));
+
+        // When
+        sseService.sendTaskDeleted(TEST_PROJECT_ID, Map.of("taskId", "t1"));
+        runScheduledFlush();
+
+        // Then
+        assertEquals(List.of(
+                List.of("taskUpdate", Map.of("id", "t1", "status", "DONE")),
+                List.of("taskDeleted", Map.of("taskId", "t1"))), sent);
+    }
+
+    @Test
+    void sendTaskUpdate_ShouldNotMergeUpdatesOfDifferentEntityTypes() {
+        // Given
+        List<List<Object>> sent = new ArrayList<>();
+        sseService = recordingService(new SimpleMeterRegistry(), sent);
+        sseService.createEmitter(TEST_PROJECT_ID);
+
+        // When
+        sseService.sendEpicUpdate(TEST_PROJECT_ID, new HashMap<>(Map.of("id", "x1", "title", "Epic")));
+        sseService.sendFeatureUpdate(TEST_PROJECT_ID, new HashMap<>(Map.of("id", "x1", "title", "Feature")));
+        runScheduledFlush();
+
+        // Then
+        assertEquals(List.of(
+                List.of("epicUpdate", Map.of("id", "x1", "title", "Epic")),
+                List.of("featureUpdate", Map.of("id", "x1", "title", "Feature"))), sent);
+    }
+
+    @Test
+    void createEmitter_ShouldSendResyncWhenLastEventIdIsNotKept() {
+        // Given
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        sseService = new SSEService(registry, Runnable::run, taskScheduler, heartbeatWheel, new InProcessProjectEventBus(), 256, 0, 128, 600000);
+        sseService.createEmitter(TEST_PROJECT_ID);
+        sseService.sendTaskDeleted(TEST_PROJECT_ID, Map.of("taskId", "t1"));
+
+        // When
+        sseService.createEmitter(TEST_PROJECT_ID, "42");
+        sseService.createEmitter(TEST_PROJECT_ID, "not-an-id");
+
+        // Then
+        assertEquals(2.0, registry.get("sse.resumes").tag("outcome", "resync").counter().count());
+        assertEquals(0.0, registry.get("sse.resumes").tag("outcome", "replayed").counter().count());
+    }
+
+    @Test
+    void sendTaskDeleted_ShouldKeepEventsAfterLastSubscriberLeft() {
+        // Given - a project that had a subscriber
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        sseService = new SSEService(registry, Runnable::run, taskScheduler, heartbeatWheel, new InProcessProjectEventBus(), 256, 0, 128, 600000);
+        sseService.createEmitter(TEST_PROJECT_ID).complete();
+        sseService.sendTaskDeleted(TEST_PROJECT_ID, Map.of("taskId", "t1"));
+
+        // When - nobody is connected
+        sseService.sendTaskDeleted(TEST_PROJECT_ID, Map.of("taskId", "t2"));
+
+        // Then - both events are still kept for a client that reconnects
+        assertEquals(0, sseService.getConnectedClientsCount(TEST_PROJECT_ID));
+        assertEquals(2.0, registry.get("sse.events.published").counter().count());
+    }
+
+    @Test
+    void createEmitter_ShouldReplayEventsMissedSinceLastEventId() {
+        // Given - a client that saw the first of two events
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        InProcessProjectEventBus eventBus = new InProcessProjectEventBus();
+        sseService = new SSEService(registry, Runnable::run, taskScheduler, heartbeatWheel, eventBus, 256, 0, 128, 600000);
+        sseService.createEmitter(TEST_PROJECT_ID);
+        sseService.sendTaskDeleted(TEST_PROJECT_ID, Map.of("taskId", "t1"));
+        long firstId = eventBus.position();
+        sseService.sendTaskDeleted(TEST_PROJECT_ID, Map.of("taskId", "t2"));
+
+        // When
+        sseService.createEmitter(TEST_PROJECT_ID, String.valueOf(firstId));
+
+        // Then
+        assertEquals(1.0, registry.get("sse.resumes").tag("outcome", "replayed").counter().count());
+        assertEquals(0.0, registry.get("sse.resumes").tag("outcome", "resync").counter().count());
+    }
+
+    @Test
+    void sendTaskDeleted_ShouldReachSubscribersOfOtherInstances() {
+        // Given - two instances sharing a bus, the client is connected to the second
+        InProcessProjectEventBus eventBus = new InProcessProjectEventBus();
+        SimpleMeterRegistry publisherRegistry = new SimpleMeterRegistry();
+        SimpleMeterRegistry subscriberRegistry = new SimpleMeterRegistry();
+        SSEService publisher = new SSEService(publisherRegistry, Runnable::run, taskScheduler, heartbeatWheel, eventBus, 256, 0, 128, 600000);
+        SSEService subscriber = new SSEService(subscriberRegistry, Runnable::run, taskScheduler, heartbeatWheel, eventBus, 256, 0, 128, 600000);
+        subscriber.createEmitter(TEST_PROJECT_ID);
+
+        // When
+        publisher.sendTaskDeleted(TEST_PROJECT_ID, Map.of("taskId", "t1"));
+
+        // Then - fanned out where the client is, nothing to do on the publishing instance
+        assertEquals(1.0, subscriberRegistry.get("sse.events.published").counter().count());
+        assertEquals(0.0, publisherRegistry.get("sse.events.published").counter().count());
+    }
+
+    @Test
+    void flushPendingUpdates_ShouldForgetProjectWithoutSubscribers() {
+        // Given - an update held for a project nobody on this instance follows
+        List<List<Object>> sent = new ArrayList<>();
+        sseService = recordingService(new SimpleMeterRegistry(), sent);
+        sseService.sendTaskUpdate(TEST_PROJECT_ID, Map.of("id", "t1", "title", "A"));
+        assertEquals(1, sseService.getTrackedProjectCount());
+
+        // When
+        runScheduledFlush();
+
+        // Then
+        assertEquals(1, sent.size());
+        assertEquals(0, sseService.getTrackedProjectCount());
+    }
+
+    @Test
+    void sendTaskDeleted_ShouldNotThrowWhenEventBusFails() {
+        // Given
+        ProjectEventBus eventBus = mock(ProjectEventBus.class);
+        doThrow(new IllegalStateException("Database unavailable")).when(eventBus).publish(any(), any(), any());
+        sseService = new SSEService(new SimpleMeterRegistry(), Runnable::run, taskScheduler, heartbeatWheel, eventBus, 256, 0, 128, 600000);
+
+        // When & Then
+        assertDoesNotThrow(() -> sseService.sendTaskDeleted(TEST_PROJECT_ID, Map.of("taskId", "t1")));
+        verify(eventBus).publish(eq(TEST_PROJECT_ID), eq("taskDeleted"), any());
+    }
+
+    @Test
+    void flushPendingUpdates_ShouldStartNewWindowAfterFailedFlush() {
+        // Given - publishing the first held update fails
+        List<List<Object>> sent = new ArrayList<>();
+        AtomicBoolean failed = new AtomicBoolean();
+        sseService = new SSEService(new SimpleMeterRegistry(), Runnable::run, taskScheduler, heartbeatWheel, new InProcessProjectEventBus(), 256, 250, 128, 600000) {
+            @Override
+            void publish(String projectId, String eventName, Object data) {
+                if (failed.compareAndSet(false, true)) {
+                    throw new IllegalStateException("Serializer broke");
+                }
+                sent.add(List.of(eventName, data));
+            }
+        };
+        sseService.createEmitter(TEST_PROJECT_ID);
+        sseService.sendTaskUpdate(TEST_PROJECT_ID, Map.of("id", "t1", "title", "A"));
+        assertThrows(IllegalStateException.class, this::runScheduledFlush);
+
+        // When
+        sseService.sendTaskUpdate(TEST_PROJECT_ID, Map.of("id", "t1", "title", "B"));
+
+        // Then - the failed update is gone and the new one got a flush of its own
+        verify(taskScheduler, times(2)).schedule(any(Runnable.class), any(Instant.class));
+        sseService.flushPendingUpdates(TEST_PROJECT_ID);
+        assertEquals(List.of(List.of("taskUpdate", Map.of("id", "t1", "title", "B"))), sent);
+    }
+
+    @Test
+    void dropIdleEventLogs_ShouldForgetProjectOnceItsLogIsDropped() {
+        // Given - a project whose last subscriber left, kept for replay only
+        sseService = new SSEService(new SimpleMeterRegistry(), Runnable::run, taskScheduler, heartbeatWheel, new InProcessProjectEventBus(), 256, 0, 128, 0);
+        sseService.createEmitter(TEST_PROJECT_ID).complete();
+        sseService.sendTaskDeleted(TEST_PROJECT_ID, Map.of("taskId", "t1"));
+        assertEquals(0, sseService.getConnectedClientsCount(TEST_PROJECT_ID));
+        assertEquals(1, sseService.getTrackedProjectCount());
+
+        // When
+        sseService.dropIdleEventLogs();
+
+        // Then
+        assertEquals(0, sseService.getTrackedProjectCount());
+    }
+
+    @Test
+    void frame_ShouldPutIdFirst() {
+        // When
+        Set<ResponseBodyEmitter.DataWithMediaType> frame = SSEService.frame(7L, "taskDeleted", "{}");
+
+        // Then
+        assertEquals("id:7\nevent:taskDeleted\ndata:{}\n\n", frame.iterator().next().getData());
+    }
+
+    @Test
+    void frame_ShouldEncodeWholeEventAsOnePiece() {
+        // When
+        Set<ResponseBodyEmitter.DataWithMediaType> frame = SSEService.frame("taskUpdate", "{\"taskId\":\"t1\"}");
+
+        // Then
+        assertEquals(1, frame.size());
+        ResponseBodyEmitter.DataWithMediaType piece = frame.iterator().next();
+        assertEquals("event:taskUpdate\ndata:{\"taskId\":\"t1\"}\n\n", piece.getData());
+        assertTrue(MediaType.TEXT_PLAIN.includes(piece.getMediaType()));
+    }
+
     // Helper methods to create test data
 
+    private SSEService recordingService(SimpleMeterRegistry registry, List<List<Object>> sent) {
+        return new SSEService(registry, Runnable::run, taskScheduler, heartbeatWheel, new InProcessProjectEventBus(), 256, 250, 128, 600000) {
+            @Override
+            void publish(String projectId, String eventName, Object data) {
+                sent.add(List.of(eventName, data));
+                super.publish(projectId, eventName, data);
+            }
+        };
+    }
+
+    private void runScheduledFlush() {
+        ArgumentCaptor<Runnable> flush = ArgumentCaptor.forClass(Runnable.class);
+        verify(taskScheduler, atLeastOnce()).schedule(flush.capture(), any(Instant.class));
+        flush.getAllValues().forEach(Runnable::run);
+    }
+
     private Map<String, Object> createTestTaskUpdate() {
         Map<String, Object> taskUpdate = new HashMap<>();
         taskUpdate.put("taskId", "task-123");
@@ -0,0 +1,102 @@
+package bachelor.projectmanagement.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SseEventLogTest {
+
+    private static final long POSITION = 1_700_000_000_000_000L;
+
+    @Test
+    void append_ShouldKeepEventsWithIncreasingIds() {
+        // Given - ids with gaps, as other projects share the bus sequence
+        SseEventLog log = new SseEventLog(4, POSITION);
+
+        // When
+        boolean first = log.append(POSITION + 3, SSEService.frame(POSITION + 3, "taskDeleted", "{}"));
+        boolean second = log.append(POSITION + 7, SSEService.frame(POSITION + 7, "taskDeleted", "{}"));
+
+        // Then
+        assertTrue(first);
+        assertTrue(second);
+        assertEquals(POSITION + 7, log.getLastId());
+    }
+
+    @Test
+    void append_ShouldIgnoreEventsNotAfterLatestId() {
+        // Given
+        SseEventLog log = logWith(2);
+
+        // When & Then
+        assertFalse(log.append(POSITION, SSEService.frame(POSITION, "taskDeleted", "{}")));
+        assertFalse(log.append(POSITION + 20, SSEService.frame(POSITION + 20, "taskDeleted", "{}")));
+        assertEquals(2, log.since(POSITION).size());
+    }
+
+    @Test
+    void since_ShouldReturnEventsAfterLastSeenId() {
+        // Given - events 10, 20, 30 after the position
+        SseEventLog log = logWith(3);
+
+        // When
+        List<SseEventLog.Entry> missed = log.since(POSITION + 10);
+
+        // Then
+        assertEquals(List.of(POSITION + 20, POSITION + 30), missed.stream().map(SseEventLog.Entry::id).toList());
+    }
+
+    @Test
+    void since_ShouldReturnEverythingForClientThatConnectedBeforeFirstEvent() {
+        // Given - the connected event of an empty log carries its position
+        SseEventLog log = new SseEventLog(4, POSITION);
+        long position = log.getLastId();
+        log.append(POSITION + 1, SSEService.frame(POSITION + 1, "taskDeleted", "{}"));
+
+        // When
+        List<SseEventLog.Entry> missed = log.since(position);
+
+        // Then
+        assertEquals(1, missed.size());
+    }
+
+    @Test
+    void since_ShouldReturnEmptyListWhenNothingWasMissed() {
+        // Given
+        SseEventLog log = logWith(2);
+
+        // When & Then
+        assertEquals(List.of(), log.since(log.getLastId()));
+    }
+
+    @Test
+    void since_ShouldReturnNullWhenMissedEventsWereOverwritten() {
+        // Given - six events in a log of four, the first two are gone
+        SseEventLog log = logWith(6);
+
+        // When & Then
+        assertNull(log.since(POSITION + 10));
+        assertEquals(4, log.since(POSITION + 20).size());
+    }
+
+    @Test
+    void since_ShouldReturnNullForIdsFromBeforeLogOrUnknown() {
+        // Given
+        SseEventLog log = logWith(2);
+
+        // When & Then
+        assertNull(log.since(POSITION - 5));
+        assertNull(log.since(POSITION + 21));
+    }
+
+    // Events with ids POSITION + 10, + 20, ...
+    private SseEventLog logWith(int events) {
+        SseEventLog log = new SseEventLog(4, POSITION);
+        for (int i = 1; i <= events; i++) {
+            log.append(POSITION + i * 10, SSEService.frame(POSITION + i * 10, "taskDeleted", "{}"));
+        }
+        return log;
+    }
+}
@@ -0,0 +1,191 @@
+package bachelor.projectmanagement.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SseHeartbeatWheelTest {
+
+    @Mock
+    private SseEmitter emitter;
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final List<SseSubscriber> failed = new ArrayList<>();
+
+    @Test
+    void tick_ShouldPingIdleSubscriber() throws IOException {
+        // Given - every subscriber counts as idle with an interval of 0
+        SseHeartbeatWheel wheel = new SseHeartbeatWheel(registry, 0, 1000);
+        wheel.add(subscriber(256, Runnable::run));
+
+        // When
+        wheel.tick();
+
+        // Then
+        verify(emitter).send(anyFrame());
+        assertEquals(1.0, registry.get("sse.subscribers.idle").gauge().value());
+        assertTrue(failed.isEmpty());
+    }
+
+    @Test
+    void tick_ShouldNotPingSubscriberWithRecentEvent() {
+        // Given
+        SseHeartbeatWheel wheel = new SseHeartbeatWheel(registry, 60000, 1000);
+        wheel.add(subscriber(256, Runnable::run));
+
+        // When
+        wheel.tick();
+
+        // Then
+        verifyNoInteractions(emitter);
+        assertEquals(0.0, registry.get("sse.subscribers.idle").gauge().value());
+    }
+
+    @Test
+    void tick_ShouldReapSubscriberWhosePingFails() throws IOException {
+        // Given
+        doThrow(new IOException("Broken pipe")).when(emitter).send(anyFrame());
+        SseHeartbeatWheel wheel = new SseHeartbeatWheel(registry, 0, 1000);
+        SseSubscriber subscriber = subscriber(256, Runnable::run);
+        wheel.add(subscriber);
+
+        // When
+        wheel.tick();
+
+        // Then
+        assertEquals(List.of(subscriber), failed);
+        assertTrue(subscriber.isClosed());
+    }
+
+    @Test
+    void tick_ShouldReapSubscriberTooFarBehindForPing() {
+        // Given - a dispatcher that never runs and a queue that is already full
+        List<Runnable> pending = new ArrayList<>();
+        SseHeartbeatWheel wheel = new SseHeartbeatWheel(registry, 0, 1000);
+        SseSubscriber subscriber = subscriber(1, pending::add);
+        subscriber.offer(SSEService.frame("taskDeleted", "{}"));
+        wheel.add(subscriber);
+
+        // When
+        wheel.tick();
+
+        // Then
+        assertEquals(List.of(subscriber), failed);
+    }
+
+    @Test
+    void tick_ShouldReapStuckSubscriberWithoutAnotherThread() throws Exception {
+        // Given - a send that blocks like a write to a half-open connection
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            release.await();
+            return null;
+        }).when(emitter).send(anyFrame());
+        AtomicInteger tasks = new AtomicInteger();
+        ExecutorService dispatcher = Executors.newCachedThreadPool();
+        SseSubscriber subscriber = subscriber(256, task -> {
+            tasks.incrementAndGet();
+            dispatcher.execute(task);
+        });
+        subscriber.offer(SSEService.frame("taskDeleted", "{}"));
+        while (subscriber.getSendStartedAt() == 0) {
+            Thread.sleep(1);
+        }
+        Thread.sleep(5);
+        SseHeartbeatWheel wheel = new SseHeartbeatWheel(registry, 1, 1);
+        wheel.add(subscriber);
+
+        // When
+        wheel.tick();
+
+        // Then - dropped right away, the response is ended by the stuck task once its send returns
+        assertEquals(List.of(subscriber), failed);
+        assertEquals(1, tasks.get());
+        // Read from the recorded calls, verifying complete() would wait for the emitter's lock too
+        assertEquals(0, completeCalls());
+        release.countDown();
+        dispatcher.shutdown();
+        assertTrue(dispatcher.awaitTermination(1, TimeUnit.SECONDS));
+        assertEquals(1, completeCalls());
+    }
+
+    @Test
+    void close_ShouldCompleteEmitterOnce() {
+        // Given
+        SseSubscriber subscriber = subscriber(256, Runnable::run);
+
+        // When
+        subscriber.close();
+        subscriber.fail();
+
+        // Then
+        verify(emitter, times(1)).complete();
+        assertTrue(failed.isEmpty());
+    }
+
+    @Test
+    void tick_ShouldVisitOneSlotPerTick() {
+        // Given - three slots, one subscriber each
+        SseHeartbeatWheel wheel = new SseHeartbeatWheel(registry, 3000, 1000);
+        SseSubscriber first = subscriber(256, Runnable::run);
+        wheel.add(first);
+        wheel.add(subscriber(256, Runnable::run));
+        wheel.add(subscriber(256, Runnable::run));
+        first.close();
+
+        // When - only the first slot is visited, which drops the closed subscriber
+        wheel.tick();
+
+        // Then
+        assertEquals(2, wheel.getSubscriberCount());
+    }
+
+    @Test
+    void remove_ShouldTakeSubscriberOffTheWheel() {
+        // Given
+        SseHeartbeatWheel wheel = new SseHeartbeatWheel(registry, 3000, 1000);
+        SseSubscriber subscriber = subscriber(256, Runnable::run);
+        wheel.add(subscriber);
+
+        // When
+        wheel.remove(subscriber);
+
+        // Then
+        assertEquals(0, wheel.getSubscriberCount());
+    }
+
+    private long completeCalls() {
+        return mockingDetails(emitter).getInvocations().stream()
+                .filter(invocation -> invocation.getMethod().getName().equals("complete"))
+                .count();
+    }
+
+    private SseSubscriber subscriber(int queueCapacity, Executor executor) {
+        return new SseSubscriber("p1", emitter, queueCapacity, executor, failed::add);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Set<ResponseBodyEmitter.DataWithMediaType> anyFrame() {
+        return any(Set.class);
+    }
+}
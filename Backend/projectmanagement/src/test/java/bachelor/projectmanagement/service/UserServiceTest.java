@@ -1,6 +1,7 @@
 package bachelor.projectmanagement.service;
 
 import bachelor.projectmanagement.model.User;
+import bachelor.projectmanagement.repository.ProjectRepository;
 import bachelor.projectmanagement.repository.UserRepository;
 import bachelor.projectmanagement.util.TestDataBuilder;
 import org.junit.jupiter.api.BeforeEach;
@@ -24,6 +25,12 @@ class UserServiceTest {
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private ProjectRepository projectRepository;
+
+    @Mock
+    private ProjectMembershipIndex membershipIndex;
+
     @InjectMocks
     private UserService userService;
 
@@ -212,4 +219,32 @@ class UserServiceTest {
         // Then
         assertEquals("USER", result.getRole());
     }
-}
\ No newline at end of file
+
+    @Test
+    void updateUsername_ShouldRenameUserAndOwnerReferences() {
+        // Given
+        User user = TestDataBuilder.createTestUser("oldname");
+        when(userRepository.findByUsername("newname")).thenReturn(Optional.empty());
+        when(userRepository.save(user)).thenReturn(user);
+
+        // When
+        User result = userService.updateUsername(user, "newname");
+
+        // Then
+        assertEquals("newname", result.getUsername());
+        verify(projectRepository).renameUserRefs(user.getId(), "newname");
+        verify(membershipIndex).renameUser("oldname", "newname");
+    }
+
+    @Test
+    void updateUsername_ShouldRejectTakenUsername() {
+        // Given
+        User user = TestDataBuilder.createTestUser("oldname");
+        when(userRepository.findByUsername("taken")).thenReturn(Optional.of(TestDataBuilder.createTestUser("taken")));
+
+        // When & Then
+        assertThrows(RuntimeException.class, () -> userService.updateUsername(user, "taken"));
+        verify(userRepository, never()).save(any(User.class));
+        verify(projectRepository, never()).renameUserRefs(anyString(), anyString());
+    }
+}
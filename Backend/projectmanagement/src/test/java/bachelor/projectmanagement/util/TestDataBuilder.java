@@ -19,7 +19,7 @@ public class TestDataBuilder {
         user.setId(UUID.randomUUID().toString());
         user.setUsername(username);
         user.setHashedPassword("hashedPassword");
-        user.setProjects(new ArrayList<>());
+        user.setProjectIds(new ArrayList<>());
         return user;
     }
 
@@ -179,6 +179,35 @@ const Project: React.FC = () => {
           addRealtimeNotification(`Task updated`, `task-${data.id}`);
           break;
 
+        case 'tasksBatchUpdate':
+          setProject((prevProject: any) => {
+            if (!prevProject) return prevProject;
+
+            const updatesById = new Map<string, any>(
+              (data.tasks || []).map((update: any) => [update.id, update])
+            );
+
+            const updateTasksInEpics = (epics: any[]): any[] => {
+              return epics.map(epic => ({
+                ...epic,
+                features: (epic.features || []).map((feature: any) => ({
+                  ...feature,
+                  tasks: (feature.tasks || []).map((task: any) =>
+                    updatesById.has(task.id) ? { ...task, ...updatesById.get(task.id) } : task
+                  )
+                }))
+              }));
+            };
+
+            return {
+              ...prevProject,
+              epics: updateTasksInEpics(prevProject.epics || [])
+            };
+          });
+
+          addRealtimeNotification(`${(data.tasks || []).length} tasks updated`);
+          break;
+
         case 'taskCreated':
           setProject((prevProject: any) => {
             if (!prevProject) return prevProject;
@@ -359,6 +388,11 @@ const Project: React.FC = () => {
           addRealtimeNotification(`Project updated`, `project-${projectId}`);
           break;
 
+        case 'resync':
+          // Updates were missed while disconnected and cannot be replayed, load the project again
+          fetchProjectById();
+          break;
+
         default:
           break;
       }
@@ -371,7 +405,7 @@ const Project: React.FC = () => {
       // Unsubscribe when component unmounts
       sseService.unsubscribeFromProject(projectId, handleSSEEvent);
     };
-  }, [projectId, addRealtimeNotification]);
+  }, [projectId, addRealtimeNotification, fetchProjectById]);
 
   useEffect(() => {
     fetchProjectById();
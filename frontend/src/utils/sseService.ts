@@ -2,10 +2,10 @@ import { client } from './apolloClientSetup';
 import { config } from '../config/environment';
 
 export interface SSEEvent {
-  type: 'taskUpdate' | 'taskCreated' | 'taskUserAssigned' | 'taskDeleted' | 
+  type: 'taskUpdate' | 'tasksBatchUpdate' | 'taskCreated' | 'taskUserAssigned' | 'taskDeleted' | 
         'epicUpdate' | 'epicCreated' | 'epicDeleted' | 
         'featureUpdate' | 'featureCreated' | 'featureDeleted' | 
-        'projectUpdate';
+        'projectUpdate' | 'resync';
   data: any;
 }
 
@@ -25,6 +25,8 @@ class SSEService {
   private eventSources: Map<string, EventSource> = new Map();
   private listeners: Map<string, ((event: SSEEvent) => void)[]> = new Map();
   private reconnectionStates: Map<string, ReconnectionState> = new Map();
+  // Id of the last event received per project, sent when reconnecting to get the missed events
+  private lastEventIds: Map<string, string> = new Map();
   private readonly CONNECTION_TIMEOUT = 15000; // 15 seconds to establish connection
 
   /**
@@ -104,7 +106,9 @@ class SSEService {
       this.reconnectionStates.set(projectId, state);
     }
 
-    const url = `${config.API_BASE_URL}/sse/project/${projectId}?token=${encodeURIComponent(token)}`;
+    const lastEventId = this.lastEventIds.get(projectId);
+    const url = `${config.API_BASE_URL}/sse/project/${projectId}?token=${encodeURIComponent(token)}`
+      + (lastEventId ? `&lastEventId=${encodeURIComponent(lastEventId)}` : '');
     
     const eventSource = new EventSource(url);
     
@@ -164,56 +168,85 @@ class SSEService {
 
     // Handle different event types
     eventSource.addEventListener('connected', (event) => {
-      // Handshake completed
+      // Handshake completed, the id is the position the stream continues from
+      this.rememberEventId(projectId, event);
+    });
+
+    // Events missed while disconnected are no longer kept on the server, listeners reload the project
+    eventSource.addEventListener('resync', (event) => {
+      this.handleSSEEvent(projectId, 'resync', event.data);
     });
 
     eventSource.addEventListener('taskUpdate', (event) => {
+      this.rememberEventId(projectId, event);
       this.handleSSEEvent(projectId, 'taskUpdate', event.data);
     });
 
+    eventSource.addEventListener('tasksBatchUpdate', (event) => {
+      this.rememberEventId(projectId, event);
+      this.handleSSEEvent(projectId, 'tasksBatchUpdate', event.data);
+    });
+
     eventSource.addEventListener('taskCreated', (event) => {
+      this.rememberEventId(projectId, event);
       this.handleSSEEvent(projectId, 'taskCreated', event.data);
     });
 
     eventSource.addEventListener('taskUserAssigned', (event) => {
+      this.rememberEventId(projectId, event);
       this.handleSSEEvent(projectId, 'taskUserAssigned', event.data);
     });
 
     eventSource.addEventListener('taskDeleted', (event) => {
+      this.rememberEventId(projectId, event);
       this.handleSSEEvent(projectId, 'taskDeleted', event.data);
     });
 
     eventSource.addEventListener('epicUpdate', (event) => {
+      this.rememberEventId(projectId, event);
       this.handleSSEEvent(projectId, 'epicUpdate', event.data);
     });
 
     eventSource.addEventListener('epicCreated', (event) => {
+      this.rememberEventId(projectId, event);
       this.handleSSEEvent(projectId, 'epicCreated', event.data);
     });
 
     eventSource.addEventListener('epicDeleted', (event) => {
+      this.rememberEventId(projectId, event);
       this.handleSSEEvent(projectId, 'epicDeleted', event.data);
     });
 
     eventSource.addEventListener('featureUpdate', (event) => {
+      this.rememberEventId(projectId, event);
       this.handleSSEEvent(projectId, 'featureUpdate', event.data);
     });
 
     eventSource.addEventListener('featureCreated', (event) => {
+      this.rememberEventId(projectId, event);
       this.handleSSEEvent(projectId, 'featureCreated', event.data);
     });
 
     eventSource.addEventListener('featureDeleted', (event) => {
+      this.rememberEventId(projectId, event);
       this.handleSSEEvent(projectId, 'featureDeleted', event.data);
     });
 
     eventSource.addEventListener('projectUpdate', (event) => {
+      this.rememberEventId(projectId, event);
       this.handleSSEEvent(projectId, 'projectUpdate', event.data);
     });
 
     this.eventSources.set(projectId, eventSource);
   }
 
+  private rememberEventId(projectId: string, event: Event): void {
+    const id = (event as MessageEvent).lastEventId;
+    if (id) {
+      this.lastEventIds.set(projectId, id);
+    }
+  }
+
   /**
    * Handle incoming SSE events
    */
@@ -317,6 +350,7 @@ class SSEService {
       }
     }
     this.reconnectionStates.delete(projectId);
+    this.lastEventIds.delete(projectId);
   }
 
   /**
@@ -335,6 +369,7 @@ class SSEService {
       }
     });
     this.reconnectionStates.clear();
+    this.lastEventIds.clear();
 
     this.eventSources.forEach((eventSource, projectId) => {
       eventSource.close();